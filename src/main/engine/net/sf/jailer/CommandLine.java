@@ -144,12 +144,27 @@ public class CommandLine {
 	@Option(name="-order-by-pk", usage="Orders the exported rows according to the primary key.")
 	public boolean orderByPK = false;
 
+	@Option(name="-pipelined", usage="resolve the associations of a table as soon as its rows are collected instead of day by day")
+	public boolean pipelined = false;
+
+	@Option(name="-key-table-threshold", usage="working table scope LOCAL_DATABASE: sets of more than this number of keys are shipped to the source database via a temporary table instead of inline-views (default is 0, no temporary tables)", metaVar="#keys")
+	public int keyTableThreshold = 0;
+
+	@Option(name="-write-planner-memory", usage="sorts the rows of tables with cyclic dependencies topologically in memory, using up to this number of megabytes (default is 0, sorting by working table updates)", metaVar="#MB")
+	public int writePlannerMemory = 0;
+
 	@Option(name="-independent-working-tables", usage="create working tables that are independent of the extraction model. (Potentially less efficient)")
 	public boolean independentWorkingTables = false;
 	
+	@Option(name="-per-graph-working-tables", usage="create-ddl: the entities of each export are collected in separate working tables, which are dropped afterwards instead of deleting rows (working table scope GLOBAL)")
+	public boolean perGraphWorkingTables = false;
+	
 	@Option(name="-transactional", usage="import rows in a single transaction")
 	public boolean transactional = false;
 	
+	@Option(name="-batch-size", usage="import: number of consecutive inserts into the same table executed as one JDBC batch (default is 0, no batching)", metaVar="#statements")
+	public int batchSize = 0;
+	
 	@Option(name="-isolation-level", usage="isolation level (optional), 1=READ_UNCOMMITTED, 2=READ_COMMITTED, 4=REPEATABLE_READ, 8=SERIALIZABLE")
 	public Integer isolationLevel = null;
 	
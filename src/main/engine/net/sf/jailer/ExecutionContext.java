@@ -20,13 +20,17 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.sql.Connection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 
+import javax.sql.DataSource;
+
 import net.sf.jailer.api.Subsetter;
 import net.sf.jailer.configuration.DBMS;
 import net.sf.jailer.database.WorkingTableScope;
+import net.sf.jailer.extractionmodel.ExtractionModel;
 import net.sf.jailer.progress.ProgressListenerRegistry;
 import net.sf.jailer.subsetting.InconsistentSubsettingResultException;
 import net.sf.jailer.subsetting.ScriptFormat;
@@ -77,6 +81,11 @@ public class ExecutionContext {
 		this.datamodelFolder = other.datamodelFolder;
 		this.noSorting = other.noSorting;
 		this.orderByPK = other.orderByPK;
+		this.pipelined = other.pipelined;
+		this.transferTarget = other.transferTarget;
+		this.transferBatchSize = other.transferBatchSize;
+		this.keyTableThreshold = other.keyTableThreshold;
+		this.writePlannerMemory = other.writePlannerMemory;
 		this.transactional = other.transactional;
 		this.isolationLevel = other.isolationLevel;
 		this.noRowid = other.noRowid;
@@ -88,9 +97,13 @@ public class ExecutionContext {
 		this.insertIncrementally = other.insertIncrementally;
 		this.abortInCaseOfInconsistency = other.abortInCaseOfInconsistency;
 		this.independentWorkingTables = other.independentWorkingTables;
+		this.perGraphWorkingTables = other.perGraphWorkingTables;
+		this.maxNumberOfEntities = other.maxNumberOfEntities;
+		this.maxNumberOfConnections = other.maxNumberOfConnections;
 		this.upkDomain = other.upkDomain;
 		this.currentConnectionAlias = other.currentConnectionAlias;
 // don't share progressListenerRegistry, was: this.progressListenerRegistry = other.progressListenerRegistry;
+		this.modelPool = other.modelPool;
 	}
 
 	/**
@@ -470,6 +483,80 @@ public class ExecutionContext {
 		this.orderByPK = orderByPK;
 	}
 
+	/**
+	 * If <code>true</code>, the associations of a table are resolved as soon as its rows are collected instead of day by day.
+	 */
+	public boolean getPipelined() {
+		return pipelined;
+	}
+
+	/**
+	 * @param pipelined if <code>true</code>, the associations of a table are resolved as soon as its rows are collected instead of day by day
+	 */
+	public void setPipelined(boolean pipelined) {
+		this.pipelined = pipelined;
+	}
+
+	/**
+	 * Gets the database into which the exported rows are inserted directly, or <code>null</code> if rows are written into the script.
+	 */
+	public DataSource getTransferTarget() {
+		return transferTarget;
+	}
+
+	/**
+	 * @param transferTarget the database into which the exported rows are inserted directly, or <code>null</code> if rows are written into the script
+	 */
+	public void setTransferTarget(DataSource transferTarget) {
+		this.transferTarget = transferTarget;
+	}
+
+	/**
+	 * Gets the number of rows per batch for direct transfer.
+	 */
+	public int getTransferBatchSize() {
+		return transferBatchSize;
+	}
+
+	/**
+	 * @param transferBatchSize the number of rows per batch for direct transfer
+	 */
+	public void setTransferBatchSize(int transferBatchSize) {
+		this.transferBatchSize = transferBatchSize;
+	}
+
+	/**
+	 * Gets the number of keys above which the local entity graph ships keys to the source database
+	 * via a temporary table instead of inline-views (0 if temporary tables are not used).
+	 */
+	public int getKeyTableThreshold() {
+		return keyTableThreshold;
+	}
+
+	/**
+	 * @param keyTableThreshold the number of keys above which the local entity graph ships keys to the source database
+	 * via a temporary table instead of inline-views (0 if temporary tables are not used)
+	 */
+	public void setKeyTableThreshold(int keyTableThreshold) {
+		this.keyTableThreshold = keyTableThreshold;
+	}
+
+	/**
+	 * Gets the memory (in megabytes) available for sorting the rows of tables with cyclic dependencies
+	 * topologically in memory (0 if the rows are sorted by updates of the working tables).
+	 */
+	public int getWritePlannerMemory() {
+		return writePlannerMemory;
+	}
+
+	/**
+	 * @param writePlannerMemory the memory (in megabytes) available for sorting the rows of tables with cyclic dependencies
+	 * topologically in memory (0 if the rows are sorted by updates of the working tables)
+	 */
+	public void setWritePlannerMemory(int writePlannerMemory) {
+		this.writePlannerMemory = writePlannerMemory;
+	}
+
 	/**
 	 * If <code>true</code>, Import rows in a single transaction
 	 *
@@ -842,6 +929,21 @@ public class ExecutionContext {
 	// orders the exported rows according to the primary key
 	private boolean orderByPK = false;
 
+	// resolve the associations of a table as soon as its rows are collected instead of day by day
+	private boolean pipelined = false;
+
+	// insert the exported rows directly into this database
+	private DataSource transferTarget = null;
+
+	// number of rows per batch for direct transfer
+	private int transferBatchSize = 1000;
+
+	// ship key sets larger than this to the source database via a temporary table (local entity graph)
+	private int keyTableThreshold = 0;
+
+	// memory (MB) for sorting rows of tables with cyclic dependencies in memory
+	private int writePlannerMemory = 0;
+
 	// import rows in a single transaction
 	private boolean transactional = false;
 	
@@ -866,6 +968,15 @@ public class ExecutionContext {
 	// create working tables that are independent of the extraction model. (Potentially less efficient)
 	private boolean independentWorkingTables = false;
 	
+	// create working tables for each entity graph, which are dropped when the graph is deleted
+	private boolean perGraphWorkingTables = false;
+	
+	// maximum number of entities to be collected (0 = unlimited)
+	private long maxNumberOfEntities = 0;
+	
+	// maximum number of connections per session (0 = unlimited)
+	private int maxNumberOfConnections = 0;
+	
 	private WorkingTableScope scope = WorkingTableScope.GLOBAL;
 
 	private String rawparameters;
@@ -886,6 +997,18 @@ public class ExecutionContext {
 		return progressListenerRegistry;
 	}
 
+	private Map<String, List<ExtractionModel>> modelPool = new HashMap<String, List<ExtractionModel>>();
+	
+	/**
+	 * Gets the pool of extraction models (per extraction model URL) that can be reused by subsequent exports.
+	 * The pool is shared by the copies of this context. A pooled model is used by one export at a time.
+	 * 
+	 * @return the pool of extraction models
+	 */
+	public Map<String, List<ExtractionModel>> getModelPool() {
+		return modelPool;
+	}
+
 	private LayoutStorage layoutStorage = new LayoutStorage();
 	
 	public LayoutStorage getLayoutStorage() {
@@ -924,6 +1047,59 @@ public class ExecutionContext {
 		this.independentWorkingTables = independentWorkingTables;
 	}
 
+	/**
+	 * Create working tables for each entity graph, which are dropped when the graph is deleted
+	 * (working table scope {@link WorkingTableScope#GLOBAL}).
+	 */
+	public boolean isPerGraphWorkingTables() {
+		return perGraphWorkingTables;
+	}
+
+	/**
+	 * Create working tables for each entity graph, which are dropped when the graph is deleted
+	 * (working table scope {@link WorkingTableScope#GLOBAL}).
+	 */
+	public void setPerGraphWorkingTables(boolean perGraphWorkingTables) {
+		this.perGraphWorkingTables = perGraphWorkingTables;
+	}
+
+	/**
+	 * Gets the maximum number of entities to be collected. The export fails if more entities are found.
+	 * 
+	 * @return maximum number of entities, <code>0</code> if unlimited
+	 */
+	public long getMaxNumberOfEntities() {
+		return maxNumberOfEntities;
+	}
+
+	/**
+	 * Sets the maximum number of entities to be collected. The export fails if more entities are found.
+	 * 
+	 * @param maxNumberOfEntities maximum number of entities, <code>0</code> if unlimited
+	 */
+	public void setMaxNumberOfEntities(long maxNumberOfEntities) {
+		this.maxNumberOfEntities = maxNumberOfEntities;
+	}
+
+	/**
+	 * Gets the maximum number of connections the pool of a session may open.
+	 * 
+	 * @return maximum number of connections, <code>0</code> if unlimited
+	 */
+	public int getMaxNumberOfConnections() {
+		return maxNumberOfConnections;
+	}
+
+	/**
+	 * Sets the maximum number of connections the pool of a session may open.
+	 * Should be greater than the number of threads.
+	 * 
+	 * @param maxNumberOfConnections maximum number of connections, <code>0</code> if unlimited
+	 */
+	public void setMaxNumberOfConnections(int maxNumberOfConnections) {
+		this.maxNumberOfConnections = maxNumberOfConnections;
+	}
+
 	public Set<String> getUpkDomain() {
 		return upkDomain;
 	}
@@ -972,7 +1148,12 @@ public class ExecutionContext {
 		datamodelFolder = commandLine.datamodelFolder;
 		noSorting = commandLine.noSorting;
 		orderByPK = commandLine.orderByPK;
+		pipelined = commandLine.pipelined;
+		keyTableThreshold = commandLine.keyTableThreshold;
+		writePlannerMemory = commandLine.writePlannerMemory;
 		independentWorkingTables = commandLine.independentWorkingTables;
+		perGraphWorkingTables = commandLine.perGraphWorkingTables;
+		maxNumberOfEntities = commandLine.maxNumberOfEntities;
 		transactional = commandLine.transactional;
 		isolationLevel = commandLine.isolationLevel;
 		noRowid = commandLine.noRowid;
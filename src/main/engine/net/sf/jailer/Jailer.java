@@ -42,16 +42,17 @@ import net.sf.jailer.datamodel.PrimaryKeyFactory;
 import net.sf.jailer.datamodel.Table;
 import net.sf.jailer.ddl.DDLCreator;
 import net.sf.jailer.domainmodel.DomainModel;
-import net.sf.jailer.entitygraph.EntityGraph;
 import net.sf.jailer.modelbuilder.ModelBuilder;
 import net.sf.jailer.progress.ProgressListener;
 import net.sf.jailer.render.DataModelRenderer;
 import net.sf.jailer.restrictionmodel.RestrictionModel;
+import net.sf.jailer.subsetting.ExportStatistic;
 import net.sf.jailer.subsetting.SubsettingEngine;
 import net.sf.jailer.util.CancellationException;
 import net.sf.jailer.util.CancellationHandler;
 import net.sf.jailer.util.ClasspathUtil;
 import net.sf.jailer.util.LogUtil;
+import net.sf.jailer.util.Pair;
 import net.sf.jailer.util.PrintUtil;
 import net.sf.jailer.util.SqlScriptExecutor;
 import net.sf.jailer.util.SqlUtil;
@@ -146,6 +147,38 @@ public class Jailer {
 	 * @return <code>false</code> iff something went wrong
 	 */
 	public static boolean jailerMain(String[] args, StringBuffer warnings, ProgressListener progressListener, boolean fromCli) throws Exception {
+		return jailerMain(args, warnings, progressListener, fromCli, null);
+	}
+
+	/**
+	 * Statistic of a command executed by {@link Jailer#jailerMain(String[], StringBuffer, ProgressListener, boolean, Statistic)}. (GUI support)
+	 */
+	public static class Statistic {
+
+		/**
+		 * Statistic of command "export".
+		 */
+		public ExportStatistic exportStatistic;
+
+		/**
+		 * Number of executed statements and number of affected rows (command "import").
+		 */
+		public Pair<Integer, Long> importStatistic;
+
+	}
+
+	/**
+	 * Main-method for GUI.
+	 * 
+	 * @param args
+	 *            arguments
+	 * @param warnings
+	 *            string-buffer to print warnings into, may be <code>null</code>
+	 * @param progressListener listens to progess events, may be <code>null</code>
+	 * @param statistic receives the statistic of the command, may be <code>null</code>
+	 * @return <code>false</code> iff something went wrong
+	 */
+	public static boolean jailerMain(String[] args, StringBuffer warnings, ProgressListener progressListener, boolean fromCli, Statistic statistic) throws Exception {
 		CancellationHandler.reset(null);
 
 		try {
@@ -192,7 +225,12 @@ public class Jailer {
 							commandLine.arguments.get(5), 0, jdbcJarURLs);
 					Session session = new Session(dataSource, dataSource.dbms, commandLine.isolationLevel, null, commandLine.transactional);
 					try {
-						new SqlScriptExecutor(session, commandLine.numberOfThreads, false).executeScript(commandLine.arguments.get(1), commandLine.transactional);
+						SqlScriptExecutor sqlScriptExecutor = new SqlScriptExecutor(session, commandLine.numberOfThreads, false);
+						sqlScriptExecutor.setBatchSize(commandLine.batchSize);
+						Pair<Integer, Long> importStatistic = sqlScriptExecutor.executeScript(commandLine.arguments.get(1), commandLine.transactional);
+						if (statistic != null) {
+							statistic.importStatistic = importStatistic;
+						}
 					} finally {
 						try {
 							session.shutDown();
@@ -207,9 +245,8 @@ public class Jailer {
 				if (commandLine.arguments.size() != 6) {
 					CommandLineParser.printUsage();
 				} else {
-					if (commandLine.maxNumberOfEntities > 0) {
-						EntityGraph.maxTotalRowcount = commandLine.maxNumberOfEntities;
-						_log.info("max-rowcount=" + EntityGraph.maxTotalRowcount);
+					if (executionContext.getMaxNumberOfEntities() > 0) {
+						_log.info("max-rowcount=" + executionContext.getMaxNumberOfEntities());
 					}
 					
 					if (commandLine.exportScriptFileName == null) {
@@ -223,8 +260,11 @@ public class Jailer {
 						BasicDataSource dataSource = new BasicDataSource(commandLine.arguments.get(2), commandLine.arguments.get(3),
 								commandLine.arguments.get(4), commandLine.arguments.get(5), 0, jdbcJarURLs);
 						URL modelURL = new File(commandLine.arguments.get(1)).toURI().toURL();
-						new SubsettingEngine(executionContext).export(commandLine.where, modelURL, commandLine.exportScriptFileName, commandLine.deleteScriptFileName,
+						ExportStatistic exportStatistic = new SubsettingEngine(executionContext).export(commandLine.where, modelURL, commandLine.exportScriptFileName, commandLine.deleteScriptFileName,
 								dataSource, dataSource.dbms, commandLine.explain, executionContext.getScriptFormat(), 0);
+						if (statistic != null) {
+							statistic.exportStatistic = exportStatistic;
+						}
 					}
 				}
 			} else if ("delete".equalsIgnoreCase(command)) {
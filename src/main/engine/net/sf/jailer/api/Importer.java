@@ -54,7 +54,13 @@ public class Importer {
 	 */
 	public void execute(File inputScript) throws IOException, SQLException {
 		Session session = new Session(getDataSource(), null, isolationLevel, null, getTransactional());
-		new SqlScriptExecutor(session, getNumberOfThreads(), false).executeScript(inputScript.getPath(), getTransactional());
+		try {
+			SqlScriptExecutor sqlScriptExecutor = new SqlScriptExecutor(session, getNumberOfThreads(), false);
+			sqlScriptExecutor.setBatchSize(getBatchSize());
+			sqlScriptExecutor.executeScript(inputScript.getPath(), getTransactional());
+		} finally {
+			session.shutDown();
+		}
 	}
 	
 	/**
@@ -113,6 +119,27 @@ public class Importer {
 		this.transactional = transactional;
 	}
 
+	/**
+	 * Gets the number of consecutive inserts into the same table
+	 * executed as one JDBC batch. (default is 0, no batching)
+	 *
+	 * @return the batch size
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Sets the number of consecutive inserts into the same table
+	 * executed as one JDBC batch. (default is 0, no batching)
+	 *
+	 * @param batchSize
+	 *            the batch size, 0 for no batching
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
 	/**
 	 * Gets IsolationLevel.
 	 * 
@@ -135,5 +162,6 @@ public class Importer {
 	private int numberOfThreads = 1;
 	private boolean transactional = true;
 	private Integer isolationLevel;
+	private int batchSize = 0;
 
 }
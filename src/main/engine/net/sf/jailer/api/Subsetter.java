@@ -550,6 +550,118 @@ public class Subsetter {
 		executionContext.setNoSorting(noSorting);
 	}
 
+	/**
+	 * If <code>true</code>, the associations of a table are resolved as soon as its rows
+	 * are collected instead of day by day. (default is false)
+	 *
+	 * @return <code>true</code> if associations are resolved in pipelined mode
+	 */
+	public boolean getPipelined() {
+		return executionContext.getPipelined();
+	}
+
+	/**
+	 * If <code>true</code>, the associations of a table are resolved as soon as its rows
+	 * are collected instead of day by day. (default is false)
+	 *
+	 * @param pipelined
+	 *            <code>true</code> if associations are resolved in pipelined mode
+	 */
+	public void setPipelined(boolean pipelined) {
+		executionContext.setPipelined(pipelined);
+	}
+
+	/**
+	 * Gets the database into which the exported rows are inserted directly
+	 * using batched prepared statements. (default is <code>null</code>)
+	 * If set, the export script contains comments and the prolog and epilog only.
+	 *
+	 * @return the target database or <code>null</code> if rows are written into the script
+	 */
+	public DataSource getTransferTarget() {
+		return executionContext.getTransferTarget();
+	}
+
+	/**
+	 * Sets the database into which the exported rows are inserted directly
+	 * using batched prepared statements. (default is <code>null</code>)
+	 * If set, the export script contains comments and the prolog and epilog only.
+	 * Upserts and import filters are not supported in this mode.
+	 *
+	 * @param transferTarget
+	 *            the target database or <code>null</code> if rows are written into the script
+	 */
+	public void setTransferTarget(DataSource transferTarget) {
+		executionContext.setTransferTarget(transferTarget);
+	}
+
+	/**
+	 * Gets the number of rows per batch for direct transfer. (default is 1000)
+	 *
+	 * @return the number of rows per batch
+	 */
+	public int getTransferBatchSize() {
+		return executionContext.getTransferBatchSize();
+	}
+
+	/**
+	 * Sets the number of rows per batch for direct transfer. (default is 1000)
+	 *
+	 * @param transferBatchSize
+	 *            the number of rows per batch
+	 */
+	public void setTransferBatchSize(int transferBatchSize) {
+		executionContext.setTransferBatchSize(transferBatchSize);
+	}
+
+	/**
+	 * Gets the number of keys above which key sets are shipped to the source database
+	 * via a session-local temporary table instead of inline-views.
+	 * Only applies to working table scope {@link WorkingTableScope#LOCAL_DATABASE}
+	 * and DBMS with temporary table support. (default is 0, no temporary tables)
+	 *
+	 * @return the threshold
+	 */
+	public int getKeyTableThreshold() {
+		return executionContext.getKeyTableThreshold();
+	}
+
+	/**
+	 * Sets the number of keys above which key sets are shipped to the source database
+	 * via a session-local temporary table instead of inline-views.
+	 * Only applies to working table scope {@link WorkingTableScope#LOCAL_DATABASE}
+	 * and DBMS with temporary table support. (default is 0, no temporary tables)
+	 *
+	 * @param keyTableThreshold
+	 *            the threshold
+	 */
+	public void setKeyTableThreshold(int keyTableThreshold) {
+		executionContext.setKeyTableThreshold(keyTableThreshold);
+	}
+
+	/**
+	 * Gets the memory (in megabytes) available for sorting the rows of tables with cyclic dependencies
+	 * topologically in memory. If the rows don't fit, or if it's 0, the rows are sorted
+	 * by repeated updates of the working tables. (default is 0)
+	 *
+	 * @return the memory in megabytes
+	 */
+	public int getWritePlannerMemory() {
+		return executionContext.getWritePlannerMemory();
+	}
+
+	/**
+	 * Sets the memory (in megabytes) available for sorting the rows of tables with cyclic dependencies
+	 * topologically in memory. If the rows don't fit, or if it's 0, the rows are sorted
+	 * by repeated updates of the working tables. (default is 0)
+	 *
+	 * @param writePlannerMemory
+	 *            the memory in megabytes
+	 */
+	public void setWritePlannerMemory(int writePlannerMemory) {
+		executionContext.setWritePlannerMemory(writePlannerMemory);
+	}
+
 	/**
 	 * If <code>true</code>, Use primary keys to determine row identity (instead
 	 * of rowid-column)
@@ -664,6 +776,25 @@ public class Subsetter {
 		executionContext.setAbortInCaseOfInconsistency(abortInCaseOfInconsitency);
 	}
 
+	/**
+	 * Gets the maximum number of connections to be opened per database (default is unlimited).
+	 *
+	 * @return maximum number of connections, <code>0</code> if unlimited
+	 */
+	public int getMaxNumberOfConnections() {
+		return executionContext.getMaxNumberOfConnections();
+	}
+
+	/**
+	 * Sets the maximum number of connections to be opened per database.
+	 * Should be greater than the number of threads.
+	 *
+	 * @param maxNumberOfConnections maximum number of connections, <code>0</code> if unlimited
+	 */
+	public void setMaxNumberOfConnections(int maxNumberOfConnections) {
+		executionContext.setMaxNumberOfConnections(maxNumberOfConnections);
+	}
+
 	/**
 	 * @return the size of extraction-model pool (default is 10)
 	 */
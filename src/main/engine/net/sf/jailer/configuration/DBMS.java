@@ -95,6 +95,9 @@ public class DBMS {
 		this.toClob = other.toClob;
 		this.toNClob = other.toNClob;
 		this.embeddedLobSizeLimit = other.embeddedLobSizeLimit;
+		this.maxInlineViewRows = other.maxInlineViewRows;
+		this.maxStatementLength = other.maxStatementLength;
+		this.inlineViewStyle = other.inlineViewStyle;
 		this.binaryPattern = other.binaryPattern;
 		this.avoidLeftJoin = other.avoidLeftJoin;
 		this.timestampPattern = other.timestampPattern;
@@ -113,6 +116,7 @@ public class DBMS {
 		this.importedKeysQuery = other.importedKeysQuery;
 		this.primaryKeysQuery = other.primaryKeysQuery;
 		this.indexInfoQuery = other.indexInfoQuery;
+		this.lastDDLQuery = other.lastDDLQuery;
 		this.identifierQuoteString = other.identifierQuoteString;
 		this.rowidType = other.rowidType;
 		this.sessionTemporaryTableManager = other.sessionTemporaryTableManager;
@@ -287,6 +291,9 @@ public class DBMS {
 	private String toClob;
 	private String toNClob;
 	private int embeddedLobSizeLimit = 3980;
+	private int maxInlineViewRows = 1000;
+	private int maxStatementLength = 65000;
+	private String inlineViewStyle = null;
 	private String binaryPattern = "x'%s'";
 	private boolean avoidLeftJoin = false;
 	private String timestampPattern = null;
@@ -306,6 +313,7 @@ public class DBMS {
 	private String importedKeysQuery = null;
 	private String primaryKeysQuery = null;
 	private String indexInfoQuery = null;
+	private String lastDDLQuery = null;
 	private String identifierQuoteString = "\"";
 
 	private String explainCreateExplainTable = null;
@@ -368,6 +376,48 @@ public class DBMS {
 		this.embeddedLobSizeLimit = embeddedLobSizeLimit;
 	}
 
+	/**
+	 * @return the maximum number of rows of an inline-view
+	 */
+	public int getMaxInlineViewRows() {
+		return maxInlineViewRows;
+	}
+
+	/**
+	 * @param maxInlineViewRows the maximum number of rows of an inline-view
+	 */
+	public void setMaxInlineViewRows(int maxInlineViewRows) {
+		this.maxInlineViewRows = maxInlineViewRows;
+	}
+
+	/**
+	 * @return the maximum length (in characters) of generated SQL statements
+	 */
+	public int getMaxStatementLength() {
+		return maxStatementLength;
+	}
+
+	/**
+	 * @param maxStatementLength the maximum length (in characters) of generated SQL statements
+	 */
+	public void setMaxStatementLength(int maxStatementLength) {
+		this.maxStatementLength = maxStatementLength;
+	}
+
+	/**
+	 * @return name of the {@link net.sf.jailer.database.InlineViewStyle} to try first, or <code>null</code>
+	 */
+	public String getInlineViewStyle() {
+		return inlineViewStyle;
+	}
+
+	/**
+	 * @param inlineViewStyle name of the {@link net.sf.jailer.database.InlineViewStyle} to try first, or <code>null</code>
+	 */
+	public void setInlineViewStyle(String inlineViewStyle) {
+		this.inlineViewStyle = inlineViewStyle;
+	}
+
 	/**
 	 * @return the supportsSchemasInIndexDefinitions
 	 */
@@ -874,6 +924,23 @@ public class DBMS {
 		this.indexInfoQuery = indexInfoQuery;
 	}
 
+	/**
+	 * Gets the query that returns for each table of schema ${SCHEMA} the table name and a value
+	 * that changes with each DDL statement on the table (usually the time of the last DDL).
+	 * 
+	 * @return the lastDDLQuery, <code>null</code> if the DBMS doesn't provide such information
+	 */
+	public String getLastDDLQuery() {
+		return lastDDLQuery;
+	}
+
+	/**
+	 * @param lastDDLQuery the lastDDLQuery to set
+	 */
+	public void setLastDDLQuery(String lastDDLQuery) {
+		this.lastDDLQuery = lastDDLQuery;
+	}
+
 	/**
 	 * @return the toNClob
 	 */
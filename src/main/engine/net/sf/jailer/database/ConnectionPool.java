@@ -0,0 +1,438 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bounded pool of the connections of a {@link Session}.<br>
+ * <br>
+ * Threads lease a connection with their first statement and return it
+ * with {@link Session#releaseConnection()}. An idle connection is validated before it is
+ * leased again (unless it was returned just recently) and is closed after it has not been used
+ * for a while. Idle connections keep their prepared statements. If the maximum number of connections is
+ * reached, a thread waits until another thread returns one.
+ *
+ * @author Ralf Wisser
+ */
+public class ConnectionPool {
+
+	/**
+	 * Creates and closes connections.
+	 */
+	interface Lifecycle {
+
+		/**
+		 * Creates a new connection.
+		 */
+		Connection create() throws SQLException;
+
+		/**
+		 * Closes a connection.
+		 */
+		void close(Connection con);
+	}
+
+	/**
+	 * An idle connection.
+	 */
+	private static class IdleConnection {
+		final Connection connection;
+		final long since;
+
+		IdleConnection(Connection connection, long since) {
+			this.connection = connection;
+			this.since = since;
+		}
+	}
+
+	/**
+	 * Connections returned less than this number of milliseconds ago are leased without validation.
+	 */
+	private static final long VALIDATION_INTERVAL = 500;
+
+	/**
+	 * Default number of milliseconds after which an idle connection is closed.
+	 */
+	public static final long DEFAULT_IDLE_TIMEOUT = 10L * 60L * 1000L;
+
+	/**
+	 * Default maximum number of milliseconds a thread waits for a connection.
+	 */
+	public static final long DEFAULT_MAX_WAIT = 5L * 60L * 1000L;
+
+	/**
+	 * Number of seconds to wait for the validation of a connection.
+	 */
+	private static final int VALIDATION_TIMEOUT = 5;
+
+	private final Lifecycle lifecycle;
+
+	/**
+	 * All open connections of the pool.
+	 */
+	private final List<Connection> connections;
+
+	/**
+	 * Idle connections, most recently returned first.
+	 */
+	private final Deque<IdleConnection> idle = new ArrayDeque<IdleConnection>();
+
+	/**
+	 * Leased connections.
+	 */
+	private final Set<Connection> leased = Collections.newSetFromMap(new IdentityHashMap<Connection, Boolean>());
+
+	/**
+	 * Number of open connections, including the ones being created.
+	 */
+	private int size = 0;
+
+	private int maxSize = Integer.MAX_VALUE;
+	private long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+	private long maxWait = DEFAULT_MAX_WAIT;
+
+	private long creations = 0;
+	private long leases = 0;
+	private long waits = 0;
+	private long waitTime = 0;
+	private long validationFailures = 0;
+	private long evictions = 0;
+
+	/**
+	 * <code>false</code> if the driver doesn't support {@link Connection#isValid(int)}.
+	 */
+	private volatile boolean validationSupported = true;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param lifecycle creates and closes connections
+	 * @param connections list to which the pool adds each connection it creates and from which it removes each connection it closes
+	 */
+	ConnectionPool(Lifecycle lifecycle, List<Connection> connections) {
+		this.lifecycle = lifecycle;
+		this.connections = connections;
+	}
+
+	/**
+	 * Leases a connection.
+	 *
+	 * @return the connection
+	 * @throws SQLTimeoutException if no connection was available within the maximum waiting time
+	 */
+	Connection lease() throws SQLException {
+		long startTime = 0;
+		boolean waited = false;
+		for (;;) {
+			IdleConnection candidate;
+			List<Connection> evicted;
+			synchronized (this) {
+				evicted = evictIdleConnections();
+				candidate = idle.pollFirst();
+				if (candidate == null) {
+					if (size < maxSize) {
+						++size;
+					} else {
+						long now = System.currentTimeMillis();
+						if (!waited) {
+							waited = true;
+							startTime = now;
+							++waits;
+						}
+						long remaining = maxWait - (now - startTime);
+						if (remaining <= 0) {
+							waitTime += now - startTime;
+							throw new SQLTimeoutException("no connection available within " + maxWait + " ms (" + size + " connections)");
+						}
+						try {
+							wait(remaining);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							throw new SQLException("interrupted while waiting for a connection");
+						}
+						continue;
+					}
+				}
+			}
+			closeAll(evicted);
+			if (candidate != null) {
+				if (System.currentTimeMillis() - candidate.since < VALIDATION_INTERVAL || isValid(candidate.connection)) {
+					leased(candidate.connection, false, waited, startTime);
+					return candidate.connection;
+				}
+				synchronized (this) {
+					++validationFailures;
+					removeConnection(candidate.connection);
+				}
+				lifecycle.close(candidate.connection);
+				continue;
+			}
+			Connection con = null;
+			try {
+				con = lifecycle.create();
+			} finally {
+				if (con == null) {
+					synchronized (this) {
+						--size;
+						notifyAll();
+					}
+				}
+			}
+			leased(con, true, waited, startTime);
+			return con;
+		}
+	}
+
+	private synchronized void leased(Connection con, boolean created, boolean waited, long startTime) {
+		if (created) {
+			++creations;
+			connections.add(con);
+		}
+		if (waited) {
+			waitTime += System.currentTimeMillis() - startTime;
+		}
+		++leases;
+		leased.add(con);
+	}
+
+	/**
+	 * Returns a connection to the pool.
+	 *
+	 * @param con the connection
+	 * @return <code>false</code> if the connection is not leased from this pool
+	 */
+	boolean release(Connection con) {
+		List<Connection> evicted;
+		synchronized (this) {
+			if (!leased.remove(con)) {
+				return false;
+			}
+			idle.addFirst(new IdleConnection(con, System.currentTimeMillis()));
+			evicted = evictIdleConnections();
+			notifyAll();
+		}
+		closeAll(evicted);
+		return true;
+	}
+
+	/**
+	 * Removes a connection that has been closed from the pool.
+	 *
+	 * @param con the connection
+	 */
+	synchronized void remove(Connection con) {
+		boolean removed = leased.remove(con);
+		for (Iterator<IdleConnection> i = idle.iterator(); !removed && i.hasNext(); ) {
+			if (i.next().connection == con) {
+				i.remove();
+				removed = true;
+			}
+		}
+		if (removed) {
+			removeConnection(con);
+		}
+	}
+
+	/**
+	 * Forgets all connections. The caller is responsible for closing them.
+	 */
+	synchronized void clear() {
+		idle.clear();
+		leased.clear();
+		connections.clear();
+		size = 0;
+		notifyAll();
+	}
+
+	private void removeConnection(Connection con) {
+		connections.remove(con);
+		--size;
+		notifyAll();
+	}
+
+	/**
+	 * Removes the connections that have been idle too long.
+	 *
+	 * @return the removed connections, to be closed
+	 */
+	private List<Connection> evictIdleConnections() {
+		List<Connection> evicted = null;
+		long now = System.currentTimeMillis();
+		while (!idle.isEmpty() && now - idle.peekLast().since >= idleTimeout) {
+			Connection con = idle.pollLast().connection;
+			removeConnection(con);
+			++evictions;
+			if (evicted == null) {
+				evicted = new ArrayList<Connection>();
+			}
+			evicted.add(con);
+		}
+		return evicted;
+	}
+
+	private void closeAll(List<Connection> cons) {
+		if (cons != null) {
+			for (Connection con: cons) {
+				lifecycle.close(con);
+			}
+		}
+	}
+
+	/**
+	 * Validates a connection. Falls back to checking whether the connection is closed
+	 * if the driver doesn't support {@link Connection#isValid(int)}.
+	 */
+	private boolean isValid(Connection con) {
+		if (validationSupported) {
+			try {
+				return con.isValid(VALIDATION_TIMEOUT);
+			} catch (Throwable t) {
+				// SQLFeatureNotSupportedException, or AbstractMethodError of pre-JDBC 4 drivers
+				validationSupported = false;
+			}
+		}
+		try {
+			return !con.isClosed();
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Sets the maximum number of connections (default is unlimited).
+	 *
+	 * @param maxSize the maximum number of connections
+	 */
+	public synchronized void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+		notifyAll();
+	}
+
+	/**
+	 * Gets the maximum number of connections.
+	 */
+	public synchronized int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Sets the number of milliseconds after which an idle connection is closed.
+	 *
+	 * @param idleTimeout the idle timeout
+	 */
+	public synchronized void setIdleTimeout(long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	/**
+	 * Gets the number of milliseconds after which an idle connection is closed.
+	 */
+	public synchronized long getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	/**
+	 * Sets the maximum number of milliseconds a thread waits for a connection.
+	 *
+	 * @param maxWait the maximum waiting time
+	 */
+	public synchronized void setMaxWait(long maxWait) {
+		this.maxWait = maxWait;
+	}
+
+	/**
+	 * Gets the maximum number of milliseconds a thread waits for a connection.
+	 */
+	public synchronized long getMaxWait() {
+		return maxWait;
+	}
+
+	/**
+	 * Gets the number of open connections.
+	 */
+	public synchronized int getSize() {
+		return size;
+	}
+
+	/**
+	 * Gets the number of idle connections.
+	 */
+	public synchronized int getIdleCount() {
+		return idle.size();
+	}
+
+	/**
+	 * Gets the number of created connections.
+	 */
+	public synchronized long getCreations() {
+		return creations;
+	}
+
+	/**
+	 * Gets the number of leases.
+	 */
+	public synchronized long getLeases() {
+		return leases;
+	}
+
+	/**
+	 * Gets the number of leases that had to wait for a connection.
+	 */
+	public synchronized long getWaits() {
+		return waits;
+	}
+
+	/**
+	 * Gets the total number of milliseconds waited for connections.
+	 */
+	public synchronized long getWaitTime() {
+		return waitTime;
+	}
+
+	/**
+	 * Gets the number of idle connections that turned out to be invalid.
+	 */
+	public synchronized long getValidationFailures() {
+		return validationFailures;
+	}
+
+	/**
+	 * Gets the number of connections closed because they have been idle too long.
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "connections created: " + creations + ", leased: " + leases
+				+ ", waits: " + waits + " (" + waitTime + " ms)"
+				+ ", validation failures: " + validationFailures
+				+ ", evicted: " + evictions;
+	}
+
+}
@@ -20,9 +20,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.Writer;
 import java.sql.Blob;
 import java.sql.Clob;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.SQLXML;
 import java.sql.Types;
@@ -33,6 +35,7 @@ import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import net.sf.jailer.ExecutionContext;
 import net.sf.jailer.configuration.Configuration;
@@ -69,6 +72,11 @@ public class DMLTransformer extends AbstractResultSetReader {
 	 */
 	private final OutputStreamWriter scriptFileWriter;
 	
+	/**
+	 * Collects the statements and splices them into the script.
+	 */
+	private final ScriptChunkBuffer scriptChunk;
+
 	/**
 	 * Number of columns.
 	 */
@@ -135,11 +143,6 @@ public class DMLTransformer extends AbstractResultSetReader {
 	 */
 	private final int maxBodySize;
 	
-	/**
-	 * Counts the exported LOBs. (GUI support)
-	 */
-	public static long numberOfExportedLOBs;
-
 	/**
 	 * For quoting of column names.
 	 */
@@ -194,6 +197,16 @@ public class DMLTransformer extends AbstractResultSetReader {
 		 */
 		private final ExecutionContext executionContext;
 		
+		/**
+		 * Table which is currently enabled for identity-inserts in the script.
+		 */
+		private Table identityInsertTable = null;
+		
+		/**
+		 * Counts the exported LOBs.
+		 */
+		private final AtomicLong numberOfExportedLOBs = new AtomicLong();
+		
 		/**
 		 * Constructor.
 		 * 
@@ -219,7 +232,14 @@ public class DMLTransformer extends AbstractResultSetReader {
 		 */
 		@Override
 		public ResultSetReader create(Table table) throws SQLException {
-			return new DMLTransformer(table, scriptFileWriter, upsertOnly, maxBodySize, session, targetDBMSConfiguration, importFilterTransformer, executionContext);
+			return new DMLTransformer(table, scriptFileWriter, upsertOnly, maxBodySize, session, targetDBMSConfiguration, importFilterTransformer, executionContext, this);
+		}
+		
+		/**
+		 * Gets the number of LOBs exported by the transformers of this factory.
+		 */
+		public long getNumberOfExportedLOBs() {
+			return numberOfExportedLOBs.get();
 		}
 		
 		/**
@@ -233,6 +253,11 @@ public class DMLTransformer extends AbstractResultSetReader {
 
 	private final List<Column> selectionClause;
 	
+	/**
+	 * The factory. Holds the state shared by the transformers writing into the same script.
+	 */
+	private final Factory factory;
+	
 	/**
 	 * Constructor.
 	 * 
@@ -246,12 +271,44 @@ public class DMLTransformer extends AbstractResultSetReader {
 	 * @param importFilterTransformer2 
 	 */
 	protected DMLTransformer(Table table, OutputStreamWriter scriptFileWriter, boolean upsertOnly, int maxBodySize, Session session, DBMS targetDBMSConfiguration, ImportFilterTransformer importFilterTransformer, ExecutionContext executionContext) throws SQLException {
+		this(table, scriptFileWriter, upsertOnly, maxBodySize, session, targetDBMSConfiguration, importFilterTransformer, executionContext,
+				new Factory(scriptFileWriter, upsertOnly, maxBodySize, session, targetDBMSConfiguration, executionContext));
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param table the table to read from
+	 * @param scriptFileWriter the file to write to
+	 * @param maxBodySize maximum length of SQL values list (for generated inserts)
+	 * @param upsertOnly use 'upsert' statements for all entities
+	 * @param session the session
+	 * @param targetDBMSConfiguration configuration of the target DBMS
+	 * @param factory the factory, holds the state shared by the transformers writing into the same script
+	 */
+	private DMLTransformer(Table table, OutputStreamWriter scriptFileWriter, boolean upsertOnly, int maxBodySize, Session session, DBMS targetDBMSConfiguration, ImportFilterTransformer importFilterTransformer, ExecutionContext executionContext, Factory factory) throws SQLException {
+		this.factory = factory;
 		this.executionContext = executionContext;
 		this.targetDBMSConfiguration = targetDBMSConfiguration;
 		this.maxBodySize = maxBodySize;
 		this.upsertOnly = upsertOnly;
 		this.table = table;
 		this.scriptFileWriter = scriptFileWriter;
+		this.scriptChunk = new ScriptChunkBuffer(scriptFileWriter) {
+			@Override
+			protected void beforeSplice(Writer scriptFileWriter) throws IOException {
+				if (tableHasIdentityColumn) {
+					if (DMLTransformer.this.factory.identityInsertTable != DMLTransformer.this.table) {
+						if (DMLTransformer.this.factory.identityInsertTable != null) {
+							scriptFileWriter.write("SET IDENTITY_INSERT " + qualifiedTableName(DMLTransformer.this.factory.identityInsertTable) + " OFF;" + PrintUtil.LINE_SEPARATOR);
+							DMLTransformer.this.factory.identityInsertTable = null;
+						}
+						scriptFileWriter.write("SET IDENTITY_INSERT " + qualifiedTableName(DMLTransformer.this.table) + " ON;" + PrintUtil.LINE_SEPARATOR);
+						DMLTransformer.this.factory.identityInsertTable = DMLTransformer.this.table;
+					}
+				}
+			}
+		};
 		this.currentDialect = targetDBMSConfiguration.getSqlDialect();
 		this.insertStatementBuilder = new StatementBuilder(currentDialect.isSupportsMultiRowInserts() || DBMS.ORACLE.equals(targetDBMSConfiguration) || DBMS.SQLITE.equals(targetDBMSConfiguration)? maxBodySize : 1);
 		this.updateStatementBuilder = new StatementBuilder(maxBodySize);
@@ -283,56 +340,317 @@ public class DMLTransformer extends AbstractResultSetReader {
 		return new Quoting(session);
 	}
 	
-	private Map<Integer, String> columnTypeFromDatamodel = new HashMap<Integer, String>();
-	
 	/**
-	 * Reads result-set and writes into export-script.
+	 * Whether or not a column is part of the primary key (per result set index).
 	 */
-	@Override
-	public void readCurrentRow(ResultSet resultSet) throws SQLException {
-		if (columnLabel == null) {
-			columnCount = getMetaData(resultSet).getColumnCount();
-			columnLabel = new String[columnCount + 1];
-			lobColumns = new ArrayList<String>();
-			isLobColumn = new boolean[columnCount + 1];
-			emptyLobValue = new String[columnCount + 1];
-			lobColumnIndexes = new ArrayList<Integer>();
-			labelCSL = "";
-			tableHasLobs = false;
-			for (int i = 1; i <= columnCount; ++i) {
-				String mdColumnLabel = quoting.quote(getMetaData(resultSet).getColumnLabel(i));
-				int mdColumnType = getMetaData(resultSet).getColumnType(i);
-				
-				if ((mdColumnType == Types.BLOB || mdColumnType == Types.CLOB || mdColumnType == Types.NCLOB || mdColumnType == Types.SQLXML) && !DBMS.SQLITE.equals(targetDBMSConfiguration)) {
-					tableHasLobs = true;
-					isLobColumn[i] = true;
-					lobColumnIndexes.add(i);
-					lobColumns.add(mdColumnLabel);
-					if (mdColumnType == Types.SQLXML) {
-						emptyLobValue[i] = null;
-					} else {
-						DBMS c = targetDBMSConfiguration;
-						emptyLobValue[i] = mdColumnType == Types.BLOB? c.getEmptyBLOBValue() : mdColumnType == Types.CLOB? c.getEmptyCLOBValue() : c.getEmptyNCLOBValue();
+	private boolean[] isPKColumn;
+
+	/**
+	 * Types of the columns (per result set index).
+	 */
+	private int[] columnType;
+
+	/**
+	 * Explicit casts of the columns for PostgreSQL upserts (per result set index).
+	 */
+	private String[] castSuffix;
+
+	/**
+	 * Result set indexes of the primary key columns (0 if not selected).
+	 */
+	private int[] pkColumnIndex;
+
+	/**
+	 * Result set indexes of the primary key columns for identifying exported lobs (0 if not selected).
+	 */
+	private int[] pkLobColumnIndex;
+
+	/**
+	 * "T.&lt;pk&gt;=" and "&lt;pk&gt;=" fragments of the primary key columns.
+	 */
+	private String[] pkCondition;
+	private String[] pkConditionWOAlias;
+
+	/**
+	 * Join condition of target table ("T") and incoming row ("Q").
+	 */
+	private String whereForTerminator;
+
+	/**
+	 * Terminator of MERGE statements.
+	 */
+	private String mergeTerminator;
+
+	/**
+	 * Qualified name of the table.
+	 */
+	private String qualifiedTableName;
+
+	/**
+	 * Head of insert statements.
+	 */
+	private String insertSchema;
+
+	/**
+	 * Whether to omit null values in upsert statements.
+	 */
+	private boolean generateUpsertStatementsWithoutNulls;
+
+	/**
+	 * SQL literals of the current row (per result set index).
+	 */
+	private String[] value;
+
+	/**
+	 * SQL literals of the current row for upsert statements (per result set index).
+	 */
+	private String[] upsertValue;
+
+	/**
+	 * Whether or not the column of the current row is null (per result set index).
+	 */
+	private boolean[] valueIsNull;
+
+	/**
+	 * Small lobs of the current row, rendered as literal (per result set index).
+	 */
+	private String[] smallLob;
+
+	/**
+	 * Buffers, reused for each row.
+	 */
+	private final StringBuilder valueList = new StringBuilder();
+	private final StringBuilder valuesWONull = new StringBuilder();
+	private final StringBuilder columnsWONull = new StringBuilder();
+	private final StringBuilder where = new StringBuilder();
+	private final StringBuilder whereWOAlias = new StringBuilder();
+	private final StringBuilder buffer = new StringBuilder();
+
+	/**
+	 * Analyzes the result set.
+	 */
+	private void analyzeResultSet(ResultSet resultSet) throws SQLException {
+		ResultSetMetaData metaData = getMetaData(resultSet);
+		columnCount = metaData.getColumnCount();
+		columnLabel = new String[columnCount + 1];
+		lobColumns = new ArrayList<String>();
+		isLobColumn = new boolean[columnCount + 1];
+		emptyLobValue = new String[columnCount + 1];
+		lobColumnIndexes = new ArrayList<Integer>();
+		isPKColumn = new boolean[columnCount + 1];
+		columnType = new int[columnCount + 1];
+		castSuffix = new String[columnCount + 1];
+		value = new String[columnCount + 1];
+		upsertValue = new String[columnCount + 1];
+		valueIsNull = new boolean[columnCount + 1];
+		smallLob = new String[columnCount + 1];
+		StringBuilder labels = new StringBuilder();
+		tableHasLobs = false;
+		for (int i = 1; i <= columnCount; ++i) {
+			String mdColumnLabel = quoting.quote(metaData.getColumnLabel(i));
+			int mdColumnType = metaData.getColumnType(i);
+			columnType[i] = mdColumnType;
+			
+			if ((mdColumnType == Types.BLOB || mdColumnType == Types.CLOB || mdColumnType == Types.NCLOB || mdColumnType == Types.SQLXML) && !DBMS.SQLITE.equals(targetDBMSConfiguration)) {
+				tableHasLobs = true;
+				isLobColumn[i] = true;
+				lobColumnIndexes.add(i);
+				lobColumns.add(mdColumnLabel);
+				if (mdColumnType == Types.SQLXML) {
+					emptyLobValue[i] = null;
+				} else {
+					DBMS c = targetDBMSConfiguration;
+					emptyLobValue[i] = mdColumnType == Types.BLOB? c.getEmptyBLOBValue() : mdColumnType == Types.CLOB? c.getEmptyCLOBValue() : c.getEmptyNCLOBValue();
+				}
+				if (emptyLobValue[i] == null) {
+					continue;
+				}
+			}
+			columnLabel[i] = mdColumnLabel;
+			isPKColumn[i] = isPrimaryKeyColumn(mdColumnLabel);
+			if (labels.length() > 0) {
+				labels.append(", ");
+			}
+			labels.append(mdColumnLabel);
+			if (DBMS.POSTGRESQL.equals(targetDBMSConfiguration)) {
+				if (mdColumnType == Types.OTHER) {
+					for (Column c: table.getColumns()) {
+						if (c.name != null && c.name.equalsIgnoreCase(mdColumnLabel)) {
+							if (c.type != null) {
+								castSuffix[i] = "::" + c.type;
+							}
+							break;
+						}
 					}
-					if (emptyLobValue[i] == null) {
-						continue;
+				} else {
+					castSuffix[i] = "::" + metaData.getColumnTypeName(i);
+				}
+			}
+		}
+		labelCSL = labels.toString();
+		qualifiedTableName = qualifiedTableName(table);
+		
+		List<Column> pkColumns = table.getNonVirtualPKColumns(session);
+		pkColumnIndex = new int[pkColumns.size()];
+		pkLobColumnIndex = new int[pkColumns.size()];
+		pkCondition = new String[pkColumns.size()];
+		pkConditionWOAlias = new String[pkColumns.size()];
+		StringBuilder join = new StringBuilder();
+		for (int p = 0; p < pkColumns.size(); ++p) {
+			Column pk = pkColumns.get(p);
+			String name = quoting.quote(pk.name);
+			int index = lastIndexOfLabel(name);
+			if (index == 0) {
+				index = lastIndexOfLabel(name.toLowerCase());
+			}
+			if (index == 0) {
+				index = lastIndexOfLabel(name.toUpperCase());
+			}
+			pkColumnIndex[p] = index;
+			pkLobColumnIndex[p] = lastIndexOfLabel(pk.name);
+			String pkName = quoting.requote(pk.name);
+			pkCondition[p] = "T." + pkName + "=";
+			pkConditionWOAlias[p] = pkName + "=";
+			if (p > 0) {
+				join.append(" and ");
+			}
+			join.append("T.").append(pkName).append("=Q.").append(pkName);
+		}
+		whereForTerminator = join.toString();
+		
+		if (DBMS.DB2_ZOS.equals(targetDBMSConfiguration) && maxBodySize > 1
+				|| DBMS.ORACLE.equals(targetDBMSConfiguration) && maxBodySize > 1
+				|| DBMS.SQLITE.equals(targetDBMSConfiguration) && maxBodySize > 1) {
+			insertSchema = "Insert into " + qualifiedTableName + "(" + labelCSL + ") ";
+		} else {
+			insertSchema = "Insert into " + qualifiedTableName + "(" + labelCSL + ") values ";
+		}
+		generateUpsertStatementsWithoutNulls = Configuration.getInstance().isGenerateUpsertStatementsWithoutNulls();
+	}
+
+	/**
+	 * Gets the last result set index of a column label.
+	 * 
+	 * @param label the label
+	 * @return the index or 0 if there is no such column
+	 */
+	private int lastIndexOfLabel(String label) {
+		for (int i = columnCount; i >= 1; --i) {
+			if (columnLabel[i] != null && columnLabel[i].equals(label)) {
+				return i;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Appends values as comma separated list.
+	 * 
+	 * @param out to append to
+	 * @param values the values (per result set index)
+	 * @param withLabels append column label after each value?
+	 * @param withoutNulls omit null values?
+	 * @return out
+	 */
+	private StringBuilder appendValues(StringBuilder out, String[] values, boolean withLabels, boolean withoutNulls) {
+		boolean f = true;
+		for (int i = 1; i <= columnCount; ++i) {
+			if (columnLabel[i] == null || (withoutNulls && valueIsNull[i])) {
+				continue;
+			}
+			if (!f) {
+				out.append(", ");
+			}
+			f = false;
+			out.append(values[i]);
+			if (withLabels) {
+				out.append(' ').append(columnLabel[i]);
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Appends the primary key condition.
+	 * 
+	 * @param out to append to
+	 * @param condition "&lt;pk&gt;=" fragments
+	 * @return out
+	 */
+	private StringBuilder appendPKCondition(StringBuilder out, String[] condition) {
+		for (int p = 0; p < condition.length; ++p) {
+			if (p > 0) {
+				out.append(" and ");
+			}
+			out.append(condition[p]).append(pkColumnIndex[p] == 0? null : upsertValue[pkColumnIndex[p]]);
+		}
+		return out;
+	}
+
+	/**
+	 * Gets the terminator of MERGE statements.
+	 */
+	private String getMergeTerminator() {
+		if (mergeTerminator == null) {
+			StringBuilder terminator = new StringBuilder(") Q ON(").append(whereForTerminator).append(") ");
+			StringBuilder sets = new StringBuilder();
+			StringBuilder tSchema = new StringBuilder();
+			StringBuilder iSchema = new StringBuilder();
+			for (int i = 1; i <= columnCount; ++i) {
+				if (columnLabel[i] == null) {
+					continue;
+				}
+				if  (!isPKColumn[i]) {
+					if (sets.length() > 0) {
+						sets.append(", ");
 					}
+					sets.append("T.").append(columnLabel[i]).append("=Q.").append(columnLabel[i]);
 				}
-				columnLabel[i] = mdColumnLabel;
-				if (labelCSL.length() > 0) {
-					labelCSL += ", ";
+				if (tSchema.length() > 0) {
+					tSchema.append(", ");
 				}
-				labelCSL += columnLabel[i];
+				tSchema.append("T.").append(columnLabel[i]);
+				if (iSchema.length() > 0) {
+					iSchema.append(", ");
+				}
+				iSchema.append("Q.").append(columnLabel[i]);
+			}
+			if (sets.length() > 0) {
+				terminator.append("WHEN MATCHED THEN UPDATE SET ").append(sets).append(" ");
 			}
+			terminator.append("WHEN NOT MATCHED THEN INSERT (").append(tSchema).append(") VALUES(").append(iSchema).append(");").append(PrintUtil.LINE_SEPARATOR);
+			mergeTerminator = terminator.toString();
+		}
+		return mergeTerminator;
+	}
+
+	/**
+	 * Gets the statement builder for the insert-parts of upsert-statements with a given head.
+	 */
+	private StatementBuilder getUpsertInsertStatementBuilder(String insertHead, int maxBodySize) {
+		StatementBuilder sb = upsertInsertStatementBuilder.get(insertHead);
+		if (sb == null) {
+			sb = new StatementBuilder(maxBodySize);
+			upsertInsertStatementBuilder.put(insertHead, sb);
+		}
+		return sb;
+	}
+
+	/**
+	 * Reads result-set and writes into export-script.
+	 */
+	@Override
+	public void readCurrentRow(ResultSet resultSet) throws SQLException {
+		if (columnLabel == null) {
+			analyzeResultSet(resultSet);
 		}
 		try {
-			StringBuffer valueList = new StringBuffer("");
-			StringBuffer namedValues = new StringBuffer("");
+			valueList.setLength(0);
 			boolean f = true;
-			Map<Integer, String> smallLobsPerIndex = new HashMap<Integer, String>();
 			CellContentConverter cellContentConverter = getCellContentConverter(resultSet, session, targetDBMSConfiguration);
 			for (int i = 1; i <= columnCount; ++i) {
 				Object content = null;
+				smallLob[i] = null;
 				if (columnLabel[i] == null) {
 					continue;
 				}
@@ -341,7 +659,7 @@ public class DMLTransformer extends AbstractResultSetReader {
 					content = cellContentConverter.getSmallLob(resultSet, i);
 					if (content != null) {
 						isSmallLob = true;
-						smallLobsPerIndex.put(i, (String) content);
+						smallLob[i] = (String) content;
 					}
 				}
 				if (content == null) {
@@ -351,7 +669,6 @@ public class DMLTransformer extends AbstractResultSetReader {
 					}
 				}
 				if (!f) {
-					namedValues.append(", ");
 					valueList.append(", ");
 				}
 				f = false;
@@ -360,21 +677,14 @@ public class DMLTransformer extends AbstractResultSetReader {
 				if (!isSmallLob && content != null && emptyLobValue[i] != null) {
 					cVal = emptyLobValue[i];
 				}
+				value[i] = cVal;
 				valueList.append(cVal);
-				namedValues.append(cVal + " " + columnLabel[i]);
 			}
 			if (table.getUpsert() || upsertOnly) {
-				if (table.getNonVirtualPKColumns(session).isEmpty()) {
+				if (pkColumnIndex.length == 0) {
 					throw new DataModel.NoPrimaryKeyException(table, "has no primary key. Upsert statement can not be generated.");
 				}
 
-				Map<String, String> val = new HashMap<String, String>();
-				Map<String, Boolean> valIsNull = new HashMap<String, Boolean>();
-				StringBuffer valuesWONull = new StringBuffer("");
-				StringBuffer namedValuesWONull = new StringBuffer("");
-				StringBuffer columnsWONull = new StringBuffer("");
-				f = true;
-				boolean generateUpsertStatementsWithoutNulls = Configuration.getInstance().isGenerateUpsertStatementsWithoutNulls();
 				for (int i = 1; i <= columnCount; ++i) {
 					if (columnLabel[i] == null) {
 						continue;
@@ -384,190 +694,115 @@ public class DMLTransformer extends AbstractResultSetReader {
 						content = null;
 					}
 					String suffix = null;
-					if (DBMS.POSTGRESQL.equals(targetDBMSConfiguration)) {
-						int mdColumnType = getMetaData(resultSet).getColumnType(i);
-						if (mdColumnType == Types.TIME || (content == null && ((currentDialect.getUpdateMode() == UPDATE_MODE.PG || !generateUpsertStatementsWithoutNulls)))) { 
+					if (castSuffix[i] != null) {
+						if (columnType[i] == Types.TIME || (content == null && ((currentDialect.getUpdateMode() == UPDATE_MODE.PG || !generateUpsertStatementsWithoutNulls)))) { 
 							// explicit cast needed
-							if (mdColumnType == Types.OTHER) {
-								String type = null;
-								if (!columnTypeFromDatamodel.containsKey(i)) {
-									for (Column c: table.getColumns()) {
-										if (c.name != null && c.name.equalsIgnoreCase(columnLabel[i])) {
-											type = c.type;
-											break;
-										}
-									}
-									columnTypeFromDatamodel.put(i, type);
-								} else {
-									type = columnTypeFromDatamodel.get(i);
-								}
-								if (type != null) {
-									suffix = "::" + type;
-								}
-							} else {
-								suffix = "::" + getMetaData(resultSet).getColumnTypeName(i);
-							}
+							suffix = castSuffix[i];
 						}
 					}
 					String cVal = convertToSql(cellContentConverter, resultSet, i, content, 1, suffix);
 					if (content != null && emptyLobValue[i] != null) {
-						cVal = smallLobsPerIndex.get(i);
+						cVal = smallLob[i];
 						if (cVal == null) {
 							cVal = emptyLobValue[i];
 						}
 					}
-					valIsNull.put(columnLabel[i], content == null);
-					val.put(columnLabel[i], cVal);
-					if (content != null || !generateUpsertStatementsWithoutNulls) {
-						if (!f) {
-							valuesWONull.append(", ");
-							namedValuesWONull.append(", ");
-							columnsWONull.append(", ");
-						}
-						f = false;
-						valuesWONull.append(cVal);
-						namedValuesWONull.append(cVal);
-						namedValuesWONull.append(" ");
-						namedValuesWONull.append(columnLabel[i]);
-						columnsWONull.append(columnLabel[i]);
-					}
+					valueIsNull[i] = content == null;
+					upsertValue[i] = cVal;
 				}
-				
-				String insertHead = "Insert into " + qualifiedTableName(table) + "(" + columnsWONull + ") ";
+				valuesWONull.setLength(0);
+				columnsWONull.setLength(0);
+				appendValues(valuesWONull, upsertValue, false, generateUpsertStatementsWithoutNulls);
 				f = true;
-				StringBuffer whereForTerminator = new StringBuffer("");
-				StringBuffer where = new StringBuffer("");
-				StringBuffer whereWOAlias = new StringBuffer("");
-				
-				// assemble 'where' for sub-select and update
-				for (Column pk: table.getNonVirtualPKColumns(session)) {
+				for (int i = 1; i <= columnCount; ++i) {
+					if (columnLabel[i] == null || (generateUpsertStatementsWithoutNulls && valueIsNull[i])) {
+						continue;
+					}
 					if (!f) {
-						whereForTerminator.append(" and ");
-						where.append(" and ");
-						whereWOAlias.append(" and ");
+						columnsWONull.append(", ");
 					}
 					f = false;
-					whereForTerminator.append("T." + quoting.requote(pk.name) + "=Q." + quoting.requote(pk.name));
-					String value;
-					String name = quoting.quote(pk.name);
-					if (val.containsKey(name)) {
-						value = val.get(name);
-					} else if (val.containsKey(name.toLowerCase())) {
-						value = val.get(name.toLowerCase());
-					} else {
-						value = val.get(name.toUpperCase());
-					}
-					where.append("T." + quoting.requote(pk.name) + "=" + value);
-					whereWOAlias.append(quoting.requote(pk.name) + "=" + value);
+					columnsWONull.append(columnLabel[i]);
 				}
+				
+				// assemble 'where' for sub-select and update
+				where.setLength(0);
+				whereWOAlias.setLength(0);
+				appendPKCondition(where, pkCondition);
+				appendPKCondition(whereWOAlias, pkConditionWOAlias);
 
 				if (currentDialect.getUpsertMode() == UPSERT_MODE.MERGE && !tableHasLobs) {
 					// MERGE INTO JL_TMP T USING (SELECT 1 c1, 2 c2 from dual) incoming 
 					// ON (T.c1 = incoming.c1) 
 					// WHEN MATCHED THEN UPDATE SET T.c2 = incoming.c2 
 					// WHEN NOT MATCHED THEN INSERT (T.c1, T.c2) VALUES (incoming.c1, incoming.c2)
-					insertHead = "MERGE INTO " + qualifiedTableName(table) + " T USING(";
-					StringBuffer terminator = new StringBuffer(") Q ON(" + whereForTerminator + ") ");
-					
-					StringBuffer sets = new StringBuffer();
-					StringBuffer tSchema = new StringBuffer();
-					StringBuffer iSchema = new StringBuffer();
-					for (int i = 1; i <= columnCount; ++i) {
-						if (columnLabel[i] == null) {
-							continue;
-						}
-						if  (!isPrimaryKeyColumn(columnLabel[i])) {
-							if (sets.length() > 0) {
-								sets.append(", ");
-							}
-							sets.append("T." + columnLabel[i] + "=Q." + columnLabel[i]);
-						}
-						if (tSchema.length() > 0) {
-							tSchema.append(", ");
-						}
-						tSchema.append("T." + columnLabel[i]);
-						if (iSchema.length() > 0) {
-							iSchema.append(", ");
-						}
-						iSchema.append("Q." + columnLabel[i]);
-					}
-					if (sets.length() > 0) {
-						terminator.append("WHEN MATCHED THEN UPDATE SET " + sets + " ");
-					}
-					terminator.append("WHEN NOT MATCHED THEN INSERT (" + tSchema + ") VALUES(" + iSchema + ");" + PrintUtil.LINE_SEPARATOR);
-
-					StatementBuilder sb = upsertInsertStatementBuilder.get(insertHead);
-					if (sb == null) {
-						sb = new StatementBuilder(maxBodySize);
-						upsertInsertStatementBuilder.put(insertHead, sb);
-					}
+					String insertHead = "MERGE INTO " + qualifiedTableName + " T USING(";
+					StatementBuilder sb = getUpsertInsertStatementBuilder(insertHead, maxBodySize);
 				
-					String item = "Select " + valueList + " from dual";
+					buffer.setLength(0);
+					String item = buffer.append("Select ").append(valueList).append(" from dual").toString();
 					if (!sb.isAppendable(insertHead, item)) {
 						writeToScriptFile(sb.build(), true);
 					}
 					if (sb.isEmpty()) {
-						item = "Select " + namedValues + " from dual";
+						buffer.setLength(0);
+						buffer.append("Select ");
+						item = appendValues(buffer, value, true, false).append(" from dual").toString();
 					}
-					sb.append(insertHead, item, " UNION ALL ", terminator.toString());
+					sb.append(insertHead, item, " UNION ALL ", getMergeTerminator());
 				} else if (currentDialect.getUpsertMode() == UPSERT_MODE.DB2) {
-					insertHead += "Select * From (values ";
-					StringBuffer terminator = new StringBuffer(") as Q(" + columnsWONull + ") Where not exists (Select * from " + qualifiedTableName(table) + " T "
-							+ "Where ");
-					terminator.append(whereForTerminator + ");" + PrintUtil.LINE_SEPARATOR);
-					
-					StatementBuilder sb = upsertInsertStatementBuilder.get(insertHead);
-					if (sb == null) {
-						sb = new StatementBuilder(maxBodySize);
-						upsertInsertStatementBuilder.put(insertHead, sb);
-					}
+					buffer.setLength(0);
+					String insertHead = buffer.append("Insert into ").append(qualifiedTableName).append("(").append(columnsWONull).append(") Select * From (values ").toString();
+					buffer.setLength(0);
+					String terminator = buffer.append(") as Q(").append(columnsWONull).append(") Where not exists (Select * from ").append(qualifiedTableName).append(" T ")
+							.append("Where ").append(whereForTerminator).append(");").append(PrintUtil.LINE_SEPARATOR).toString();
+					StatementBuilder sb = getUpsertInsertStatementBuilder(insertHead, maxBodySize);
 				
-					String item = (maxBodySize > 1? PrintUtil.LINE_SEPARATOR + " " : "") + "(" + valuesWONull + ")";
+					buffer.setLength(0);
+					if (maxBodySize > 1) {
+						buffer.append(PrintUtil.LINE_SEPARATOR).append(" ");
+					}
+					String item = buffer.append("(").append(valuesWONull).append(")").toString();
 					if (!sb.isAppendable(insertHead, item)) {
 						writeToScriptFile(sb.build(), true);
 					}
-					sb.append(insertHead, item, ", ", terminator.toString());
+					sb.append(insertHead, item, ", ", terminator);
 				} else if (currentDialect.getUpsertMode() == UPSERT_MODE.UNION_ALL) {
-					insertHead += "Select * From (" + PrintUtil.LINE_SEPARATOR + " Select ";
-					StringBuffer terminator = new StringBuffer(") as Q " + PrintUtil.LINE_SEPARATOR + "Where not exists (Select * from " + qualifiedTableName(table) + " T "
-							+ "Where ");
-					terminator.append(whereForTerminator + ");" + PrintUtil.LINE_SEPARATOR);
-					
-					StatementBuilder sb = upsertInsertStatementBuilder.get(insertHead);
-					if (sb == null) {
-						sb = new StatementBuilder(maxBodySize);
-						upsertInsertStatementBuilder.put(insertHead, sb);
-					}
+					buffer.setLength(0);
+					String insertHead = buffer.append("Insert into ").append(qualifiedTableName).append("(").append(columnsWONull).append(") Select * From (").append(PrintUtil.LINE_SEPARATOR).append(" Select ").toString();
+					buffer.setLength(0);
+					String terminator = buffer.append(") as Q ").append(PrintUtil.LINE_SEPARATOR).append("Where not exists (Select * from ").append(qualifiedTableName).append(" T ")
+							.append("Where ").append(whereForTerminator).append(");").append(PrintUtil.LINE_SEPARATOR).toString();
+					StatementBuilder sb = getUpsertInsertStatementBuilder(insertHead, maxBodySize);
 				
 					String item;
 					if (sb.isEmpty()) {
-						item = namedValuesWONull.toString();	
+						buffer.setLength(0);
+						item = appendValues(buffer, upsertValue, true, generateUpsertStatementsWithoutNulls).toString();
 					} else {
 						item = valuesWONull.toString();
 					}
 					if (!sb.isAppendable(insertHead, item)) {
 						writeToScriptFile(sb.build(), true);
 					}
-					sb.append(insertHead, item, " union all " + PrintUtil.LINE_SEPARATOR + " Select ", terminator.toString());
+					sb.append(insertHead, item, " union all " + PrintUtil.LINE_SEPARATOR + " Select ", terminator);
 				} else {
-					String item = "Select " + valuesWONull + " From " + 
+					buffer.setLength(0);
+					String insertHead = buffer.append("Insert into ").append(qualifiedTableName).append("(").append(columnsWONull).append(") ").toString();
+					buffer.setLength(0);
+					String item = buffer.append("Select ").append(valuesWONull).append(" From ").append(
 						(currentDialect.getUpsertMode() == UPSERT_MODE.FROM_DUAL || 
 						 currentDialect.getUpsertMode() == UPSERT_MODE.MERGE? // oracle table with lobs
-								 "dual" : currentDialect.getUpsertMode() == UPSERT_MODE.FROM_SYSDUMMY1? "sysibm.sysdummy1" : SQLDialect.DUAL_TABLE);
-					StringBuffer terminator = new StringBuffer(" Where not exists (Select * from " + qualifiedTableName(table) + " T "
-							+ "Where ");
-					terminator.append(where + ");" + PrintUtil.LINE_SEPARATOR);
-					
-					StatementBuilder sb = upsertInsertStatementBuilder.get(insertHead);
-					if (sb == null) {
-						sb = new StatementBuilder(1 /* insertStatementBuilder.getMaxBodySize() */);
-						upsertInsertStatementBuilder.put(insertHead, sb);
-					}
+								 "dual" : currentDialect.getUpsertMode() == UPSERT_MODE.FROM_SYSDUMMY1? "sysibm.sysdummy1" : SQLDialect.DUAL_TABLE)).toString();
+					buffer.setLength(0);
+					String terminator = buffer.append(" Where not exists (Select * from ").append(qualifiedTableName).append(" T ")
+							.append("Where ").append(where).append(");").append(PrintUtil.LINE_SEPARATOR).toString();
+					StatementBuilder sb = getUpsertInsertStatementBuilder(insertHead, 1 /* insertStatementBuilder.getMaxBodySize() */);
 				
 					if (!sb.isAppendable(insertHead, item)) {
 						writeToScriptFile(sb.build(), true);
 					}
-					sb.append(insertHead, item, ", ", terminator.toString());
+					sb.append(insertHead, item, ", ", terminator);
 				}
 				
 				// TODO refactoring, method is too long
@@ -576,18 +811,18 @@ public class DMLTransformer extends AbstractResultSetReader {
 					if (currentDialect.getUpdateMode() == UPDATE_MODE.PG && DBMS.POSTGRESQL.equals(session.dbms)) {
 						StringBuilder item = new StringBuilder(" (");
 						StringBuilder terminator = new StringBuilder(") Q(");
-						StringBuilder head = new StringBuilder("Update " + qualifiedTableName(table) + " T set ");
+						StringBuilder head = new StringBuilder("Update ").append(qualifiedTableName).append(" T set ");
 						StringBuilder set = new StringBuilder();
 						f = true;
 						for (int i = 1; i <= columnCount; ++i) {
-							if (columnLabel[i] == null || (emptyLobValue[i] != null && !valIsNull.get(columnLabel[i]))) {
+							if (columnLabel[i] == null || (emptyLobValue[i] != null && !valueIsNull[i])) {
 								continue;
 							}
-							if (!isPrimaryKeyColumn(columnLabel[i])) {
+							if (!isPKColumn[i]) {
 								if (set.length() > 0) {
 									set.append(", ");
 								}
-								set.append(columnLabel[i] + "=Q." + columnLabel[i]);
+								set.append(columnLabel[i]).append("=Q.").append(columnLabel[i]);
 							}
 							if (!f) {
 								terminator.append(", ");
@@ -595,7 +830,7 @@ public class DMLTransformer extends AbstractResultSetReader {
 							}
 							f = false;
 							terminator.append(columnLabel[i]);
-							item.append(val.get(columnLabel[i]));
+							item.append(upsertValue[i]);
 						}
 						head.append(set).append(PrintUtil.LINE_SEPARATOR + "From (values" + PrintUtil.LINE_SEPARATOR);
 						item.append(")");
@@ -609,7 +844,7 @@ public class DMLTransformer extends AbstractResultSetReader {
 									headAsString, 
 									itemAsString, 
 									", " + PrintUtil.LINE_SEPARATOR,
-									terminator + ")" + PrintUtil.LINE_SEPARATOR + "Where " + whereForTerminator + ";" + PrintUtil.LINE_SEPARATOR);
+									terminator.append(")").append(PrintUtil.LINE_SEPARATOR).append("Where ").append(whereForTerminator).append(";").append(PrintUtil.LINE_SEPARATOR).toString());
 						}
 					} else if (currentDialect.getUpdateMode() == UPDATE_MODE.MYSQL || currentDialect.getUpdateMode() == UPDATE_MODE.MSSQL) {
 						boolean ms = currentDialect.getUpdateMode() == UPDATE_MODE.MSSQL;
@@ -617,13 +852,16 @@ public class DMLTransformer extends AbstractResultSetReader {
 						StringBuilder terminator = new StringBuilder();
 						StringBuilder columns = new StringBuilder();
 						StringBuilder set = new StringBuilder();
-						StringBuilder head = new StringBuilder(
-								ms? ("Update T ")
-								  : ("Update " + qualifiedTableName(table) + " T join (" + PrintUtil.LINE_SEPARATOR));
+						StringBuilder head = new StringBuilder();
+						if (ms) {
+							head.append("Update T ");
+						} else {
+							head.append("Update ").append(qualifiedTableName).append(" T join (").append(PrintUtil.LINE_SEPARATOR);
+						}
 						f = true;
 						boolean tf = true;
 						for (int i = 1; i <= columnCount; ++i) {
-							if (columnLabel[i] == null || (emptyLobValue[i] != null && !valIsNull.get(columnLabel[i]))) {
+							if (columnLabel[i] == null || (emptyLobValue[i] != null && !valueIsNull[i])) {
 								continue;
 							}
 							if (!f) {
@@ -631,21 +869,21 @@ public class DMLTransformer extends AbstractResultSetReader {
 								columns.append(", ");
 							}
 							f = false;
-							if (isPrimaryKeyColumn(columnLabel[i])) {
+							if (isPKColumn[i]) {
 								if (!tf) {
 									terminator.append(" and ");
 								}
 								tf = false;
-								terminator.append("T." + columnLabel[i] + "=Q." + columnLabel[i]);
+								terminator.append("T.").append(columnLabel[i]).append("=Q.").append(columnLabel[i]);
 							} else {
 								if (set.length() > 0) {
 									set.append(", ");
 								}
-								set.append("T." + columnLabel[i] + "=Q." + columnLabel[i]);
+								set.append("T.").append(columnLabel[i]).append("=Q.").append(columnLabel[i]);
 							}
-							item.append(val.get(columnLabel[i]));
+							item.append(upsertValue[i]);
 							if (!ms && updateStatementBuilder.isEmpty()) {
-								item.append(" " + columnLabel[i]);
+								item.append(" ").append(columnLabel[i]);
 							}
 							if (ms) {
 								columns.append(columnLabel[i]);
@@ -653,13 +891,13 @@ public class DMLTransformer extends AbstractResultSetReader {
 						}
 						if (set.length() > 0) {
 							if (ms) {
-								head.append("set " + set).append(PrintUtil.LINE_SEPARATOR).append("from " + qualifiedTableName(table) + " T join (").append(PrintUtil.LINE_SEPARATOR);
+								head.append("set ").append(set).append(PrintUtil.LINE_SEPARATOR).append("from ").append(qualifiedTableName).append(" T join (").append(PrintUtil.LINE_SEPARATOR);
 							}
 							String headAsString = head.toString();
 							String itemAsString = item.toString();
 							if (!ms) {
 								terminator.append(PrintUtil.LINE_SEPARATOR);
-								terminator.append("set " + set);
+								terminator.append("set ").append(set);
 							}
 							terminator.append(";").append(PrintUtil.LINE_SEPARATOR);
 							String terminatorAsString = (ms? (") Q(" + columns + ") on ") : ") Q on ") + terminator.toString();
@@ -674,58 +912,59 @@ public class DMLTransformer extends AbstractResultSetReader {
 									terminatorAsString);
 						}
 					} else {
-						StringBuffer update = new StringBuffer("");
-						update.append("Update " + qualifiedTableName(table) + " set ");
+						buffer.setLength(0);
+						buffer.append("Update ").append(qualifiedTableName).append(" set ");
 						f = true;
 						for (int i = 1; i <= columnCount; ++i) {
-							if (columnLabel[i] == null || (emptyLobValue[i] != null && !valIsNull.get(columnLabel[i]))) {
+							if (columnLabel[i] == null || (emptyLobValue[i] != null && !valueIsNull[i])) {
 								continue;
 							}
-							if (isPrimaryKeyColumn(columnLabel[i])) {
+							if (isPKColumn[i]) {
 								continue;
 							}
 							if (!f) {
-								update.append(", ");
+								buffer.append(", ");
 							}
 							f = false;
-							update.append(columnLabel[i] + "=" + val.get(columnLabel[i]));
+							buffer.append(columnLabel[i]).append("=").append(upsertValue[i]);
 						}
 						if (!f) {
-							update.append(" Where " + whereWOAlias + ";" + PrintUtil.LINE_SEPARATOR);
-							writeToScriptFile(update.toString(), true);
+							buffer.append(" Where ").append(whereWOAlias).append(";").append(PrintUtil.LINE_SEPARATOR);
+							writeToScriptFile(buffer.toString(), true);
 						}
 					}
 				}
 			} else {
+				buffer.setLength(0);
 				if (DBMS.DB2_ZOS.equals(targetDBMSConfiguration) && maxBodySize > 1) {
-					String insertSchema = "Insert into " + qualifiedTableName(table) + "(" + labelCSL + ") ";
-					String item = PrintUtil.LINE_SEPARATOR + " Select " + valueList + " From sysibm.sysdummy1";
+					String item = buffer.append(PrintUtil.LINE_SEPARATOR).append(" Select ").append(valueList).append(" From sysibm.sysdummy1").toString();
 					if (!insertStatementBuilder.isAppendable(insertSchema, item)) {
 						writeToScriptFile(insertStatementBuilder.build(), true);
 					}
 					insertStatementBuilder.append(insertSchema, item, " Union all ", ";" + PrintUtil.LINE_SEPARATOR);
 				} else if (DBMS.ORACLE.equals(targetDBMSConfiguration) && maxBodySize > 1) {
-					String insertSchema = "Insert into " + qualifiedTableName(table) + "(" + labelCSL + ") ";
 					if (!insertStatementBuilder.isAppendable(insertSchema)) {
 						writeToScriptFile(insertStatementBuilder.build(), true);
 					}
-					String item;
+					buffer.append(PrintUtil.LINE_SEPARATOR).append(" Select ");
 					if (insertStatementBuilder.isEmpty()) {
-						item = PrintUtil.LINE_SEPARATOR + " Select " + namedValues + " From DUAL";	
+						appendValues(buffer, value, true, false);
 					} else {
-						item = PrintUtil.LINE_SEPARATOR + " Select " + valueList + " From DUAL";
+						buffer.append(valueList);
 					}
+					String item = buffer.append(" From DUAL").toString();
 					insertStatementBuilder.append(insertSchema, item, " Union all ", ";" + PrintUtil.LINE_SEPARATOR);
 				} else if (DBMS.SQLITE.equals(targetDBMSConfiguration) && maxBodySize > 1) {
-					String insertSchema = "Insert into " + qualifiedTableName(table) + "(" + labelCSL + ") ";
-					String item = PrintUtil.LINE_SEPARATOR + " Select " + valueList + " ";
+					String item = buffer.append(PrintUtil.LINE_SEPARATOR).append(" Select ").append(valueList).append(" ").toString();
 					if (!insertStatementBuilder.isAppendable(insertSchema, item)) {
 						writeToScriptFile(insertStatementBuilder.build(), true);
 					}
 					insertStatementBuilder.append(insertSchema, item, " Union all ", ";" + PrintUtil.LINE_SEPARATOR);
 				} else {
-					String insertSchema = "Insert into " + qualifiedTableName(table) + "(" + labelCSL + ") values ";
-					String item = (maxBodySize > 1? PrintUtil.LINE_SEPARATOR + " " : "") + "(" + valueList + ")";
+					if (maxBodySize > 1) {
+						buffer.append(PrintUtil.LINE_SEPARATOR).append(" ");
+					}
+					String item = buffer.append("(").append(valueList).append(")").toString();
 					if (!insertStatementBuilder.isAppendable(insertSchema, item)) {
 						writeToScriptFile(insertStatementBuilder.build(), true);
 					}
@@ -733,7 +972,9 @@ public class DMLTransformer extends AbstractResultSetReader {
 				}
 			}
 			
-			exportLobs(table, resultSet, smallLobsPerIndex.keySet());
+			if (!lobColumnIndexes.isEmpty()) {
+				exportLobs(table, resultSet);
+			}
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
@@ -812,123 +1053,204 @@ public class DMLTransformer extends AbstractResultSetReader {
 
 	/**
 	 * Exports the (c|b)lob content.
+	 * The content is written while holding the lock on the script, so that it is not interleaved
+	 * with the statements of other transformers.
 	 * 
 	 * @param resultSet export current row
 	 */
-	private void exportLobs(Table table, ResultSet resultSet, Set<Integer> smallLobsIndexes) throws IOException, SQLException {
-		synchronized (scriptFileWriter) {
-			CellContentConverter cellContentConverter = getCellContentConverter(resultSet, session, targetDBMSConfiguration);
-			for (int i = 0; i < lobColumnIndexes.size(); ++i) {
-				if (smallLobsIndexes.contains(lobColumnIndexes.get(i))) {
-					continue;
+	private void exportLobs(Table table, ResultSet resultSet) throws IOException, SQLException {
+		CellContentConverter cellContentConverter = getCellContentConverter(resultSet, session, targetDBMSConfiguration);
+		for (int i = 0; i < lobColumnIndexes.size(); ++i) {
+			if (smallLob[lobColumnIndexes.get(i)] != null) {
+				continue;
+			}
+			Object lob = resultSet.getObject(lobColumnIndexes.get(i));
+			if (pkLobColumnIndex.length == 0) {
+				throw new DataModel.NoPrimaryKeyException(table, "has no primary key. Update statement to import CLOB/BLOB/XML can not be generated.");
+			}
+			StringBuilder where = new StringBuilder();
+			for (int p = 0; p < pkLobColumnIndex.length; ++p) {
+				if (p > 0) {
+					where.append(" and ");
 				}
-				Object lob = resultSet.getObject(lobColumnIndexes.get(i));
-				Map<String, String> val = new HashMap<String, String>();
-				for (int j = 1; j <= columnCount; ++j) {
-					if (columnLabel[j] == null) {
-						continue;
-					}
+				String cVal = null;
+				int j = pkLobColumnIndex[p];
+				if (j > 0) {
 					Object content = cellContentConverter.getObject(resultSet, j);
 					if (resultSet.wasNull()) {
 						content = null;
 					}
-					String cVal = cellContentConverter.toSql(content);
-					val.put(columnLabel[j], cVal);
+					cVal = cellContentConverter.toSql(content);
 				}
-				boolean f = true;
-				StringBuffer where = new StringBuffer("");
-				if (table.getNonVirtualPKColumns(session).isEmpty()) {
-					throw new DataModel.NoPrimaryKeyException(table, "has no primary key. Update statement to import CLOB/BLOB/XML can not be generated.");
+				where.append(pkConditionWOAlias[p]).append(cVal);
+			}
+			String lobType;
+			if (lob instanceof SQLXML) {
+				lobType = "XML";
+			} else if (lob instanceof Clob) {
+				lobType = "CLOB";
+			} else if (lob instanceof Blob) {
+				lobType = "BLOB";
+			} else {
+				continue;
+			}
+			factory.numberOfExportedLOBs.incrementAndGet();
+			flush();
+			// the LOB must not be interleaved with the output of other transformers
+			scriptChunk.startUnit();
+			boolean completed = false;
+			try {
+				writeToScriptFile(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT + lobType + " " + qualifiedTableName(table) + ", " + lobColumns.get(i) + ", " + where + PrintUtil.LINE_SEPARATOR, false);
+				if (lob instanceof SQLXML) {
+					writeCharacterLob(((SQLXML) lob).getCharacterStream());
+				} else if (lob instanceof Clob) {
+					writeCharacterLob(((Clob) lob).getCharacterStream());
+				} else {
+					writeBinaryLob(((Blob) lob).getBinaryStream());
 				}
-				for (Column pk: table.getNonVirtualPKColumns(session)) {
-					if (!f) {
-						where.append(" and ");
-					}
-					f = false;
-					where.append(quoting.requote(pk.name) + "=" + val.get(pk.name));
+				completed = true;
+			} finally {
+				if (completed) {
+					scriptChunk.endUnit();
+				} else {
+					// don't write a truncated LOB
+					scriptChunk.discardUnit();
 				}
-				if (lob instanceof SQLXML) {
-					++numberOfExportedLOBs;
-					flush();
-					SQLXML xml = (SQLXML) lob;
-					writeToScriptFile(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT + "XML " + qualifiedTableName(table) + ", " + lobColumns.get(i) + ", " + where + PrintUtil.LINE_SEPARATOR, false);
-					Reader in = xml.getCharacterStream();
-					int c;
-					StringBuffer line = new StringBuffer(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT);
-					while ((c = in.read()) != -1) {
-						if ((char) c == '\n') {
-							writeToScriptFile(line.toString() + "\\n" + PrintUtil.LINE_SEPARATOR, false);
-							line = new StringBuffer(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT);
-						} else {
-							if ((char) c == '\r') {
-								line.append("\\r");
-							} else {
-								line.append((char) c);
-								if ((char) c == '\\') {
-									line.append((char) c);
-								}
-							}
-						}
-						if (line.length() >= 200) {
-							writeToScriptFile(line.toString() + PrintUtil.LINE_SEPARATOR, false);
-							line = new StringBuffer(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT);
+			}
+		}
+	}
+
+	/**
+	 * Size of the buffers for exporting LOBs.
+	 */
+	private static final int LOB_BUFFER_SIZE = 64 * 1024;
+	
+	/**
+	 * Number of bytes of a BLOB per line.
+	 */
+	private static final int BLOB_BYTES_PER_LINE = 64;
+
+	/**
+	 * Buffer for exporting LOBs.
+	 */
+	private StringBuilder lobContent;
+	
+	/**
+	 * Writes the content of a CLOB or XML into the script as lines of a multi-line comment.
+	 * 
+	 * @param in the content
+	 */
+	private void writeCharacterLob(Reader in) throws IOException {
+		if (lobContent == null) {
+			lobContent = new StringBuilder(LOB_BUFFER_SIZE + 1024);
+		}
+		StringBuilder out = lobContent;
+		out.setLength(0);
+		int lineStart = 0;
+		out.append(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT);
+		char[] buffer = new char[LOB_BUFFER_SIZE / 8];
+		try {
+			int n;
+			while ((n = in.read(buffer)) != -1) {
+				for (int k = 0; k < n; ++k) {
+					char c = buffer[k];
+					if (c == '\n') {
+						out.append("\\n").append(PrintUtil.LINE_SEPARATOR);
+						lineStart = out.length();
+						out.append(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT);
+					} else if (c == '\r') {
+						out.append("\\r");
+					} else {
+						out.append(c);
+						if (c == '\\') {
+							out.append(c);
 						}
 					}
-					in.close();
-					writeToScriptFile(line.toString() + PrintUtil.LINE_SEPARATOR + SqlScriptExecutor.FINISHED_MULTILINE_COMMENT + "" + PrintUtil.LINE_SEPARATOR + "", false);
-				}
-				if (lob instanceof Clob) {
-					++numberOfExportedLOBs;
-					flush();
-					Clob clob = (Clob) lob;
-					writeToScriptFile(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT + "CLOB " + qualifiedTableName(table) + ", " + lobColumns.get(i) + ", " + where + "" + PrintUtil.LINE_SEPARATOR + "", false);
-					Reader in = clob.getCharacterStream();
-					int c;
-					StringBuffer line = new StringBuffer(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT);
-					while ((c = in.read()) != -1) {
-						if ((char) c == '\n') {
-							writeToScriptFile(line.toString() + "\\n" + PrintUtil.LINE_SEPARATOR, false);
-							line = new StringBuffer(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT);
-						} else {
-							if ((char) c == '\r') {
-								line.append("\\r");
-							} else {
-								line.append((char) c);
-								if ((char) c == '\\') {
-									line.append((char) c);
-								}
-							}
-						}
-						if (line.length() >= 200) {
-							writeToScriptFile(line.toString() + PrintUtil.LINE_SEPARATOR, false);
-							line = new StringBuffer(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT);
-						}
+					if (out.length() - lineStart >= 200) {
+						out.append(PrintUtil.LINE_SEPARATOR);
+						lineStart = out.length();
+						out.append(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT);
 					}
-					in.close();
-					writeToScriptFile(line.toString() + PrintUtil.LINE_SEPARATOR + SqlScriptExecutor.FINISHED_MULTILINE_COMMENT + "" + PrintUtil.LINE_SEPARATOR + "", false);
 				}
-				if (lob instanceof Blob) {
-					++numberOfExportedLOBs;
-					flush();
-					Blob blob = (Blob) lob;
-					writeToScriptFile(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT + "BLOB " + qualifiedTableName(table) + ", " + lobColumns.get(i) + ", " + where + "" + PrintUtil.LINE_SEPARATOR + "", false);
-					InputStream in = blob.getBinaryStream();
-					int b;
-					StringBuffer line = new StringBuffer(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT);
-					byte[] buffer = new byte[64];
-					int size = 0;
-					while ((b = in.read()) != -1) {
-						buffer[size++] = (byte) b;
-						if (size == buffer.length) {
-							writeToScriptFile(line.toString() + Base64.encodeBytes(buffer, Base64.DONT_BREAK_LINES) + PrintUtil.LINE_SEPARATOR, false);
-							line = new StringBuffer(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT);
-							size = 0;
-						}
-					}
-					in.close();
-					writeToScriptFile(line.toString() + Base64.encodeBytes(buffer, 0, size, Base64.DONT_BREAK_LINES) + PrintUtil.LINE_SEPARATOR + SqlScriptExecutor.FINISHED_MULTILINE_COMMENT + "" + PrintUtil.LINE_SEPARATOR + "", false);
+				if (lineStart >= LOB_BUFFER_SIZE) {
+					// hand over the complete lines
+					scriptChunk.append(out, 0, lineStart);
+					out.delete(0, lineStart);
+					lineStart = 0;
+				}
+			}
+		} finally {
+			in.close();
+		}
+		out.append(PrintUtil.LINE_SEPARATOR).append(SqlScriptExecutor.FINISHED_MULTILINE_COMMENT).append(PrintUtil.LINE_SEPARATOR);
+		scriptChunk.append(out, 0, out.length());
+		out.setLength(0);
+	}
+
+	/**
+	 * Writes the content of a BLOB into the script as Base64 encoded lines of a multi-line comment.
+	 * 
+	 * @param in the content
+	 */
+	private void writeBinaryLob(InputStream in) throws IOException {
+		if (lobContent == null) {
+			lobContent = new StringBuilder(LOB_BUFFER_SIZE + 1024);
+		}
+		StringBuilder out = lobContent;
+		out.setLength(0);
+		byte[] buffer = new byte[(LOB_BUFFER_SIZE / 2 / BLOB_BYTES_PER_LINE) * BLOB_BYTES_PER_LINE];
+		int size = 0;
+		try {
+			int n;
+			while ((n = in.read(buffer, size, buffer.length - size)) != -1) {
+				size += n;
+				int start = 0;
+				while (size - start >= BLOB_BYTES_PER_LINE) {
+					out.append(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT);
+					appendBase64(out, buffer, start, BLOB_BYTES_PER_LINE);
+					out.append(PrintUtil.LINE_SEPARATOR);
+					start += BLOB_BYTES_PER_LINE;
+				}
+				if (start > 0) {
+					System.arraycopy(buffer, start, buffer, 0, size - start);
+					size -= start;
+				}
+				if (out.length() >= LOB_BUFFER_SIZE) {
+					scriptChunk.append(out, 0, out.length());
+					out.setLength(0);
 				}
 			}
+		} finally {
+			in.close();
+		}
+		out.append(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT);
+		appendBase64(out, buffer, 0, size);
+		out.append(PrintUtil.LINE_SEPARATOR).append(SqlScriptExecutor.FINISHED_MULTILINE_COMMENT).append(PrintUtil.LINE_SEPARATOR);
+		scriptChunk.append(out, 0, out.length());
+		out.setLength(0);
+	}
+
+	/**
+	 * The Base64 alphabet.
+	 */
+	private static final char[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+	/**
+	 * Appends bytes in Base64 encoding (without line breaks, like {@link Base64#encodeBytes(byte[], int, int, int)} with {@link Base64#DONT_BREAK_LINES}).
+	 */
+	private static void appendBase64(StringBuilder out, byte[] data, int offset, int length) {
+		int end = offset + length;
+		int i = offset;
+		for (; i + 2 < end; i += 3) {
+			int bits = ((data[i] & 0xff) << 16) | ((data[i + 1] & 0xff) << 8) | (data[i + 2] & 0xff);
+			out.append(BASE64[bits >>> 18]).append(BASE64[(bits >>> 12) & 63]).append(BASE64[(bits >>> 6) & 63]).append(BASE64[bits & 63]);
+		}
+		if (end - i == 1) {
+			int bits = (data[i] & 0xff) << 16;
+			out.append(BASE64[bits >>> 18]).append(BASE64[(bits >>> 12) & 63]).append("==");
+		} else if (end - i == 2) {
+			int bits = ((data[i] & 0xff) << 16) | ((data[i + 1] & 0xff) << 8);
+			out.append(BASE64[bits >>> 18]).append(BASE64[(bits >>> 12) & 63]).append(BASE64[(bits >>> 6) & 63]).append('=');
 		}
 	}
 
@@ -953,43 +1275,31 @@ public class DMLTransformer extends AbstractResultSetReader {
 	@Override
 	public void close() {
 		flush();
+		try {
+			scriptChunk.flush();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
 		synchronized (scriptFileWriter) {
-			if (identityInsertTable != null) {
+			if (factory.identityInsertTable != null) {
 				try {
-					scriptFileWriter.write("SET IDENTITY_INSERT " + qualifiedTableName(identityInsertTable) + " OFF;" + PrintUtil.LINE_SEPARATOR);
+					scriptFileWriter.write("SET IDENTITY_INSERT " + qualifiedTableName(factory.identityInsertTable) + " OFF;" + PrintUtil.LINE_SEPARATOR);
 				} catch (IOException e) {
 					throw new RuntimeException(e);
 				}
-				identityInsertTable = null;
+				factory.identityInsertTable = null;
 			}
 		}
 	}
 	
-	/**
-	 * Table which is currently enabled for identity-inserts.
-	 */
-	private static Table identityInsertTable = null;
-	
 	/**
 	 * Writes into script.
 	 */
 	private void writeToScriptFile(String content, boolean wrap) throws IOException {
-		synchronized (scriptFileWriter) {
-			if (tableHasIdentityColumn) {
-				if (identityInsertTable != table) {
-					if (identityInsertTable != null) {
-						scriptFileWriter.write("SET IDENTITY_INSERT " + qualifiedTableName(identityInsertTable) + " OFF;" + PrintUtil.LINE_SEPARATOR);
-						identityInsertTable = null;
-					}
-					scriptFileWriter.write("SET IDENTITY_INSERT " + qualifiedTableName(table) + " ON;" + PrintUtil.LINE_SEPARATOR);
-					identityInsertTable = table;
-				}
-			}
-			if (wrap && DBMS.ORACLE.equals(targetDBMSConfiguration)) {
-				   scriptFileWriter.write(SqlUtil.splitDMLStatement(content, 2400));
-			} else {
-				scriptFileWriter.write(content);
-			}
+		if (wrap && DBMS.ORACLE.equals(targetDBMSConfiguration)) {
+			scriptChunk.append(SqlUtil.splitDMLStatement(content, 2400));
+		} else {
+			scriptChunk.append(content);
 		}
 	}
 	
@@ -47,9 +47,9 @@ public class DeletionTransformer extends AbstractResultSetReader {
 	private final Table table;
 	
 	/**
-	 * The file to write to.
+	 * Collects the statements and splices them into the file to write to.
 	 */
-	private final OutputStreamWriter scriptFileWriter;
+	private final ScriptChunkBuffer scriptChunk;
 	
 	/**
 	 * For building compact delete-statements.
@@ -133,7 +133,7 @@ public class DeletionTransformer extends AbstractResultSetReader {
 	private DeletionTransformer(Table table, OutputStreamWriter scriptFileWriter, int maxBodySize, Session session, DBMS targetDBMSConfiguration, ExecutionContext executionContext) throws SQLException {
 		this.executionContext = executionContext;
 		this.table = table;
-		this.scriptFileWriter = scriptFileWriter;
+		this.scriptChunk = new ScriptChunkBuffer(scriptFileWriter);
 		deleteStatementBuilder = new StatementBuilder(maxBodySize);
 		this.quoting = new Quoting(session);
 		if (targetDBMSConfiguration != null && targetDBMSConfiguration != session.dbms) {
@@ -227,12 +227,10 @@ public class DeletionTransformer extends AbstractResultSetReader {
 	 * Writes into script.
 	 */
 	private void writeToScriptFile(String content) throws IOException {
-		synchronized (scriptFileWriter) {
-			if (DBMS.ORACLE.equals(targetDBMSConfiguration)) {
-				   scriptFileWriter.write(SqlUtil.splitDMLStatement(content, 2400));
-			} else {
-				scriptFileWriter.write(content);
-			}
+		if (DBMS.ORACLE.equals(targetDBMSConfiguration)) {
+			scriptChunk.append(SqlUtil.splitDMLStatement(content, 2400));
+		} else {
+			scriptChunk.append(content);
 		}
 	}
 
@@ -243,6 +241,7 @@ public class DeletionTransformer extends AbstractResultSetReader {
 	public void close() {
 		try {
 			writeToScriptFile(deleteStatementBuilder.build());
+			scriptChunk.flush();
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
@@ -0,0 +1,500 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+import net.sf.jailer.ExecutionContext;
+import net.sf.jailer.configuration.DBMS;
+import net.sf.jailer.database.Session.AbstractResultSetReader;
+import net.sf.jailer.database.Session.ResultSetReader;
+import net.sf.jailer.datamodel.Column;
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.subsetting.TransformerFactory;
+import net.sf.jailer.util.Quoting;
+
+/**
+ * A {@link ResultSetReader} that inserts the read rows directly into a target database
+ * using batched prepared statements, without rendering an intermediate SQL script.
+ *
+ * @author Ralf Wisser
+ */
+public class DirectTransferTransformer extends AbstractResultSetReader {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger _log = Logger.getLogger(DirectTransferTransformer.class);
+
+	/**
+	 * The table to read from.
+	 */
+	private final Table table;
+
+	/**
+	 * Session of the target database.
+	 */
+	private final Session targetSession;
+
+	/**
+	 * Configuration of the target DBMS.
+	 */
+	private final DBMS targetDBMSConfiguration;
+
+	/**
+	 * For quoting of identifiers in the target database.
+	 */
+	private final Quoting quoting;
+
+	/**
+	 * Number of rows per batch.
+	 */
+	private final int batchSize;
+
+	/**
+	 * The execution context.
+	 */
+	private final ExecutionContext executionContext;
+
+	/**
+	 * If table has identity column (MSSQL/Sybase)
+	 */
+	private final boolean tableHasIdentityColumn;
+
+	/**
+	 * The columns to update, or <code>null</code> if rows are inserted.
+	 */
+	private final List<Column> updateColumns;
+
+	/**
+	 * The primary key columns (for updates).
+	 */
+	private final List<Column> pkColumns;
+
+	/**
+	 * JDBC types of the result set columns.
+	 */
+	private int[] columnType;
+
+	/**
+	 * The insert or update statement, prepared with the first row.
+	 */
+	private PreparedStatement statement;
+
+	/**
+	 * The target connection.
+	 */
+	private Connection connection;
+
+	/**
+	 * Auto-commit mode of the target connection before the transfer.
+	 */
+	private boolean autoCommit;
+
+	/**
+	 * Number of rows in the current batch.
+	 */
+	private int rowsInBatch;
+
+	/**
+	 * Factory.
+	 */
+	public static class Factory implements TransformerFactory {
+
+		private final Session targetSession;
+		private final DBMS targetDBMSConfiguration;
+		private final int batchSize;
+		private final ExecutionContext executionContext;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param targetSession session of the target database
+		 * @param batchSize number of rows per batch
+		 * @param executionContext the execution context
+		 */
+		public Factory(Session targetSession, int batchSize, ExecutionContext executionContext) {
+			this.targetSession = targetSession;
+			this.targetDBMSConfiguration = targetSession.dbms;
+			this.batchSize = batchSize;
+			this.executionContext = executionContext;
+		}
+
+		/**
+		 * Creates a transformer that inserts rows of a given table into the target database.
+		 *
+		 * @param table the table
+		 * @return a transformer
+		 */
+		@Override
+		public ResultSetReader create(Table table) throws SQLException {
+			return new DirectTransferTransformer(table, null, targetSession, targetDBMSConfiguration, batchSize, executionContext);
+		}
+
+		/**
+		 * Creates a transformer that updates some columns of rows of a given table in the target database.
+		 * It reads result sets with the primary key columns followed by the columns to update.
+		 *
+		 * @param table the table
+		 * @param columns the columns to update
+		 * @return a transformer
+		 */
+		public ResultSetReader createUpdater(Table table, List<Column> columns) throws SQLException {
+			return new DirectTransferTransformer(table, columns, targetSession, targetDBMSConfiguration, batchSize, executionContext);
+		}
+
+		/**
+		 * Gets the session of the target database.
+		 */
+		public Session getTargetSession() {
+			return targetSession;
+		}
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param table the table
+	 * @param updateColumns the columns to update, or <code>null</code> if rows are inserted
+	 * @param targetSession session of the target database
+	 * @param targetDBMSConfiguration configuration of the target DBMS
+	 * @param batchSize number of rows per batch
+	 * @param executionContext the execution context
+	 */
+	private DirectTransferTransformer(Table table, List<Column> updateColumns, Session targetSession, DBMS targetDBMSConfiguration, int batchSize, ExecutionContext executionContext) throws SQLException {
+		this.table = table;
+		this.updateColumns = updateColumns;
+		this.targetSession = targetSession;
+		this.targetDBMSConfiguration = targetDBMSConfiguration;
+		this.batchSize = Math.max(1, batchSize);
+		this.executionContext = executionContext;
+		this.quoting = new Quoting(targetSession);
+		this.pkColumns = table.getNonVirtualPKColumns(targetSession);
+		if (table.getUpsert() || executionContext.getUpsertOnly()) {
+			throw new RuntimeException("Direct transfer does not support upserts (table " + table.getName() + ")");
+		}
+		for (Column c: table.getColumns()) {
+			if (c.getFilter() != null && !c.getFilter().isApplyAtExport()) {
+				throw new RuntimeException("Direct transfer does not support import filters (column " + table.getName() + "." + c.name + ")");
+			}
+		}
+		boolean hasIdentityColumn = false;
+		if (updateColumns == null && targetDBMSConfiguration.isIdentityInserts()) {
+			for (Column c: table.getColumns()) {
+				if (c.isIdentityColumn) {
+					hasIdentityColumn = true;
+					break;
+				}
+			}
+		}
+		this.tableHasIdentityColumn = hasIdentityColumn;
+	}
+
+	/**
+	 * Reads current row and adds it to the batch.
+	 */
+	@Override
+	public void readCurrentRow(ResultSet resultSet) throws SQLException {
+		if (columnType == null) {
+			ResultSetMetaData metaData = getMetaData(resultSet);
+			int columnCount = metaData.getColumnCount();
+			columnType = new int[columnCount + 1];
+			List<String> labels = new ArrayList<String>();
+			for (int i = 1; i <= columnCount; ++i) {
+				columnType[i] = metaData.getColumnType(i);
+				labels.add(quoting.quote(metaData.getColumnLabel(i)));
+			}
+			sql = updateColumns == null? insertStatement(labels) : updateStatement(labels);
+		}
+		if (statement == null) {
+			open();
+		}
+		int parameterCount = columnType.length - 1;
+		for (int i = 1; i <= parameterCount; ++i) {
+			// for updates, the primary key columns come first in the result set but last in the statement
+			int parameterIndex = updateColumns == null? i : (i <= pkColumns.size()? i + updateColumns.size() : i - pkColumns.size());
+			Object value = getValue(resultSet, i, columnType[i]);
+			if (value == null) {
+				statement.setNull(parameterIndex, columnType[i]);
+			} else {
+				statement.setObject(parameterIndex, value);
+			}
+		}
+		statement.addBatch();
+		if (++rowsInBatch >= batchSize) {
+			executeBatch();
+		}
+	}
+
+	/**
+	 * The insert or update statement.
+	 */
+	private String sql;
+
+	/**
+	 * Creates the insert statement.
+	 *
+	 * @param labels quoted column names in result set order
+	 */
+	private String insertStatement(List<String> labels) {
+		StringBuilder columns = new StringBuilder();
+		StringBuilder values = new StringBuilder();
+		for (String label: labels) {
+			if (columns.length() > 0) {
+				columns.append(", ");
+				values.append(", ");
+			}
+			columns.append(label);
+			values.append("?");
+		}
+		return "Insert into " + qualifiedTableName(table) + "(" + columns + ") values (" + values + ")";
+	}
+
+	/**
+	 * Creates the update statement.
+	 *
+	 * @param labels quoted column names in result set order, primary key columns first
+	 */
+	private String updateStatement(List<String> labels) {
+		StringBuilder set = new StringBuilder();
+		StringBuilder where = new StringBuilder();
+		for (int i = 0; i < labels.size(); ++i) {
+			if (i < pkColumns.size()) {
+				if (where.length() > 0) {
+					where.append(" and ");
+				}
+				where.append(labels.get(i) + "=?");
+			} else {
+				if (set.length() > 0) {
+					set.append(", ");
+				}
+				set.append(labels.get(i) + "=?");
+			}
+		}
+		return "Update " + qualifiedTableName(table) + " set " + set + " Where " + where;
+	}
+
+	/**
+	 * Reads a value in a form suitable for binding.
+	 */
+	private Object getValue(ResultSet resultSet, int i, int type) throws SQLException {
+		Object value;
+		switch (type) {
+		case Types.BLOB:
+		case Types.BINARY:
+		case Types.VARBINARY:
+		case Types.LONGVARBINARY:
+			value = resultSet.getBytes(i);
+			break;
+		case Types.CLOB:
+		case Types.NCLOB:
+		case Types.SQLXML:
+		case Types.LONGVARCHAR:
+		case Types.LONGNVARCHAR:
+			value = resultSet.getString(i);
+			break;
+		case Types.TIMESTAMP:
+			value = resultSet.getTimestamp(i);
+			break;
+		case Types.DATE:
+			value = resultSet.getDate(i);
+			break;
+		case Types.TIME:
+			value = resultSet.getTime(i);
+			break;
+		default:
+			value = resultSet.getObject(i);
+		}
+		if (resultSet.wasNull()) {
+			return null;
+		}
+		return value;
+	}
+
+	/**
+	 * Prepares the statement.
+	 */
+	private void open() throws SQLException {
+		connection = targetSession.getConnection();
+		autoCommit = connection.getAutoCommit();
+		if (autoCommit) {
+			// commit once per batch
+			connection.setAutoCommit(false);
+		}
+		try {
+			if (tableHasIdentityColumn) {
+				execute("SET IDENTITY_INSERT " + qualifiedTableName(table) + " ON");
+			}
+			if (targetSession.getLogStatements()) {
+				Session._log.info(sql);
+			}
+			statement = connection.prepareStatement(sql);
+		} finally {
+			if (statement == null && autoCommit) {
+				connection.setAutoCommit(true);
+			}
+		}
+		rowsInBatch = 0;
+	}
+
+	/**
+	 * Executes the current batch.
+	 */
+	private void executeBatch() throws SQLException {
+		if (rowsInBatch > 0) {
+			long startTime = System.currentTimeMillis();
+			try {
+				statement.executeBatch();
+			} catch (SQLException e) {
+				if (autoCommit) {
+					try {
+						connection.rollback();
+					} catch (SQLException e1) {
+						// ignore
+					}
+				}
+				throw new SqlException("\"" + e.getMessage() + "\" in statement \"" + sql + "\"", sql, e);
+			}
+			if (autoCommit) {
+				connection.commit();
+			}
+			if (targetSession.getLogStatements()) {
+				Session._log.info(rowsInBatch + " row(s) in " + (System.currentTimeMillis() - startTime) + " ms");
+			}
+			rowsInBatch = 0;
+		}
+	}
+
+	/**
+	 * Executes a statement on the target connection.
+	 */
+	private void execute(String stmt) throws SQLException {
+		Statement s = connection.createStatement();
+		try {
+			s.execute(stmt);
+		} finally {
+			s.close();
+		}
+	}
+
+	/**
+	 * Executes the remaining rows and releases the statement.
+	 */
+	@Override
+	public void close() throws SQLException {
+		if (statement == null) {
+			return;
+		}
+		try {
+			executeBatch();
+			if (tableHasIdentityColumn) {
+				execute("SET IDENTITY_INSERT " + qualifiedTableName(table) + " OFF");
+				if (autoCommit) {
+					connection.commit();
+				}
+			}
+		} finally {
+			try {
+				statement.close();
+			} catch (SQLException e) {
+				_log.warn(e.getMessage());
+			}
+			statement = null;
+			if (autoCommit) {
+				connection.setAutoCommit(true);
+			}
+		}
+	}
+
+	/**
+	 * Releases the statement after a failure, rolls back the current batch and restores the auto-commit mode.
+	 */
+	@Override
+	public void abort() {
+		if (statement == null) {
+			return;
+		}
+		try {
+			statement.close();
+		} catch (SQLException e) {
+			_log.warn(e.getMessage());
+		}
+		statement = null;
+		rowsInBatch = 0;
+		try {
+			if (autoCommit) {
+				connection.rollback();
+			}
+			if (tableHasIdentityColumn) {
+				execute("SET IDENTITY_INSERT " + qualifiedTableName(table) + " OFF");
+			}
+		} catch (SQLException e) {
+			_log.warn(e.getMessage());
+		} finally {
+			if (autoCommit) {
+				try {
+					connection.setAutoCommit(true);
+				} catch (SQLException e) {
+					_log.warn(e.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets qualified table name.
+	 *
+	 * @param t the table
+	 * @return qualified name of t
+	 */
+	private String qualifiedTableName(Table t) {
+		String schema = t.getOriginalSchema("");
+		String mappedSchema = executionContext.getSchemaMapping().get(schema);
+		if (mappedSchema != null) {
+			schema = mappedSchema;
+		}
+		if (schema.length() == 0) {
+			return quoting.requote(t.getUnqualifiedName());
+		}
+		return quoting.requote(schema) + "." + quoting.requote(t.getUnqualifiedName());
+	}
+
+	/**
+	 * Gets the columns to be read for updating some columns of a table.
+	 *
+	 * @param table the table
+	 * @param columns the columns to update
+	 * @param session the session
+	 * @return primary key columns followed by the columns to update
+	 */
+	public static List<Column> updateSelection(Table table, Set<Column> columns, Session session) {
+		List<Column> result = new ArrayList<Column>(table.getNonVirtualPKColumns(session));
+		result.addAll(columns);
+		return result;
+	}
+
+}
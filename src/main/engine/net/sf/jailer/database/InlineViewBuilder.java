@@ -18,18 +18,37 @@ package net.sf.jailer.database;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
 
 import net.sf.jailer.util.CellContentConverter;
 
 /**
  * Reads {@link ResultSet}s and builds inline-views according to the content.
  * 
+ * The number of rows per inline-view starts small and is doubled as long as this reduces the
+ * processing time per row, up to the limits of the DBMS ({@link net.sf.jailer.configuration.DBMS#getMaxInlineViewRows()},
+ * {@link net.sf.jailer.configuration.DBMS#getMaxStatementLength()}). The size found is
+ * the initial size of subsequent builders of the same name and session.
+ * If an inline-view is rejected because it exceeds a limit of the DBMS, it is split and the limit is lowered for the session.
+ * 
  * @author Ralf Wisser
  */
 public abstract class InlineViewBuilder implements Session.ResultSetReader {
 
+	/**
+	 * The logger.
+	 */
+	private static final Logger _log = Logger.getLogger(InlineViewBuilder.class);
+
 	/**
 	 * The Style.
 	 */
@@ -37,7 +56,10 @@ public abstract class InlineViewBuilder implements Session.ResultSetReader {
 
 	public static final String DEFAULT_NAME = "JAILER_IV";
 
-	private static final int MAX_SIZE = 35;
+	/**
+	 * Initial number of rows per inline-view. Inline-views of this size are never split.
+	 */
+	private static final int INITIAL_SIZE = 35;
 
 	/**
 	 * The name of the Inline-View.
@@ -54,7 +76,55 @@ public abstract class InlineViewBuilder implements Session.ResultSetReader {
 	protected CellContentConverter cellContentConverter;
 	
 	protected final String[] columnNames;
-	
+
+	/**
+	 * Values of the rows in {@link #statementBuilder}.
+	 */
+	private final List<String[]> rows = new ArrayList<String[]>();
+
+	/**
+	 * Current maximum number of rows per inline-view.
+	 */
+	private int size = INITIAL_SIZE;
+
+	/**
+	 * Whether {@link #size} is still being adjusted.
+	 */
+	private boolean growing = true;
+
+	/**
+	 * The size with the lowest processing time per row so far.
+	 */
+	private int bestSize;
+
+	/**
+	 * The lowest processing time per row so far (in ns).
+	 */
+	private double bestCost = Double.MAX_VALUE;
+
+	/**
+	 * Upper bound of {@link #size}.
+	 */
+	private int maxSize;
+
+	/**
+	 * Maximum length of an inline-view.
+	 */
+	private final int maxLength;
+
+	/**
+	 * Length of the inline-view in {@link #statementBuilder}.
+	 */
+	private int length = 0;
+
+	/**
+	 * Statistics.
+	 */
+	private long numBlocks = 0;
+	private long numRows = 0;
+	private long processingTime = 0;
+	private int largestBlock = 0;
+
 	/**
 	 * Constructor.
 	 * 
@@ -69,7 +139,18 @@ public abstract class InlineViewBuilder implements Session.ResultSetReader {
 		this.style = style;
 		this.session = session;
 		this.columnNames = columnNames;
-		statementBuilder = new StatementBuilder(MAX_SIZE);
+		this.maxSize = Math.max(INITIAL_SIZE, session.dbms.getMaxInlineViewRows());
+		Object learnedMaxSize = session.getSessionProperty(InlineViewBuilder.class, "maxSize");
+		if (learnedMaxSize instanceof Integer) {
+			this.maxSize = Math.min(this.maxSize, (Integer) learnedMaxSize);
+		}
+		this.maxLength = session.dbms.getMaxStatementLength();
+		Object learnedSize = session.getSessionProperty(InlineViewBuilder.class, "size." + name);
+		if (learnedSize instanceof Integer) {
+			this.size = Math.min(this.maxSize, (Integer) learnedSize);
+		}
+		this.bestSize = this.size;
+		statementBuilder = new StatementBuilder(maxSize);
 	}
 
 	/**
@@ -93,25 +174,46 @@ public abstract class InlineViewBuilder implements Session.ResultSetReader {
 		for (int i = 1; i <= resultSetMetaData.getColumnCount(); ++i) {
 			values[i - 1] = sqlValue(resultSet, i);
 		}
-		
+
+		addRow(values);
+	}
+
+	/**
+	 * Adds a row to the inline-view.
+	 *
+	 * @param values the values (SQL literals)
+	 */
+	protected void addRow(String[] values) throws SQLException {
 		String head = style.head(columnNames);
+		String separator = style.separator();
+		String item = style.item(values, columnNames, statementBuilder.size());
 		
-		if (!statementBuilder.isAppendable(head)) {
+		if (!statementBuilder.isAppendable(head)
+				|| statementBuilder.size() >= size
+				|| (!statementBuilder.isEmpty() && length + separator.length() + item.length() > maxLength)) {
 			boolean wasLogging = session.getLogStatements();
 			try {
 				session.setLogStatements(false);
-				process(statementBuilder.build());
+				flush();
 			} finally {
 				session.setLogStatements(wasLogging);
 			}
+			item = style.item(values, columnNames, 0);
 		}
 
-		String item = style.item(values, columnNames, statementBuilder.size());
+		String terminator = style.terminator(name, columnNames);
+		if (statementBuilder.isEmpty()) {
+			length = head.length() + terminator.length();
+		} else {
+			length += separator.length();
+		}
+		length += item.length();
+		rows.add(values);
 		statementBuilder.append(
 				head,
 				item,
-				style.separator(),
-				style.terminator(name, columnNames));
+				separator,
+				terminator);
 	}
 
 	protected abstract CellContentConverter createCellContentConverter();
@@ -123,8 +225,144 @@ public abstract class InlineViewBuilder implements Session.ResultSetReader {
 	@Override
 	public void close() throws SQLException {
 		if (!statementBuilder.isEmpty()) {
-			process(statementBuilder.build());
+			flush();
+		}
+		if (numBlocks > 0 && _log.isDebugEnabled()) {
+			_log.debug(name + ": " + numRows + " rows in " + numBlocks + " inline-views (max. " + largestBlock + " rows), "
+					+ processingTime + " ms, " + (processingTime / numBlocks) + " ms per inline-view");
+		}
+	}
+
+	/**
+	 * Processes the inline-view in {@link #statementBuilder} and resets the builder.
+	 */
+	private void flush() throws SQLException {
+		List<String[]> block = new ArrayList<String[]>(rows);
+		rows.clear();
+		length = 0;
+		process(statementBuilder.build(), block);
+	}
+
+	/**
+	 * Processes an inline-view. Splits it if it is rejected.
+	 * 
+	 * @param inlineView the inline-view
+	 * @param block the rows of the inline-view
+	 */
+	private void process(String inlineView, List<String[]> block) throws SQLException {
+		long startTime = System.nanoTime();
+		try {
+			process(inlineView);
+		} catch (SQLException e) {
+			if (block.size() <= INITIAL_SIZE || !isSizeLimitExceeded(e)) {
+				throw e;
+			}
+			int half = block.size() / 2;
+			_log.warn("inline-view with " + block.size() + " rows failed (" + e.getMessage() + "), retrying with " + half + " rows per inline-view");
+			maxSize = half;
+			size = Math.min(size, half);
+			session.setSessionProperty(InlineViewBuilder.class, "maxSize", half);
+			process(block.subList(0, half));
+			process(block.subList(half, block.size()));
+			return;
+		}
+		long time = System.nanoTime() - startTime;
+		processingTime += time / 1000000;
+		++numBlocks;
+		numRows += block.size();
+		largestBlock = Math.max(largestBlock, block.size());
+		if (growing && block.size() == size) {
+			adjustSize((double) time / block.size());
+		}
+	}
+
+	/**
+	 * SQL states of the class "program limit exceeded" (statement too long or too complex etc.).
+	 */
+	private static final String PROGRAM_LIMIT_EXCEEDED = "54";
+
+	/**
+	 * DBMS specific error codes indicating that a statement is too large or too complex.
+	 * <ul>
+	 * <li>Oracle: ORA-00939 (too many arguments), ORA-01795 (too many expressions in a list), ORA-04031 (out of shared memory)</li>
+	 * <li>SQL Server: 191 (nested too deeply), 2100 (too many parameters), 8623 (out of internal resources), 8632 (expression services limit)</li>
+	 * <li>MySQL: 1153 (packet too big), 1436 (thread stack overrun)</li>
+	 * </ul>
+	 */
+	private static final Set<Integer> SIZE_LIMIT_ERROR_CODES = new HashSet<Integer>(Arrays.asList(
+			939, 1795, 4031,
+			191, 2100, 8623, 8632,
+			1153, 1436));
+
+	/**
+	 * Decides whether an inline-view has been rejected because it is too large.
+	 * Other failures (deadlocks, timeouts, constraint violations, ...) are not remedied by splitting.
+	 * 
+	 * @param e the exception
+	 * @return <code>true</code> if the statement exceeds a limit of the DBMS
+	 */
+	static boolean isSizeLimitExceeded(SQLException e) {
+		for (SQLException ex = e; ex != null; ex = ex.getNextException()) {
+			String state = ex.getSQLState();
+			if (state != null && state.startsWith(PROGRAM_LIMIT_EXCEEDED)) {
+				return true;
+			}
+			if (SIZE_LIMIT_ERROR_CODES.contains(ex.getErrorCode())) {
+				return true;
+			}
+			if (ex.getCause() instanceof StackOverflowError) {
+				return true;
+			}
+			String message = ex.getMessage();
+			if (message != null) {
+				message = message.toLowerCase(Locale.ENGLISH);
+				if (message.contains("statement too long") || message.contains("statement is too long") || message.contains("query is too long") || message.contains("too complex")
+						|| message.contains("too many terms") || message.contains("nested too deeply") || message.contains("stack overflow")) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Doubles the size as long as the processing time per row decreases significantly,
+	 * falls back to the best size otherwise.
+	 * 
+	 * @param cost processing time per row of an inline-view of the current size (in ns)
+	 */
+	private void adjustSize(double cost) {
+		if (cost < bestCost * 0.9) {
+			bestCost = cost;
+			bestSize = size;
+			if (size < maxSize) {
+				size = Math.min(maxSize, size * 2);
+				return;
+			}
+		} else {
+			size = bestSize;
+		}
+		growing = false;
+		session.setSessionProperty(InlineViewBuilder.class, "size." + name, size);
+		if (_log.isDebugEnabled()) {
+			_log.debug(name + ": " + size + " rows per inline-view");
+		}
+	}
+
+	/**
+	 * Builds and processes an inline-view.
+	 * 
+	 * @param block the rows of the inline-view
+	 */
+	private void process(List<String[]> block) throws SQLException {
+		StatementBuilder builder = new StatementBuilder(block.size());
+		String head = style.head(columnNames);
+		String separator = style.separator();
+		String terminator = style.terminator(name, columnNames);
+		for (int i = 0; i < block.size(); ++i) {
+			builder.append(head, style.item(block.get(i), columnNames, i), separator, terminator);
 		}
+		process(builder.build(), block);
 	}
 
 	/**
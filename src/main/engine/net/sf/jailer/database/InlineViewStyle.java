@@ -17,6 +17,9 @@ package net.sf.jailer.database;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Styles of inline-views for different DBMS'es.
@@ -306,7 +309,17 @@ public enum InlineViewStyle {
 	 */
 	public static InlineViewStyle forSession(Session session) {
 		StringBuilder messages = new StringBuilder();
-		for (InlineViewStyle style : InlineViewStyle.values()) {
+		List<InlineViewStyle> styles = new ArrayList<InlineViewStyle>(Arrays.asList(InlineViewStyle.values()));
+		String preferredStyle = session.dbms.getInlineViewStyle();
+		if (preferredStyle != null) {
+			for (InlineViewStyle style : InlineViewStyle.values()) {
+				if (style.name().equals(preferredStyle)) {
+					styles.remove(style);
+					styles.add(0, style);
+				}
+			}
+		}
+		for (InlineViewStyle style : styles) {
 			boolean wasSilent = session.getSilent();
 			try {
 				session.setSilent(true);
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.database;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.jailer.configuration.Configuration;
+
+/**
+ * Collects the output of a transformer in a thread-confined chunk
+ * and splices it into the script as a whole.<br>
+ * The writer is only locked when a chunk is spliced, so concurrent jobs
+ * don't contend on each statement. Jobs running between two "-- sync" lines
+ * may be imported in any order, only the order of the statements of one job
+ * matters, and that order is preserved.<br>
+ * Content that must not be interleaved with the output of other jobs (across chunks)
+ * must be written as a unit (see {@link #startUnit()}). Units exceeding the size limit
+ * are spooled to a side file which is spliced into the script with the chunk.
+ * A unit that could not be completed is discarded (see {@link #discardUnit()}).
+ *
+ * @author Ralf Wisser
+ */
+public class ScriptChunkBuffer {
+
+	/**
+	 * Default maximum size of a chunk (in chars).
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 128 * 1024;
+
+	/**
+	 * Default maximum size of a unit kept in memory (in chars).
+	 */
+	public static final int DEFAULT_MAX_UNIT_SIZE = 1024 * 1024;
+
+	/**
+	 * The script.
+	 */
+	private final Writer scriptFileWriter;
+
+	/**
+	 * Maximum size of a chunk (in chars).
+	 */
+	private final int chunkSize;
+
+	/**
+	 * The chunk.
+	 */
+	private final StringBuilder chunk = new StringBuilder();
+
+	/**
+	 * Buffer for copying the chunk into the writer.
+	 */
+	private final char[] chars = new char[8192];
+
+	/**
+	 * Whether anything has been appended since the chunk was spliced last.
+	 */
+	private boolean pending = false;
+
+	/**
+	 * Start positions of the open units (number of chars appended before the start), innermost last.
+	 */
+	private final List<Long> unitStarts = new ArrayList<Long>();
+
+	/**
+	 * Maximum size of a unit kept in memory (in chars).
+	 */
+	private int maxUnitSize = DEFAULT_MAX_UNIT_SIZE;
+
+	/**
+	 * Side file holding the spooled content (two bytes per char), or <code>null</code>.
+	 */
+	private File sideFile;
+	private FileOutputStream sideFileOut;
+
+	/**
+	 * Number of chars in the side file.
+	 */
+	private long spooledChars = 0;
+
+	/**
+	 * Buffer for copying chars from and to the side file.
+	 */
+	private byte[] bytes;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param scriptFileWriter the script
+	 */
+	public ScriptChunkBuffer(Writer scriptFileWriter) {
+		this(scriptFileWriter, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param scriptFileWriter the script
+	 * @param chunkSize maximum size of a chunk (in chars)
+	 */
+	public ScriptChunkBuffer(Writer scriptFileWriter, int chunkSize) {
+		this.scriptFileWriter = scriptFileWriter;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Appends content to the chunk. Splices the chunk into the script if it is full.
+	 *
+	 * @param content the content
+	 */
+	public void append(String content) throws IOException {
+		chunk.append(content);
+		contentAppended();
+	}
+
+	/**
+	 * Appends a part of a char sequence to the chunk. Splices the chunk into the script if it is full.
+	 *
+	 * @param content the content
+	 * @param start start index of the part
+	 * @param end end index of the part
+	 */
+	public void append(CharSequence content, int start, int end) throws IOException {
+		chunk.append(content, start, end);
+		contentAppended();
+	}
+
+	private void contentAppended() throws IOException {
+		pending = true;
+		if (!unitStarts.isEmpty()) {
+			if (chunk.length() >= maxUnitSize) {
+				spool();
+			}
+		} else if (chunk.length() >= chunkSize) {
+			flush();
+		}
+	}
+
+	/**
+	 * Starts a unit. The content appended until the matching {@link #endUnit()}
+	 * is spliced into the script as a whole.
+	 */
+	public void startUnit() {
+		unitStarts.add(spooledChars + chunk.length());
+	}
+
+	/**
+	 * Ends a unit.
+	 */
+	public void endUnit() throws IOException {
+		unitStarts.remove(unitStarts.size() - 1);
+		if (unitStarts.isEmpty()) {
+			if (sideFile != null || chunk.length() >= chunkSize) {
+				flush();
+			}
+		}
+	}
+
+	/**
+	 * Ends a unit that could not be completed, the content appended since its start is discarded.
+	 */
+	public void discardUnit() throws IOException {
+		long start = unitStarts.remove(unitStarts.size() - 1);
+		if (start >= spooledChars) {
+			chunk.setLength((int) (start - spooledChars));
+		} else {
+			chunk.setLength(0);
+			if (start == 0) {
+				sideFileOut.close();
+				sideFile.delete();
+				sideFile = null;
+				sideFileOut = null;
+			} else {
+				sideFileOut.getChannel().truncate(2 * start);
+			}
+			spooledChars = start;
+		}
+		pending = spooledChars + chunk.length() > 0;
+		if (unitStarts.isEmpty() && sideFile != null) {
+			flush();
+		}
+	}
+
+	/**
+	 * Sets the maximum size of a unit kept in memory.
+	 *
+	 * @param maxUnitSize maximum size of a unit kept in memory (in chars)
+	 */
+	public void setMaxUnitSize(int maxUnitSize) {
+		this.maxUnitSize = maxUnitSize;
+	}
+
+	/**
+	 * Moves the chunk into the side file.
+	 */
+	private void spool() throws IOException {
+		if (sideFile == null) {
+			sideFile = Configuration.getInstance().createTempFile();
+			sideFileOut = new FileOutputStream(sideFile);
+		}
+		if (bytes == null) {
+			bytes = new byte[2 * chars.length];
+		}
+		int length = chunk.length();
+		for (int start = 0; start < length; start += chars.length) {
+			int end = Math.min(length, start + chars.length);
+			chunk.getChars(start, end, chars, 0);
+			int b = 0;
+			for (int i = 0; i < end - start; ++i) {
+				bytes[b++] = (byte) (chars[i] >> 8);
+				bytes[b++] = (byte) chars[i];
+			}
+			sideFileOut.write(bytes, 0, b);
+		}
+		spooledChars += length;
+		chunk.setLength(0);
+		if (chunk.capacity() > 2 * maxUnitSize) {
+			chunk.trimToSize();
+		}
+	}
+
+	/**
+	 * Writes the content of the side file into the script and deletes the side file.
+	 */
+	private void spliceSideFile() throws IOException {
+		sideFileOut.close();
+		InputStream in = new FileInputStream(sideFile);
+		try {
+			int n;
+			int rest = 0;
+			while ((n = in.read(bytes, rest, bytes.length - rest)) != -1) {
+				n += rest;
+				int c = 0;
+				for (int b = 0; b + 1 < n; b += 2) {
+					chars[c++] = (char) (((bytes[b] & 0xff) << 8) | (bytes[b + 1] & 0xff));
+				}
+				scriptFileWriter.write(chars, 0, c);
+				rest = n - 2 * c;
+				if (rest > 0) {
+					bytes[0] = bytes[n - 1];
+				}
+			}
+		} finally {
+			in.close();
+		}
+		sideFile.delete();
+		sideFile = null;
+		sideFileOut = null;
+		spooledChars = 0;
+	}
+
+	/**
+	 * Splices the chunk into the script.
+	 */
+	public void flush() throws IOException {
+		if (!pending) {
+			return;
+		}
+		int length = chunk.length();
+		synchronized (scriptFileWriter) {
+			beforeSplice(scriptFileWriter);
+			if (sideFile != null) {
+				spliceSideFile();
+			}
+			for (int start = 0; start < length; start += chars.length) {
+				int end = Math.min(length, start + chars.length);
+				chunk.getChars(start, end, chars, 0);
+				scriptFileWriter.write(chars, 0, end - start);
+			}
+		}
+		chunk.setLength(0);
+		if (chunk.capacity() > 2 * chunkSize) {
+			chunk.trimToSize();
+		}
+		pending = false;
+	}
+
+	/**
+	 * Called before the chunk is spliced into the script (holding the lock on the writer).
+	 *
+	 * @param scriptFileWriter the script
+	 */
+	protected void beforeSplice(Writer scriptFileWriter) throws IOException {
+	}
+
+}
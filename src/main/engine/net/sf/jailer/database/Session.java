@@ -20,15 +20,21 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
@@ -36,6 +42,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -64,6 +72,21 @@ public class Session {
 	 * Holds all connections.
 	 */
 	private final List<Connection> connections = Collections.synchronizedList(new ArrayList<Connection>());
+
+	/**
+	 * Pool of the connections bound to threads.
+	 */
+	private final ConnectionPool connectionPool;
+
+	/**
+	 * Sessions from which the current thread has leased a connection.
+	 */
+	private static final ThreadLocal<Set<Session>> leasingSessions = new ThreadLocal<Set<Session>>() {
+		@Override
+		protected Set<Session> initialValue() {
+			return Collections.newSetFromMap(new WeakHashMap<Session, Boolean>());
+		}
+	};
 	
 	/**
 	 * The session in which temporary tables lives, if any.
@@ -169,6 +192,13 @@ public class Session {
 		public void init(ResultSet resultSet) throws SQLException {
 		}
 		
+		/**
+		 * Called instead of (or after a failed) {@link #close()} if reading the result set failed.
+		 * Releases the resources of the reader, must not throw.
+		 */
+		public void abort() {
+		}
+		
 	}
 	
 	/**
@@ -250,11 +280,60 @@ public class Session {
 		this.schema = (dataSource instanceof BasicDataSource)? ((BasicDataSource) dataSource).dbUser : "";
 		this.temporaryTableScope = scope;
 		
+		final boolean pooled = !((transactional && !local) || scope == WorkingTableScope.SESSION_LOCAL || scope == WorkingTableScope.TRANSACTION_LOCAL);
+		connectionPool = new ConnectionPool(new ConnectionPool.Lifecycle() {
+			@Override
+			public Connection create() throws SQLException {
+				Connection con = dataSource.getConnection();
+				configure(con, isolationLevel);
+				return con;
+			}
+			@Override
+			public void close(Connection con) {
+				closeConnection(con);
+			}
+		}, connections);
+
 		connectionFactory = new ConnectionFactory() {
-			private Connection defaultConnection = null;
+			private volatile Connection defaultConnection = null;
 			private Random random = new Random();
 			@Override
-			public synchronized Connection getConnection() throws SQLException {
+			public Connection getConnection() throws SQLException {
+				if (pooled) {
+					Connection con = connection.get();
+					if (con == null && Boolean.TRUE.equals(sharesConnection.get())) {
+						con = defaultConnection;
+					}
+					if (con == null) {
+						try {
+							con = connectionPool.lease();
+							defaultConnection = con;
+							leasingSessions.get().add(Session.this);
+						} catch (SQLTimeoutException e) {
+							throw e;
+						} catch (SQLException e) {
+							synchronized (connections) {
+								if (connections.size() > 1) {
+									con = connections.get(random.nextInt(connections.size()));
+								}
+							}
+							if (con == null) {
+								if (defaultConnection != null) {
+									// fall back to default connection
+									con = defaultConnection;
+								} else {
+									throw e;
+								}
+							}
+						}
+						connection.set(con);
+					}
+					return con;
+				}
+				return getSingleConnection();
+			}
+			
+			private synchronized Connection getSingleConnection() throws SQLException {
 				@SuppressWarnings("resource")
 				Connection con = local? connection.get() : temporaryTableSession == null? connection.get() : temporaryTableSession;
 
@@ -267,47 +346,15 @@ public class Session {
 						con = dataSource.getConnection();
 						defaultConnection = con;
 					} catch (SQLException e) {
-						if (connections != null && connections.size() > 1) {
-							con = connections.get(random.nextInt(connections.size()));
-						} else if (defaultConnection != null) {
+						if (defaultConnection != null) {
 							// fall back to default connection
 							con = defaultConnection;
 						} else {
 							throw e;
 						}
 					}
-					boolean ac = scope == null || scope != WorkingTableScope.TRANSACTION_LOCAL;
-					if (Session.this.transactional) {
-						ac = false;
-					}
-					_log.info("set auto commit to " + ac);
-					con.setAutoCommit(ac);
-					try {
-						if (isolationLevel != null) {
-							_log.info("set isolation level to " + isolationLevel);
-							con.setTransactionIsolation(isolationLevel);
-							_log.info("isolation level is " + con.getTransactionIsolation());
-						}
-					} catch (SQLException e) {
-						_log.warn("can't set isolation level to UR. Reason: " + e.getMessage());
-					}
-					if ((Session.this.transactional && !local) || scope == WorkingTableScope.SESSION_LOCAL || scope == WorkingTableScope.TRANSACTION_LOCAL) {
-						temporaryTableSession = con;
-					} else {
-						connection.set(con);
-						boolean addCon = true;
-						synchronized (connections) {
-							for (Connection c: connections) {
-								if (c == con) {
-									addCon = false;
-									break;
-								}
-							}
-							if (addCon) {
-								connections.add(con);
-							}
-						}
-					}
+					configure(con, isolationLevel);
+					temporaryTableSession = con;
 				}
 				return con;
 			}
@@ -316,6 +363,41 @@ public class Session {
 		init();
 	}
 
+	/**
+	 * Sets auto commit mode and isolation level of a new connection.
+	 */
+	private void configure(Connection con, Integer isolationLevel) throws SQLException {
+		boolean ac = scope == null || scope != WorkingTableScope.TRANSACTION_LOCAL;
+		if (transactional) {
+			ac = false;
+		}
+		_log.info("set auto commit to " + ac);
+		con.setAutoCommit(ac);
+		try {
+			if (isolationLevel != null) {
+				_log.info("set isolation level to " + isolationLevel);
+				con.setTransactionIsolation(isolationLevel);
+				_log.info("isolation level is " + con.getTransactionIsolation());
+			}
+		} catch (SQLException e) {
+			_log.warn("can't set isolation level to UR. Reason: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Closes a connection of the pool.
+	 */
+	private void closeConnection(Connection con) {
+		removeStatementCache(con);
+		metaData.remove(con);
+		try {
+			con.close();
+		// catch all because ucanaccess throws non-SQLException
+		} catch (Throwable e) {
+			// ignore
+		}
+	}
+
 	protected void init() throws SQLException {
 		Connection connection = connectionFactory.getConnection();
 		logDriverInfo(connection);
@@ -327,6 +409,8 @@ public class Session {
 	public void reconnect() {
 		Connection con = connection.get();
 		if (con != null) {
+			connectionPool.remove(con);
+			removeStatementCache(con);
 			if (temporaryTableScope == WorkingTableScope.TRANSACTION_LOCAL) {
 				try {
 					con.commit();
@@ -347,6 +431,7 @@ public class Session {
 			}
 		}
 		if (temporaryTableSession != null) {
+			removeStatementCache(temporaryTableSession);
 			if (temporaryTableScope == WorkingTableScope.TRANSACTION_LOCAL) {
 				try {
 					temporaryTableSession.commit();
@@ -484,6 +569,7 @@ public class Session {
 	 * 
 	 * @param theConnection connection to use
 	 * @param sqlQuery the query in SQL
+	 * @param parameter parameters to bind, or <code>null</code> if the query has no parameter markers
 	 * @param reader the reader for the result
 	 * @param alternativeSQL query to be executed if sqlQuery fails
 	 * @param limit row limit, 0 for unlimited
@@ -491,13 +577,13 @@ public class Session {
 	 * @param timeout the timeout in sec
 	 * @param withExplicitCommit if <code>true</code>, switch of autocommit and commit explicitly
 	 */
-	private long executeQuery(Connection theConnection, String sqlQuery, ResultSetReader reader, String alternativeSQL, Object context, int limit, int timeout, boolean withExplicitCommit) throws SQLException {
+	private long executeQuery(Connection theConnection, String sqlQuery, Object[] parameter, ResultSetReader reader, String alternativeSQL, Object context, int limit, int timeout, boolean withExplicitCommit) throws SQLException {
 		if (withExplicitCommit) {
 			synchronized (theConnection) {
 				if (theConnection.getAutoCommit()) {
 					try {
 						theConnection.setAutoCommit(false);
-						return executeQuery(theConnection, sqlQuery, reader, alternativeSQL, context, limit, timeout, false);
+						return executeQuery(theConnection, sqlQuery, parameter, reader, alternativeSQL, context, limit, timeout, false);
 					} finally {
 						try {
 							theConnection.commit();
@@ -513,8 +599,11 @@ public class Session {
 		CancellationHandler.checkForCancellation(context);
 		long startTime = System.currentTimeMillis();
 		Statement statement = null;
+		StatementCache statementCache = parameter == null? null : getStatementCache(theConnection);
+		String statementSQL = sqlQuery;
+		boolean reusable = false;
 		try {
-			statement = theConnection.createStatement();
+			statement = statementCache == null? theConnection.createStatement() : statementCache.take(sqlQuery);
 			if (dbms != null) {
 				if (dbms.getFetchSize() != null) {
 					statement.setFetchSize(dbms.getFetchSize());
@@ -525,21 +614,35 @@ public class Session {
 			try {
 				if (limit > 0) {
 					statement.setMaxRows(limit + 1);
+				} else if (statementCache != null) {
+					statement.setMaxRows(0);
 				}
 			} catch (Exception e) {
 				// ignore
 			}
 			try {
-				if (timeout > 0) {
+				if (timeout > 0 || statementCache != null) {
 					statement.setQueryTimeout(timeout);
 				}
-				resultSet = statement.executeQuery(sqlQuery);
+				resultSet = executeQuery(statement, sqlQuery, parameter);
 			} catch (SQLException e) {
 				if (alternativeSQL != null) {
 					_log.warn("query failed, using alternative query. Reason: " + e.getMessage());
 					_log.info(alternativeSQL);
 					CancellationHandler.checkForCancellation(context);
-					resultSet = statement.executeQuery(alternativeSQL);
+					if (statementCache != null) {
+						CancellationHandler.end(statement, context);
+						statementCache.discard((PreparedStatement) statement);
+						statement = null;
+						statementSQL = alternativeSQL;
+						statement = statementCache.take(alternativeSQL);
+						CancellationHandler.begin(statement, context);
+						if (limit > 0) {
+							statement.setMaxRows(limit + 1);
+						}
+						statement.setQueryTimeout(timeout);
+					}
+					resultSet = executeQuery(statement, alternativeSQL, parameter);
 				} else {
 					throw e;
 				}
@@ -559,14 +662,27 @@ public class Session {
 			}
 			reader.close();
 			resultSet.close();
+			reusable = true;
 		} finally {
+			if (!reusable && reader instanceof AbstractResultSetReader) {
+				((AbstractResultSetReader) reader).abort();
+			}
 			if (statement != null) {
-				try {
-					statement.close();
-				} catch (SQLException e) {
-					// ignore
+				if (statementCache != null) {
+					CancellationHandler.end(statement, context);
+					if (reusable) {
+						statementCache.release(statementSQL, (PreparedStatement) statement);
+					} else {
+						statementCache.discard((PreparedStatement) statement);
+					}
+				} else {
+					try {
+						statement.close();
+					} catch (SQLException e) {
+						// ignore
+					}
+					CancellationHandler.end(statement, context);
 				}
-				CancellationHandler.end(statement, context);
 			}
 		}
 		if (getLogStatements()) {
@@ -575,6 +691,34 @@ public class Session {
 		return rc;
 	}
 
+	/**
+	 * Executes a query, binding the parameters if there are any.
+	 * 
+	 * @param statement a prepared statement for the query if parameter is not <code>null</code>
+	 * @param sqlQuery the query
+	 * @param parameter the parameters, or <code>null</code>
+	 */
+	private ResultSet executeQuery(Statement statement, String sqlQuery, Object[] parameter) throws SQLException {
+		if (parameter == null) {
+			return statement.executeQuery(sqlQuery);
+		}
+		bind((PreparedStatement) statement, parameter);
+		return ((PreparedStatement) statement).executeQuery();
+	}
+
+	/**
+	 * Binds parameters to a prepared statement.
+	 * 
+	 * @param statement the statement
+	 * @param parameter the parameters
+	 */
+	private void bind(PreparedStatement statement, Object[] parameter) throws SQLException {
+		int i = 1;
+		for (Object p: parameter) {
+			statement.setObject(i++, p);
+		}
+	}
+
 	/**
 	 * Executes a SQL-Query (SELECT) with timeout.
 	 * 
@@ -587,11 +731,53 @@ public class Session {
 	 * @param withExplicitCommit if <code>true</code>, switch of autocommit and commit explicitly
 	 */
 	public long executeQuery(String sqlQuery, ResultSetReader reader, String alternativeSQL, Object context, int limit, int timeout, boolean withExplicitCommit) throws SQLException {
+		return executeQuery(sqlQuery, null, reader, alternativeSQL, context, limit, timeout, withExplicitCommit);
+	}
+
+	/**
+	 * Executes a SQL-Query (SELECT) with parameters.
+	 * The statement is prepared once per connection and is reused afterwards.
+	 * 
+	 * @param sqlQuery the query in SQL with parameter markers
+	 * @param parameter the parameters
+	 * @param reader the reader for the result
+	 */
+	public long executeQuery(String sqlQuery, Object[] parameter, ResultSetReader reader) throws SQLException {
+		return executeQuery(sqlQuery, parameter, reader, null, null, 0, 0, false);
+	}
+
+	/**
+	 * Executes a SQL-Query (SELECT) with parameters.
+	 * The statement is prepared once per connection and is reused afterwards.
+	 * 
+	 * @param sqlQuery the query in SQL with parameter markers
+	 * @param parameter the parameters
+	 * @param reader the reader for the result
+	 * @param withExplicitCommit if <code>true</code>, switch of autocommit and commit explicitly
+	 */
+	public long executeQuery(String sqlQuery, Object[] parameter, ResultSetReader reader, boolean withExplicitCommit) throws SQLException {
+		return executeQuery(sqlQuery, parameter, reader, null, null, 0, 0, withExplicitCommit);
+	}
+
+	/**
+	 * Executes a SQL-Query (SELECT) with parameters and timeout.
+	 * The statement is prepared once per connection and is reused afterwards.
+	 * 
+	 * @param sqlQuery the query in SQL with parameter markers
+	 * @param parameter the parameters, or <code>null</code> if the query has no parameter markers
+	 * @param reader the reader for the result
+	 * @param alternativeSQL query to be executed (with the same parameters) if sqlQuery fails
+	 * @param limit row limit, 0 for unlimited
+	 * @param context cancellation context
+	 * @param timeout the timeout in sec
+	 * @param withExplicitCommit if <code>true</code>, switch of autocommit and commit explicitly
+	 */
+	public long executeQuery(String sqlQuery, Object[] parameter, ResultSetReader reader, String alternativeSQL, Object context, int limit, int timeout, boolean withExplicitCommit) throws SQLException {
 		if (getLogStatements()) {
-			_log.info(sqlQuery);
+			_log.info(sqlQuery + parameterInfo(parameter));
 		}
 		try {
-			return executeQuery(connectionFactory.getConnection(), sqlQuery, reader, alternativeSQL, context, limit, timeout, withExplicitCommit);
+			return executeQuery(connectionFactory.getConnection(), sqlQuery, parameter, reader, alternativeSQL, context, limit, timeout, withExplicitCommit);
 		} catch (SQLException e) {
 			CancellationHandler.checkForCancellation(context);
 			if (!silent) {
@@ -643,8 +829,21 @@ public class Session {
 	 * @return update-count
 	 */
 	public int executeUpdate(String sqlUpdate) throws SQLException {
+		return executeUpdate(sqlUpdate, null);
+	}
+
+	/**
+	 * Executes a SQL-Update (INSERT, DELETE or UPDATE) with parameters.
+	 * The statement is prepared once per connection and is reused afterwards.
+	 * 
+	 * @param sqlUpdate the update in SQL with parameter markers
+	 * @param parameter the parameters, or <code>null</code> if the update has no parameter markers
+	 * 
+	 * @return update-count
+	 */
+	public int executeUpdate(String sqlUpdate, Object[] parameter) throws SQLException {
 		if (getLogStatements()) {
-			_log.info(sqlUpdate);
+			_log.info(sqlUpdate + parameterInfo(parameter));
 		}
 		CancellationHandler.checkForCancellation(null);
 		final int maximumNumberOfFailures = 10;
@@ -657,8 +856,15 @@ public class Session {
 			while (!ok) {
 				long startTime = System.currentTimeMillis();
 				Statement statement = null;
+				StatementCache statementCache = null;
 				try {
-					statement = connectionFactory.getConnection().createStatement();
+					Connection theConnection = connectionFactory.getConnection();
+					if (parameter == null) {
+						statement = theConnection.createStatement();
+					} else {
+						statementCache = getStatementCache(theConnection);
+						statement = statementCache.take(sqlUpdate);
+					}
 					CancellationHandler.begin(statement, null);
 					if (serializeAccess) {
 						boolean acquired;
@@ -670,7 +876,7 @@ public class Session {
 						}
 
 						try {
-							rowCount = statement.executeUpdate(sqlUpdate);
+							rowCount = executeUpdate(statement, sqlUpdate, parameter);
 						} finally {
 							if (acquired) {
 								semaphore.release(PERMITS);
@@ -686,7 +892,7 @@ public class Session {
 						}
 
 						try {
-							rowCount = statement.executeUpdate(sqlUpdate);
+							rowCount = executeUpdate(statement, sqlUpdate, parameter);
 						} finally {
 							if (acquired) {
 								semaphore.release(1);
@@ -695,6 +901,10 @@ public class Session {
 					}
 
 					CancellationHandler.end(statement, null);
+					if (statementCache != null) {
+						statementCache.release(sqlUpdate, (PreparedStatement) statement);
+						statement = null;
+					}
 					ok = true;
 					if (getLogStatements()) {
 						_log.info("" + rowCount + " row(s) in " + (System.currentTimeMillis() - startTime) + " ms");
@@ -719,7 +929,11 @@ public class Session {
 					}
 				} finally {
 					if (statement != null) {
-						try { statement.close(); } catch (SQLException e) { }
+						if (statementCache != null) {
+							statementCache.discard((PreparedStatement) statement);
+						} else {
+							try { statement.close(); } catch (SQLException e) { }
+						}
 					}
 				}
 			}
@@ -740,121 +954,137 @@ public class Session {
 	}
 	
 	/**
-	 * Executes a SQL-Update (INSERT, DELETE or UPDATE) with parameters.
+	 * Executes an update, binding the parameters if there are any.
 	 * 
-	 * @param sqlUpdate the update in SQL
-	 * @param parameter the parameters
-	 * 
-	 * @return update-count
+	 * @param statement a prepared statement for the update if parameter is not <code>null</code>
+	 * @param sqlUpdate the update
+	 * @param parameter the parameters, or <code>null</code>
 	 */
-	public int executeUpdate(String sqlUpdate, Object[] parameter) throws SQLException {
-		if (getLogStatements()) {
-			_log.info(sqlUpdate);
+	private int executeUpdate(Statement statement, String sqlUpdate, Object[] parameter) throws SQLException {
+		if (parameter == null) {
+			return statement.executeUpdate(sqlUpdate);
 		}
-		try {
-			CancellationHandler.checkForCancellation(null);
-			int rowCount = 0;
-			long startTime = System.currentTimeMillis();
-			PreparedStatement statement = null;
-			try {
-				statement = connectionFactory.getConnection().prepareStatement(sqlUpdate);
-				CancellationHandler.begin(statement, null);
-				int i = 1;
-				for (Object p: parameter) {
-					statement.setObject(i++, p);
-				}
-				rowCount = statement.executeUpdate();
-				CancellationHandler.end(statement, null);
-				if (getLogStatements()) {
-					_log.info("" + rowCount + " row(s) in " + (System.currentTimeMillis() - startTime) + " ms");
-				}
-			} finally {
-				if (statement != null) {
-					try { statement.close(); } catch (SQLException e) { }
-				}
-			}
-			return rowCount;
-		} catch (SQLException e) {
-			CancellationHandler.checkForCancellation(null);
-			if (!silent) {
-				_log.error("Error executing statement", e);
-			}
-			throw new SqlException("\"" + e.getMessage() + "\" in statement \"" + sqlUpdate + "\"", sqlUpdate, e);
+		bind((PreparedStatement) statement, parameter);
+		return ((PreparedStatement) statement).executeUpdate();
+	}
+
+	/**
+	 * Renders parameters for logging.
+	 * 
+	 * @param parameter the parameters, or <code>null</code>
+	 */
+	private static String parameterInfo(Object[] parameter) {
+		if (parameter == null) {
+			return "";
 		}
+		return " " + Arrays.toString(parameter);
 	}
 
 	/**
 	 * Inserts a CLob.
 	 */
 	public void insertClob(String table, String column, String where, File lobFile, long length) throws SQLException, IOException {
-		String sqlUpdate = "Update " + table + " set " + column + "=? where " + where;
-		if (getLogStatements()) {
-			_log.info(sqlUpdate);
-		}
-		PreparedStatement statement = null;
+		InputStreamReader inputStreamReader = new InputStreamReader(new FileInputStream(lobFile), "UTF-8");
 		try {
-			statement = connectionFactory.getConnection().prepareStatement(sqlUpdate);
-			CancellationHandler.begin(statement, null);
-			InputStreamReader inputStreamReader = new InputStreamReader(new FileInputStream(lobFile), "UTF-8");
-			statement.setCharacterStream(1, inputStreamReader, (int) length);
-			statement.execute();
-			inputStreamReader.close();
-		} catch (SQLException e) {
-			CancellationHandler.checkForCancellation(null);
-			throw e;
+			insertClob(table, column, where, inputStreamReader, length);
 		} finally {
-			if (statement != null) {
-				try {
-					statement.close();
-					CancellationHandler.end(statement, null);
-				} catch (SQLException e) {
-				}
-			}
+			inputStreamReader.close();
 		}
 	}
 
+	/**
+	 * Inserts a CLob.
+	 * 
+	 * @param content the content
+	 * @param length number of chars, or <code>-1</code> if unknown
+	 * @throws SQLFeatureNotSupportedException if the length is unknown and the driver requires it
+	 */
+	public void insertClob(String table, String column, String where, Reader content, long length) throws SQLException {
+		updateLob(table, column, where, content, null, length, getLogStatements());
+	}
+
 	/**
 	 * Inserts a SQL-XML.
 	 */
 	public void insertSQLXML(String table, String column, String where, File lobFile, long length) throws SQLException, IOException {
-		String sqlUpdate = "Update " + table + " set " + column + "=? where " + where;
-		_log.info(sqlUpdate);
-		PreparedStatement statement = null;
+		InputStreamReader inputStreamReader = new InputStreamReader(new FileInputStream(lobFile), "UTF-8");
 		try {
-			statement = connectionFactory.getConnection().prepareStatement(sqlUpdate);
-			CancellationHandler.begin(statement, null);
-			InputStreamReader inputStreamReader = new InputStreamReader(new FileInputStream(lobFile), "UTF-8");
-			statement.setCharacterStream(1, inputStreamReader, (int) length);
-			statement.execute();
-			inputStreamReader.close();
-		} catch (SQLException e) {
-			CancellationHandler.checkForCancellation(null);
-			throw e;
+			insertSQLXML(table, column, where, inputStreamReader, length);
 		} finally {
-			if (statement != null) {
-				try {
-					statement.close();
-					CancellationHandler.end(statement, null);
-				} catch (SQLException e) {
-				}
-			}
+			inputStreamReader.close();
 		}
 	}
 
+	/**
+	 * Inserts a SQL-XML.
+	 * 
+	 * @param content the content
+	 * @param length number of chars, or <code>-1</code> if unknown
+	 * @throws SQLFeatureNotSupportedException if the length is unknown and the driver requires it
+	 */
+	public void insertSQLXML(String table, String column, String where, Reader content, long length) throws SQLException {
+		updateLob(table, column, where, content, null, length, true);
+	}
+
 	/**
 	 * Inserts a BLob.
 	 */
 	public void insertBlob(String table, String column, String where, File lobFile) throws SQLException, IOException {
+		FileInputStream fileInputStream = new FileInputStream(lobFile);
+		try {
+			insertBlob(table, column, where, fileInputStream, lobFile.length());
+		} finally {
+			fileInputStream.close();
+		}
+	}
+
+	/**
+	 * Inserts a BLob.
+	 * 
+	 * @param content the content
+	 * @param length number of bytes, or <code>-1</code> if unknown
+	 * @throws SQLFeatureNotSupportedException if the length is unknown and the driver requires it
+	 */
+	public void insertBlob(String table, String column, String where, InputStream content, long length) throws SQLException {
+		updateLob(table, column, where, null, content, length, true);
+	}
+
+	/**
+	 * Updates a LOB column of a row.
+	 * 
+	 * @param characterContent content of a CLob or SQL-XML, or <code>null</code>
+	 * @param binaryContent content of a BLob, or <code>null</code>
+	 * @param length length of the content, or <code>-1</code> if unknown
+	 * @param log log the statement?
+	 */
+	private void updateLob(String table, String column, String where, Reader characterContent, InputStream binaryContent, long length, boolean log) throws SQLException {
 		String sqlUpdate = "Update " + table + " set " + column + "=? where " + where;
-		_log.info(sqlUpdate);
+		if (log) {
+			_log.info(sqlUpdate);
+		}
 		PreparedStatement statement = null;
 		try {
 			statement = connectionFactory.getConnection().prepareStatement(sqlUpdate);
 			CancellationHandler.begin(statement, null);
-			FileInputStream fileInputStream = new FileInputStream(lobFile);
-			statement.setBinaryStream(1, fileInputStream, (int) lobFile.length());
+			if (length >= 0) {
+				if (characterContent != null) {
+					statement.setCharacterStream(1, characterContent, (int) length);
+				} else {
+					statement.setBinaryStream(1, binaryContent, (int) length);
+				}
+			} else {
+				try {
+					if (characterContent != null) {
+						statement.setCharacterStream(1, characterContent);
+					} else {
+						statement.setBinaryStream(1, binaryContent);
+					}
+				} catch (AbstractMethodError e) {
+					// pre JDBC 4 driver
+					throw new SQLFeatureNotSupportedException(e.getMessage());
+				}
+			}
 			statement.execute();
-			fileInputStream.close();
 		} catch (SQLException e) {
 			CancellationHandler.checkForCancellation(null);
 			throw e;
@@ -917,6 +1147,187 @@ public class Session {
 		return rc;
 	}
 	
+	/**
+	 * Thrown by {@link Session#executeBatch(List, Object)} if a batch failed
+	 * and the changes of the statements executed before the error could not be undone.
+	 */
+	public static class BatchNotUndoneException extends SqlException {
+
+		public BatchNotUndoneException(String sqlStatement, SQLException cause) {
+			super("batch failed and could not be undone: " + cause.getMessage(), sqlStatement, cause);
+		}
+
+		private static final long serialVersionUID = -2876543017281939812L;
+	}
+
+	/**
+	 * Executes a list of SQL-Statements as a JDBC batch.
+	 * If the connection is in auto-commit mode, the batch is executed in a transaction of its own.
+	 * Otherwise a savepoint is set before the batch.
+	 * If the batch fails, it is rolled back (to the savepoint), so that the statements can be executed again.
+	 * If that is not possible, a {@link BatchNotUndoneException} is thrown.
+	 * 
+	 * @param sqls the SQL-Statements
+	 * @param cancellationContext cancellation context
+	 * @return total update-count, statements for which the driver doesn't return a count are not counted
+	 */
+	public long executeBatch(List<String> sqls, Object cancellationContext) throws SQLException {
+		if (getLogStatements()) {
+			_log.info("batch of " + sqls.size() + " statements, first one: " + (sqls.isEmpty()? "" : sqls.get(0)));
+		}
+		long rc = 0;
+		long startTime = System.currentTimeMillis();
+		Connection con = connectionFactory.getConnection();
+		Statement statement = null;
+		boolean autoCommit = con.getAutoCommit();
+		Savepoint savepoint = null;
+		try {
+			CancellationHandler.checkForCancellation(cancellationContext);
+			if (autoCommit) {
+				con.setAutoCommit(false);
+			} else {
+				try {
+					savepoint = con.setSavepoint();
+				} catch (SQLException e) {
+					// savepoints not supported
+					_log.debug("no savepoint: " + e.getMessage());
+				}
+			}
+			statement = con.createStatement();
+			CancellationHandler.begin(statement, cancellationContext);
+			for (String sql: sqls) {
+				statement.addBatch(sql);
+			}
+			for (int count: statement.executeBatch()) {
+				if (count > 0) {
+					rc += count;
+				}
+			}
+			if (autoCommit) {
+				con.commit();
+			} else if (savepoint != null) {
+				try {
+					con.releaseSavepoint(savepoint);
+				} catch (SQLException e) {
+					// ignore
+				}
+			}
+			if (getLogStatements()) {
+				_log.info("" + rc + " row(s) in " + (System.currentTimeMillis() - startTime) + " ms");
+			}
+		} catch (SQLException e) {
+			boolean undone = false;
+			try {
+				if (autoCommit) {
+					con.rollback();
+					undone = true;
+				} else if (savepoint != null) {
+					con.rollback(savepoint);
+					undone = true;
+				}
+			} catch (SQLException e1) {
+				// ignore
+			}
+			CancellationHandler.checkForCancellation(cancellationContext);
+			if (!undone) {
+				throw new BatchNotUndoneException(sqls.isEmpty()? "" : sqls.get(0), e);
+			}
+			throw e;
+		} finally {
+			if (statement != null) {
+				try {
+					statement.close();
+				} catch (SQLException e) {
+					// ignore
+				}
+				CancellationHandler.end(statement, cancellationContext);
+			}
+			if (autoCommit) {
+				con.setAutoCommit(true);
+			}
+		}
+		return rc;
+	}
+
+	/**
+	 * Default maximum number of idle prepared statements per connection.
+	 */
+	public static final int DEFAULT_STATEMENT_CACHE_SIZE = 100;
+
+	/**
+	 * Maximum number of idle prepared statements per connection.
+	 */
+	private volatile int statementCacheSize = DEFAULT_STATEMENT_CACHE_SIZE;
+
+	/**
+	 * Prepared statements per connection.
+	 */
+	private final Map<Connection, StatementCache> statementCaches = Collections.synchronizedMap(new IdentityHashMap<Connection, StatementCache>());
+
+	/**
+	 * Sets the maximum number of idle prepared statements per connection.
+	 * 
+	 * @param statementCacheSize the cache size, 0 disables caching
+	 */
+	public void setStatementCacheSize(int statementCacheSize) {
+		this.statementCacheSize = statementCacheSize;
+	}
+
+	/**
+	 * Gets the maximum number of idle prepared statements per connection.
+	 */
+	public int getStatementCacheSize() {
+		return statementCacheSize;
+	}
+
+	/**
+	 * Gets the statement cache of a connection.
+	 * 
+	 * @param con the connection
+	 * @return the statement cache
+	 */
+	private StatementCache getStatementCache(Connection con) {
+		synchronized (statementCaches) {
+			StatementCache statementCache = statementCaches.get(con);
+			if (statementCache == null) {
+				statementCache = new StatementCache(con, statementCacheSize);
+				statementCaches.put(con, statementCache);
+			}
+			return statementCache;
+		}
+	}
+
+	/**
+	 * Closes the cached statements of a connection.
+	 * 
+	 * @param con the connection
+	 */
+	private void removeStatementCache(Connection con) {
+		StatementCache statementCache = statementCaches.remove(con);
+		if (statementCache != null) {
+			statementCache.clear();
+		}
+	}
+
+	/**
+	 * Closes all cached statements.
+	 */
+	private void clearStatementCaches() {
+		long hits = 0;
+		long misses = 0;
+		synchronized (statementCaches) {
+			for (StatementCache statementCache: statementCaches.values()) {
+				hits += statementCache.getHits();
+				misses += statementCache.getMisses();
+				statementCache.clear();
+			}
+			statementCaches.clear();
+		}
+		if (misses > 0) {
+			_log.info("prepared statements: " + misses + ", reused: " + hits);
+		}
+	}
+
 	/**
 	 * Cached Database Meta Data.
 	 */
@@ -952,14 +1363,17 @@ public class Session {
 	 */
 	public void shutDown() throws SQLException {
 		down.set(true);
+		clearStatementCaches();
+		_log.info(connectionPool.toString());
 		_log.info("closing connections... (" + connections.size() + ")");
-		for (Connection con: connections) {
+		for (Connection con: getConnections()) {
 			try {
 				con.close();
 			} catch (Exception e) {
 				// ignore
 			}
 		}
+		connectionPool.clear();
 		closeTemporaryTableSession();
 		_log.info("connection closed");
 	}
@@ -972,7 +1386,8 @@ public class Session {
 	 * Rolls back and closes all connections.
 	 */
 	public void rollbackAll() throws SQLException {
-		for (Connection con: connections) {
+		clearStatementCaches();
+		for (Connection con: getConnections()) {
 			try {
 				con.rollback();
 			} catch(SQLException e) {
@@ -991,6 +1406,7 @@ public class Session {
 				_log.warn(e.getMessage());
 			}
 		 }
+		connectionPool.clear();
 		connection = new ThreadLocal<Connection>();
 	}
 	
@@ -998,7 +1414,7 @@ public class Session {
 	 * Commits all connections.
 	 */
 	public void commitAll() throws SQLException {
-		for (Connection con: connections) {
+		for (Connection con: getConnections()) {
 			try {
 				con.commit();
 			} catch(SQLException e) {
@@ -1014,6 +1430,67 @@ public class Session {
 		 }
 	}
 	
+	/**
+	 * Gets a snapshot of all connections.
+	 */
+	private List<Connection> getConnections() {
+		synchronized (connections) {
+			return new ArrayList<Connection>(connections);
+		}
+	}
+
+	/**
+	 * Gets the pool of the connections bound to threads.
+	 * 
+	 * @return the connection pool
+	 */
+	public ConnectionPool getConnectionPool() {
+		return connectionPool;
+	}
+
+	/**
+	 * Returns the connection of the current thread to the pool.
+	 * The thread leases a connection again with its next statement.
+	 * Connections of sessions with session local or transaction local working tables
+	 * and of transactional sessions are not pooled.
+	 */
+	public void releaseConnection() {
+		Connection con = connection.get();
+		if (con != null) {
+			connection.set(null);
+			connectionPool.release(con);
+		}
+		leasingSessions.get().remove(this);
+	}
+
+	/**
+	 * Returns all connections the current thread has leased to the pools of the sessions.
+	 * 
+	 * @see #releaseConnection()
+	 */
+	public static void releaseThreadConnections() {
+		Set<Session> sessions = leasingSessions.get();
+		if (!sessions.isEmpty()) {
+			for (Session session: new ArrayList<Session>(sessions)) {
+				session.releaseConnection();
+			}
+			sessions.clear();
+		}
+	}
+
+	/**
+	 * Job cleanup (see {@link net.sf.jailer.util.JobManager#JobManager(int, Runnable)}) that
+	 * returns the connections the runner thread has leased.
+	 * 
+	 * @see #releaseThreadConnections()
+	 */
+	public static final Runnable RELEASE_THREAD_CONNECTIONS = new Runnable() {
+		@Override
+		public void run() {
+			releaseThreadConnections();
+		}
+	};
+
 	/**
 	 * Gets optional schema for database analysis.
 	 * 
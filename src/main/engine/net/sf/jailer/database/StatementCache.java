@@ -0,0 +1,166 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LRU-cache of prepared statements of a connection, keyed by the SQL text (with parameter markers).
+ *
+ * A statement is taken out of the cache while it is in use, so that connections shared
+ * by several threads never execute the same statement object concurrently.
+ *
+ * @author Ralf Wisser
+ */
+class StatementCache {
+
+	/**
+	 * The connection.
+	 */
+	private final Connection connection;
+
+	/**
+	 * The maximum number of idle statements.
+	 */
+	private final int capacity;
+
+	/**
+	 * Idle statements, least recently used first.
+	 */
+	private final LinkedHashMap<String, PreparedStatement> statements;
+
+	/**
+	 * Number of executions without (re)preparation.
+	 */
+	private long hits = 0;
+
+	/**
+	 * Number of preparations.
+	 */
+	private long misses = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param connection the connection
+	 * @param capacity the maximum number of idle statements
+	 */
+	StatementCache(Connection connection, final int capacity) {
+		this.connection = connection;
+		this.capacity = capacity;
+		this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+			private static final long serialVersionUID = 4713254312478542618L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+				if (size() > StatementCache.this.capacity) {
+					close(eldest.getValue());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Takes a statement out of the cache or prepares a new one.
+	 *
+	 * @param sql the SQL text
+	 * @return prepared statement, to be given back via {@link #release(String, PreparedStatement)} or {@link #discard(PreparedStatement)}
+	 */
+	PreparedStatement take(String sql) throws SQLException {
+		synchronized (this) {
+			PreparedStatement statement = statements.remove(sql);
+			if (statement != null) {
+				++hits;
+				return statement;
+			}
+			++misses;
+		}
+		return connection.prepareStatement(sql);
+	}
+
+	/**
+	 * Gives a statement back to the cache after it has been executed successfully.
+	 *
+	 * @param sql the SQL text
+	 * @param statement the statement
+	 */
+	void release(String sql, PreparedStatement statement) {
+		PreparedStatement replaced;
+		synchronized (this) {
+			if (capacity <= 0) {
+				replaced = statement;
+			} else {
+				replaced = statements.put(sql, statement);
+			}
+		}
+		if (replaced != null) {
+			close(replaced);
+		}
+	}
+
+	/**
+	 * Closes a statement that must not be reused (for instance, because it failed).
+	 *
+	 * @param statement the statement
+	 */
+	void discard(PreparedStatement statement) {
+		close(statement);
+	}
+
+	/**
+	 * Closes all idle statements.
+	 */
+	void clear() {
+		List<PreparedStatement> toClose;
+		synchronized (this) {
+			toClose = new ArrayList<PreparedStatement>(statements.values());
+			statements.clear();
+		}
+		for (PreparedStatement statement: toClose) {
+			close(statement);
+		}
+	}
+
+	/**
+	 * Gets the number of executions without (re)preparation.
+	 */
+	synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Gets the number of preparations.
+	 */
+	synchronized long getMisses() {
+		return misses;
+	}
+
+	private static void close(PreparedStatement statement) {
+		try {
+			statement.close();
+		} catch (SQLException e) {
+			// ignore
+		}
+	}
+
+}
@@ -58,9 +58,9 @@ public class UpdateTransformer extends AbstractResultSetReader {
 	private final Set<Column> columns;
 	
 	/**
-	 * The file to write to.
+	 * Collects the statements and splices them into the file to write to.
 	 */
-	private final OutputStreamWriter scriptFileWriter;
+	private final ScriptChunkBuffer scriptChunk;
 	
 	/**
 	 * Number of columns.
@@ -140,7 +140,7 @@ public class UpdateTransformer extends AbstractResultSetReader {
 		this.maxBodySize = maxBodySize;
 		this.table = table;
 		this.columns = columns;
-		this.scriptFileWriter = scriptFileWriter;
+		this.scriptChunk = new ScriptChunkBuffer(scriptFileWriter);
 		this.currentDialect = targetDBMSConfiguration.getSqlDialect();
 		this.quoting = new Quoting(session);
 		this.importFilterTransformer = importFilterTransformer;
@@ -428,22 +428,25 @@ public class UpdateTransformer extends AbstractResultSetReader {
 	@Override
 	public void close() {
 		flush();
+		try {
+			scriptChunk.flush();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
 	}
 	
 	/**
 	 * Writes into script.
 	 */
 	private void writeToScriptFile(String content, boolean wrap) throws IOException {
-		synchronized (scriptFileWriter) {
-			if (reason != null) {
-				scriptFileWriter.write("-- " + reason + "\n");
-				reason = null;
-			}
-			if (wrap && DBMS.ORACLE.equals(targetDBMSConfiguration)) {
-				   scriptFileWriter.write(SqlUtil.splitDMLStatement(content, 2400));
-			} else {
-				scriptFileWriter.write(content);
-			}
+		if (reason != null) {
+			scriptChunk.append("-- " + reason + "\n");
+			reason = null;
+		}
+		if (wrap && DBMS.ORACLE.equals(targetDBMSConfiguration)) {
+			scriptChunk.append(SqlUtil.splitDMLStatement(content, 2400));
+		} else {
+			scriptChunk.append(content);
 		}
 	}
 	
@@ -76,14 +76,14 @@ public class DataModel {
 	private Map<String, Table> tables = new HashMap<String, Table>();
 	
 	/**
-	 * Maps table display names to tables.
+	 * Maps table display names to tables. Created on demand.
 	 */
-	private Map<String, Table> tablesByDisplayName = new HashMap<String, Table>();
+	private Map<String, Table> tablesByDisplayName;
 	
 	/**
-	 * Maps tables to display names.
+	 * Display names of the tables, indexed by {@link Table#getOrdinal()}.
 	 */
-	private Map<Table, String> displayName = new HashMap<Table, String>();
+	private String[] displayNames;
 	
 	/**
 	 * Maps association-names to associations;
@@ -246,7 +246,20 @@ public class DataModel {
 	 * @return the table or <code>null</code> iff no table with the display name exists
 	 */
 	public Table getTableByDisplayName(String displayName) {
-		return tablesByDisplayName.get(displayName);
+		return getTablesByDisplayName().get(displayName);
+	}
+
+	/**
+	 * Gets the map from display names to tables.
+	 */
+	private synchronized Map<String, Table> getTablesByDisplayName() {
+		if (tablesByDisplayName == null) {
+			tablesByDisplayName = new HashMap<String, Table>();
+			for (Table table: getTables()) {
+				tablesByDisplayName.put(getDisplayName(table), table);
+			}
+		}
+		return tablesByDisplayName;
 	}
 
 	/**
@@ -274,7 +287,17 @@ public class DataModel {
 	 * @return the display name of the table
 	 */
 	public String getDisplayName(Table table) {
-		String displayName = this.displayName.get(table);
+		String displayName = null;
+		if (displayNames != null) {
+			int ordinal = table.ordinal;
+			if (ordinal < 0 || ordinal >= tableList.size() || tableList.get(ordinal) != table) {
+				Table modelTable = tables.get(table.getName());
+				ordinal = modelTable == null? -1 : modelTable.ordinal;
+			}
+			if (ordinal >= 0) {
+				displayName = displayNames[ordinal];
+			}
+		}
 		if (displayName == null) {
 			return table.getName();
 		}
@@ -384,59 +407,6 @@ public class DataModel {
 			List<String> excludeFromDeletion = new ArrayList<String>();
 			PrintUtil.loadTableList(excludeFromDeletion, openModelFile(new File(DataModel.getExcludeFromDeletionFile(executionContext)), executionContext));
 
-			// tables
-			File tabFile = new File(getTablesFile(executionContext));
-			StringBuilder resourceName = new StringBuilder();
-			InputStream nTablesFile = openModelFile(tabFile, resourceName, false, executionContext);
-			if (failOnMissingTables && nTablesFile == null) {
-				throw new RuntimeException("Data model not found: " + resourceName);
-			}
-			CsvFile tablesFile = new CsvFile(nTablesFile, null, tabFile.getPath(), null);
-			List<CsvFile.Line> tableList = new ArrayList<CsvFile.Line>(tablesFile.getLines());
-			if (additionalTablesFile != null) {
-				tableList.addAll(new CsvFile(new File(additionalTablesFile)).getLines());
-			}
-			for (CsvFile.Line line: tableList) {
-				boolean defaultUpsert = "Y".equalsIgnoreCase(line.cells.get(1));
-				List<Column> pk = new ArrayList<Column>();
-				int j;
-				for (j = 2; j < line.cells.size() && line.cells.get(j).toString().length() > 0; ++j) {
-					String col = line.cells.get(j).trim();
-					String newName = null;
-					if (knownIdentifiers != null) {
-						try {
-							Column c = Column.parse(col);
-							newName = knownIdentifiers.getColumnName(line.cells.get(0), c.name);
-						} catch (Exception e) {
-							// ignore
-						}
-					}
-					try {
-						pk.add(Column.parse(newName, col));
-					} catch (Exception e) {
-						_log.warn(e);
-						// ignore, was throw new RuntimeException("unable to load table '" + line.cells.get(0) + "'. " + line.location, e);
-					}
-				}
-				String tabName = line.cells.get(0);
-				if (knownIdentifiers != null) {
-					String newName = knownIdentifiers.getTableName(tabName);
-					if (newName != null) {
-						tabName = newName;
-					}
-				}
-				String mappedSchemaTableName = SqlUtil.mappedSchema(sourceSchemaMapping, tabName);
-				Table table = new Table(mappedSchemaTableName, primaryKeyFactory.createPrimaryKey(pk, mappedSchemaTableName), defaultUpsert, excludeFromDeletion.contains(mappedSchemaTableName));
-				table.setAuthor(line.cells.get(j + 1));
-				table.setOriginalName(line.cells.get(0));
-				if (tables.containsKey(mappedSchemaTableName)) {
-					if (additionalTablesFile == null && knownIdentifiers == null) {
-						throw new RuntimeException("Duplicate table name '" + mappedSchemaTableName + "'");
-					}
-				}
-				tables.put(mappedSchemaTableName, table);
-			}
-			
 			// column order
 			File orderFile = new File(getColumnOrderFile(executionContext));
 			if (orderFile.exists()) {
@@ -452,146 +422,114 @@ public class DataModel {
 					}
 				}
 			}
-			
-			// columns
-			File colFile = new File(getColumnsFile(executionContext));
-			InputStream is = openModelFile(colFile, executionContext);
-			if (is != null) {
-				CsvFile columnsFile = new CsvFile(is, null, colFile.getPath(), null);
-				List<CsvFile.Line> columnsList = new ArrayList<CsvFile.Line>(columnsFile.getLines());
-				for (CsvFile.Line line: columnsList) {
-					List<Column> columns = new ArrayList<Column>();
-					for (int j = 1; j < line.cells.size() && line.cells.get(j).toString().length() > 0; ++j) {
-						String col = line.cells.get(j).trim();
-						String newName = null;
-						if (knownIdentifiers != null) {
-							try {
-								Column c = Column.parse(col);
-								newName = knownIdentifiers.getColumnName(Quoting.normalizeIdentifier(line.cells.get(0)), c.name);
-							} catch (Exception e) {
-								// ignore
-							}
-						}
-						try {
-							columns.add(Column.parse(newName, col));
-						} catch (Exception e) {
-							// ignore
-						}
-					}
-					// order columns
-					if (!columnOrderPrio.isEmpty()) {
-						final Map<Column, ColumnOrderPriority> prio = new IdentityHashMap<>();
-						String prefix = line.cells.get(0).trim().length() == 0? "" : (line.cells.get(0).trim() + ".");
-						for (Column column: columns) {
-							ColumnOrderPriority columnOrderPriority = columnOrderPrio.get(prefix + Quoting.normalizeIdentifier(column.name));
-							if (columnOrderPriority == null) {
-								columnOrderPriority = columnOrderPrio.get(Quoting.normalizeIdentifier(column.name));
-							}
-							prio.put(column, columnOrderPriority);
-						}
-						Collections.sort(columns, new Comparator<Column>() {
-							@Override
-							public int compare(Column a, Column b) {
-								ColumnOrderPriority prioA = prio.get(a);
-								ColumnOrderPriority prioB = prio.get(b);
-								if (prioA != prioB) {
-									if (prioA == ColumnOrderPriority.HI) {
-											return -1;
-									} else if (prioA == ColumnOrderPriority.LO) {
-										return 1;
-									} else {
-										return prioB == ColumnOrderPriority.HI? 1 : -1;
-									}
-								}
-								return 0;
-							}
-						});
-					}
-					Table table = tables.get(SqlUtil.mappedSchema(sourceSchemaMapping, line.cells.get(0)));
-					if (table != null) {
-						table.setColumns(columns);
+
+			File snapshotFolder = null;
+			if (additionalTablesFile == null && additionalAssociationsFile == null && assocFilter == null && knownIdentifiers == null) {
+				snapshotFolder = getSnapshotFolder(executionContext);
+			}
+			DataModelSnapshot snapshot = snapshotFolder == null? null : DataModelSnapshot.load(snapshotFolder);
+			if (snapshot == null) {
+				snapshot = new DataModelSnapshot(snapshotFolder);
+
+				// tables
+				File tabFile = new File(getTablesFile(executionContext));
+				StringBuilder resourceName = new StringBuilder();
+				InputStream nTablesFile = openModelFile(tabFile, resourceName, false, executionContext);
+				if (failOnMissingTables && nTablesFile == null) {
+					throw new RuntimeException("Data model not found: " + resourceName);
+				}
+				CsvFile tablesFile = new CsvFile(nTablesFile, null, tabFile.getPath(), null);
+				List<CsvFile.Line> tableList = new ArrayList<CsvFile.Line>(tablesFile.getLines());
+				if (additionalTablesFile != null) {
+					tableList.addAll(new CsvFile(new File(additionalTablesFile)).getLines());
+				}
+				parseTables(tableList, knownIdentifiers, snapshot);
+
+				// columns
+				File colFile = new File(getColumnsFile(executionContext));
+				InputStream is = openModelFile(colFile, executionContext);
+				if (is != null) {
+					CsvFile columnsFile = new CsvFile(is, null, colFile.getPath(), null);
+					parseColumns(columnsFile.getLines(), knownIdentifiers, snapshot);
+				}
+
+				// associations
+				File assFile = new File(getAssociationsFile(executionContext));
+				List<CsvFile.Line> associationList = new ArrayList<CsvFile.Line>(new CsvFile(openModelFile(assFile, executionContext), null, assFile.getPath(), assocFilter).getLines());
+				if (additionalAssociationsFile != null) {
+					associationList.addAll(new CsvFile(new File(additionalAssociationsFile)).getLines());
+				}
+				parseAssociations(associationList, knownIdentifiers, snapshot);
+
+				if (snapshotFolder != null && nTablesFile != null) {
+					snapshot.save();
+				}
+			}
+
+			// tables
+			for (DataModelSnapshot.TableEntry entry: snapshot.tables) {
+				String mappedSchemaTableName = SqlUtil.mappedSchema(sourceSchemaMapping, entry.name);
+				Table table = new Table(mappedSchemaTableName, primaryKeyFactory.createPrimaryKey(entry.primaryKey, mappedSchemaTableName), entry.defaultUpsert, excludeFromDeletion.contains(mappedSchemaTableName));
+				table.setAuthor(entry.author);
+				table.setOriginalName(entry.originalName);
+				if (tables.containsKey(mappedSchemaTableName)) {
+					if (additionalTablesFile == null && knownIdentifiers == null) {
+						throw new RuntimeException("Duplicate table name '" + mappedSchemaTableName + "'");
 					}
 				}
+				tables.put(mappedSchemaTableName, table);
 			}
-			
-			// associations
-			File assFile = new File(getAssociationsFile(executionContext));
-			List<CsvFile.Line> associationList = new ArrayList<CsvFile.Line>(new CsvFile(openModelFile(assFile, executionContext), null, assFile.getPath(), assocFilter).getLines());
-			if (additionalAssociationsFile != null) {
-				associationList.addAll(new CsvFile(new File(additionalAssociationsFile)).getLines());
+
+			// columns
+			for (DataModelSnapshot.ColumnsEntry entry: snapshot.columns) {
+				Table table = tables.get(SqlUtil.mappedSchema(sourceSchemaMapping, entry.tableName));
+				if (table != null) {
+					table.setColumns(entry.columns);
+				}
 			}
-			for (CsvFile.Line line: associationList) {
-				String location = line.location;
+
+			// associations
+			for (DataModelSnapshot.AssociationEntry entry: snapshot.associations) {
 				try {
-					String associationLoadFailedMessage = "Unable to load association from " + line.cells.get(0) + " to " + line.cells.get(1) + " on " + line.cells.get(4) + " because: ";
-					String aName = line.cells.get(0);
-					if (knownIdentifiers != null) {
-						aName = knownIdentifiers.getTableName(aName);
-						if (aName == null) {
-							aName = line.cells.get(0);
-						}
-					}
-					Table tableA = tables.get(SqlUtil.mappedSchema(sourceSchemaMapping, aName));
+					String associationLoadFailedMessage = "Unable to load association from " + entry.source + " to " + entry.destination + " on " + entry.joinCondition + " because: ";
+					Table tableA = tables.get(SqlUtil.mappedSchema(sourceSchemaMapping, entry.source));
 					if (tableA == null) {
 						 continue;
-//	                     throw new RuntimeException(associationLoadFailedMessage + "Table '" + line.cells.get(0) + "' not found");
-					}
-					String bName = line.cells.get(1);
-					if (knownIdentifiers != null) {
-						bName = knownIdentifiers.getTableName(bName);
-						if (bName == null) {
-							bName = line.cells.get(1);
-						}
+//	                     throw new RuntimeException(associationLoadFailedMessage + "Table '" + entry.source + "' not found");
 					}
-					Table tableB = tables.get(SqlUtil.mappedSchema(sourceSchemaMapping, bName));
+					Table tableB = tables.get(SqlUtil.mappedSchema(sourceSchemaMapping, entry.destination));
 					if (tableB == null) {
 						continue;
-//	                	throw new RuntimeException(associationLoadFailedMessage + "Table '" + line.cells.get(1) + "' not found");
-					}
-					boolean insertSourceBeforeDestination = "A".equalsIgnoreCase(line.cells.get(2)); 
-					boolean insertDestinationBeforeSource = "B".equalsIgnoreCase(line.cells.get(2));
-					Cardinality cardinality = Cardinality.parse(line.cells.get(3).trim());
-					if (cardinality == null) {
-						cardinality = Cardinality.MANY_TO_MANY;
-					}
-					String joinCondition = null;
-					if (knownIdentifiers != null) {
-						joinCondition = knownIdentifiers.getCondition(line.cells.get(4));
-					}
-					if (joinCondition == null) {
-						joinCondition = line.cells.get(4);
-					}
-					String name = line.cells.get(5);
-					if ("".equals(name)) {
-						name = null;
+//	                	throw new RuntimeException(associationLoadFailedMessage + "Table '" + entry.destination + "' not found");
 					}
+					String name = entry.name;
 					if (name == null) {
 						throw new RuntimeException(associationLoadFailedMessage + "Association name missing (column 6 is empty, each association must have an unique name)");
 					}
-					String author = line.cells.get(6);
-					Association associationA = new Association(tableA, tableB, insertSourceBeforeDestination, insertDestinationBeforeSource, joinCondition, this, false, cardinality, author);
-					Association associationB = new Association(tableB, tableA, insertDestinationBeforeSource, insertSourceBeforeDestination, joinCondition, this, true, cardinality.reverse(), author);
+					Association associationA = new Association(tableA, tableB, entry.insertSourceBeforeDestination, entry.insertDestinationBeforeSource, entry.joinCondition, this, false, entry.cardinality, entry.author);
+					Association associationB = new Association(tableB, tableA, entry.insertDestinationBeforeSource, entry.insertSourceBeforeDestination, entry.joinCondition, this, true, entry.cardinality.reverse(), entry.author);
 					associationA.reversalAssociation = associationB;
 					associationB.reversalAssociation = associationA;
 					tableA.associations.add(associationA);
 					tableB.associations.add(associationB);
-					if (name != null) {
-						if (namedAssociations.put(name, associationA) != null) {
-							throw new RuntimeException("duplicate association name: " + name);
-						}
-						associationA.setName(name);
-						name = "inverse-" + name;
-						if (namedAssociations.put(name, associationB) != null) {
-							throw new RuntimeException("duplicate association name: " + name);
-						}
-						associationB.setName(name);
+					if (namedAssociations.put(name, associationA) != null) {
+						throw new RuntimeException("duplicate association name: " + name);
+					}
+					associationA.setName(name);
+					name = "inverse-" + name;
+					if (namedAssociations.put(name, associationB) != null) {
+						throw new RuntimeException("duplicate association name: " + name);
 					}
+					associationB.setName(name);
 				} catch (Exception e) {
-					throw new RuntimeException(location + ": " + e.getMessage(), e);
+					throw new RuntimeException(entry.location + ": " + e.getMessage(), e);
 				}
 			}
-			initDisplayNames();
+			for (Table table: tables.values()) {
+				table.compact();
+			}
 			initTableOrdinals();
+			initDisplayNames();
 			
 			// model name
 			File nameFile = new File(getModelNameFile(executionContext));
@@ -616,6 +554,167 @@ public class DataModel {
 		}
 	}
 
+	/**
+	 * Parses the table definitions.
+	 */
+	private void parseTables(List<CsvFile.Line> tableList, KnownIdentifierMap knownIdentifiers, DataModelSnapshot snapshot) {
+		for (CsvFile.Line line: tableList) {
+			boolean defaultUpsert = "Y".equalsIgnoreCase(line.cells.get(1));
+			ArrayList<Column> pk = new ArrayList<Column>();
+			int j;
+			for (j = 2; j < line.cells.size() && line.cells.get(j).toString().length() > 0; ++j) {
+				String col = line.cells.get(j).trim();
+				String newName = null;
+				if (knownIdentifiers != null) {
+					try {
+						Column c = Column.parse(col);
+						newName = knownIdentifiers.getColumnName(line.cells.get(0), c.name);
+					} catch (Exception e) {
+						// ignore
+					}
+				}
+				try {
+					pk.add(snapshot.parseColumn(newName, col));
+				} catch (Exception e) {
+					_log.warn(e);
+					// ignore, was throw new RuntimeException("unable to load table '" + line.cells.get(0) + "'. " + line.location, e);
+				}
+			}
+			String tabName = line.cells.get(0);
+			if (knownIdentifiers != null) {
+				String newName = knownIdentifiers.getTableName(tabName);
+				if (newName != null) {
+					tabName = newName;
+				}
+			}
+			pk.trimToSize();
+			snapshot.tables.add(new DataModelSnapshot.TableEntry(tabName, line.cells.get(0), defaultUpsert, pk, snapshot.intern(line.cells.get(j + 1))));
+		}
+	}
+
+	/**
+	 * Parses the column definitions and orders the columns according to {@link #columnOrderPrio}.
+	 */
+	private void parseColumns(List<CsvFile.Line> columnsList, KnownIdentifierMap knownIdentifiers, DataModelSnapshot snapshot) {
+		for (CsvFile.Line line: columnsList) {
+			List<Column> columns = new ArrayList<Column>();
+			for (int j = 1; j < line.cells.size() && line.cells.get(j).toString().length() > 0; ++j) {
+				String col = line.cells.get(j).trim();
+				String newName = null;
+				if (knownIdentifiers != null) {
+					try {
+						Column c = Column.parse(col);
+						newName = knownIdentifiers.getColumnName(Quoting.normalizeIdentifier(line.cells.get(0)), c.name);
+					} catch (Exception e) {
+						// ignore
+					}
+				}
+				try {
+					columns.add(snapshot.parseColumn(newName, col));
+				} catch (Exception e) {
+					// ignore
+				}
+			}
+			// order columns
+			if (!columnOrderPrio.isEmpty()) {
+				final Map<Column, ColumnOrderPriority> prio = new IdentityHashMap<>();
+				String prefix = line.cells.get(0).trim().length() == 0? "" : (line.cells.get(0).trim() + ".");
+				for (Column column: columns) {
+					ColumnOrderPriority columnOrderPriority = columnOrderPrio.get(prefix + Quoting.normalizeIdentifier(column.name));
+					if (columnOrderPriority == null) {
+						columnOrderPriority = columnOrderPrio.get(Quoting.normalizeIdentifier(column.name));
+					}
+					prio.put(column, columnOrderPriority);
+				}
+				Collections.sort(columns, new Comparator<Column>() {
+					@Override
+					public int compare(Column a, Column b) {
+						ColumnOrderPriority prioA = prio.get(a);
+						ColumnOrderPriority prioB = prio.get(b);
+						if (prioA != prioB) {
+							if (prioA == ColumnOrderPriority.HI) {
+									return -1;
+							} else if (prioA == ColumnOrderPriority.LO) {
+								return 1;
+							} else {
+								return prioB == ColumnOrderPriority.HI? 1 : -1;
+							}
+						}
+						return 0;
+					}
+				});
+			}
+			snapshot.columns.add(new DataModelSnapshot.ColumnsEntry(line.cells.get(0), columns));
+		}
+	}
+
+	/**
+	 * Parses the association definitions.
+	 */
+	private void parseAssociations(List<CsvFile.Line> associationList, KnownIdentifierMap knownIdentifiers, DataModelSnapshot snapshot) {
+		for (CsvFile.Line line: associationList) {
+			String location = line.location;
+			try {
+				String aName = line.cells.get(0);
+				if (knownIdentifiers != null) {
+					aName = knownIdentifiers.getTableName(aName);
+					if (aName == null) {
+						aName = line.cells.get(0);
+					}
+				}
+				String bName = line.cells.get(1);
+				if (knownIdentifiers != null) {
+					bName = knownIdentifiers.getTableName(bName);
+					if (bName == null) {
+						bName = line.cells.get(1);
+					}
+				}
+				boolean insertSourceBeforeDestination = "A".equalsIgnoreCase(line.cells.get(2)); 
+				boolean insertDestinationBeforeSource = "B".equalsIgnoreCase(line.cells.get(2));
+				Cardinality cardinality = Cardinality.parse(line.cells.get(3).trim());
+				if (cardinality == null) {
+					cardinality = Cardinality.MANY_TO_MANY;
+				}
+				String joinCondition = null;
+				if (knownIdentifiers != null) {
+					joinCondition = knownIdentifiers.getCondition(line.cells.get(4));
+				}
+				if (joinCondition == null) {
+					joinCondition = line.cells.get(4);
+				}
+				joinCondition = snapshot.intern(joinCondition);
+				String name = line.cells.get(5);
+				if ("".equals(name)) {
+					name = null;
+				}
+				String author = snapshot.intern(line.cells.get(6));
+				snapshot.associations.add(new DataModelSnapshot.AssociationEntry(location, aName, bName, insertSourceBeforeDestination, insertDestinationBeforeSource, cardinality, joinCondition, name, author));
+			} catch (Exception e) {
+				throw new RuntimeException(location + ": " + e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * Gets the folder in which the {@link DataModelSnapshot} is kept.
+	 *
+	 * @return the data model folder, or <code>null</code> if the model isn't read from the local file system
+	 */
+	private static File getSnapshotFolder(ExecutionContext executionContext) {
+		try {
+			URL dataModelURL = executionContext.getDataModelURL();
+			if ("file".equals(dataModelURL.getProtocol())) {
+				File folder = new File(dataModelURL.toURI()).getCanonicalFile();
+				if (folder.isDirectory() && folder.equals(new File(getDatamodelFolder(executionContext)).getCanonicalFile())) {
+					return folder;
+				}
+			}
+		} catch (Exception e) {
+			// no snapshot
+		}
+		return null;
+	}
+
 	private final List<Table> tableList = new ArrayList<Table>();
 	private final List<FilterTemplate> filterTemplates = new ArrayList<FilterTemplate>();
 	
@@ -633,6 +732,7 @@ public class DataModel {
 	 * Initializes display names.
 	 */
 	private void initDisplayNames() throws IOException {
+		displayNames = new String[tableList.size()];
 		Set<String> unqualifiedNames = new HashSet<String>();
 		Set<String> nonUniqueUnqualifiedNames = new HashSet<String>();
 		
@@ -663,8 +763,7 @@ public class DataModel {
 			} else {
 				displayName = uName;
 			}
-			this.displayName.put(table, displayName);
-			tablesByDisplayName.put(displayName, table);
+			displayNames[table.ordinal] = displayName;
 		}
 		
 		Map<String, String> userDefinedDisplayNames = new TreeMap<String, String>();
@@ -677,13 +776,9 @@ public class DataModel {
 		
 		for (Map.Entry<String, String> e: userDefinedDisplayNames.entrySet()) {
 			Table table = getTable(e.getKey());
-			if (table != null && !tablesByDisplayName.containsKey(e.getValue())) {
-				String displayName = getDisplayName(table);
-				this.displayName.remove(table);
-				if (displayName != null) {
-					tablesByDisplayName.remove(displayName);
-				}
-				this.displayName.put(table, e.getValue());
+			if (table != null && !getTablesByDisplayName().containsKey(e.getValue())) {
+				tablesByDisplayName.remove(getDisplayName(table));
+				displayNames[table.ordinal] = e.getValue();
 				tablesByDisplayName.put(e.getValue(), table);
 			}
 		}
@@ -0,0 +1,414 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.datamodel;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Compiled form of the table, column and association definitions of a data model.<br>
+ * <br>
+ * The snapshot is written into the data model folder after the CSV files have been parsed
+ * and is used instead of them as long as their content doesn't change.
+ * The CSV files remain the source of truth: a snapshot is valid only if
+ * the length and the digest of each source file match the ones recorded in it.
+ *
+ * @author Ralf Wisser
+ */
+class DataModelSnapshot {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger _log = Logger.getLogger(DataModelSnapshot.class);
+
+	/**
+	 * Name of the snapshot file.
+	 */
+	static final String FILE_NAME = "datamodel.snapshot";
+
+	/**
+	 * Names of the files a snapshot is compiled from.
+	 */
+	static final String[] SOURCE_FILES = new String[] { DataModel.TABLE_CSV_FILE, "column.csv", "association.csv", "columnorder.csv" };
+
+	private static final int MAGIC = 0x4a444d53;
+
+	/**
+	 * Version of the file format. Files of other versions are ignored.
+	 */
+	private static final int FORMAT_VERSION = 1;
+
+	/**
+	 * A table definition.
+	 */
+	static class TableEntry {
+		final String name;
+		final String originalName;
+		final boolean defaultUpsert;
+		final List<Column> primaryKey;
+		final String author;
+
+		TableEntry(String name, String originalName, boolean defaultUpsert, List<Column> primaryKey, String author) {
+			this.name = name;
+			this.originalName = originalName;
+			this.defaultUpsert = defaultUpsert;
+			this.primaryKey = primaryKey;
+			this.author = author;
+		}
+	}
+
+	/**
+	 * The (ordered) columns of a table.
+	 */
+	static class ColumnsEntry {
+		final String tableName;
+		final List<Column> columns;
+
+		ColumnsEntry(String tableName, List<Column> columns) {
+			this.tableName = tableName;
+			this.columns = columns;
+		}
+	}
+
+	/**
+	 * An association definition.
+	 */
+	static class AssociationEntry {
+		final String location;
+		final String source;
+		final String destination;
+		final boolean insertSourceBeforeDestination;
+		final boolean insertDestinationBeforeSource;
+		final Cardinality cardinality;
+		final String joinCondition;
+		final String name;
+		final String author;
+
+		AssociationEntry(String location, String source, String destination, boolean insertSourceBeforeDestination, boolean insertDestinationBeforeSource,
+				Cardinality cardinality, String joinCondition, String name, String author) {
+			this.location = location;
+			this.source = source;
+			this.destination = destination;
+			this.insertSourceBeforeDestination = insertSourceBeforeDestination;
+			this.insertDestinationBeforeSource = insertDestinationBeforeSource;
+			this.cardinality = cardinality;
+			this.joinCondition = joinCondition;
+			this.name = name;
+			this.author = author;
+		}
+	}
+
+	final List<TableEntry> tables = new ArrayList<TableEntry>();
+	final List<ColumnsEntry> columns = new ArrayList<ColumnsEntry>();
+	final List<AssociationEntry> associations = new ArrayList<AssociationEntry>();
+
+	/**
+	 * Lengths and digests of the source files, <code>null</code> if they can't be computed.
+	 */
+	private final byte[][] sourceDigests;
+
+	private final File folder;
+
+	/**
+	 * Distinct strings of the parsed entries.
+	 */
+	private final Map<String, String> strings = new HashMap<String, String>();
+
+	/**
+	 * Parsed column declarations.
+	 */
+	private final Map<String, Column> parsedColumns = new HashMap<String, Column>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param folder the data model folder, <code>null</code> if the snapshot will not be saved
+	 */
+	DataModelSnapshot(File folder) {
+		this.folder = folder;
+		this.sourceDigests = folder == null? null : digest(folder);
+	}
+
+	/**
+	 * Loads the snapshot of a data model folder.
+	 *
+	 * @param folder the data model folder
+	 * @return the snapshot or <code>null</code> if there is no valid snapshot
+	 */
+	static DataModelSnapshot load(File folder) {
+		File file = new File(folder, FILE_NAME);
+		if (!file.exists()) {
+			return null;
+		}
+		DataModelSnapshot snapshot = new DataModelSnapshot(folder);
+		if (snapshot.sourceDigests == null) {
+			return null;
+		}
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 65536));
+			try {
+				if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+					return null;
+				}
+				for (byte[] digest: snapshot.sourceDigests) {
+					byte[] recorded = new byte[in.readInt()];
+					in.readFully(recorded);
+					if (!Arrays.equals(digest, recorded)) {
+						return null;
+					}
+				}
+				List<String> strings = new ArrayList<String>();
+				for (int n = in.readInt(); n > 0; --n) {
+					snapshot.tables.add(new TableEntry(readString(in, strings), readString(in, strings), in.readBoolean(), readColumns(in, strings), readString(in, strings)));
+				}
+				for (int n = in.readInt(); n > 0; --n) {
+					snapshot.columns.add(new ColumnsEntry(readString(in, strings), readColumns(in, strings)));
+				}
+				Cardinality[] cardinalities = Cardinality.values();
+				for (int n = in.readInt(); n > 0; --n) {
+					snapshot.associations.add(new AssociationEntry(readString(in, strings), readString(in, strings), readString(in, strings),
+							in.readBoolean(), in.readBoolean(), cardinalities[in.readByte()],
+							readString(in, strings), readString(in, strings), readString(in, strings)));
+				}
+			} finally {
+				in.close();
+			}
+		} catch (Exception e) {
+			_log.warn("can't read " + file + ": " + e.getMessage());
+			return null;
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Writes the snapshot into the data model folder.
+	 * Failures are logged, the CSV files are parsed again next time.
+	 */
+	void save() {
+		if (sourceDigests == null) {
+			return;
+		}
+		File file = new File(folder, FILE_NAME);
+		File tmp = null;
+		try {
+			tmp = File.createTempFile(FILE_NAME, ".tmp", folder);
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 65536));
+			try {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				for (byte[] digest: sourceDigests) {
+					out.writeInt(digest.length);
+					out.write(digest);
+				}
+				Map<String, Integer> strings = new HashMap<String, Integer>();
+				out.writeInt(tables.size());
+				for (TableEntry table: tables) {
+					writeString(out, table.name, strings);
+					writeString(out, table.originalName, strings);
+					out.writeBoolean(table.defaultUpsert);
+					writeColumns(out, table.primaryKey, strings);
+					writeString(out, table.author, strings);
+				}
+				out.writeInt(columns.size());
+				for (ColumnsEntry entry: columns) {
+					writeString(out, entry.tableName, strings);
+					writeColumns(out, entry.columns, strings);
+				}
+				out.writeInt(associations.size());
+				for (AssociationEntry association: associations) {
+					writeString(out, association.location, strings);
+					writeString(out, association.source, strings);
+					writeString(out, association.destination, strings);
+					out.writeBoolean(association.insertSourceBeforeDestination);
+					out.writeBoolean(association.insertDestinationBeforeSource);
+					out.writeByte(association.cardinality.ordinal());
+					writeString(out, association.joinCondition, strings);
+					writeString(out, association.name, strings);
+					writeString(out, association.author, strings);
+				}
+			} finally {
+				out.close();
+			}
+			file.delete();
+			if (!tmp.renameTo(file)) {
+				throw new IOException("can't rename " + tmp);
+			}
+			tmp = null;
+		} catch (Exception e) {
+			_log.debug("can't write " + file + ": " + e.getMessage());
+		} finally {
+			if (tmp != null) {
+				tmp.delete();
+			}
+		}
+	}
+
+	/**
+	 * Gets the one instance of equal strings that is used by the parsed entries.
+	 */
+	String intern(String value) {
+		if (value == null) {
+			return null;
+		}
+		String result = strings.get(value);
+		if (result == null) {
+			strings.put(value, value);
+			result = value;
+		}
+		return result;
+	}
+
+	/**
+	 * Parses a column declaration. Equal declarations are parsed only once,
+	 * the columns share their names and types.
+	 *
+	 * @param columnName (optional) name of column
+	 * @param declaration the column declaration in SQL syntax
+	 * @return a new column
+	 * @see Column#parse(String, String)
+	 */
+	Column parseColumn(String columnName, String declaration) {
+		Column parsed = parsedColumns.get(declaration);
+		if (parsed == null) {
+			parsed = Column.parse(declaration);
+			parsedColumns.put(declaration, parsed);
+		}
+		Column column = new Column(intern(columnName == null? parsed.name : columnName), intern(parsed.type), parsed.length, parsed.precision);
+		column.isNullable = parsed.isNullable;
+		column.isIdentityColumn = parsed.isIdentityColumn;
+		column.isVirtual = parsed.isVirtual;
+		return column;
+	}
+
+	/**
+	 * Computes the length and the digest of each source file.
+	 *
+	 * @return one array per source file, or <code>null</code> if a file can't be read
+	 */
+	private static byte[][] digest(File folder) {
+		byte[][] result = new byte[SOURCE_FILES.length][];
+		try {
+			MessageDigest messageDigest = MessageDigest.getInstance("SHA-1");
+			byte[] buffer = new byte[65536];
+			for (int i = 0; i < SOURCE_FILES.length; ++i) {
+				File file = new File(folder, SOURCE_FILES[i]);
+				long length = -1;
+				messageDigest.reset();
+				if (file.exists()) {
+					length = 0;
+					InputStream in = new FileInputStream(file);
+					try {
+						int n;
+						while ((n = in.read(buffer)) > 0) {
+							messageDigest.update(buffer, 0, n);
+							length += n;
+						}
+					} finally {
+						in.close();
+					}
+				}
+				byte[] digest = messageDigest.digest();
+				byte[] entry = new byte[8 + digest.length];
+				for (int b = 0; b < 8; ++b) {
+					entry[b] = (byte) (length >>> (56 - 8 * b));
+				}
+				System.arraycopy(digest, 0, entry, 8, digest.length);
+				result[i] = entry;
+			}
+		} catch (Exception e) {
+			_log.debug("can't digest data model files: " + e.getMessage());
+			return null;
+		}
+		return result;
+	}
+
+	private static void writeColumns(DataOutputStream out, List<Column> columns, Map<String, Integer> strings) throws IOException {
+		out.writeInt(columns.size());
+		for (Column column: columns) {
+			writeString(out, column.name, strings);
+			writeString(out, column.type, strings);
+			out.writeInt(column.length);
+			out.writeInt(column.precision);
+			out.writeByte((column.isNullable? 1 : 0) | (column.isIdentityColumn? 2 : 0) | (column.isVirtual? 4 : 0));
+		}
+	}
+
+	private static List<Column> readColumns(DataInputStream in, List<String> strings) throws IOException {
+		int n = in.readInt();
+		List<Column> columns = new ArrayList<Column>(n);
+		for (int i = 0; i < n; ++i) {
+			Column column = new Column(readString(in, strings), readString(in, strings), in.readInt(), in.readInt());
+			int flags = in.readByte();
+			column.isNullable = (flags & 1) != 0;
+			column.isIdentityColumn = (flags & 2) != 0;
+			column.isVirtual = (flags & 4) != 0;
+			columns.add(column);
+		}
+		return columns;
+	}
+
+	/**
+	 * Writes a string. Each distinct string is written only once and referenced by its number afterwards.
+	 */
+	private static void writeString(DataOutputStream out, String value, Map<String, Integer> strings) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		Integer id = strings.get(value);
+		if (id != null) {
+			out.writeInt(id);
+			return;
+		}
+		out.writeInt(strings.size());
+		strings.put(value, strings.size());
+		byte[] bytes = value.getBytes("UTF-8");
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in, List<String> strings) throws IOException {
+		int id = in.readInt();
+		if (id < 0) {
+			return null;
+		}
+		if (id < strings.size()) {
+			return strings.get(id);
+		}
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		String value = new String(bytes, "UTF-8");
+		strings.add(value);
+		return value;
+	}
+
+}
@@ -154,6 +154,16 @@ public class Table extends ModelElement implements Comparable<Table> {
 		return columns;
 	}
 
+	/**
+	 * Releases the unused capacity of the column and association lists.
+	 */
+	void compact() {
+		if (columns instanceof ArrayList) {
+			((ArrayList<Column>) columns).trimToSize();
+		}
+		((ArrayList<Association>) associations).trimToSize();
+	}
+
 	/**
 	 * Compares tables.
 	 */
@@ -24,8 +24,10 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.sql.DataSource;
 
@@ -43,6 +45,7 @@ import net.sf.jailer.datamodel.PrimaryKey;
 import net.sf.jailer.datamodel.PrimaryKeyFactory;
 import net.sf.jailer.datamodel.RowIdSupport;
 import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.entitygraph.EntityGraph;
 import net.sf.jailer.util.PrintUtil;
 import net.sf.jailer.util.Quoting;
 import net.sf.jailer.util.SqlScriptExecutor;
@@ -156,8 +159,6 @@ public class DDLCreator {
 	 */
 	private boolean createDDL(DataModel dataModel, Session session, WorkingTableScope temporaryTableScope, int indexType, RowIdSupport rowIdSupport, String workingTableSchema, boolean withTableProperties) throws FileNotFoundException, IOException, SQLException {
 		String template = "script" + File.separator + "ddl-template.sql";
-		String contraint = pkColumnConstraint(session);
-		Map<String, String> typeReplacement = targetDBMS(session).getTypeReplacement();
 		PrimaryKey upk = rowIdSupport.getUniversalPrimaryKey();
 		if (upk.getColumns().isEmpty()) {
 			Table table = null;
@@ -169,6 +170,29 @@ public class DDLCreator {
 			}
 			throw new DataModel.NoPrimaryKeyException(table);
 		}
+		Map<String, String> arguments = createArguments(session, temporaryTableScope, upk, workingTableSchema, withTableProperties);
+		Map<String, List<String>> listArguments = createListArguments(upk, indexType);
+		boolean perGraphWorkingTables = executionContext.isPerGraphWorkingTables() && (temporaryTableScope == null || temporaryTableScope == WorkingTableScope.GLOBAL);
+		listArguments.put("graph-tables", perGraphWorkingTables? Collections.singletonList(PER_GRAPH_WORKING_TABLES) : Collections.<String>emptyList());
+		String ddl = new PrintUtil().applyTemplate(template, arguments, listArguments);
+
+		if (session != null) {
+			dropAllGraphTables(session);
+			execute(session, ddl);
+			session.setSessionProperty(DDLCreator.class, GRAPH_TABLES_KEY, null);
+		} else {
+			System.out.println(ddl);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Creates the arguments for the DDL templates.
+	 */
+	private Map<String, String> createArguments(Session session, WorkingTableScope temporaryTableScope, PrimaryKey upk, String workingTableSchema, boolean withTableProperties) throws SQLException {
+		String contraint = pkColumnConstraint(session);
+		Map<String, String> typeReplacement = targetDBMS(session).getTypeReplacement();
 		String universalPrimaryKey = upk.toSQL(null, contraint, typeReplacement);
 		Map<String, String> arguments = new HashMap<String, String>();
 		arguments.put("upk", universalPrimaryKey);
@@ -219,7 +243,13 @@ public class DDLCreator {
 			arguments.put("create-index-suffix", "");
 			arguments.put("index-table-prefix", "");
 		}
+		return arguments;
+	}
 
+	/**
+	 * Creates the column lists of the indexes for the DDL templates.
+	 */
+	private Map<String, List<String>> createListArguments(PrimaryKey upk, int indexType) {
 		Map<String, List<String>> listArguments = new HashMap<String, List<String>>();
 		if (indexType == 0) {
 			// full index
@@ -245,20 +275,190 @@ public class DDLCreator {
 			listArguments.put("column-list-from", Collections.singletonList(""));
 			listArguments.put("column-list-to", Collections.singletonList(""));
 		}
-		String ddl = new PrintUtil().applyTemplate(template, arguments, listArguments);
+		return listArguments;
+	}
 
-		if (session != null) {
-			File tmp = Configuration.getInstance().createTempFile();
-			PrintWriter pw = new PrintWriter(tmp);
-			pw.println(ddl);
-			pw.close();
+	/**
+	 * Executes a DDL script.
+	 */
+	private void execute(Session session, String ddl) throws IOException, SQLException {
+		File tmp = Configuration.getInstance().createTempFile();
+		PrintWriter pw = new PrintWriter(tmp);
+		pw.println(ddl);
+		pw.close();
+		try {
 			new SqlScriptExecutor(session, 1).executeScript(tmp.getPath());
+		} finally {
 			tmp.delete();
-		} else {
-			System.out.println(ddl);
 		}
+	}
 
-		return true;
+	/**
+	 * Value of the configuration entry {@link #GRAPH_TABLES_KEY} if each entity graph has its own working tables.
+	 */
+	public static final String PER_GRAPH_WORKING_TABLES = "per-graph";
+
+	/**
+	 * Key of the configuration entry which specifies whether each entity graph has its own working tables.
+	 */
+	public static final String GRAPH_TABLES_KEY = "graph-tables";
+
+	/**
+	 * Key of the configuration entries which register the graphs having its own working tables.
+	 */
+	public static final String GRAPH_TABLE_KEY = "graph-table";
+
+	/**
+	 * Checks whether each entity graph has its own working tables ({@link ExecutionContext#isPerGraphWorkingTables()}).
+	 * 
+	 * @return <code>true</code> if the working tables have been created with option "-per-graph-working-tables"
+	 */
+	public boolean hasPerGraphWorkingTables(Session session) throws SQLException {
+		if (executionContext.getScope() != WorkingTableScope.GLOBAL) {
+			return false;
+		}
+		Boolean result = (Boolean) session.getSessionProperty(DDLCreator.class, GRAPH_TABLES_KEY);
+		if (result == null) {
+			final boolean[] perGraph = new boolean[] { false };
+			session.executeQuery(
+					"Select jvalue From " + SQLDialect.dmlTableReference(SQLDialect.CONFIG_TABLE_, session, executionContext) +
+					" Where jversion='" + JailerVersion.WORKING_TABLE_VERSION + "' and jkey='" + GRAPH_TABLES_KEY + "'",
+					new Session.AbstractResultSetReader() {
+						@Override
+						public void readCurrentRow(ResultSet resultSet) throws SQLException {
+							perGraph[0] = PER_GRAPH_WORKING_TABLES.equals(resultSet.getString(1));
+						}
+					});
+			result = perGraph[0];
+			session.setSessionProperty(DDLCreator.class, GRAPH_TABLES_KEY, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the suffix of the names of the working tables of an entity graph.
+	 * 
+	 * @param graphID the ID of the graph
+	 * @return the suffix
+	 */
+	public static String graphTableSuffix(int graphID) {
+		return "_G" + graphID;
+	}
+
+	/**
+	 * Creates the working tables of an entity graph (JAILER_ENTITY and JAILER_DEPENDENCY, with {@link #graphTableSuffix(int)}).
+	 * Drops the tables of graphs which no longer exist.
+	 * 
+	 * @param session the session
+	 * @param upk the universal primary key
+	 * @param graphID the ID of the graph
+	 * @param workingTableSchema schema of the working tables, or <code>null</code>
+	 */
+	public void createGraphTables(Session session, PrimaryKey upk, int graphID, String workingTableSchema) throws SQLException {
+		dropStaleGraphTables(session);
+		String configTable = SQLDialect.dmlTableReference(SQLDialect.CONFIG_TABLE_, session, executionContext);
+		session.executeUpdate(
+				"INSERT INTO " + configTable + "(jversion, jkey, jvalue) " +
+				"VALUES ('" + JailerVersion.WORKING_TABLE_VERSION + "', '" + GRAPH_TABLE_KEY + "', '" + graphID + "')");
+		String template = "script" + File.separator + "ddl-graph-template.sql";
+		SQLException lastException = null;
+		for (int indexType = 0; indexType < 3; ++indexType) {
+			for (boolean withTableProperties: new boolean[] { true, false }) {
+				try {
+					Map<String, String> arguments = createArguments(session, WorkingTableScope.GLOBAL, upk, workingTableSchema, withTableProperties);
+					arguments.put("graph-suffix", graphTableSuffix(graphID));
+					execute(session, new PrintUtil().applyTemplate(template, arguments, createListArguments(upk, indexType)));
+					return;
+				} catch (SQLException e) {
+					lastException = e;
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		}
+		throw lastException;
+	}
+
+	/**
+	 * Drops the working tables of an entity graph.
+	 * 
+	 * @param session the session
+	 * @param graphID the ID of the graph
+	 */
+	public void dropGraphTables(Session session, int graphID) throws SQLException {
+		boolean silent = session.getSilent();
+		try {
+			session.setSilent(true);
+			for (String table: new String[] { EntityGraph.DEPENDENCY, EntityGraph.ENTITY }) {
+				try {
+					session.execute("DROP TABLE " + SQLDialect.dmlTableReference(table + graphTableSuffix(graphID), session, executionContext));
+				} catch (SQLException e) {
+					// table doesn't exist
+				}
+			}
+		} finally {
+			session.setSilent(silent);
+		}
+		session.executeUpdate(
+				"DELETE FROM " + SQLDialect.dmlTableReference(SQLDialect.CONFIG_TABLE_, session, executionContext) + " " +
+				"WHERE jversion='" + JailerVersion.WORKING_TABLE_VERSION + "' and jkey='" + GRAPH_TABLE_KEY + "' and jvalue='" + graphID + "'");
+	}
+
+	/**
+	 * Drops the working tables of all entity graphs.
+	 */
+	private void dropAllGraphTables(Session session) {
+		try {
+			for (int graphID: readGraphTables(session)) {
+				dropGraphTables(session, graphID);
+			}
+		} catch (SQLException e) {
+			// there are no working tables
+		}
+	}
+
+	/**
+	 * Drops the working tables of entity graphs which no longer exist.
+	 */
+	private void dropStaleGraphTables(Session session) throws SQLException {
+		List<Integer> graphIDs = readGraphTables(session);
+		if (!graphIDs.isEmpty()) {
+			final Set<Integer> existingGraphIDs = new HashSet<Integer>();
+			session.executeQuery("Select id From " + SQLDialect.dmlTableReference(EntityGraph.ENTITY_GRAPH, session, executionContext), new Session.AbstractResultSetReader() {
+				@Override
+				public void readCurrentRow(ResultSet resultSet) throws SQLException {
+					existingGraphIDs.add(resultSet.getInt(1));
+				}
+			});
+			for (int graphID: graphIDs) {
+				if (!existingGraphIDs.contains(graphID)) {
+					dropGraphTables(session, graphID);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the IDs of the entity graphs having its own working tables.
+	 */
+	private List<Integer> readGraphTables(Session session) throws SQLException {
+		final List<Integer> graphIDs = new ArrayList<Integer>();
+		boolean silent = session.getSilent();
+		try {
+			session.setSilent(true);
+			session.executeQuery(
+					"Select jvalue From " + SQLDialect.dmlTableReference(SQLDialect.CONFIG_TABLE_, session, executionContext) +
+					" Where jversion='" + JailerVersion.WORKING_TABLE_VERSION + "' and jkey='" + GRAPH_TABLE_KEY + "'",
+					new Session.AbstractResultSetReader() {
+						@Override
+						public void readCurrentRow(ResultSet resultSet) throws SQLException {
+							graphIDs.add(Integer.parseInt(resultSet.getString(1).trim()));
+						}
+					});
+		} finally {
+			session.setSilent(silent);
+		}
+		return graphIDs;
 	}
 
 	private boolean supportsSchemasInIndexDefinitions(Session session) {
@@ -17,12 +17,14 @@ package net.sf.jailer.entitygraph;
 
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.security.SecureRandom;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 import net.sf.jailer.ExecutionContext;
@@ -84,6 +86,12 @@ public abstract class EntityGraph {
 
 	protected boolean inDeleteMode = false;
 
+	/**
+	 * Suffix of the names of the working tables of this graph,
+	 * or <code>null</code> if the graph shares the working tables with other graphs.
+	 */
+	protected String graphTableSuffix = null;
+
 	/**
 	 * The unique ID of the graph.
 	 */
@@ -264,6 +272,15 @@ public abstract class EntityGraph {
 	 */
 	public abstract long readUnfilteredEntityColumns(final Table table, final List<Column> columns, final Session.ResultSetReader reader) throws SQLException;
 
+	/**
+	 * Reads some columns of all entities of a given table with respect of the export filters.
+	 * 
+	 * @param table the table
+	 * @param columns the columns
+	 * @param reader to read
+	 */
+	public abstract long readEntityColumns(final Table table, final List<Column> columns, final Session.ResultSetReader reader) throws SQLException;
+
 	/**
 	 * Deletes all entities which are marked as independent.
 	 */
@@ -303,6 +320,26 @@ public abstract class EntityGraph {
 	 */
 	public abstract void readDependentEntities(Table table, Association association, ResultSet resultSet, ResultSetMetaData resultSetMetaData, ResultSetReader reader, Map<String, Integer> typeCache, String selectionSchema, String originalPKAliasPrefix) throws SQLException;
 	
+	/**
+	 * Reads all entities which depend on one of the given entities.
+	 * Set-based variant of {@link #readDependentEntities(Table, Association, ResultSet, ResultSetMetaData, ResultSetReader, Map, String, String)}
+	 * which reads the dependent entities of a whole block of entities at once.
+	 * The primary key of the entity on which a read entity depends is selected as additional
+	 * columns named <code>parentPKAliasPrefix + i</code>.
+	 * 
+	 * @param table the table from which to read entities
+	 * @param association the dependency
+	 * @param parentKeys primary keys (as SQL literals) of the entities on which the entities to be read depend
+	 * @param reader reads the entities
+	 * @param selectionSchema the selection schema
+	 * @param originalPKAliasPrefix prefix of column aliases for selection of unfiltered PK values, or <code>null</code>
+	 * @param parentPKAliasPrefix prefix of column aliases for selection of the primary key of the entity on which a read entity depends
+	 * @return <code>false</code> if this graph cannot read the dependent entities of many entities at once
+	 */
+	public boolean readDependentEntities(Table table, Association association, List<String[]> parentKeys, ResultSetReader reader, String selectionSchema, String originalPKAliasPrefix, String parentPKAliasPrefix) throws SQLException {
+		return false;
+	}
+	
 	/**
 	 * Marks all entities which depends on given entity as traversed. 
 	 * 
@@ -361,12 +398,21 @@ public abstract class EntityGraph {
 	public abstract Session getSession();
 
 	/**
-	 * Creates a unique ID for a new graph.
+	 * Generator for graph IDs.
+	 */
+	private static final Random graphIDGenerator = new SecureRandom();
+
+	/**
+	 * Creates a unique ID for a new graph.<br>
+	 * <br>
+	 * The ID is chosen at random from the positive integers so that processes which share the working tables
+	 * and start at the same time get different IDs. Entity graphs claim the ID when they are created
+	 * and choose another one if it is already in use.
 	 * 
 	 * @return a unique ID
 	 */
 	public static int createUniqueGraphID() {
-		return Math.abs((int) System.currentTimeMillis()) % 65536;
+		return 1 + graphIDGenerator.nextInt(Integer.MAX_VALUE - 1);
 	}
 	
 	private int lobCount = 0;
@@ -380,8 +426,6 @@ public abstract class EntityGraph {
 
 	public abstract DataModel getDatamodel();
 	
-	public static long maxTotalRowcount;
-	
 	/**
 	 * Closes the graph. Deletes the local database.
 	 */
@@ -481,6 +525,9 @@ public abstract class EntityGraph {
 	 * @throws SQLException 
 	 */
 	protected String dmlTableReference(String tableName, Session session) throws SQLException {
+		if (graphTableSuffix != null && (ENTITY.equals(tableName) || DEPENDENCY.equals(tableName))) {
+			return SQLDialect.dmlTableReference(tableName + graphTableSuffix, session, executionContext);
+		}
 		return SQLDialect.dmlTableReference(tableName, session, executionContext);
 	}
 
@@ -532,6 +579,10 @@ public abstract class EntityGraph {
 		if (checkExist) {
 			checkExist(executionContext);
 		}
+		if (graphTableSuffix != null) {
+			// the working tables of the graph are dropped on deletion
+			return;
+		}
 		final int count[] = new int[] { 0 };
 		getSession().executeQuery("Select count(*) from " + SQLDialect.dmlTableReference(ENTITY_GRAPH, getSession(), executionContext), new Session.AbstractResultSetReader() {
 			@Override
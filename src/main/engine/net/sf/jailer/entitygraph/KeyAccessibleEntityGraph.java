@@ -0,0 +1,92 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.entitygraph;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import net.sf.jailer.datamodel.Table;
+
+/**
+ * {@link EntityGraph} that gives access to the entities by their primary keys.
+ *
+ * @author Ralf Wisser
+ */
+public interface KeyAccessibleEntityGraph {
+
+	/**
+	 * Receives the primary keys of entities and dependencies.
+	 *
+	 * @see KeyAccessibleEntityGraph#readEntityKeys(Table, EntityKeyReader)
+	 * @see KeyAccessibleEntityGraph#readDependencyKeys(Table, EntityKeyReader)
+	 */
+	public interface EntityKeyReader {
+
+		/**
+		 * Receives an entity.
+		 *
+		 * @param table the table of the entity
+		 * @param key primary key (as SQL literals) of the entity
+		 * @param birthday the birthday of the entity
+		 */
+		void readEntity(Table table, String[] key, int birthday) throws SQLException;
+
+		/**
+		 * Receives a dependency.
+		 *
+		 * @param from the table of the dependent entity
+		 * @param fromKey primary key (as SQL literals) of the dependent entity
+		 * @param to the table of the entity on which the dependent entity depends
+		 * @param toKey primary key (as SQL literals) of the entity on which the dependent entity depends
+		 */
+		void readDependency(Table from, String[] fromKey, Table to, String[] toKey) throws SQLException;
+	}
+
+	/**
+	 * Reads the primary keys of all entities of a given table.
+	 *
+	 * @param table the table
+	 * @param reader receives the keys
+	 * @return <code>false</code> if the entities of the table can not be accessed by their keys
+	 */
+	boolean readEntityKeys(Table table, EntityKeyReader reader) throws SQLException;
+
+	/**
+	 * Reads the primary keys of all dependencies (which are no aggregations) of the entities of a given table.
+	 *
+	 * @param table the table
+	 * @param reader receives the keys
+	 */
+	void readDependencyKeys(Table table, EntityKeyReader reader) throws SQLException;
+
+	/**
+	 * Reads the entities of a given table having one of the given primary keys.
+	 *
+	 * @param table the table
+	 * @param keys primary keys (as SQL literals) of the entities, as read by {@link #readEntityKeys(Table, EntityKeyReader)}
+	 */
+	void readEntitiesByKeys(Table table, List<String[]> keys) throws SQLException;
+
+	/**
+	 * Marks entities of a given table s.t. they can be deleted.
+	 *
+	 * @param table the table
+	 * @param keys primary keys (as SQL literals) of the entities, or <code>null</code> to mark all entities of the table
+	 * @see EntityGraph#deleteIndependentEntities(Table)
+	 */
+	void markEntities(Table table, List<String[]> keys) throws SQLException;
+
+}
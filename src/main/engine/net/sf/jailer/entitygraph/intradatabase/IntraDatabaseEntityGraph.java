@@ -97,9 +97,10 @@ public class IntraDatabaseEntityGraph extends RemoteEntityGraph {
 	 */
 	public static IntraDatabaseEntityGraph create(DataModel dataModel,
 			int graphID, Session session, PrimaryKey universalPrimaryKey, Runnable updateStatistics, ExecutionContext executionContext) throws SQLException {
+		graphID = claimGraphID(graphID, session, executionContext);
 		IntraDatabaseEntityGraph entityGraph = new IntraDatabaseEntityGraph(
 				dataModel, graphID, session, universalPrimaryKey, updateStatistics, executionContext);
-		init(graphID, session, executionContext);
+		entityGraph.createGraphTables();
 		return entityGraph;
 	}
 
@@ -119,13 +120,14 @@ public class IntraDatabaseEntityGraph extends RemoteEntityGraph {
 				session, universalPrimaryKey, null, executionContext);
 		entityGraph.setBirthdayOfSubject(birthdayOfSubject);
 		session.executeUpdate("Insert into "
-				+ SQLDialect.dmlTableReference(ENTITY, session, executionContext)
+				+ entityGraph.dmlTableReference(ENTITY, session)
 				+ "(r_entitygraph, " + universalPrimaryKey.columnList(null)
-				+ ", birthday, orig_birthday, type) " + "Select " + newGraphID
+				+ ", birthday, orig_birthday, type) " + "Select " + entityGraph.graphID
 				+ ", " + universalPrimaryKey.columnList(null)
 				+ ", birthday, birthday, type From "
-				+ SQLDialect.dmlTableReference(ENTITY, session, executionContext)
+				+ dmlTableReference(ENTITY, session)
 				+ " Where r_entitygraph=" + graphID + "");
+		copyEntityCounts(entityGraph);
 		return entityGraph;
 	}
 
@@ -145,13 +147,23 @@ public class IntraDatabaseEntityGraph extends RemoteEntityGraph {
 			throws SQLException {
 		String selectionSchema = filteredSelectionClause(table, COLUMN_PREFIX, quoting, true);
 		readEntitiesByQuery(table, "Select " + selectionSchema + " From "
-				+ SQLDialect.dmlTableReference(ENTITY, session, executionContext) + " E join "
+				+ dmlTableReference(ENTITY, session) + " E join "
 				+ quoting.requote(table.getName()) + " T on "
 				+ pkEqualsEntityID(table, "T", "E")
 				+ " Where (E.birthday=0 and E.r_entitygraph=" + graphID
 				+ " and E.type=" + typeName(table) + ")");
 	}
 	
+	/**
+	 * Entities are not accessed by their keys, since they are inserted into the target tables set-based.
+	 * 
+	 * @return <code>false</code>
+	 */
+	@Override
+	public boolean readEntityKeys(Table table, EntityKeyReader reader) throws SQLException {
+		return false;
+	}
+
 	/**
 	 * Reads all entities of a given table.
 	 * 
@@ -166,7 +178,7 @@ public class IntraDatabaseEntityGraph extends RemoteEntityGraph {
 		long incSize = session.dbms.getLimitTransactionSize().getSize(executionContext);
 		if (incSize > 0) { 
 			String update = 
-					"Update " + session.dbms.getLimitTransactionSize().afterSelectFragment(executionContext) + SQLDialect.dmlTableReference(ENTITY, session, executionContext) + " " +
+					"Update " + session.dbms.getLimitTransactionSize().afterSelectFragment(executionContext) + dmlTableReference(ENTITY, session) + " " +
 					"Set birthday=0 " +
 					"Where (birthday>=0 and r_entitygraph=" + graphID + " " + 
 					"and type=" + typeName(table) + ") " + session.dbms.getLimitTransactionSize().additionalWhereConditionFragment(executionContext) +
@@ -177,17 +189,17 @@ public class IntraDatabaseEntityGraph extends RemoteEntityGraph {
 					break;
 				}
 				readMarkedEntities(table, orderByPK);
-				session.executeUpdate(
-						"Delete from " + SQLDialect.dmlTableReference(ENTITY, session, executionContext) + " " +
+				entitiesRemoved(table, session.executeUpdate(
+						"Delete from " + dmlTableReference(ENTITY, session) + " " +
 						"Where birthday=0 and r_entitygraph=" + graphID + " " + 
-						"and type=" + typeName(table) + "");
+						"and type=" + typeName(table) + ""));
 				if (rc != incSize) {
 					break;
 				}
 			}
 		} else {
 			readEntitiesByQuery(table, "Select " + filteredSelectionClause(table, COLUMN_PREFIX, quoting, true) + " From "
-				+ SQLDialect.dmlTableReference(ENTITY, session, executionContext) + " E join "
+				+ dmlTableReference(ENTITY, session) + " E join "
 				+ quoting.requote(table.getName()) + " T on "
 				+ pkEqualsEntityID(table, "T", "E")
 				+ " Where (E.birthday>=0 and E.r_entitygraph=" + graphID
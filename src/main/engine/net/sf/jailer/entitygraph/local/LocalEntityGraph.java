@@ -27,11 +27,13 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.sf.jailer.ExecutionContext;
 import net.sf.jailer.configuration.Configuration;
 import net.sf.jailer.configuration.DBMS;
 import net.sf.jailer.configuration.LocalDatabaseConfiguration;
+import net.sf.jailer.database.DefaultTemporaryTableManager;
 import net.sf.jailer.database.InlineViewBuilder;
 import net.sf.jailer.database.InlineViewStyle;
 import net.sf.jailer.database.LocalDatabase;
@@ -156,6 +158,192 @@ public class LocalEntityGraph extends EntityGraph {
 
 	}
 
+	/**
+	 * Number of the next temporary key table of this graph.
+	 */
+	private final AtomicInteger nextKeyTableNumber = new AtomicInteger(0);
+
+	/**
+	 * <code>true</code> if the creation of a temporary key table has already failed (and has been logged).
+	 */
+	private volatile boolean keyTableCreationFailed = false;
+
+	/**
+	 * Ships the keys of entities of a table to the remote database.
+	 * Key sets of up to {@link ExecutionContext#getKeyTableThreshold()} rows are shipped via inline-views,
+	 * larger ones are loaded into a session-local temporary table which is joined once and dropped afterwards.
+	 */
+	private abstract class RemoteKeyShipper extends RemoteInlineViewBuilder {
+
+		private final Table table;
+		private final int threshold;
+		private final List<String[]> pendingRows = new ArrayList<String[]>();
+		private final List<String> inserts = new ArrayList<String>();
+		private final StringBuilder insert = new StringBuilder();
+		private int rowsInInsert = 0;
+		private String keyTable = null;
+
+		public RemoteKeyShipper(String name, Table table) {
+			super(name, upkColumnList(table, null));
+			this.table = table;
+			if (remoteSession.dbms.getSessionTemporaryTableManager() != null) {
+				this.threshold = executionContext.getKeyTableThreshold();
+			} else {
+				this.threshold = 0;
+			}
+		}
+
+		@Override
+		protected void addRow(String[] values) throws SQLException {
+			if (keyTable != null) {
+				addKey(values);
+			} else if (threshold <= 0) {
+				super.addRow(values);
+			} else {
+				pendingRows.add(values);
+				if (pendingRows.size() > threshold) {
+					keyTable = createKeyTable(table);
+					for (String[] pendingValues: pendingRows) {
+						if (keyTable != null) {
+							addKey(pendingValues);
+						} else {
+							super.addRow(pendingValues);
+						}
+					}
+					pendingRows.clear();
+				}
+			}
+		}
+
+		private void addKey(String[] values) throws SQLException {
+			if (rowsInInsert == 0) {
+				insert.append("Insert into " + keyTable + "(" + upkColumnList(table, null) + ") values ");
+			} else {
+				insert.append(", ");
+			}
+			insert.append("(");
+			for (int i = 0; i < values.length; ++i) {
+				if (i > 0) {
+					insert.append(", ");
+				}
+				insert.append(values[i]);
+			}
+			insert.append(")");
+			if (++rowsInInsert >= (remoteSession.dbms.getSqlDialect().isSupportsMultiRowInserts()? 100 : 1)) {
+				inserts.add(insert.toString());
+				insert.setLength(0);
+				rowsInInsert = 0;
+				if (inserts.size() >= 100) {
+					flushKeys();
+				}
+			}
+		}
+
+		private void flushKeys() throws SQLException {
+			if (rowsInInsert > 0) {
+				inserts.add(insert.toString());
+				insert.setLength(0);
+				rowsInInsert = 0;
+			}
+			if (!inserts.isEmpty()) {
+				remoteSession.executeBatch(inserts, null);
+				inserts.clear();
+			}
+		}
+
+		@Override
+		public void close() throws SQLException {
+			if (keyTable != null) {
+				try {
+					flushKeys();
+					process(keyTable + " " + name);
+				} finally {
+					dropKeyTable(keyTable);
+					keyTable = null;
+				}
+			} else {
+				for (String[] values: pendingRows) {
+					super.addRow(values);
+				}
+				pendingRows.clear();
+				super.close();
+			}
+		}
+
+	}
+
+	/**
+	 * Creates a session-local temporary table in the remote database for the keys of the entities of a table.
+	 * The name contains the graph ID, as the names of global temporary tables (Oracle) must not collide
+	 * with the ones of other processes.
+	 * 
+	 * @param table the table
+	 * @return DML reference to the key table, or <code>null</code> if the table can't be created
+	 */
+	private String createKeyTable(Table table) {
+		DefaultTemporaryTableManager tableManager = remoteSession.dbms.getSessionTemporaryTableManager();
+		String tableName = "JAILER_KEYS" + graphID + "_" + nextKeyTableNumber.getAndIncrement();
+		Map<Column, Column> match = upkMatch(table);
+		StringBuilder columns = new StringBuilder();
+		for (Column column: universalPrimaryKey.getColumns()) {
+			Column tableColumn = match.get(column);
+			if (tableColumn != null) {
+				// match contains the local column types, the key table needs the remote ones
+				Column remoteColumn = null;
+				for (Column c: table.primaryKey.getColumns()) {
+					if (c.name.equals(tableColumn.name)) {
+						remoteColumn = c;
+						break;
+					}
+				}
+				if (remoteColumn == null) {
+					return null;
+				}
+				if (columns.length() > 0) {
+					columns.append(", ");
+				}
+				columns.append(new Column(column.name, remoteColumn.type, remoteColumn.length, remoteColumn.precision).toSQL(null));
+			}
+		}
+		try {
+			remoteSession.executeUpdate(tableManager.getCreateTablePrefix() + tableManager.getDdlTableReferencePrefix() + tableName + "_T(" + columns + ") " + tableManager.getCreateTableSuffix());
+		} catch (SQLException e) {
+			// fall back to inline-views for this key set only, the next one may succeed
+			String message = "can't create temporary key table, using inline-views instead (" + e.getMessage() + ")";
+			if (keyTableCreationFailed) {
+				Session._log.debug(message);
+			} else {
+				keyTableCreationFailed = true;
+				Session._log.warn(message);
+			}
+			return null;
+		}
+		return tableManager.getDmlTableReference(tableName);
+	}
+
+	/**
+	 * Drops a temporary key table.
+	 * 
+	 * @param keyTable DML reference to the key table
+	 */
+	private void dropKeyTable(String keyTable) {
+		DefaultTemporaryTableManager tableManager = remoteSession.dbms.getSessionTemporaryTableManager();
+		String tableName = keyTable.substring(tableManager.getDmlTableReferencePrefix().length());
+		// the prefix is commented out for DBMS that drop temporary tables at the end of the session
+		String drop = tableManager.getDropTablePrefix().replaceFirst("^\\s*--\\s*", "") + tableManager.getDdlTableReferencePrefix() + tableName;
+		try {
+			try {
+				remoteSession.executeUpdate(drop);
+			} catch (SQLException e) {
+				// tables with preserved rows must be empty before they can be dropped
+				remoteSession.executeUpdate("Delete from " + keyTable);
+				remoteSession.executeUpdate(drop);
+			}
+		} catch (SQLException e) {
+			Session._log.warn("can't drop temporary key table " + keyTable + " (" + e.getMessage() + ")");
+		}
+	}
+
 	private Set<String> upkColumnNames = null;
 	private Set<String> nupkColumnNames = null;
 	
@@ -479,7 +667,7 @@ public class LocalEntityGraph extends EntityGraph {
 			// ----
 			
 			final Table destination = association.destination;
-			final String condition = "E.r_entitygraph=" + graphID + " and E.birthday = " + (today - 1) + " and E.type=" + typeName(table) + "";
+			final String condition = "E.r_entitygraph=? and E.birthday = ? and E.type=?";
 			final Table source = association.source;
 			
 			String select;
@@ -491,7 +679,7 @@ public class LocalEntityGraph extends EntityGraph {
 			
 			final long[] rc = new long[1];
 			
-			localSession.executeQuery(select, new RemoteInlineViewBuilder("E", upkColumnList(source, null)) {
+			localSession.executeQuery(select, new Object[] { graphID, today - 1, typeName(table) }, new RemoteKeyShipper("E", source) {
 				@Override
 				protected void process(String inlineView) throws SQLException {
 					String select =
@@ -593,7 +781,7 @@ public class LocalEntityGraph extends EntityGraph {
 				" Where E1.r_entitygraph=" + graphID + 
 				" and E1.type=" + typeName(from) + "";
 
-		localSession.executeQuery(select, new RemoteInlineViewBuilder("E1", upkColumnList(from, null, null)) {
+		localSession.executeQuery(select, new RemoteKeyShipper("E1", from) {
 			@Override
 			protected void process(String inlineView) throws SQLException {
 				String upkColumnList = upkColumnList(from, "E1", null);
@@ -674,11 +862,12 @@ public class LocalEntityGraph extends EntityGraph {
 		}
 		localSession.executeUpdate(
 				"Update " + dmlTableReference(ENTITY, localSession) + " set birthday=0 " +
-				"Where r_entitygraph=" + graphID + " and birthday>0 and " +
+				"Where r_entitygraph=? and birthday>0 and " +
 					   (table != null? "type=" + typeName(table) + " and " : "") +
 					   "not exists (Select * from " + dmlTableReference(DEPENDENCY, localSession) + " D " +
-						   "Where D.r_entitygraph=" + graphID + " and D.assoc=0 and D.from_type=" + dmlTableReference(ENTITY, localSession) + ".type and " +
-								 fromEqualsPK + ")");
+						   "Where D.r_entitygraph=? and D.assoc=0 and D.from_type=" + dmlTableReference(ENTITY, localSession) + ".type and " +
+								 fromEqualsPK + ")",
+				new Object[] { graphID, graphID });
 	}
 
 	private Map<Column, Column> upkMatch(Table table) {
@@ -704,10 +893,11 @@ public class LocalEntityGraph extends EntityGraph {
 		}
 		localSession.executeUpdate(
 				"Update " + dmlTableReference(ENTITY, localSession) + " set birthday=0 " +
-				"Where r_entitygraph=" + graphID + " and birthday>0 and type=" + typeName(table) + " and " +
+				"Where r_entitygraph=? and birthday>0 and type=" + typeName(table) + " and " +
 					   "not exists (Select * from " + dmlTableReference(DEPENDENCY, localSession) + " D " +
-						   "Where D.r_entitygraph=" +graphID + " and D.to_type=" + dmlTableReference(ENTITY, localSession) + ".type and " +
-								 toEqualsPK + ")");
+						   "Where D.r_entitygraph=? and D.to_type=" + dmlTableReference(ENTITY, localSession) + ".type and " +
+								 toEqualsPK + ")",
+				new Object[] { graphID, graphID });
 	}
 
 	/**
@@ -738,10 +928,10 @@ public class LocalEntityGraph extends EntityGraph {
 		
 		String select = 
 				"Select " + upkColumnList + " From " + dmlTableReference(ENTITY, localSession) + " E" +
-				" Where E.birthday=0 and E.r_entitygraph=" + graphID + " and E.type=" + typeName(table) + "" +
+				" Where E.birthday=0 and E.r_entitygraph=? and E.type=?" +
 				orderBy;
 		
-		localSession.executeQuery(select, new RemoteInlineViewBuilder("E", upkColumnList) {
+		localSession.executeQuery(select, new Object[] { graphID, typeName(table) }, new RemoteKeyShipper("E", table) {
 			
 			@Override
 			protected void process(String inlineView) throws SQLException {
@@ -783,10 +973,10 @@ public class LocalEntityGraph extends EntityGraph {
 		
 		String select = 
 				"Select " + upkColumnList + " From " + dmlTableReference(ENTITY, localSession) + " E" +
-				" Where E.birthday=0 and E.r_entitygraph=" + graphID + " and E.type=" + typeName(table) + "" +
+				" Where E.birthday=0 and E.r_entitygraph=? and E.type=?" +
 				orderBy;
 		
-		localSession.executeQuery(select, new RemoteInlineViewBuilder("E", upkColumnList) {
+		localSession.executeQuery(select, new Object[] { graphID, typeName(table) }, new RemoteKeyShipper("E", table) {
 			
 			@Override
 			protected void process(String inlineView) throws SQLException {
@@ -873,7 +1063,7 @@ public class LocalEntityGraph extends EntityGraph {
 		}
 		final long[] rc = new long[1];
 		
-		localSession.executeQuery(select, new RemoteInlineViewBuilder("E", upkColumnList(table, null, null)) {
+		localSession.executeQuery(select, new RemoteKeyShipper("E", table) {
 			
 			@Override
 			protected void process(String inlineView) throws SQLException {
@@ -906,6 +1096,22 @@ public class LocalEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public long readUnfilteredEntityColumns(final Table table, final List<Column> columns, final Session.ResultSetReader reader) throws SQLException {
+		return readEntityColumns(table, columns, false, reader);
+	}
+
+	/**
+	 * Reads some columns of all entities of a given table with respect of the export filters.
+	 * 
+	 * @param table the table
+	 * @param columns the columns
+	 * @param reader to read
+	 */
+	@Override
+	public long readEntityColumns(final Table table, final List<Column> columns, final Session.ResultSetReader reader) throws SQLException {
+		return readEntityColumns(table, columns, true, reader);
+	}
+
+	private long readEntityColumns(final Table table, final List<Column> columns, boolean applyExportFilter, final Session.ResultSetReader reader) throws SQLException {
 		String upkColumnList = upkColumnList(table, "E", null);
 		String select = 
 				"Select distinct " + upkColumnList + " From " + dmlTableReference(ENTITY, localSession) + " E " +
@@ -918,7 +1124,11 @@ public class LocalEntityGraph extends EntityGraph {
 			if (!first) {
 				sb.append(", ");
 			}
-			sb.append("T." + quoting.requote(c.name));
+			if (applyExportFilter) {
+				sb.append(filteredColumnExpression(c));
+			} else {
+				sb.append("T." + quoting.requote(c.name));
+			}
 			sb.append(" as " + quoting.requote(c.name));
 			first = false;
 		}
@@ -926,7 +1136,7 @@ public class LocalEntityGraph extends EntityGraph {
 		final String columnList = sb.toString();
 		final long[] rc = new long[1];
 		
-		localSession.executeQuery(select, new RemoteInlineViewBuilder("E", upkColumnList(table, null, null)) {
+		localSession.executeQuery(select, new RemoteKeyShipper("E", table) {
 			
 			@Override
 			protected void process(String inlineView) throws SQLException {
@@ -966,19 +1176,7 @@ public class LocalEntityGraph extends EntityGraph {
 			if (!first) {
 				sb.append(", ");
 			}
-			String filterExpression = null;
-			if (c.getFilter() != null && c.getFilter().isApplyAtExport()) {
-				filterExpression = c.getFilterExpression();
-			}
-			if (filterExpression != null) {
-				if (filterExpression.trim().toLowerCase().startsWith("select")) {
-					sb.append("(" + filterExpression + ")");
-				} else {
-					sb.append(filterExpression);
-				}
-			} else {
-				sb.append("T." + quoting.requote(c.name));
-			}
+			sb.append(filteredColumnExpression(c));
 			sb.append(" as " + quoting.requote(c.name));
 			first = false;
 		}
@@ -986,6 +1184,23 @@ public class LocalEntityGraph extends EntityGraph {
 		return sb.toString();
 	}
 
+	/**
+	 * Gets the expression for reading a column with respect of its export filter.
+	 * 
+	 * @param c the column
+	 * @return the filter expression, or the column itself if it has no export filter
+	 */
+	private String filteredColumnExpression(Column c) {
+		if (c.getFilter() != null && c.getFilter().isApplyAtExport()) {
+			String filterExpression = c.getFilterExpression();
+			if (filterExpression.trim().toLowerCase().startsWith("select")) {
+				return "(" + filterExpression + ")";
+			}
+			return filterExpression;
+		}
+		return "T." + quoting.requote(c.name);
+	}
+
 	/**
 	 * Deletes all entities which are marked as independent.
 	 */
@@ -20,11 +20,16 @@ import java.io.OutputStreamWriter;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.log4j.Logger;
+
 import net.sf.jailer.ExecutionContext;
 import net.sf.jailer.configuration.DBMS;
 import net.sf.jailer.configuration.LimitTransactionSizeInfo;
@@ -32,6 +37,7 @@ import net.sf.jailer.database.SQLDialect;
 import net.sf.jailer.database.Session;
 import net.sf.jailer.database.Session.ResultSetReader;
 import net.sf.jailer.database.UpdateTransformer;
+import net.sf.jailer.ddl.DDLCreator;
 import net.sf.jailer.datamodel.Association;
 import net.sf.jailer.datamodel.Column;
 import net.sf.jailer.datamodel.DataModel;
@@ -39,6 +45,7 @@ import net.sf.jailer.datamodel.PrimaryKey;
 import net.sf.jailer.datamodel.RowIdSupport;
 import net.sf.jailer.datamodel.Table;
 import net.sf.jailer.entitygraph.EntityGraph;
+import net.sf.jailer.entitygraph.KeyAccessibleEntityGraph;
 import net.sf.jailer.util.CellContentConverter;
 import net.sf.jailer.util.CsvFile;
 import net.sf.jailer.util.Quoting;
@@ -49,7 +56,12 @@ import net.sf.jailer.util.SqlUtil;
  * 
  * @author Ralf Wisser
  */
-public class RemoteEntityGraph extends EntityGraph {
+public class RemoteEntityGraph extends EntityGraph implements KeyAccessibleEntityGraph {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger _log = Logger.getLogger(RemoteEntityGraph.class);
 
 	/**
 	 * For executing SQL-Statements.
@@ -76,6 +88,14 @@ public class RemoteEntityGraph extends EntityGraph {
 	 */
 	private final Runnable updateStatistics;
 	
+	/**
+	 * Number of entities (birthday &gt;= 0) per table. Maintained from the update counts of the statements
+	 * which add or remove entities, so that {@link #getSize(Set)} doesn't have to count the rows of the entity-table.
+	 * Invalid after statements having an unknown effect on these numbers, the entities are counted again then.
+	 */
+	private final Map<Table, Long> entityCounts = new HashMap<Table, Long>();
+	private boolean entityCountsValid = true;
+	
 	/**
 	 * Constructor.
 	 * 
@@ -119,26 +139,54 @@ public class RemoteEntityGraph extends EntityGraph {
 	/**
 	 * Creates a new entity-graph.
 	 * 
-	 * @param graphID the unique ID of the graph
+	 * @param graphID the unique ID of the graph (suggested, see {@link #claimGraphID(int, Session, ExecutionContext)})
 	 * @param session for executing SQL-Statements
 	 * @param universalPrimaryKey the universal primary key
 	 * @return the newly created entity-graph
 	 */
 	public static RemoteEntityGraph create(DataModel dataModel, int graphID, Session session, PrimaryKey universalPrimaryKey, Runnable updateStatistics, ExecutionContext executionContext) throws SQLException {
+		graphID = claimGraphID(graphID, session, executionContext);
 		RemoteEntityGraph entityGraph = new RemoteEntityGraph(dataModel, graphID, session, universalPrimaryKey, updateStatistics, executionContext);
-		init(graphID, session, executionContext);
+		entityGraph.createGraphTables();
 		return entityGraph;
 	}
 
 	/**
-	 * Initializes a new entity-graph.
+	 * Maximum number of attempts to claim a graph ID.
+	 */
+	private static final int MAX_CLAIM_ATTEMPTS = 100;
+
+	/**
+	 * Initializes a new entity-graph by claiming its ID.<br>
+	 * <br>
+	 * The ID is claimed by inserting the graph's row into the graph-table. The row is marked with a negative random age
+	 * until the claim is confirmed, so that it can be told apart from rows of other graphs with the same ID.
+	 * If another graph already uses the ID (another process sharing the working tables may have claimed it concurrently),
+	 * the own row is deleted again and a new ID is created and claimed.
 	 * 
-	 * @param graphID the unique ID of the graph
+	 * @param graphID the unique ID of the graph (suggested)
 	 * @param session for executing SQL-Statements
+	 * @return the claimed ID of the graph
 	 */
-	protected static void init(int graphID, Session session, ExecutionContext executionContext) {
+	protected static int claimGraphID(int graphID, Session session, ExecutionContext executionContext) {
 		try {
-			session.executeUpdate("Insert into " + SQLDialect.dmlTableReference(ENTITY_GRAPH, session, executionContext) + "(id, age) values (" + graphID + ", 1)");
+			String graphTable = SQLDialect.dmlTableReference(ENTITY_GRAPH, session, executionContext);
+			for (int attempt = 1; ; ++attempt) {
+				if (countGraphs(graphID, graphTable, session) == 0) {
+					int marker = -createUniqueGraphID();
+					session.executeUpdate("Insert into " + graphTable + "(id, age) values (" + graphID + ", " + marker + ")");
+					if (countGraphs(graphID, graphTable, session) == 1) {
+						session.executeUpdate("Update " + graphTable + " Set age=1 Where id=" + graphID + " and age=" + marker);
+						return graphID;
+					}
+					session.executeUpdate("Delete from " + graphTable + " Where id=" + graphID + " and age=" + marker);
+				}
+				if (attempt >= MAX_CLAIM_ATTEMPTS) {
+					throw new RuntimeException("Can't claim a graph ID (" + attempt + " attempts)");
+				}
+				_log.info("graph ID " + graphID + " is already in use");
+				graphID = createUniqueGraphID();
+			}
 		} catch (SQLException e) {
 			throw new RuntimeException("Can't find working tables! " +
 					"Run 'bin/jailer.sh create-ddl' " +
@@ -146,6 +194,33 @@ public class RemoteEntityGraph extends EntityGraph {
 		}
 	}
 
+	/**
+	 * Counts the rows of a graph in the graph-table.
+	 */
+	private static long countGraphs(int graphID, String graphTable, Session session) throws SQLException {
+		final long[] count = new long[] { 0 };
+		session.executeQuery("Select count(*) From " + graphTable + " Where id=" + graphID, new Session.AbstractResultSetReader() {
+			@Override
+			public void readCurrentRow(ResultSet resultSet) throws SQLException {
+				count[0] = resultSet.getLong(1);
+			}
+		});
+		return count[0];
+	}
+
+	/**
+	 * Creates the working tables of the graph if each graph has its own working tables.
+	 * 
+	 * @see ExecutionContext#isPerGraphWorkingTables()
+	 */
+	protected void createGraphTables() throws SQLException {
+		DDLCreator ddlCreator = new DDLCreator(executionContext);
+		if (ddlCreator.hasPerGraphWorkingTables(session)) {
+			ddlCreator.createGraphTables(session, universalPrimaryKey, graphID, executionContext.getWorkingTableSchema());
+			graphTableSuffix = DDLCreator.graphTableSuffix(graphID);
+		}
+	}
+
 	/**
 	 * Copies an entity-graph.
 	 * 
@@ -158,8 +233,9 @@ public class RemoteEntityGraph extends EntityGraph {
 		RemoteEntityGraph entityGraph = create(dataModel, newGraphID, session, universalPrimaryKey, null, executionContext);
 		entityGraph.setBirthdayOfSubject(birthdayOfSubject);
 		session.executeUpdate(
-				"Insert into " + dmlTableReference(ENTITY, session) + "(r_entitygraph, " + universalPrimaryKey.columnList(null) + ", birthday, orig_birthday, type) " +
-					"Select " + newGraphID + ", " + universalPrimaryKey.columnList(null) + ", birthday, birthday, type From " + dmlTableReference(ENTITY, session) + " Where r_entitygraph=" + graphID + "");
+				"Insert into " + entityGraph.dmlTableReference(ENTITY, session) + "(r_entitygraph, " + universalPrimaryKey.columnList(null) + ", birthday, orig_birthday, type) " +
+					"Select " + entityGraph.graphID + ", " + universalPrimaryKey.columnList(null) + ", birthday, birthday, type From " + dmlTableReference(ENTITY, session) + " Where r_entitygraph=" + graphID + "");
+		copyEntityCounts(entityGraph);
 		return entityGraph;
 	}
 
@@ -201,18 +277,11 @@ public class RemoteEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public long getSize() throws SQLException {
-		final int[] size = new int[1];
-		size[0] = -1;
-		session.executeQuery("Select count(*) From " + dmlTableReference(ENTITY, session) + " Where r_entitygraph=" + graphID + " and birthday >= 0", new Session.ResultSetReader() {
-			@Override
-			public void readCurrentRow(ResultSet resultSet) throws SQLException {
-				size[0] = resultSet.getInt(1);
-			}
-			@Override
-			public void close() {
-			}
-		});
-		return size[0];
+		long size = 0;
+		for (long count: getEntityCounts().values()) {
+			size += count;
+		}
+		return size;
 	}
 	
 
@@ -223,21 +292,130 @@ public class RemoteEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public long getSize(final Set<Table> tables) throws SQLException {
-		final long[] total = new long[1];
-		total[0] = 0;
+		long total = 0;
 		if (!tables.isEmpty()) {
-			session.executeQuery("Select type, count(*) From " + dmlTableReference(ENTITY, session) + " Where r_entitygraph=" + graphID + " and birthday>=0 group by type", new Session.AbstractResultSetReader() {
-				@Override
-				public void readCurrentRow(ResultSet resultSet) throws SQLException {
-					Table table = dataModel.getTableByOrdinal(resultSet.getInt(1));
-					if (tables.contains(table)) {
-						long count = resultSet.getLong(2);
-						total[0] += count;
+			for (Map.Entry<Table, Long> e: getEntityCounts().entrySet()) {
+				if (tables.contains(e.getKey())) {
+					total += e.getValue();
+				}
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Gets the number of entities per table. Counts the entities if the maintained numbers
+	 * are not valid or if they have to be verified (debug level).
+	 * 
+	 * @return the number of entities (birthday &gt;= 0) per table
+	 */
+	private Map<Table, Long> getEntityCounts() throws SQLException {
+		boolean verify = _log.isDebugEnabled();
+		synchronized (entityCounts) {
+			if (entityCountsValid && !verify) {
+				return new HashMap<Table, Long>(entityCounts);
+			}
+		}
+		final Map<Table, Long> counts = new HashMap<Table, Long>();
+		session.executeQuery("Select type, count(*) From " + dmlTableReference(ENTITY, session) + " Where r_entitygraph=" + graphID + " and birthday>=0 group by type", new Session.AbstractResultSetReader() {
+			@Override
+			public void readCurrentRow(ResultSet resultSet) throws SQLException {
+				Table table = dataModel.getTableByOrdinal(resultSet.getInt(1));
+				if (table != null) {
+					counts.put(table, resultSet.getLong(2));
+				}
+			}
+		});
+		synchronized (entityCounts) {
+			if (entityCountsValid) {
+				Set<Table> tables = new HashSet<Table>(entityCounts.keySet());
+				tables.addAll(counts.keySet());
+				for (Table table: tables) {
+					long count = counts.containsKey(table)? counts.get(table) : 0;
+					long maintainedCount = entityCounts.containsKey(table)? entityCounts.get(table) : 0;
+					if (count != maintainedCount) {
+						_log.warn("wrong number of entities of " + table.getName() + ": " + maintainedCount + ", counted: " + count);
 					}
 				}
-			});
+			}
+			entityCounts.clear();
+			entityCounts.putAll(counts);
+			entityCountsValid = true;
+		}
+		return counts;
+	}
+
+	/**
+	 * Gets the maintained number of entities per table without counting them.
+	 * 
+	 * @return the number of entities (birthday &gt;= 0) per table, or <code>null</code> if the maintained numbers are not valid
+	 */
+	Map<Table, Long> getMaintainedEntityCounts() {
+		synchronized (entityCounts) {
+			return entityCountsValid? new HashMap<Table, Long>(entityCounts) : null;
+		}
+	}
+
+	/**
+	 * Updates the number of entities of a table after entities have been added or removed.
+	 * 
+	 * @param table the table
+	 * @param rowCount number of added entities (negative if removed)
+	 * @param updateCount the update count of the statement, negative if unknown
+	 */
+	private void updateEntityCount(Table table, long rowCount, long updateCount) {
+		synchronized (entityCounts) {
+			if (updateCount < 0) {
+				entityCountsValid = false;
+			} else if (entityCountsValid) {
+				Long count = entityCounts.get(table);
+				entityCounts.put(table, (count == null? 0 : count) + rowCount);
+			}
+		}
+	}
+
+	/**
+	 * Updates the number of entities of a table after entities have been added.
+	 * 
+	 * @param table the table
+	 * @param updateCount the update count of the statement
+	 */
+	protected void entitiesAdded(Table table, long updateCount) {
+		updateEntityCount(table, updateCount, updateCount);
+	}
+
+	/**
+	 * Updates the number of entities of a table after entities have been removed.
+	 * 
+	 * @param table the table
+	 * @param updateCount the update count of the statement
+	 */
+	protected void entitiesRemoved(Table table, long updateCount) {
+		updateEntityCount(table, -updateCount, updateCount);
+	}
+
+	/**
+	 * Lets the entities be counted again the next time the number of entities is needed.
+	 */
+	protected void invalidateEntityCounts() {
+		synchronized (entityCounts) {
+			entityCountsValid = false;
+		}
+	}
+
+	/**
+	 * Copies the number of entities per table into a copy of this graph.
+	 * 
+	 * @param copy the copy
+	 */
+	protected void copyEntityCounts(RemoteEntityGraph copy) {
+		synchronized (entityCounts) {
+			synchronized (copy.entityCounts) {
+				copy.entityCounts.clear();
+				copy.entityCounts.putAll(entityCounts);
+				copy.entityCountsValid = entityCountsValid;
+			}
 		}
-		return total[0];
 	}
 
 	/**
@@ -246,10 +424,18 @@ public class RemoteEntityGraph extends EntityGraph {
 	@Override
 	public void delete() throws SQLException {
 		if (!isTruncated) {
-			deleteRows(session, dmlTableReference(DEPENDENCY, session), "r_entitygraph=" + graphID + "");
-			deleteRows(session, dmlTableReference(ENTITY, session), "r_entitygraph=" + graphID + "");
+			if (graphTableSuffix != null) {
+				new DDLCreator(executionContext).dropGraphTables(session, graphID);
+			} else {
+				deleteRows(session, dmlTableReference(DEPENDENCY, session), "r_entitygraph=" + graphID + "");
+				deleteRows(session, dmlTableReference(ENTITY, session), "r_entitygraph=" + graphID + "");
+			}
 			deleteRows(session, dmlTableReference(ENTITY_GRAPH, session), "id=" + graphID + "");
 		}
+		synchronized (entityCounts) {
+			entityCounts.clear();
+			entityCountsValid = true;
+		}
 	}
 
 	/**
@@ -263,7 +449,7 @@ public class RemoteEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public long addEntities(Table table, String condition, int today) throws SQLException {
-		return addEntities(table, "T", condition, null, null, null, null, false, today, 0, true);
+		return addEntities(table, "T", condition, null, null, null, null, null, false, today, 0, true);
 	}
 	
 	/**
@@ -299,7 +485,7 @@ public class RemoteEntityGraph extends EntityGraph {
 					}
 				}
 			}
-			return addEntities(association.destination, destAlias, "E.r_entitygraph=" + graphID + " and E.birthday = " + (today - 1) + " and E.type=" + typeName(table) + " and " + pkEqualsEntityID(table, sourceAlias, "E"), table, sourceAlias, association.source, jc, true, today, associationExplanationID, association.reversed);
+			return addEntities(association.destination, destAlias, "E.r_entitygraph=? and E.birthday = ? and E.type=? and " + pkEqualsEntityID(table, sourceAlias, "E"), new Object[] { graphID, today - 1, typeName(table) }, table, sourceAlias, association.source, jc, true, today, associationExplanationID, association.reversed);
 		}
 		return -1;
 	}
@@ -309,6 +495,8 @@ public class RemoteEntityGraph extends EntityGraph {
 	 * 
 	 * @param table the table 
 	 * @param condition the condition in SQL that the entities must fulfill with 'E' as alias for the entity-table
+	 * @param conditionParameter parameters of the condition, or <code>null</code> if the condition has no parameter markers.
+	 *        If given, the condition must restrict 'E' to the entities of this graph born yesterday.
 	 * @param joinedTable optional table to join with
 	 * @param source optional, the source-table
 	 * @param joinCondition optional condition to join with <code>joinedTable</code>
@@ -317,19 +505,27 @@ public class RemoteEntityGraph extends EntityGraph {
 	 * 
 	 * @return row-count
 	 */
-	private long addEntities(Table table, String alias, String condition, Table joinedTable, String joinedTableAlias, Table source, String joinCondition, boolean joinWithEntity, int today, int associationExplanationID, boolean isInverseAssociation) throws SQLException {
+	private long addEntities(Table table, String alias, String condition, Object[] conditionParameter, Table joinedTable, String joinedTableAlias, Table source, String joinCondition, boolean joinWithEntity, int today, int associationExplanationID, boolean isInverseAssociation) throws SQLException {
 		if (joinCondition != null) {
 			joinCondition = SqlUtil.resolvePseudoColumns(joinCondition, isInverseAssociation? null : "E", isInverseAssociation? "E" : null, today, birthdayOfSubject, inDeleteMode);
 		}
+		// with bound parameters, the statement text doesn't depend on graph ID and birthday,
+		// so that it can be reused from day to day
+		boolean bind = conditionParameter != null && joinWithEntity;
+		String graphIDValue = bind? "E.r_entitygraph" : ("" + graphID);
+		String birthdayValue = bind? "E.birthday + 1" : ("" + today);
+		String graphIDParameter = bind? "?" : ("" + graphID);
+		List<Object> parameter = new ArrayList<Object>();
 		String select;
 		LimitTransactionSizeInfo limitTransactionSize = session.dbms.getLimitTransactionSize();
 		if (joinedTable == null && !joinWithEntity && !limitTransactionSize.isApplicable(executionContext)) {
 			select =
-					"Select " + graphID + " " + limitTransactionSize.afterSelectFragment(executionContext) + "as GRAPH_ID, " + pkList(table, alias) + ", " + today + " AS BIRTHDAY, " + typeName(table) + " AS TYPE" +
+					"Select " + graphIDValue + " " + limitTransactionSize.afterSelectFragment(executionContext) + "as GRAPH_ID, " + pkList(table, alias) + ", " + birthdayValue + " AS BIRTHDAY, " + typeName(table) + " AS TYPE" +
 					(source == null || !explain? "" : ", " + associationExplanationID + " AS ASSOCIATION, " + typeName(source) + " AS SOURCE_TYPE, " + pkList(source, joinedTableAlias, "PRE_")) +
 					" From " + quoting.requote(table.getName()) + " " + alias +
 					" Where (" + condition + ") " + limitTransactionSize.additionalWhereConditionFragment(executionContext) +
 					limitTransactionSize.statementSuffixFragment(executionContext);
+			addParameter(parameter, conditionParameter);
 		} else {
 			if (session.dbms.isAvoidLeftJoin()) {
 				// bug fix for [https://sourceforge.net/p/jailer/bugs/12/ ] "Outer Join for selecting dependant entries and Oracle 10"
@@ -337,7 +533,7 @@ public class RemoteEntityGraph extends EntityGraph {
 				
 				// TODO is this still necessary?
 				select =
-					"Select " + (joinedTable != null? "distinct " : "") + limitTransactionSize.afterSelectFragment(executionContext) + graphID + " as GRAPH_ID, " + pkList(table, alias) + ", " + today + " AS BIRTHDAY, " + typeName(table) + " AS TYPE" +
+					"Select " + (joinedTable != null? "distinct " : "") + limitTransactionSize.afterSelectFragment(executionContext) + graphIDValue + " as GRAPH_ID, " + pkList(table, alias) + ", " + birthdayValue + " AS BIRTHDAY, " + typeName(table) + " AS TYPE" +
 					(source == null || !explain? "" : ", " + associationExplanationID + " AS ASSOCIATION, " + typeName(source) + " AS SOURCE_TYPE, " + pkList(source, joinedTableAlias, "PRE_")) +
 					" From " + quoting.requote(table.getName()) + " " + alias
 						+
@@ -348,23 +544,31 @@ public class RemoteEntityGraph extends EntityGraph {
 					(joinedTable != null? " and (" + joinCondition + ")" : "") +
 	
 						" AND NOT EXISTS (select * from " + dmlTableReference(ENTITY, session)
-						+ " DuplicateExists where r_entitygraph=" + graphID + " " + "AND DuplicateExists.type="
+						+ " DuplicateExists where r_entitygraph=" + graphIDParameter + " " + "AND DuplicateExists.type="
 						+ typeName(table)
 						+ " and " + pkEqualsEntityID(table, alias, "DuplicateExists") + ") " + limitTransactionSize.additionalWhereConditionFragment(executionContext) +
 						limitTransactionSize.statementSuffixFragment(executionContext);
+				addParameter(parameter, conditionParameter);
+				if (bind) {
+					parameter.add(graphID);
+				}
 	
 			} else {
 				select =
-					"Select " + (joinedTable != null? "distinct " : "") + limitTransactionSize.afterSelectFragment(executionContext) + graphID + " as GRAPH_ID, " + pkList(table, alias) + ", " + today + " AS BIRTHDAY, " + typeName(table) + " AS TYPE" +
+					"Select " + (joinedTable != null? "distinct " : "") + limitTransactionSize.afterSelectFragment(executionContext) + graphIDValue + " as GRAPH_ID, " + pkList(table, alias) + ", " + birthdayValue + " AS BIRTHDAY, " + typeName(table) + " AS TYPE" +
 					(source == null || !explain? "" : ", " + associationExplanationID + " AS ASSOCIATION, " + typeName(source) + " AS SOURCE_TYPE, " + pkList(source, joinedTableAlias, "PRE_")) +
 					" From " + quoting.requote(table.getName()) + " " + alias +
-					" left join " + dmlTableReference(ENTITY, session) + " Duplicate on Duplicate.r_entitygraph=" + graphID + " and Duplicate.type=" + typeName(table) + " and " +
+					" left join " + dmlTableReference(ENTITY, session) + " Duplicate on Duplicate.r_entitygraph=" + graphIDParameter + " and Duplicate.type=" + typeName(table) + " and " +
 					pkEqualsEntityID(table, alias, "Duplicate") + 
 					(joinedTable != null? ", " + quoting.requote(joinedTable.getName()) + " " + joinedTableAlias + " ": "") +
 					(joinWithEntity? ", " + dmlTableReference(ENTITY, session) + " E" : "") +
 					" Where (" + condition + ") and Duplicate.type is null" +
 					(joinedTable != null? " and (" + joinCondition + ") " : " ") + limitTransactionSize.additionalWhereConditionFragment(executionContext) +
 					limitTransactionSize.statementSuffixFragment(executionContext);
+				if (bind) {
+					parameter.add(graphID);
+				}
+				addParameter(parameter, conditionParameter);
 			}
 		}
 
@@ -388,7 +592,8 @@ public class RemoteEntityGraph extends EntityGraph {
 		if (DBMS.SYBASE.equals(session.dbms)) session.execute("set forceplan on ");
 		long rc = 0;
 		for (;;) {
-			long incRc = session.executeUpdate(insert);
+			long incRc = session.executeUpdate(insert, conditionParameter == null? null : parameter.toArray());
+			entitiesAdded(table, incRc);
 			rc += incRc;
 			totalRowcount += incRc;
 			if (updateStatistics != null) {
@@ -402,6 +607,18 @@ public class RemoteEntityGraph extends EntityGraph {
 		return rc;
 	}
 
+	/**
+	 * Appends parameters to a parameter list.
+	 * 
+	 * @param parameter the list
+	 * @param toAdd parameters to add, may be <code>null</code>
+	 */
+	private void addParameter(List<Object> parameter, Object[] toAdd) {
+		if (toAdd != null) {
+			parameter.addAll(Arrays.asList(toAdd));
+		}
+	}
+
 	/**
 	 * Adds dependencies.
 	 * 
@@ -466,11 +683,12 @@ public class RemoteEntityGraph extends EntityGraph {
 		}
 		session.executeUpdate(
 				"Update " + dmlTableReference(ENTITY, session) + " set birthday=0 " +
-				"Where r_entitygraph=" + graphID + " and birthday>0 and " +
+				"Where r_entitygraph=? and birthday>0 and " +
 					   (table != null? "type=" + typeName(table) + " and " : "") +
 					   "not exists (Select * from " + dmlTableReference(DEPENDENCY, session) + " D " +
-						   "Where D.r_entitygraph=" + graphID + " and D.assoc=0 and D.from_type=" + dmlTableReference(ENTITY, session) + ".type and " +
-								 fromEqualsPK + ")");
+						   "Where D.r_entitygraph=? and D.assoc=0 and D.from_type=" + dmlTableReference(ENTITY, session) + ".type and " +
+								 fromEqualsPK + ")",
+				new Object[] { graphID, graphID });
 	}
 
 	/**
@@ -492,10 +710,11 @@ public class RemoteEntityGraph extends EntityGraph {
 		}
 		session.executeUpdate(
 				"Update " + dmlTableReference(ENTITY, session) + " set birthday=0 " +
-				"Where r_entitygraph=" + graphID + " and birthday>0 and type=" + typeName(table) + " and " +
+				"Where r_entitygraph=? and birthday>0 and type=" + typeName(table) + " and " +
 					   "not exists (Select * from " + dmlTableReference(DEPENDENCY, session) + " D " +
-						   "Where D.r_entitygraph=" +graphID + " and D.to_type=" + dmlTableReference(ENTITY, session) + ".type and " +
-								 toEqualsPK + ")");
+						   "Where D.r_entitygraph=? and D.to_type=" + dmlTableReference(ENTITY, session) + ".type and " +
+								 toEqualsPK + ")",
+				new Object[] { graphID, graphID });
 	}
 
 	/**
@@ -525,9 +744,9 @@ public class RemoteEntityGraph extends EntityGraph {
 		long rc = session.executeQuery(
 				"Select " + selectionSchema + " From " + dmlTableReference(ENTITY, session) + " E join " + quoting.requote(table.getName()) + " T on " +
 				pkEqualsEntityID(table, "T", "E") +
-				" Where E.birthday=0 and E.r_entitygraph=" + graphID + " and E.type=" + typeName(table) + "" +
+				" Where E.birthday=0 and E.r_entitygraph=? and E.type=?" +
 				orderBy,
-				reader, withExplicitCommit());
+				new Object[] { graphID, typeName(table) }, reader, withExplicitCommit());
 		executionContext.getProgressListenerRegistry().fireExported(table, rc);
 		addExportedCount(rc);
 	}
@@ -561,12 +780,13 @@ public class RemoteEntityGraph extends EntityGraph {
 		String sqlQuery = "Select " + selectionSchema + " From (" +
 						"Select " + selectOPK + ", " + filteredSelectionClause(table, false) + " From " + dmlTableReference(ENTITY, session) + " E join " + quoting.requote(table.getName()) + " T on " +
 						pkEqualsEntityID(table, "T", "E") +
-						" Where E.birthday=0 and E.r_entitygraph=" + graphID + " and E.type=" + typeName(table) + "" +
+						" Where E.birthday=0 and E.r_entitygraph=? and E.type=?" +
 						") T ";
 		long rc = session.executeQuery(
 				sqlQuery + (orderByPK? orderBy : ""),
+				new Object[] { graphID, typeName(table) },
 				reader,
-				(!orderByPK? sqlQuery : null), null, 0, withExplicitCommit());
+				(!orderByPK? sqlQuery : null), null, 0, 0, withExplicitCommit());
 		executionContext.getProgressListenerRegistry().fireExported(table, rc);
 		addExportedCount(rc);
 	}
@@ -585,13 +805,26 @@ public class RemoteEntityGraph extends EntityGraph {
 			}
 			e1EqualsE2.append("E1." + column.name + "=E2." + column.name);
 		}
-		session.executeUpdate("Update " + dmlTableReference(ENTITY, session) + " E1 " +
-				"set E1.r_entitygraph=" + graphID + " " +
-				"Where E1.r_entitygraph=" + graph.graphID + " " +
-				"and not exists(Select * from " + dmlTableReference(ENTITY, session) + " E2 Where " +
-				"E2.r_entitygraph=" + graphID + " and " +
-				e1EqualsE2 +
-				")");
+		String otherEntityTable = ((RemoteEntityGraph) graph).dmlTableReference(ENTITY, session);
+		if (otherEntityTable.equals(dmlTableReference(ENTITY, session))) {
+			session.executeUpdate("Update " + dmlTableReference(ENTITY, session) + " E1 " +
+					"set E1.r_entitygraph=" + graphID + " " +
+					"Where E1.r_entitygraph=" + graph.graphID + " " +
+					"and not exists(Select * from " + dmlTableReference(ENTITY, session) + " E2 Where " +
+					"E2.r_entitygraph=" + graphID + " and " +
+					e1EqualsE2 +
+					")");
+		} else {
+			// the graphs have their own working tables
+			session.executeUpdate("Insert into " + dmlTableReference(ENTITY, session) + "(r_entitygraph, " + universalPrimaryKey.columnList(null) + ", birthday, orig_birthday, type, association) " +
+					"Select " + graphID + ", " + universalPrimaryKey.columnList("E1.") + ", E1.birthday, E1.orig_birthday, E1.type, E1.association From " + otherEntityTable + " E1 " +
+					"Where E1.r_entitygraph=" + graph.graphID + " " +
+					"and not exists(Select * from " + dmlTableReference(ENTITY, session) + " E2 Where " +
+					"E2.r_entitygraph=" + graphID + " and " +
+					e1EqualsE2 +
+					")");
+		}
+		invalidateEntityCounts();
 		graph.delete();
 	}
 	
@@ -618,6 +851,22 @@ public class RemoteEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public long readUnfilteredEntityColumns(final Table table, final List<Column> columns, final Session.ResultSetReader reader) throws SQLException {
+		return readEntityColumns(table, columns, false, reader);
+	}
+
+	/**
+	 * Reads some columns of all entities of a given table with respect of the export filters.
+	 * 
+	 * @param table the table
+	 * @param columns the columns
+	 * @param reader to read
+	 */
+	@Override
+	public long readEntityColumns(final Table table, final List<Column> columns, final Session.ResultSetReader reader) throws SQLException {
+		return readEntityColumns(table, columns, true, reader);
+	}
+
+	private long readEntityColumns(final Table table, final List<Column> columns, boolean applyExportFilter, final Session.ResultSetReader reader) throws SQLException {
 		StringBuilder sb = new StringBuilder();
 		boolean first = true;
 		
@@ -625,7 +874,11 @@ public class RemoteEntityGraph extends EntityGraph {
 			if (!first) {
 				sb.append(", ");
 			}
-			sb.append("T." + quoting.requote(c.name));
+			if (applyExportFilter) {
+				sb.append(filteredColumnExpression(c, quoting, false));
+			} else {
+				sb.append("T." + quoting.requote(c.name));
+			}
 			sb.append(" as " + quoting.requote(c.name));
 			first = false;
 		}
@@ -646,14 +899,15 @@ public class RemoteEntityGraph extends EntityGraph {
 	protected long readEntities(Table table, boolean orderByPK, Session.ResultSetReader reader) throws SQLException {
 		String sqlQuery = "Select " + filteredSelectionClause(table, false) + " From " + dmlTableReference(ENTITY, session) + " E join " + quoting.requote(table.getName()) + " T on " +
 			pkEqualsEntityID(table, "T", "E") +
-			" Where E.birthday>=0 and E.r_entitygraph=" + graphID + " and E.type=" + typeName(table) + "";
+			" Where E.birthday>=0 and E.r_entitygraph=? and E.type=?";
+		Object[] parameter = new Object[] { graphID, typeName(table) };
 		long rc;
 		if (orderByPK) {
 			String sqlQueryWithOrderBy = sqlQuery +
 				(orderByPK? " order by " + rowIdSupport.getPrimaryKey(table).columnList("T.", quoting) : "");
-			rc = session.executeQuery(sqlQueryWithOrderBy, reader, sqlQuery, null, 0, withExplicitCommit());
+			rc = session.executeQuery(sqlQueryWithOrderBy, parameter, reader, sqlQuery, null, 0, 0, withExplicitCommit());
 		} else {
-			rc = session.executeQuery(sqlQuery, reader, withExplicitCommit());
+			rc = session.executeQuery(sqlQuery, parameter, reader, withExplicitCommit());
 		}
 		return rc;
 	}
@@ -703,23 +957,7 @@ public class RemoteEntityGraph extends EntityGraph {
 			if (!first) {
 				sb.append(", ");
 			}
-			String filterExpression = null;
-			if (c.getFilter() != null) {
-				if (c.getFilter().isApplyAtExport()) {
-					filterExpression = c.getFilterExpression();
-				} else if (appylImportFilter && importFilterManager != null) {
-					filterExpression = importFilterManager.transform(c, "T." + quoting.requote(c.name));
-				}
-			}
-			if (filterExpression != null) {
-				if (filterExpression.trim().toLowerCase().startsWith("select")) {
-					sb.append("(" + filterExpression + ")");
-				} else {
-					sb.append(filterExpression);
-				}
-			} else {
-				sb.append("T." + quoting.requote(c.name));
-			}
+			sb.append(filteredColumnExpression(c, quoting, appylImportFilter));
 			sb.append(" as " + prefixColumnName(columnPrefix, quoting, c));
 			first = false;
 		}
@@ -727,6 +965,32 @@ public class RemoteEntityGraph extends EntityGraph {
 		return sb.toString();
 	}
 
+	/**
+	 * Gets the expression for reading a column with respect of its filter.
+	 * 
+	 * @param c the column
+	 * @param quoting for quoting of the column name
+	 * @param appylImportFilter whether to apply import filters
+	 * @return the filter expression, or the column itself if it has no filter
+	 */
+	private String filteredColumnExpression(Column c, Quoting quoting, boolean appylImportFilter) {
+		String filterExpression = null;
+		if (c.getFilter() != null) {
+			if (c.getFilter().isApplyAtExport()) {
+				filterExpression = c.getFilterExpression();
+			} else if (appylImportFilter && importFilterManager != null) {
+				filterExpression = importFilterManager.transform(c, "T." + quoting.requote(c.name));
+			}
+		}
+		if (filterExpression != null) {
+			if (filterExpression.trim().toLowerCase().startsWith("select")) {
+				return "(" + filterExpression + ")";
+			}
+			return filterExpression;
+		}
+		return "T." + quoting.requote(c.name);
+	}
+
 	/**
 	 * Adds a prefix to a column name. Respects quoting.
 	 */
@@ -776,10 +1040,145 @@ public class RemoteEntityGraph extends EntityGraph {
 						  "E.r_entitygraph=" + graphID + " and " +
 						  toEqualsPK + " and " + dmlTableReference(DEPENDENCY, session) + ".to_type=E.type and " +
 						  "E.birthday=0)");
-		deleteRows(session,
+		entitiesRemoved(table, deleteRows(session,
 				dmlTableReference(ENTITY, session),
 				"r_entitygraph=" + graphID + " and type=" + typeName(table) + " and " +
-					   "birthday=0");
+					   "birthday=0"));
+	}
+
+	/**
+	 * Reads the primary keys of all entities of a given table.
+	 * 
+	 * @param table the table
+	 * @param reader receives the keys
+	 * @return <code>true</code>
+	 */
+	@Override
+	public boolean readEntityKeys(final Table table, final EntityKeyReader reader) throws SQLException {
+		final String[] pkColumns = universalPrimaryKeyColumns(table);
+		StringBuilder select = new StringBuilder("Select birthday");
+		for (String column: pkColumns) {
+			select.append(", " + column);
+		}
+		session.executeQuery(select + " From " + dmlTableReference(ENTITY, session) + " Where r_entitygraph=? and type=? and birthday>=0",
+				new Object[] { graphID, typeName(table) }, new Session.AbstractResultSetReader() {
+			@Override
+			public void readCurrentRow(ResultSet resultSet) throws SQLException {
+				CellContentConverter cellContentConverter = getCellContentConverter(resultSet, session, session.dbms);
+				String[] key = new String[pkColumns.length];
+				for (int i = 0; i < key.length; ++i) {
+					key[i] = cellContentConverter.toSql(cellContentConverter.getObject(resultSet, i + 2));
+				}
+				reader.readEntity(table, key, resultSet.getInt(1));
+			}
+		});
+		return true;
+	}
+
+	/**
+	 * Reads the primary keys of all dependencies (which are no aggregations) of the entities of a given table.
+	 * 
+	 * @param table the table
+	 * @param reader receives the keys
+	 */
+	@Override
+	public void readDependencyKeys(final Table table, final EntityKeyReader reader) throws SQLException {
+		final String[] pkColumns = universalPrimaryKeyColumns(table);
+		StringBuilder select = new StringBuilder("Select to_type");
+		for (String column: pkColumns) {
+			select.append(", FROM_" + column);
+		}
+		final List<Column> upkColumns = universalPrimaryKey.getColumns();
+		for (Column column: upkColumns) {
+			select.append(", TO_" + column.name);
+		}
+		session.executeQuery(select + " From " + dmlTableReference(DEPENDENCY, session) + " Where r_entitygraph=? and assoc=0 and from_type=?",
+				new Object[] { graphID, typeName(table) }, new Session.AbstractResultSetReader() {
+			private final Map<Integer, int[]> toColumnIndexes = new HashMap<Integer, int[]>();
+			@Override
+			public void readCurrentRow(ResultSet resultSet) throws SQLException {
+				CellContentConverter cellContentConverter = getCellContentConverter(resultSet, session, session.dbms);
+				String[] fromKey = new String[pkColumns.length];
+				for (int i = 0; i < fromKey.length; ++i) {
+					fromKey[i] = cellContentConverter.toSql(cellContentConverter.getObject(resultSet, i + 2));
+				}
+				int toType = resultSet.getInt(1);
+				Table to = dataModel.getTableByOrdinal(toType);
+				int[] indexes = toColumnIndexes.get(toType);
+				if (indexes == null) {
+					String[] toPKColumns = universalPrimaryKeyColumns(to);
+					indexes = new int[toPKColumns.length];
+					for (int i = 0; i < indexes.length; ++i) {
+						for (int j = 0; j < upkColumns.size(); ++j) {
+							if (upkColumns.get(j).name.equals(toPKColumns[i])) {
+								indexes[i] = j + 2 + pkColumns.length;
+							}
+						}
+					}
+					toColumnIndexes.put(toType, indexes);
+				}
+				String[] toKey = new String[indexes.length];
+				for (int i = 0; i < toKey.length; ++i) {
+					toKey[i] = cellContentConverter.toSql(cellContentConverter.getObject(resultSet, indexes[i]));
+				}
+				reader.readDependency(table, fromKey, to, toKey);
+			}
+		});
+	}
+
+	/**
+	 * Gets the names of the columns of the universal primary key
+	 * which hold the primary key of a given table, in order of the table's primary key columns.
+	 */
+	private String[] universalPrimaryKeyColumns(Table table) {
+		Map<Column, Column> match = universalPrimaryKey.match(rowIdSupport.getPrimaryKey(table));
+		List<Column> pkColumns = rowIdSupport.getPrimaryKey(table).getColumns();
+		String[] result = new String[pkColumns.size()];
+		for (Column column: universalPrimaryKey.getColumns()) {
+			Column tableColumn = match.get(column);
+			if (tableColumn != null) {
+				for (int i = 0; i < pkColumns.size(); ++i) {
+					if (pkColumns.get(i).name.equals(tableColumn.name)) {
+						result[i] = column.name;
+						break;
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Reads the entities of a given table having one of the given primary keys.
+	 * 
+	 * @param table the table
+	 * @param keys primary keys (as SQL literals) of the entities
+	 */
+	@Override
+	public void readEntitiesByKeys(Table table, List<String[]> keys) throws SQLException {
+		Session.ResultSetReader reader = getTransformerFactory().create(table);
+		long rc = session.executeQuery(
+				"Select " + filteredSelectionClause(table, false) + " From " + dmlTableReference(ENTITY, session) + " E join " + quoting.requote(table.getName()) + " T on " +
+				pkEqualsEntityID(table, "T", "E") +
+				" Where E.r_entitygraph=? and E.type=? and " + pkInEntityIDs(table, keys, "E", ""),
+				new Object[] { graphID, typeName(table) }, reader, withExplicitCommit());
+		executionContext.getProgressListenerRegistry().fireExported(table, rc);
+		addExportedCount(rc);
+	}
+
+	/**
+	 * Marks entities of a given table s.t. they can be deleted.
+	 * 
+	 * @param table the table
+	 * @param keys primary keys (as SQL literals) of the entities, or <code>null</code> to mark all entities of the table
+	 */
+	@Override
+	public void markEntities(Table table, List<String[]> keys) throws SQLException {
+		session.executeUpdate(
+				"Update " + dmlTableReference(ENTITY, session) + " set birthday=0 " +
+				"Where r_entitygraph=? and birthday>0 and type=?" +
+				(keys == null? "" : " and " + pkInEntityIDs(table, keys, dmlTableReference(ENTITY, session), "")),
+				new Object[] { graphID, typeName(table) });
 	}
 
 	/**
@@ -787,10 +1186,14 @@ public class RemoteEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public long deleteEntities(Table table) throws SQLException {
-		return deleteRows(session,
+		long rc = deleteRows(session,
 				dmlTableReference(ENTITY, session),
 				"r_entitygraph=" + graphID + " and " +
 					   "type=" + typeName(table));
+		synchronized (entityCounts) {
+			entityCounts.remove(table);
+		}
+		return rc;
 	}
 
 	/**
@@ -804,13 +1207,14 @@ public class RemoteEntityGraph extends EntityGraph {
 		final long[] count = new long[1];
 		session.executeQuery(
 				"Select count(*) from " + dmlTableReference(ENTITY, session) + " E " +
-				"Where E.birthday>=0 and E.r_entitygraph=" + graphID + " and E.type=" + typeName(table) + "",
+				"Where E.birthday>=0 and E.r_entitygraph=? and E.type=?",
+				new Object[] { graphID, typeName(table) },
 				new Session.AbstractResultSetReader() {
 					@Override
 					public void readCurrentRow(ResultSet resultSet) throws SQLException {
 						count[0] = resultSet.getLong(1);
 					}
-				});
+				}, false);
 		return count[0];
 	}
 
@@ -871,6 +1275,7 @@ public class RemoteEntityGraph extends EntityGraph {
 				try {
 					session.setSilent(true);
 					rc = session.executeUpdate(remove);
+					entitiesRemoved(association.destination, rc);
 					totalRowcount += rc;
 				} catch (SQLException e) {
 					// postgreSQL
@@ -879,6 +1284,7 @@ public class RemoteEntityGraph extends EntityGraph {
 					"and exists (Select * from " + dmlTableReference(ENTITY_SET_ELEMENT, session) + " S where S.set_id=" + setId + " and " + dmlTableReference(ENTITY, session) + ".type=S.type and " + sEqualsEWoAlias + ") " +
 					"and " + dmlTableReference(ENTITY, session) + ".birthday<>-1";
 					rc = session.executeUpdate(remove);
+					entitiesRemoved(association.destination, rc);
 					totalRowcount += rc;
 				} finally {
 					session.setSilent(silent);
@@ -931,6 +1337,55 @@ public class RemoteEntityGraph extends EntityGraph {
 		addExportedCount(rc);
 	}
 	
+	/**
+	 * Reads all entities which depend on one of the given entities.
+	 * 
+	 * @param table the table from which to read entities
+	 * @param association the dependency
+	 * @param parentKeys primary keys (as SQL literals) of the entities on which the entities to be read depend
+	 * @param reader reads the entities
+	 * @param selectionSchema the selection schema
+	 * @param originalPKAliasPrefix prefix of column aliases for selection of unfiltered PK values, or <code>null</code>
+	 * @param parentPKAliasPrefix prefix of column aliases for selection of the primary key of the entity on which a read entity depends
+	 * @return <code>true</code>
+	 */
+	@Override
+	public boolean readDependentEntities(Table table, Association association, List<String[]> parentKeys, ResultSetReader reader, String selectionSchema, String originalPKAliasPrefix, String parentPKAliasPrefix) throws SQLException {
+		List<Column> parentPKColumns = rowIdSupport.getPrimaryKey(association.source).getColumns();
+		StringBuilder selectParentPK = new StringBuilder();
+		StringBuilder parentPKList = new StringBuilder();
+		for (int i = 0; i < parentPKColumns.size(); ++i) {
+			selectParentPK.append(", P." + quoting.requote(parentPKColumns.get(i).name) + " AS " + parentPKAliasPrefix + i);
+			parentPKList.append(", T." + parentPKAliasPrefix + i);
+		}
+		String from = quoting.requote(table.getName()) + " T join " + dmlTableReference(DEPENDENCY, session) + " D on " +
+				 pkEqualsEntityID(table, "T", "D", "TO_") + " and D.to_type=" + typeName(table) + "" +
+				 " join " + quoting.requote(association.source.getName()) + " P on " + pkEqualsEntityID(association.source, "P", "D", "FROM_") +
+				 " Where " + pkInEntityIDs(association.source, parentKeys, "D", "FROM_") +
+				 " and D.from_type=" + typeName(association.source) + " and assoc=" + association.getId() +
+				 " and D.r_entitygraph=" + graphID;
+		String select;
+		if (originalPKAliasPrefix != null) {
+			StringBuffer selectOPK = new StringBuffer();
+			List<Column> pkColumns = rowIdSupport.getPrimaryKey(table).getColumns();
+			for (int i = 0; i < pkColumns.size(); ++i) {
+				if (i > 0) {
+					selectOPK.append(", ");
+				}
+				selectOPK.append("T." + quoting.requote(pkColumns.get(i).name) + " AS " + originalPKAliasPrefix + i);
+			}
+			select = 
+				"Select " + selectionSchema + parentPKList + " from (" +  
+				"Select " + selectOPK + ", " + filteredSelectionClause(table, false) + selectParentPK + " from " + from + ") T";
+		} else {
+			select = "Select " + selectionSchema + selectParentPK + " from " + from;
+		}
+		long rc = session.executeQuery(select, reader, withExplicitCommit());
+		executionContext.getProgressListenerRegistry().fireExported(table, rc);
+		addExportedCount(rc);
+		return true;
+	}
+	
 	/**
 	 * Marks all entities which depends on given entity as traversed. 
 	 * 
@@ -1027,6 +1482,69 @@ public class RemoteEntityGraph extends EntityGraph {
 		return sb.toString();
 	}
 
+	/**
+	 * Gets a SQL condition for selecting rows of the entity graph which match one of the given entities.
+	 * 
+	 * @param table the table of the entities
+	 * @param keys primary keys (as SQL literals) of the entities
+	 * @return a SQL condition for selecting rows with one of the given primary keys
+	 */
+	private String pkInEntityIDs(Table table, List<String[]> keys, String alias, String columnPrefix) {
+		Map<Column, Column> match = universalPrimaryKey.match(rowIdSupport.getPrimaryKey(table));
+		List<Column> pkColumns = rowIdSupport.getPrimaryKey(table).getColumns();
+		List<String> matchingColumns = new ArrayList<String>();
+		List<Integer> keyIndexes = new ArrayList<Integer>();
+		StringBuilder isNull = new StringBuilder();
+		for (Column column: universalPrimaryKey.getColumns()) {
+			Column tableColumn = match.get(column);
+			if (tableColumn != null) {
+				int i = 0;
+				for (Column c: pkColumns) {
+					if (c.name.equals(tableColumn.name)) {
+						break;
+					}
+					++i;
+				}
+				matchingColumns.add(alias + "." + columnPrefix + column.name);
+				keyIndexes.add(i);
+			} else {
+				isNull.append(" and " + alias + "." + columnPrefix + column.name + " is null");
+			}
+		}
+		StringBuilder sb = new StringBuilder();
+		if (matchingColumns.size() == 1) {
+			sb.append(matchingColumns.get(0) + " in (");
+			boolean first = true;
+			for (String[] key: keys) {
+				if (!first) {
+					sb.append(", ");
+				}
+				first = false;
+				sb.append(key[keyIndexes.get(0)]);
+			}
+			sb.append(")");
+		} else {
+			sb.append("(");
+			boolean first = true;
+			for (String[] key: keys) {
+				if (!first) {
+					sb.append(" or ");
+				}
+				first = false;
+				sb.append("(");
+				for (int i = 0; i < matchingColumns.size(); ++i) {
+					if (i > 0) {
+						sb.append(" and ");
+					}
+					sb.append(matchingColumns.get(i) + "=" + key[keyIndexes.get(i)]);
+				}
+				sb.append(")");
+			}
+			sb.append(")");
+		}
+		return sb.append(isNull).toString();
+	}
+
 	/**
 	 * Gets a SQL comparition expression for comparing rows with entities.
 	 * 
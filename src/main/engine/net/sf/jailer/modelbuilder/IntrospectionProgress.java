@@ -0,0 +1,103 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.modelbuilder;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+import net.sf.jailer.database.Session;
+import net.sf.jailer.util.JobManager;
+
+/**
+ * Executes the per-table jobs of an introspection step concurrently
+ * and logs progress and throughput.
+ *
+ * @author Ralf Wisser
+ */
+class IntrospectionProgress {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger _log = Logger.getLogger(IntrospectionProgress.class);
+
+	/**
+	 * Minimum number of milliseconds between two progress reports.
+	 */
+	private static final long REPORT_INTERVAL = 5000;
+
+	private final String step;
+	private final int numberOfTables;
+	private final AtomicInteger done = new AtomicInteger();
+	private final long startTime = System.currentTimeMillis();
+	private long lastReport = startTime;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param step name of the introspection step
+	 * @param numberOfTables number of tables to be introspected
+	 */
+	IntrospectionProgress(String step, int numberOfTables) {
+		this.step = step;
+		this.numberOfTables = numberOfTables;
+	}
+
+	/**
+	 * Counts an introspected table.
+	 */
+	void tableDone() {
+		int n = done.incrementAndGet();
+		long now = System.currentTimeMillis();
+		synchronized (this) {
+			if (n < numberOfTables && now - lastReport < REPORT_INTERVAL) {
+				return;
+			}
+			lastReport = now;
+		}
+		_log.info(step + ": " + n + " of " + numberOfTables + " tables" + throughput(n, now));
+	}
+
+	/**
+	 * Executes the jobs.
+	 *
+	 * @param jobs the per-table jobs, each one calls {@link #tableDone()}
+	 * @param numberOfThreads number of threads (and of connections) to be used
+	 */
+	void execute(List<JobManager.Job> jobs, int numberOfThreads) throws SQLException {
+		_log.info(step + " (" + numberOfTables + " tables, " + numberOfThreads + " threads)");
+		JobManager jobManager = new JobManager(numberOfThreads, Session.RELEASE_THREAD_CONNECTIONS);
+		try {
+			jobManager.executeJobs(jobs);
+		} finally {
+			jobManager.shutdown();
+		}
+		long now = System.currentTimeMillis();
+		_log.info(step + " done in " + (now - startTime) + " ms" + throughput(done.get(), now));
+	}
+
+	private String throughput(int n, long now) {
+		long time = now - startTime;
+		if (time <= 0) {
+			return "";
+		}
+		return " (" + (n * 1000L / time) + " tables/s)";
+	}
+
+}
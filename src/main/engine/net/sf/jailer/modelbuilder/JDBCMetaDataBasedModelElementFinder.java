@@ -22,12 +22,14 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -48,6 +50,7 @@ import net.sf.jailer.datamodel.PrimaryKey;
 import net.sf.jailer.datamodel.PrimaryKeyFactory;
 import net.sf.jailer.datamodel.Table;
 import net.sf.jailer.util.CancellationHandler;
+import net.sf.jailer.util.JobManager;
 import net.sf.jailer.util.Pair;
 import net.sf.jailer.util.Quoting;
 import net.sf.jailer.util.SqlUtil;
@@ -125,7 +128,7 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 	 * @param session to retrieve the UDT names
 	 * @return names of user defined types
 	 */
-	private Set<String> getUserDefinedTypes(Session session) {
+	private synchronized Set<String> getUserDefinedTypes(Session session) {
 		if (userDefinedTypes == null) {
 			userDefinedTypes = new HashSet<String>();
 			if (session.dbms.getUserDefinedColumnsQuery() != null) {
@@ -159,34 +162,56 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 	 * @return found associations
 	 */
 	@Override
-	public Collection<Association> findAssociations(DataModel dataModel, Map<Association, String[]> namingSuggestion, Session session, ExecutionContext executionContext) throws Exception {
+	public Collection<Association> findAssociations(DataModel dataModel, Map<Association, String[]> namingSuggestion, final Session session, ExecutionContext executionContext) throws Exception {
 		Collection<Association> associations = new ArrayList<Association>();
 		DatabaseMetaData metaData = session.getMetaData();
-		Quoting quoting = new Quoting(session);
+		final Quoting quoting = new Quoting(session);
 		ResultSet resultSet;
 		String defaultSchema = getDefaultSchema(session, session.getSchema());
 		Set<Association> toRemove = new HashSet<Association>();
 
-		for (Table viewOrTable: dataModel.getTables()) {
-			Table table;
-			Table underlyingTable = null;
-			UnderlyingTableInfo uti = null;
-			uti = underlyingTableInfos.get(viewOrTable.getName());
-			if (uti != null) {
-				underlyingTable = uti.underlyingTable;
-			}
-			table = viewOrTable;
-			_log.info("find associations with " + table.getName());
-			try {
-				Table child = underlyingTable != null? underlyingTable : table;
-				String ikSchema = quoting.unquote(child.getOriginalSchema(quoting.quote(defaultSchema)));
-				Session ikSession = session;
-				if (sessionWithPermissionToReadSchema.containsKey(Quoting.normalizeIdentifier(ikSchema))) {
-					ikSession = sessionWithPermissionToReadSchema.get(Quoting.normalizeIdentifier(ikSchema));
+		// read the imported keys of all tables
+		List<Table> tables = new ArrayList<Table>(dataModel.getTables());
+		final List<ResultSet> importedKeys = new ArrayList<ResultSet>(Collections.<ResultSet>nCopies(tables.size(), null));
+		final IntrospectionProgress progress = new IntrospectionProgress("reading imported keys", tables.size());
+		List<JobManager.Job> jobs = new ArrayList<JobManager.Job>();
+		for (int i = 0; i < tables.size(); ++i) {
+			final int index = i;
+			final Table table = tables.get(i);
+			UnderlyingTableInfo uti = underlyingTableInfos.get(table.getName());
+			final Table child = uti != null? uti.underlyingTable : table;
+			final String ikSchema = quoting.unquote(child.getOriginalSchema(quoting.quote(defaultSchema)));
+			Session theIkSession = session;
+			if (sessionWithPermissionToReadSchema.containsKey(Quoting.normalizeIdentifier(ikSchema))) {
+				theIkSession = sessionWithPermissionToReadSchema.get(Quoting.normalizeIdentifier(ikSchema));
+			}
+			final Session ikSession = theIkSession;
+			getImportedKeysCache(ikSession, ikSchema);
+			jobs.add(new JobManager.Job() {
+				@Override
+				public void run() throws SQLException {
+					_log.info("find associations with " + table.getName());
+					try {
+						ResultSet resultSet = getImportedKeys(ikSession, session.getMetaData(), ikSchema, quoting.unquote(child.getUnqualifiedName()), true);
+						if (!(resultSet instanceof MemorizedResultSet)) {
+							resultSet = MetaDataCache.memorize(resultSet, IMPORTED_KEYS_INT_COLUMNS);
+						}
+						importedKeys.set(index, resultSet);
+					} catch (Exception e) {
+						_log.info("failed. " + e.getMessage());
+					}
+					progress.tableDone();
+					CancellationHandler.checkForCancellation(null);
 				}
-				resultSet = getImportedKeys(ikSession, metaData, ikSchema, quoting.unquote(child.getUnqualifiedName()), true);
-			} catch (Exception e) {
-				_log.info("failed. " + e.getMessage());
+			});
+		}
+		progress.execute(jobs, executionContext.getNumberOfThreads());
+
+		for (int i = 0; i < tables.size(); ++i) {
+			Table table = tables.get(i);
+			UnderlyingTableInfo uti = underlyingTableInfos.get(table.getName());
+			resultSet = importedKeys.get(i);
+			if (resultSet == null) {
 				continue;
 			}
 			Map<String, Association> fkMap = new HashMap<String, Association>();
@@ -281,18 +306,19 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 		return associations;
 	}
 
+	/**
+	 * Columns of {@link DatabaseMetaData#getImportedKeys(String, String, String)} with integer values.
+	 */
+	private static final Set<Integer> IMPORTED_KEYS_INT_COLUMNS = new HashSet<Integer>(Arrays.asList(9, 10, 11, 14));
+
 	public static ResultSet getImportedKeys(Session session, DatabaseMetaData metaData, String schema, String table, boolean withCaching) throws SQLException {
 		if (withCaching) {
-			final String NAME = "getImportedKeys " + schema;
-			MetaDataCache metaDataCache = (MetaDataCache) session.getSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME);
-			if (metaDataCache == null) {
-				metaDataCache = MetaDataCache.readImportedKeys(session, schema);
-				session.setSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME, metaDataCache);
-			}
+			MetaDataCache metaDataCache = getImportedKeysCache(session, schema);
 			ResultSet resultSet = metaDataCache.forTable(table);
 			if (resultSet != null) {
 				return resultSet;
 			}
+			return metaDataCache.remember(table, getImportedKeys(session, metaData, schema, table, false));
 		}
 		if (DBMS.MySQL.equals(session.dbms)) {
 			return metaData.getImportedKeys(schema, null, table);
@@ -300,6 +326,21 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 		return metaData.getImportedKeys(null, schema, table);
 	}
 
+	/**
+	 * Gets the imported keys of all tables of a schema, read with one query if the DBMS supports it.
+	 */
+	private static MetaDataCache getImportedKeysCache(Session session, String schema) {
+		synchronized (session) {
+			final String NAME = "getImportedKeys " + schema;
+			MetaDataCache metaDataCache = (MetaDataCache) session.getSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME);
+			if (metaDataCache == null) {
+				metaDataCache = MetaDataCache.readImportedKeys(session, schema);
+				session.setSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME, metaDataCache);
+			}
+			return metaDataCache;
+		}
+	}
+
 	public static ResultSet getExportedKeys(Session session, DatabaseMetaData metaData, String schema, String table) throws SQLException {
 		if (DBMS.MySQL.equals(session.dbms)) {
 			return metaData.getExportedKeys(schema, null, table);
@@ -370,7 +411,7 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 	 * @param introspectionSchema the schema
 	 * @param tableNamePattern table name pattern 
 	 */
-	private Set<Table> findTables(Session session, ExecutionContext executionContext, String introspectionSchema,
+	private Set<Table> findTables(final Session session, ExecutionContext executionContext, String introspectionSchema,
 			String tableNamePattern, int depth) throws SQLException {
 		final int MAX_DEPTH = 100;
 		if (depth > MAX_DEPTH) {
@@ -409,102 +450,38 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 			CancellationHandler.checkForCancellation(null);
 		}
 		resultSet.close();
-		Map<String, Map<Integer, Column>> pkColumns = new HashMap<String, Map<Integer, Column>>();
+		final Quoting finalQuoting = quoting;
+		final String schema = introspectionSchema;
+		final String finalTableNamePattern = tableNamePattern;
+		final List<List<Column>> pkColumns = new ArrayList<List<Column>>(Collections.<List<Column>>nCopies(tableNames.size(), null));
+		final IntrospectionProgress progress = new IntrospectionProgress("reading primary keys and columns", tableNames.size());
+		Set<String> schemas = new LinkedHashSet<String>();
 		for (String tableName: tableNames) {
-			Table tmp = new Table(tableName, null, false, false);
-			resultSet = null;
-			try {
-				resultSet = getPrimaryKeys(session, metaData, quoting.unquote(tmp.getOriginalSchema(quoting.quote(introspectionSchema))), quoting.unquote(tmp.getUnqualifiedName()), true);
-			} catch (Exception e) {
-				_log.warn("can't get PK for " + tableName, e);
-			}
-			Map<Integer, Column> pk = pkColumns.get(tableName);
-			if (pk == null) {
-				pk = new HashMap<Integer, Column>();
-				pkColumns.put(tableName, pk);
-			}
-			boolean hasPK = false;
-			int nextKeySeq = 0;
-			while (resultSet != null && resultSet.next()) {
-				hasPK = true;
-				int keySeq = resultSet.getInt(5);
-				if (DBMS.SQLITE.equals(session.dbms)) {
-					// SQlite driver doesn't return the keySeq
-					keySeq = nextKeySeq++;
-				}
-				pk.put(keySeq, new Column(quoting.quote(resultSet.getString(4)), "", 0, -1));
-			}
-			if (!hasPK) {
-				_log.info("find unique index of table " + tableName);
-				hasPK = findUniqueIndexBasedKey(metaData, quoting, session, tmp, pk, tableTypes.get(tableName));
-			}
-			_log.info((hasPK? "" : "no ") + "primary key found for table " + tableName);
-			if (resultSet != null) {
-				resultSet.close();
-			}
-			CancellationHandler.checkForCancellation(null);
+			schemas.add(quoting.unquote(new Table(tableName, null, false, false).getOriginalSchema(quoting.quote(introspectionSchema))));
 		}
-		for (String tableName: tableNames) {
-			Table tmp = new Table(tableName, null, false, false);
-			_log.info("getting columns for " + quoting.unquote(tmp.getOriginalSchema(quoting.quote(introspectionSchema))) + "." + quoting.unquote(tmp.getUnqualifiedName()));
-			resultSet = getColumns(session, metaData, quoting.unquote(tmp.getOriginalSchema(quoting.quote(introspectionSchema))), quoting.unquote(tmp.getUnqualifiedName()), tableNamePattern, true, false, tableTypes.get(tableName));
-			_log.info("done");
-			Map<Integer, Column> pk = pkColumns.get(tableName);
-			while (resultSet.next()) {
-				String colName = quoting.quote(resultSet.getString(4));
-				int type = resultSet.getInt(5);
-				int length = 0;
-				int precision = -1;
-				String sqlType = toSqlType(resultSet.getString(6), session.dbms);
-				if (sqlType == null || sqlType.trim().length() == 0 || resultSet.wasNull()) {
-					sqlType = SqlUtil.SQL_TYPE.get(type);
-					if (sqlType == null) {
-						throw new RuntimeException("unknown SQL type: " + type);
-					}
-				}
-				if (TYPES_WITH_LENGTH.contains(sqlType.toUpperCase()) || type == Types.NUMERIC || type == Types.DECIMAL || type == Types.VARCHAR || type == Types.CHAR || type == Types.BINARY || type == Types.VARBINARY) {
-					length = resultSet.getInt(7);
-				}
-				if (DBMS.MSSQL.equals(session.dbms) && sqlType != null && sqlType.equalsIgnoreCase("timestamp")) {
-					length = 0;
-				}
-				if (sqlType != null && sqlType.equalsIgnoreCase("uniqueidentifier")) {
-					length = 0;
-				}
-				if (type == Types.NUMERIC || type == Types.DECIMAL || type == Types.VARCHAR || type == Types.CHAR) {
-					precision = resultSet.getInt(9);
-					if (resultSet.wasNull() || precision == 0) {
-						precision = -1;
-					}
-				}
-				if (type == Types.DISTINCT || getUserDefinedTypes(session).contains(sqlType)) {
-					length = 0;
-					precision = -1;
-				}
-				Column column = new Column(colName, sqlType, filterLength(length, resultSet.getString(6), type, session.dbms, resultSet.getInt(7)), precision);
-				for (int i: pk.keySet()) {
-					if (pk.get(i).name.equals(column.name)) {
-						pk.put(i, column);
-					}
-				}
-			}
-			resultSet.close();
-			_log.info("read primary key type for table " + tableName);
-			
-			List<Integer> keySeqs = new ArrayList<Integer>(pk.keySet());
-			Collections.sort(keySeqs);
-			List<Column> columns = new ArrayList<Column>();
-			for (int i: keySeqs) {
-				Column column = pk.get(i);
-				if (column.type != null && column.type.trim().length() > 0) {
-					columns.add(column);
+		for (String pkSchema: schemas) {
+			getPrimaryKeysCache(session, pkSchema);
+		}
+		List<JobManager.Job> jobs = new ArrayList<JobManager.Job>();
+		for (int i = 0; i < tableNames.size(); ++i) {
+			final int index = i;
+			final String tableName = tableNames.get(i);
+			jobs.add(new JobManager.Job() {
+				@Override
+				public void run() throws SQLException {
+					pkColumns.set(index, findPrimaryKey(session, finalQuoting, schema, tableName, finalTableNamePattern));
+					progress.tableDone();
+					CancellationHandler.checkForCancellation(null);
 				}
-			}
-			PrimaryKey primaryKey = primaryKeyFactory.createPrimaryKey(columns, tableName);
+			});
+		}
+		progress.execute(jobs, executionContext.getNumberOfThreads());
+		for (int i = 0; i < tableNames.size(); ++i) {
+			String tableName = tableNames.get(i);
+			PrimaryKey primaryKey = primaryKeyFactory.createPrimaryKey(pkColumns.get(i), tableName);
 			Table table = new Table(tableName, primaryKey, false, false);
 			table.setAuthor(metaData.getDriverName());
 			tables.add(table);
-			CancellationHandler.checkForCancellation(null);
 		}
 
 		for (Table table: tables) {
@@ -591,6 +568,97 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 		return tables;
 	}
 
+	/**
+	 * Finds the primary key of a table and reads the types of the primary key columns.
+	 * 
+	 * @return the primary key columns
+	 */
+	private List<Column> findPrimaryKey(Session session, Quoting quoting, String introspectionSchema, String tableName, String tableNamePattern) throws SQLException {
+		DatabaseMetaData metaData = session.getMetaData();
+		Table tmp = new Table(tableName, null, false, false);
+		ResultSet resultSet = null;
+		try {
+			resultSet = getPrimaryKeys(session, metaData, quoting.unquote(tmp.getOriginalSchema(quoting.quote(introspectionSchema))), quoting.unquote(tmp.getUnqualifiedName()), true);
+		} catch (Exception e) {
+			_log.warn("can't get PK for " + tableName, e);
+		}
+		Map<Integer, Column> pk = new HashMap<Integer, Column>();
+		boolean hasPK = false;
+		int nextKeySeq = 0;
+		while (resultSet != null && resultSet.next()) {
+			hasPK = true;
+			int keySeq = resultSet.getInt(5);
+			if (DBMS.SQLITE.equals(session.dbms)) {
+				// SQlite driver doesn't return the keySeq
+				keySeq = nextKeySeq++;
+			}
+			pk.put(keySeq, new Column(quoting.quote(resultSet.getString(4)), "", 0, -1));
+		}
+		if (!hasPK) {
+			_log.info("find unique index of table " + tableName);
+			hasPK = findUniqueIndexBasedKey(metaData, quoting, session, tmp, pk, tableTypes.get(tableName));
+		}
+		_log.info((hasPK? "" : "no ") + "primary key found for table " + tableName);
+		if (resultSet != null) {
+			resultSet.close();
+		}
+
+		_log.info("getting columns for " + quoting.unquote(tmp.getOriginalSchema(quoting.quote(introspectionSchema))) + "." + quoting.unquote(tmp.getUnqualifiedName()));
+		resultSet = getColumns(session, metaData, quoting.unquote(tmp.getOriginalSchema(quoting.quote(introspectionSchema))), quoting.unquote(tmp.getUnqualifiedName()), tableNamePattern, true, false, tableTypes.get(tableName));
+		_log.info("done");
+		while (resultSet.next()) {
+			String colName = quoting.quote(resultSet.getString(4));
+			int type = resultSet.getInt(5);
+			int length = 0;
+			int precision = -1;
+			String sqlType = toSqlType(resultSet.getString(6), session.dbms);
+			if (sqlType == null || sqlType.trim().length() == 0 || resultSet.wasNull()) {
+				sqlType = SqlUtil.SQL_TYPE.get(type);
+				if (sqlType == null) {
+					throw new RuntimeException("unknown SQL type: " + type);
+				}
+			}
+			if (TYPES_WITH_LENGTH.contains(sqlType.toUpperCase()) || type == Types.NUMERIC || type == Types.DECIMAL || type == Types.VARCHAR || type == Types.CHAR || type == Types.BINARY || type == Types.VARBINARY) {
+				length = resultSet.getInt(7);
+			}
+			if (DBMS.MSSQL.equals(session.dbms) && sqlType != null && sqlType.equalsIgnoreCase("timestamp")) {
+				length = 0;
+			}
+			if (sqlType != null && sqlType.equalsIgnoreCase("uniqueidentifier")) {
+				length = 0;
+			}
+			if (type == Types.NUMERIC || type == Types.DECIMAL || type == Types.VARCHAR || type == Types.CHAR) {
+				precision = resultSet.getInt(9);
+				if (resultSet.wasNull() || precision == 0) {
+					precision = -1;
+				}
+			}
+			if (type == Types.DISTINCT || getUserDefinedTypes(session).contains(sqlType)) {
+				length = 0;
+				precision = -1;
+			}
+			Column column = new Column(colName, sqlType, filterLength(length, resultSet.getString(6), type, session.dbms, resultSet.getInt(7)), precision);
+			for (int i: pk.keySet()) {
+				if (pk.get(i).name.equals(column.name)) {
+					pk.put(i, column);
+				}
+			}
+		}
+		resultSet.close();
+		_log.info("read primary key type for table " + tableName);
+		
+		List<Integer> keySeqs = new ArrayList<Integer>(pk.keySet());
+		Collections.sort(keySeqs);
+		List<Column> columns = new ArrayList<Column>();
+		for (int i: keySeqs) {
+			Column column = pk.get(i);
+			if (column.type != null && column.type.trim().length() > 0) {
+				columns.add(column);
+			}
+		}
+		return columns;
+	}
+
 	private UnderlyingTableInfo parseViewText(final Session session, final ExecutionContext executionContext, final Quoting quoting, final int depth, String viewText, final String defaultSchema, final Table view) {
 		net.sf.jsqlparser.statement.Statement st;
 		try {
@@ -821,16 +889,12 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 
 	public static ResultSet getPrimaryKeys(Session session, DatabaseMetaData metaData, String schema, String table, boolean withCaching) throws SQLException {
 		if (withCaching) {
-			final String NAME = "getPrimaryKeys " + schema;
-			MetaDataCache metaDataCache = (MetaDataCache) session.getSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME);
-			if (metaDataCache == null) {
-				metaDataCache = MetaDataCache.readPrimaryKeys(session, schema);
-				session.setSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME, metaDataCache);
-			}
+			MetaDataCache metaDataCache = getPrimaryKeysCache(session, schema);
 			ResultSet resultSet = metaDataCache.forTable(table);
 			if (resultSet != null) {
 				return resultSet;
 			}
+			return metaDataCache.remember(table, getPrimaryKeys(session, metaData, schema, table, false));
 		}
 		if (DBMS.MySQL.equals(session.dbms)) {
 			return metaData.getPrimaryKeys(schema, null, table);
@@ -838,7 +902,25 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 		return metaData.getPrimaryKeys(null, schema, table);
 	}
 
+	/**
+	 * Gets the primary keys of all tables of a schema, read with one query if the DBMS supports it.
+	 */
+	private static MetaDataCache getPrimaryKeysCache(Session session, String schema) {
+		synchronized (session) {
+			final String NAME = "getPrimaryKeys " + schema;
+			MetaDataCache metaDataCache = (MetaDataCache) session.getSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME);
+			if (metaDataCache == null) {
+				metaDataCache = MetaDataCache.readPrimaryKeys(session, schema);
+				session.setSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME, metaDataCache);
+			}
+			return metaDataCache;
+		}
+	}
+
 	public static ResultSet getTables(Session session, DatabaseMetaData metaData, String schemaPattern, String tableNamePattern, String[] types) throws SQLException {
+		if ("%".equals(tableNamePattern) && schemaPattern != null && MetaDataCacheStore.get(session) != null) {
+			return MetaDataCache.readTables(session, metaData, schemaPattern, types).allRows();
+		}
 		if (DBMS.MySQL.equals(session.dbms)) {
 			 return metaData.getTables(schemaPattern, null, tableNamePattern, types);
 		}
@@ -927,19 +1009,24 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 
 	private ResultSet getIndexInfo(Session session, DatabaseMetaData metaData, String schema, String table, boolean unique, boolean approximate) throws SQLException {
 		final String NAME = "getIndexInfo " + schema;
-		MetaDataCache metaDataCache = (MetaDataCache) session.getSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME);
-		if (metaDataCache == null) {
-			metaDataCache = MetaDataCache.readIndexInfo(session, schema);
-			session.setSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME, metaDataCache);
+		MetaDataCache metaDataCache;
+		synchronized (session) {
+			metaDataCache = (MetaDataCache) session.getSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME);
+			if (metaDataCache == null) {
+				metaDataCache = MetaDataCache.readIndexInfo(session, schema);
+				session.setSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME, metaDataCache);
+			}
 		}
 		ResultSet resultSet = metaDataCache.forTable(table);
 		if (resultSet != null) {
 			return resultSet;
 		}
 		if (DBMS.MySQL.equals(session.dbms)) {
-			return metaData.getIndexInfo(schema, null, table, unique, approximate);
+			resultSet = metaData.getIndexInfo(schema, null, table, unique, approximate);
+		} else {
+			resultSet = metaData.getIndexInfo(null, schema, table, unique, approximate);
 		}
-		return metaData.getIndexInfo(null, schema, table, unique, approximate);
+		return metaDataCache.remember(table, resultSet);
 	}
 	
 	/**
@@ -976,10 +1063,11 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 					
 			}
 			if (withCaching) {
+				MetaDataCache metaDataCache;
 				synchronized (session) {
-					MetaDataCache metaDataCache = (MetaDataCache) session.getSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME);
+					metaDataCache = (MetaDataCache) session.getSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME);
 					if (metaDataCache == null) {
-						metaDataCache = MetaDataCache.readColumns(session, metaData, schemaPattern);
+						metaDataCache = MetaDataCache.readColumns(session, metaData, schemaPattern, includeSynonym);
 						session.setSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME, metaDataCache);
 					}
 					ResultSet resultSet = metaDataCache.forTable(tableNamePattern);
@@ -987,6 +1075,11 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 						return resultSet;
 					}
 				}
+				ResultSet resultSet = getColumns(session, metaData, schemaPattern, tableNamePattern, columnNamePattern, false, false, tableType);
+				if ("%".equals(columnNamePattern)) {
+					resultSet = metaDataCache.remember(tableNamePattern, resultSet);
+				}
+				return resultSet;
 			}
 			if (DBMS.MySQL.equals(session.dbms)) {
 				return metaData.getColumns(schemaPattern, null, tableNamePattern, columnNamePattern);
@@ -1202,11 +1295,15 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 		List<Column> columns = new ArrayList<Column>();
 		DatabaseMetaData metaData = session.getMetaData();
 		Quoting quoting = new Quoting(session);
-		if (forDefaultSchema != session) {
-			forDefaultSchema = session;
-			_log.info("getting default schema...");
-			defaultSchema = getDefaultSchema(session, session.getSchema());
-			_log.info("default schema is '" + defaultSchema + "'");
+		String defaultSchema;
+		synchronized (this) {
+			if (forDefaultSchema != session) {
+				forDefaultSchema = session;
+				_log.info("getting default schema...");
+				this.defaultSchema = getDefaultSchema(session, session.getSchema());
+				_log.info("default schema is '" + this.defaultSchema + "'");
+			}
+			defaultSchema = this.defaultSchema;
 		}
 		String schemaName = quoting.unquote(table.getOriginalSchema(defaultSchema));
 		String tableName = quoting.unquote(table.getUnqualifiedName());
@@ -1269,26 +1366,7 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 			if (isVirtual == null) {
 				String virtualColumnsQuery = session.dbms.getVirtualColumnsQuery();
 				if (virtualColumnsQuery != null) {
-					@SuppressWarnings("unchecked")
-					Set<Pair<String, String>> virtualColumns = (Set<Pair<String, String>>) session.getSessionProperty(getClass(), "virtualColumns" + schemaName);
-					if (virtualColumns == null) {
-						virtualColumns = new HashSet<Pair<String,String>>();
-							try {
-								session.setSilent(true);
-								final Set<Pair<String, String>> finalVirtualColumns = virtualColumns; 
-								session.executeQuery(virtualColumnsQuery.replace("${SCHEMA}", schemaName), new Session.AbstractResultSetReader() {
-									@Override
-									public void readCurrentRow(ResultSet resultSet) throws SQLException {
-										finalVirtualColumns.add(new Pair<String, String>(resultSet.getString(1), resultSet.getString(2)));
-									}
-								});
-							} catch (Exception e) {
-								// ignore
-							} finally {
-								session.setSilent(false);
-							}
-							session.setSessionProperty(getClass(), "virtualColumns" + schemaName, virtualColumns);
-						}
+					Set<Pair<String, String>> virtualColumns = getVirtualColumns(session, virtualColumnsQuery, schemaName);
 					isVirtual = virtualColumns.contains(new Pair<String, String>(tableName, resultSet.getString(4)));
 				}
 			}
@@ -1314,6 +1392,37 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 		return columns;
 	}
 
+	/**
+	 * Gets the virtual columns of a schema.
+	 * 
+	 * @return pairs of table name and column name
+	 */
+	private Set<Pair<String, String>> getVirtualColumns(Session session, String virtualColumnsQuery, String schemaName) {
+		synchronized (session) {
+			@SuppressWarnings("unchecked")
+			Set<Pair<String, String>> virtualColumns = (Set<Pair<String, String>>) session.getSessionProperty(getClass(), "virtualColumns" + schemaName);
+			if (virtualColumns == null) {
+				virtualColumns = new HashSet<Pair<String,String>>();
+				try {
+					session.setSilent(true);
+					final Set<Pair<String, String>> finalVirtualColumns = virtualColumns; 
+					session.executeQuery(virtualColumnsQuery.replace("${SCHEMA}", schemaName), new Session.AbstractResultSetReader() {
+						@Override
+						public void readCurrentRow(ResultSet resultSet) throws SQLException {
+							finalVirtualColumns.add(new Pair<String, String>(resultSet.getString(1), resultSet.getString(2)));
+						}
+					});
+				} catch (Exception e) {
+					// ignore
+				} finally {
+					session.setSilent(false);
+				}
+				session.setSessionProperty(getClass(), "virtualColumns" + schemaName, virtualColumns);
+			}
+			return virtualColumns;
+		}
+	}
+
 	/**
 	 * Filters the length attribute of a column in a DBMS specific way.
 	 * 
@@ -1429,6 +1538,7 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 	}
 	
 	public static void resetCaches(Session session) {
+		MetaDataCacheStore.flush(session);
 		session.removeSessionProperties(JDBCMetaDataBasedModelElementFinder.class);
 	}
 
@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -49,13 +50,123 @@ public class MetaDataCache {
 	/**
 	 * The cached rows.
 	 */
-	private Map<String, List<Object[]>> cache;
+	Map<String, List<Object[]>> cache;
 
 	/**
 	 * Meta data of cached row set.
 	 */
-	private MemorizedResultSetMetaData resultSetMetaData;
+	MemorizedResultSetMetaData resultSetMetaData;
+
+	/**
+	 * The store in which the cache is persisted, <code>null</code> if the cache is not persistent.
+	 */
+	private MetaDataCacheStore store;
+
+	/**
+	 * Kind of meta data, schema and bulk query of a persistent cache.
+	 */
+	String kind, schema, query;
+
+	/**
+	 * Indexes of the columns with integer values.
+	 */
+	private Set<Integer> intIndex;
+
+	/**
+	 * Index of the first column whose values are not read.
+	 */
+	private int skipFrom = Integer.MAX_VALUE;
+
+	/**
+	 * Index of the column containing the table name if individually introspected meta data may contain rows of other tables, else -1.
+	 */
+	private int tableIndex = -1;
+
+	/**
+	 * Last-DDL values of the tables whose rows are cached (persistent caches only).
+	 */
+	Map<String, String> lastDDL;
+
+	/**
+	 * Current last-DDL values of all tables of the schema (persistent caches only).
+	 */
+	private Map<String, String> currentLastDDL;
+
+	/**
+	 * Number of tables whose persisted rows are outdated.
+	 */
+	int outdated;
+
+	private boolean dirty;
+
+	/**
+	 * Reads meta data of a schema in bulk.
+	 */
+	private interface BulkReader {
+		MetaDataCache read() throws SQLException;
+	}
+
+	/**
+	 * Reads meta data in bulk or loads it from the {@link MetaDataCacheStore} of the session.
+	 *
+	 * @param session the session
+	 * @param kind kind of meta data
+	 * @param schema the schema
+	 * @param query the query with which the meta data is read in bulk, <code>null</code> if meta data can only be read per table
+	 * @param intIndex indexes of the columns with integer values
+	 * @param wholeSchema if <code>true</code>, the cache is only loaded if no table is outdated
+	 * @param bulkReader reads the meta data in bulk
+	 */
+	private static MetaDataCache read(Session session, String kind, String schema, String query, Set<Integer> intIndex, boolean wholeSchema, BulkReader bulkReader) throws SQLException {
+		MetaDataCacheStore store = MetaDataCacheStore.get(session);
+		Map<String, String> lastDDL = store == null || schema == null? null : store.readLastDDL(schema);
+		if (lastDDL == null) {
+			return bulkReader.read();
+		}
+		MetaDataCache metaDataCache = store.load(kind, schema, query, lastDDL);
+		if (metaDataCache != null && metaDataCache.outdated > 0) {
+			// reading in bulk is faster than introspecting many tables individually
+			if (wholeSchema || query != null && metaDataCache.outdated > lastDDL.size() / 2) {
+				metaDataCache = null;
+			}
+		}
+		boolean save = false;
+		if (metaDataCache == null) {
+			metaDataCache = bulkReader.read();
+			if (metaDataCache.cache == null) {
+				// tables will be introspected individually
+				metaDataCache.cache = new HashMap<String, List<Object[]>>();
+				metaDataCache.lastDDL = new HashMap<String, String>();
+			} else {
+				metaDataCache.lastDDL = new HashMap<String, String>(lastDDL);
+				save = true;
+			}
+		}
+		metaDataCache.store = store;
+		metaDataCache.kind = kind;
+		metaDataCache.schema = schema;
+		metaDataCache.query = query;
+		metaDataCache.intIndex = intIndex;
+		metaDataCache.currentLastDDL = lastDDL;
+		store.register(metaDataCache);
+		if (save) {
+			store.save(metaDataCache);
+		}
+		return metaDataCache;
+	}
 	
+	/**
+	 * Like {@link #read(Session, String, String, String, Set, boolean, BulkReader)}, but returns an empty cache on error.
+	 */
+	private static MetaDataCache readOrEmpty(Session session, String kind, String schema, String query, Set<Integer> intIndex, boolean wholeSchema, BulkReader bulkReader) {
+		try {
+			return read(session, kind, schema, query, intIndex, wholeSchema, bulkReader);
+		} catch (SQLException e) {
+			_log.info(e.getMessage());
+			return new MetaDataCache();
+		}
+	}
+
 	/**
 	 * Reads primary keys.
 	 * 
@@ -65,23 +176,28 @@ public class MetaDataCache {
 	 *            name of the schema
 	 * @return cache
 	 */
-	public static MetaDataCache readPrimaryKeys(Session session, String schema) {
-		String primaryKeysQuery = session.dbms.getPrimaryKeysQuery();
-		if (primaryKeysQuery == null) {
-			return new MetaDataCache();
-		}
+	public static MetaDataCache readPrimaryKeys(final Session session, final String schema) {
+		final String primaryKeysQuery = session.dbms.getPrimaryKeysQuery();
+		final Set<Integer> intIndex = new HashSet<Integer>(Arrays.asList(5));
+		return readOrEmpty(session, "primaryKeys", schema, primaryKeysQuery, intIndex, false, new BulkReader() {
+			@Override
+			public MetaDataCache read() {
+				if (primaryKeysQuery == null) {
+					return new MetaDataCache();
+				}
 
-		_log.info("reading primary keys (may take some time)...");
+				_log.info("reading primary keys (may take some time)...");
 
-		MetaDataCache metaDataCache = new MetaDataCache();
-		try {
-			Set<Integer> intIndex = new HashSet<Integer>(Arrays.asList(5));
-			readMetaData(metaDataCache, session, primaryKeysQuery.replace("${SCHEMA}", schema), intIndex, 2);
-			return metaDataCache;
-		} catch (Exception e) {
-			_log.info(e.getMessage());
-			return new MetaDataCache();
-		}
+				MetaDataCache metaDataCache = new MetaDataCache();
+				try {
+					readMetaData(metaDataCache, session, primaryKeysQuery.replace("${SCHEMA}", schema), intIndex, 2);
+					return metaDataCache;
+				} catch (Exception e) {
+					_log.info(e.getMessage());
+					return new MetaDataCache();
+				}
+			}
+		});
 	}
 
 	/**
@@ -93,23 +209,28 @@ public class MetaDataCache {
 	 *            name of the schema
 	 * @return cache
 	 */
-	public static MetaDataCache readIndexInfo(Session session, String schema) {
-		String indexInfoQuery = session.dbms.getIndexInfoQuery();
-		if (indexInfoQuery == null) {
-			return new MetaDataCache();
-		}
+	public static MetaDataCache readIndexInfo(final Session session, final String schema) {
+		final String indexInfoQuery = session.dbms.getIndexInfoQuery();
+		final Set<Integer> intIndex = new HashSet<Integer>(Arrays.asList(4));
+		return readOrEmpty(session, "indexInfo", schema, indexInfoQuery, intIndex, false, new BulkReader() {
+			@Override
+			public MetaDataCache read() {
+				if (indexInfoQuery == null) {
+					return new MetaDataCache();
+				}
 
-		_log.info("reading index info (may take some time)...");
+				_log.info("reading index info (may take some time)...");
 
-		MetaDataCache metaDataCache = new MetaDataCache();
-		try {
-			Set<Integer> intIndex = new HashSet<Integer>(Arrays.asList(4));
-			readMetaData(metaDataCache, session, indexInfoQuery.replace("${SCHEMA}", schema), intIndex, 2);
-			return metaDataCache;
-		} catch (Exception e) {
-			_log.info(e.getMessage());
-			return new MetaDataCache();
-		}
+				MetaDataCache metaDataCache = new MetaDataCache();
+				try {
+					readMetaData(metaDataCache, session, indexInfoQuery.replace("${SCHEMA}", schema), intIndex, 2);
+					return metaDataCache;
+				} catch (Exception e) {
+					_log.info(e.getMessage());
+					return new MetaDataCache();
+				}
+			}
+		});
 	}
 
 	/**
@@ -121,23 +242,28 @@ public class MetaDataCache {
 	 *            name of the schema
 	 * @return cache
 	 */
-	public static MetaDataCache readImportedKeys(Session session, String schema) {
-		String importedKeysQuery = session.dbms.getImportedKeysQuery();
-		if (importedKeysQuery == null) {
-			return new MetaDataCache();
-		}
+	public static MetaDataCache readImportedKeys(final Session session, final String schema) {
+		final String importedKeysQuery = session.dbms.getImportedKeysQuery();
+		final Set<Integer> intIndex = new HashSet<Integer>(Arrays.asList(9, 10, 11, 14));
+		return readOrEmpty(session, "importedKeys", schema, importedKeysQuery, intIndex, false, new BulkReader() {
+			@Override
+			public MetaDataCache read() {
+				if (importedKeysQuery == null) {
+					return new MetaDataCache();
+				}
 
-		_log.info("reading imported keys (may take some time)...");
+				_log.info("reading imported keys (may take some time)...");
 
-		MetaDataCache metaDataCache = new MetaDataCache();
-		try {
-			Set<Integer> intIndex = new HashSet<Integer>(Arrays.asList(9, 10, 11, 14));
-			readMetaData(metaDataCache, session, importedKeysQuery.replace("${SCHEMA}", schema), intIndex, 6);
-			return metaDataCache;
-		} catch (Exception e) {
-			_log.info(e.getMessage());
-			return new MetaDataCache();
-		}
+				MetaDataCache metaDataCache = new MetaDataCache();
+				try {
+					readMetaData(metaDataCache, session, importedKeysQuery.replace("${SCHEMA}", schema), intIndex, 6);
+					return metaDataCache;
+				} catch (Exception e) {
+					_log.info(e.getMessage());
+					return new MetaDataCache();
+				}
+			}
+		});
 	}
 
 	/**
@@ -147,70 +273,117 @@ public class MetaDataCache {
 	 *            the session
 	 * @param schema
 	 *            name of the schema
+	 * @param includeSynonyms
+	 *            whether the columns of synonyms are included
 	 * @return cache
 	 */
-	public static MetaDataCache readColumns(Session session, DatabaseMetaData metaData, String schema) {
-		_log.info("reading columns (may take some time)...");
-
-		MetaDataCache metaDataCache = new MetaDataCache();
-		ResultSet rs;
-		try {
-			if (DBMS.MySQL.equals(session.dbms)) {
-				rs = metaData.getColumns(schema, null, "%", "%");
-			} else {
-				rs = metaData.getColumns(null, schema, "%", "%");
-			}
-			Set<Integer> intIndex = new HashSet<Integer>(Arrays.asList(5, 7, 9, 10, 11, 14, 15, 16, 17, 22));
+	public static MetaDataCache readColumns(final Session session, final DatabaseMetaData metaData, final String schema, boolean includeSynonyms) {
+		final Set<Integer> intIndex = new HashSet<Integer>(Arrays.asList(5, 7, 9, 10, 11, 14, 15, 16, 17, 22));
+		final int skipFrom = DBMS.MSSQL.equals(session.dbms)? 22 : Integer.MAX_VALUE;
+		MetaDataCache result = readOrEmpty(session, includeSynonyms? "columnsWithSynonyms" : "columns", schema, "getColumns", intIndex, false, new BulkReader() {
+			@Override
+			public MetaDataCache read() {
+				_log.info("reading columns (may take some time)...");
 
-			metaDataCache.cache = new HashMap<String, List<Object[]>>();
-			ResultSetMetaData rsMetaData = rs.getMetaData();
-			int numCol = rsMetaData.getColumnCount();
-			String[] names = new String[numCol];
-			int[] types = new int[numCol];
-			for (int i = 0; i < numCol; ++i) {
-				names[i] = rsMetaData.getColumnName(i + 1);
-				types[i] = rsMetaData.getColumnType(i + 1);
-			}
-			
-			while (rs.next()) {
-				Object[] row = new Object[numCol];
-				for (int i = 1; i <= numCol; ++i) {
-					if (i >= 22 && DBMS.MSSQL.equals(session.dbms)) {
-						row[i - 1] = null;
+				MetaDataCache metaDataCache = new MetaDataCache();
+				ResultSet rs;
+				try {
+					if (DBMS.MySQL.equals(session.dbms)) {
+						rs = metaData.getColumns(schema, null, "%", "%");
 					} else {
-						if (intIndex.contains(i)) {
-							row[i - 1] = rs.getInt(i);
-						} else {
-							row[i - 1] = rs.getString(i);
+						rs = metaData.getColumns(null, schema, "%", "%");
+					}
+
+					metaDataCache.cache = new HashMap<String, List<Object[]>>();
+					MemorizedResultSetMetaData rsMetaData = readResultSetMetaData(rs);
+					int numCol = rsMetaData.getColumnCount();
+					
+					while (rs.next()) {
+						Object[] row = readRow(rs, numCol, intIndex, skipFrom);
+						String table = (String) row[2];
+						
+						List<Object[]> rowList = metaDataCache.cache.get(table);
+						if (rowList == null) {
+							rowList = new LinkedList<Object[]>();
+							metaDataCache.cache.put(table, rowList);
 						}
+						rowList.add(row);
 					}
+					metaDataCache.resultSetMetaData = rsMetaData; 
+					rs.close();
+
+					if (metaDataCache.cache.isEmpty()) {
+						metaDataCache.cache = null;
+					}
+					return metaDataCache;
+				} catch (SQLException e) {
+					_log.info(e.getMessage());
+					return new MetaDataCache();
 				}
-				String table = (String) row[2];
-				
-				List<Object[]> rowList = metaDataCache.cache.get(table);
-				if (rowList == null) {
-					rowList = new LinkedList<Object[]>();
-					metaDataCache.cache.put(table, rowList);
-				}
-				rowList.add(row);
 			}
-			metaDataCache.resultSetMetaData = new MemorizedResultSetMetaData(numCol, names, types); 
-			rs.close();
+		});
+		result.skipFrom = skipFrom;
+		// table name patterns may match other tables
+		result.tableIndex = 2;
+		return result;
+	}
 
-			if (metaDataCache.cache.isEmpty()) {
-				metaDataCache.cache = null;
-			}
-			return metaDataCache;
-		} catch (SQLException e) {
-			_log.info(e.getMessage());
-			return new MetaDataCache();
+	/**
+	 * Reads the tables of a schema.
+	 * 
+	 * @param session
+	 *            the session
+	 * @param schema
+	 *            name of the schema
+	 * @param types
+	 *            the table types
+	 * @return cache
+	 */
+	public static MetaDataCache readTables(final Session session, final DatabaseMetaData metaData, final String schema, final String[] types) throws SQLException {
+		final Set<Integer> intIndex = new HashSet<Integer>();
+		String kind = "tables";
+		for (String type: types) {
+			kind += " " + type;
 		}
+		return read(session, kind, schema, "getTables", intIndex, true, new BulkReader() {
+			@Override
+			public MetaDataCache read() throws SQLException {
+				MetaDataCache metaDataCache = new MetaDataCache();
+				metaDataCache.cache = new LinkedHashMap<String, List<Object[]>>();
+				ResultSet rs;
+				if (DBMS.MySQL.equals(session.dbms)) {
+					rs = metaData.getTables(schema, null, "%", types);
+				} else {
+					rs = metaData.getTables(null, schema, "%", types);
+				}
+				try {
+					metaDataCache.resultSetMetaData = readResultSetMetaData(rs);
+					int numCol = metaDataCache.resultSetMetaData.getColumnCount();
+					while (rs.next()) {
+						Object[] row = readRow(rs, numCol, intIndex, Integer.MAX_VALUE);
+						List<Object[]> rowList = metaDataCache.cache.get(row[2]);
+						if (rowList == null) {
+							rowList = new ArrayList<Object[]>(1);
+							metaDataCache.cache.put((String) row[2], rowList);
+						}
+						rowList.add(row);
+					}
+				} finally {
+					rs.close();
+				}
+				return metaDataCache;
+			}
+		});
 	}
 
-	public ResultSet forTable(String tableName) {
+	public synchronized ResultSet forTable(String tableName) {
 		if (cache == null) {
 			return null;
 		}
+		if (lastDDL != null && !lastDDL.containsKey(tableName)) {
+			// outdated or unknown
+			return null;
+		}
 
 		List<Object[]> rowList = cache.get(tableName);
 		if (rowList == null) {
@@ -222,6 +395,141 @@ public class MetaDataCache {
 		return result;
 	}
 
+	/**
+	 * Gets all cached rows.
+	 */
+	public synchronized ResultSet allRows() {
+		List<Object[]> rowList = new ArrayList<Object[]>();
+		if (cache != null) {
+			for (List<Object[]> rows: cache.values()) {
+				rowList.addAll(rows);
+			}
+		}
+		MemorizedResultSet result = new MemorizedResultSet(rowList);
+		result.resultSetMetaData = resultSetMetaData;
+		return result;
+	}
+
+	/**
+	 * Adds meta data of a table that has been introspected individually to a persistent cache.
+	 * 
+	 * @param tableName the table
+	 * @param resultSet the meta data, will be closed
+	 * @return the meta data
+	 */
+	public ResultSet remember(String tableName, ResultSet resultSet) throws SQLException {
+		if (store == null) {
+			return resultSet;
+		}
+		MemorizedResultSet result;
+		try {
+			MemorizedResultSetMetaData rsMetaData = readResultSetMetaData(resultSet);
+			int numCol = rsMetaData.getColumnCount();
+			List<Object[]> rowList = new ArrayList<Object[]>();
+			while (resultSet.next()) {
+				rowList.add(readRow(resultSet, numCol, intIndex, skipFrom));
+			}
+			result = new MemorizedResultSet(rowList, rsMetaData);
+			String tableLastDDL = currentLastDDL.get(tableName);
+			if (tableLastDDL != null) {
+				if (tableIndex >= 0) {
+					List<Object[]> ownRows = new ArrayList<Object[]>();
+					for (Object[] row: rowList) {
+						if (tableName.equals(row[tableIndex])) {
+							ownRows.add(row);
+						}
+					}
+					rowList = ownRows;
+				}
+				synchronized (this) {
+					if (resultSetMetaData == null) {
+						resultSetMetaData = result.resultSetMetaData;
+					}
+					if (rowList.isEmpty()) {
+						cache.remove(tableName);
+					} else {
+						cache.put(tableName, rowList);
+					}
+					lastDDL.put(tableName, tableLastDDL);
+					dirty = true;
+				}
+			}
+		} finally {
+			resultSet.close();
+		}
+		store.updated();
+		return result;
+	}
+
+	synchronized boolean isDirty() {
+		return dirty;
+	}
+
+	synchronized void setDirty(boolean dirty) {
+		this.dirty = dirty;
+	}
+
+	private static MemorizedResultSetMetaData readResultSetMetaData(ResultSet resultSet) throws SQLException {
+		ResultSetMetaData rsMetaData = resultSet.getMetaData();
+		int numCol = rsMetaData.getColumnCount();
+		String[] names = new String[numCol];
+		int[] types = new int[numCol];
+		for (int i = 0; i < numCol; ++i) {
+			names[i] = rsMetaData.getColumnName(i + 1);
+			types[i] = rsMetaData.getColumnType(i + 1);
+		}
+		return new MemorizedResultSetMetaData(numCol, names, types);
+	}
+
+	private static Object[] readRow(ResultSet resultSet, int numCol, Set<Integer> intIndex, int skipFrom) throws SQLException {
+		Object[] row = new Object[numCol];
+		for (int i = 1; i <= numCol; ++i) {
+			if (i >= skipFrom) {
+				row[i - 1] = null;
+			} else if (intIndex.contains(i)) {
+				row[i - 1] = resultSet.getInt(i);
+			} else {
+				row[i - 1] = resultSet.getString(i);
+			}
+		}
+		return row;
+	}
+
+	/**
+	 * Reads a result set into memory and closes it.
+	 * 
+	 * @param resultSet the result set
+	 * @param intIndex indexes of the columns with integer values
+	 * @return the memorized result set
+	 */
+	static MemorizedResultSet memorize(ResultSet resultSet, Set<Integer> intIndex) throws SQLException {
+		try {
+			ResultSetMetaData rsMetaData = resultSet.getMetaData();
+			int numCol = rsMetaData.getColumnCount();
+			String[] names = new String[numCol];
+			int[] types = new int[numCol];
+			for (int i = 0; i < numCol; ++i) {
+				names[i] = rsMetaData.getColumnName(i + 1);
+				types[i] = rsMetaData.getColumnType(i + 1);
+			}
+			List<Object[]> rowList = new ArrayList<Object[]>();
+			while (resultSet.next()) {
+				Object[] row = new Object[numCol];
+				for (int i = 1; i <= numCol; ++i) {
+					if (intIndex.contains(i)) {
+						row[i - 1] = resultSet.getInt(i);
+					} else {
+						row[i - 1] = resultSet.getString(i);
+					}
+				}
+				rowList.add(row);
+			}
+			return new MemorizedResultSet(rowList, numCol, names, types);
+		} finally {
+			resultSet.close();
+		}
+	}
+
 	/**
 	 * Reads meta data.
 	 */
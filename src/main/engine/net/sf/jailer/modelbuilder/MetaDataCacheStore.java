@@ -0,0 +1,410 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.modelbuilder;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.log4j.Logger;
+
+import net.sf.jailer.database.Session;
+import net.sf.jailer.modelbuilder.MemorizedResultSet.MemorizedResultSetMetaData;
+
+/**
+ * Persists the {@link MetaDataCache}s of a session in the data model folder.<br>
+ * <br>
+ * There is one file per URL, user, schema and kind of meta data (primary keys, columns, ...).
+ * A file is read when the meta data is needed for the first time.
+ * The cached rows of a table remain valid as long as the value the {@link net.sf.jailer.configuration.DBMS#getLastDDLQuery() last-DDL query}
+ * returns for the table doesn't change. Tables that have been created or altered since are introspected individually
+ * and added to the cache.
+ *
+ * @author Ralf Wisser
+ */
+public class MetaDataCacheStore {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger _log = Logger.getLogger(MetaDataCacheStore.class);
+
+	/**
+	 * Name of the folder inside the data model folder that contains the cache files.
+	 */
+	public static final String FOLDER_NAME = "metadata-cache";
+
+	private static final int MAGIC = 0x4a4d4443;
+
+	/**
+	 * Version of the file format. Files of other versions are ignored.
+	 */
+	private static final int FORMAT_VERSION = 1;
+
+	/**
+	 * Minimum number of milliseconds between two saves of incrementally updated caches.
+	 */
+	private static final long SAVE_INTERVAL = 30000;
+
+	private static final byte NULL_VALUE = 0;
+	private static final byte STRING_VALUE = 1;
+	private static final byte INT_VALUE = 2;
+
+	private final Session session;
+	private final File folder;
+
+	/**
+	 * The persistent caches of the session.
+	 */
+	private final List<MetaDataCache> caches = new ArrayList<MetaDataCache>();
+
+	private long lastSave = System.currentTimeMillis();
+
+	private MetaDataCacheStore(Session session, File folder) {
+		this.session = session;
+		this.folder = folder;
+	}
+
+	/**
+	 * Persists the meta data caches of a session in a data model folder.
+	 * Has no effect if the DBMS has no {@link net.sf.jailer.configuration.DBMS#getLastDDLQuery() last-DDL query}.
+	 *
+	 * @param session the session
+	 * @param dataModelFolder the data model folder
+	 */
+	public static void enable(Session session, File dataModelFolder) {
+		if (session.dbms.getLastDDLQuery() == null || session.dbUrl == null) {
+			return;
+		}
+		File folder = new File(dataModelFolder, FOLDER_NAME);
+		MetaDataCacheStore store = get(session);
+		if (store != null) {
+			if (store.folder.equals(folder)) {
+				return;
+			}
+			store.flush();
+		}
+		session.setSessionProperty(MetaDataCacheStore.class, "store", new MetaDataCacheStore(session, folder));
+	}
+
+	/**
+	 * Gets the store of a session.
+	 *
+	 * @return the store or <code>null</code> if the meta data caches of the session are not persisted
+	 */
+	static MetaDataCacheStore get(Session session) {
+		return (MetaDataCacheStore) session.getSessionProperty(MetaDataCacheStore.class, "store");
+	}
+
+	/**
+	 * Saves all updated caches of a session.
+	 *
+	 * @param session the session
+	 */
+	public static void flush(Session session) {
+		MetaDataCacheStore store = get(session);
+		if (store != null) {
+			store.flush();
+		}
+	}
+
+	private void flush() {
+		List<MetaDataCache> toSave;
+		synchronized (this) {
+			toSave = new ArrayList<MetaDataCache>(caches);
+			lastSave = System.currentTimeMillis();
+		}
+		for (MetaDataCache cache: toSave) {
+			if (cache.isDirty()) {
+				save(cache);
+			}
+		}
+	}
+
+	/**
+	 * Registers a persistent cache.
+	 */
+	synchronized void register(MetaDataCache cache) {
+		caches.add(cache);
+	}
+
+	/**
+	 * Saves the updated caches if they haven't been saved for a while.
+	 */
+	void updated() {
+		synchronized (this) {
+			if (System.currentTimeMillis() - lastSave < SAVE_INTERVAL) {
+				return;
+			}
+		}
+		flush();
+	}
+
+	/**
+	 * Reads the last-DDL values of the tables of a schema.
+	 *
+	 * @param schema the schema
+	 * @return last-DDL value per table name, <code>null</code> if the values can't be read
+	 */
+	Map<String, String> readLastDDL(String schema) {
+		final Map<String, String> lastDDL = new HashMap<String, String>();
+		boolean wasSilent = session.getSilent();
+		session.setSilent(true);
+		try {
+			session.executeQuery(session.dbms.getLastDDLQuery().replace("${SCHEMA}", schema), new Session.AbstractResultSetReader() {
+				@Override
+				public void readCurrentRow(ResultSet resultSet) throws SQLException {
+					String table = resultSet.getString(1);
+					String value = String.valueOf(resultSet.getString(2));
+					String prev = lastDDL.put(table, value);
+					if (prev != null) {
+						lastDDL.put(table, prev + " " + value);
+					}
+				}
+			});
+			return lastDDL;
+		} catch (SQLException e) {
+			_log.info("can't read last DDL times: " + e.getMessage());
+			return null;
+		} finally {
+			session.setSilent(wasSilent);
+		}
+	}
+
+	/**
+	 * Loads a cache.
+	 *
+	 * @param kind kind of meta data
+	 * @param schema the schema
+	 * @param query the query with which the meta data is read in bulk
+	 * @param lastDDL current last-DDL values of the tables of the schema
+	 * @return the cache containing the rows of the unchanged tables, or <code>null</code> if there is no valid file
+	 */
+	MetaDataCache load(String kind, String schema, String query, Map<String, String> lastDDL) {
+		File file = file(kind, schema);
+		if (!file.exists()) {
+			return null;
+		}
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))));
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+				return null;
+			}
+			for (String expected: header(kind, schema, query)) {
+				if (!expected.equals(readString(in))) {
+					return null;
+				}
+			}
+			MetaDataCache cache = new MetaDataCache();
+			cache.cache = new LinkedHashMap<String, List<Object[]>>();
+			cache.lastDDL = new HashMap<String, String>();
+			if (in.readBoolean()) {
+				int numCol = in.readInt();
+				String[] names = new String[numCol];
+				int[] types = new int[numCol];
+				for (int i = 0; i < numCol; ++i) {
+					names[i] = readString(in);
+					types[i] = in.readInt();
+				}
+				cache.resultSetMetaData = new MemorizedResultSetMetaData(numCol, names, types);
+			}
+			Set<String> tables = new HashSet<String>();
+			int outdated = 0;
+			for (int numTables = in.readInt(); numTables > 0; --numTables) {
+				String table = readString(in);
+				String tableLastDDL = readString(in);
+				List<Object[]> rows = new ArrayList<Object[]>();
+				for (int numRows = in.readInt(); numRows > 0; --numRows) {
+					Object[] row = new Object[in.readInt()];
+					for (int i = 0; i < row.length; ++i) {
+						byte tag = in.readByte();
+						if (tag == STRING_VALUE) {
+							row[i] = readString(in);
+						} else if (tag == INT_VALUE) {
+							row[i] = in.readInt();
+						}
+					}
+					rows.add(row);
+				}
+				tables.add(table);
+				if (tableLastDDL.equals(lastDDL.get(table))) {
+					cache.lastDDL.put(table, tableLastDDL);
+					if (!rows.isEmpty()) {
+						cache.cache.put(table, rows);
+					}
+				} else {
+					++outdated;
+				}
+			}
+			for (String table: lastDDL.keySet()) {
+				if (!tables.contains(table)) {
+					++outdated;
+				}
+			}
+			cache.outdated = outdated;
+			_log.info(kind + " of " + schema + " read from " + file + " (" + outdated + " tables outdated)");
+			return cache;
+		} catch (Exception e) {
+			_log.warn("can't read " + file + ": " + e.getMessage());
+			return null;
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	/**
+	 * Saves a cache.
+	 *
+	 * @param cache the cache
+	 */
+	void save(MetaDataCache cache) {
+		File file = file(cache.kind, cache.schema);
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes));
+			synchronized (cache) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				for (String value: header(cache.kind, cache.schema, cache.query)) {
+					writeString(out, value);
+				}
+				MemorizedResultSetMetaData metaData = cache.resultSetMetaData;
+				out.writeBoolean(metaData != null);
+				if (metaData != null) {
+					out.writeInt(metaData.getColumnCount());
+					for (int i = 1; i <= metaData.getColumnCount(); ++i) {
+						writeString(out, String.valueOf(metaData.getColumnName(i)));
+						out.writeInt(metaData.getColumnType(i));
+					}
+				}
+				// tables with rows first, in the order in which they have been read
+				Set<String> tables = new LinkedHashSet<String>(cache.cache.keySet());
+				tables.addAll(cache.lastDDL.keySet());
+				tables.retainAll(cache.lastDDL.keySet());
+				out.writeInt(tables.size());
+				for (String table: tables) {
+					writeString(out, table);
+					writeString(out, cache.lastDDL.get(table));
+					List<Object[]> rows = cache.cache.get(table);
+					if (rows == null) {
+						out.writeInt(0);
+						continue;
+					}
+					out.writeInt(rows.size());
+					for (Object[] row: rows) {
+						out.writeInt(row.length);
+						for (Object value: row) {
+							if (value == null) {
+								out.writeByte(NULL_VALUE);
+							} else if (value instanceof Integer) {
+								out.writeByte(INT_VALUE);
+								out.writeInt((Integer) value);
+							} else {
+								out.writeByte(STRING_VALUE);
+								writeString(out, value.toString());
+							}
+						}
+					}
+				}
+				cache.setDirty(false);
+			}
+			out.close();
+
+			folder.mkdirs();
+			File tmp = new File(file.getPath() + ".tmp");
+			OutputStream fileOut = new FileOutputStream(tmp);
+			try {
+				bytes.writeTo(fileOut);
+			} finally {
+				fileOut.close();
+			}
+			file.delete();
+			if (!tmp.renameTo(file)) {
+				throw new IOException("can't rename " + tmp);
+			}
+			_log.info(cache.kind + " of " + cache.schema + " written into " + file + " (" + bytes.size() + " bytes)");
+		} catch (Exception e) {
+			_log.warn("can't write " + file + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Values that must match to make a file valid.
+	 */
+	private String[] header(String kind, String schema, String query) {
+		return new String[] {
+			session.dbUrl,
+			session.getSchema(),
+			schema,
+			kind,
+			query == null? "" : query,
+			session.dbms.getLastDDLQuery()
+		};
+	}
+
+	private File file(String kind, String schema) {
+		String key = session.dbUrl + "\n" + session.getSchema() + "\n" + schema;
+		StringBuilder name = new StringBuilder(kind.replaceAll("[^a-zA-Z0-9]", "_")).append('-');
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes("UTF-8"));
+			for (int i = 0; i < 8; ++i) {
+				name.append(String.format("%02x", digest[i] & 0xff));
+			}
+		} catch (Exception e) {
+			name.append(Integer.toHexString(key.hashCode()));
+		}
+		return new File(folder, name.append(".bin").toString());
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes("UTF-8");
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8");
+	}
+
+}
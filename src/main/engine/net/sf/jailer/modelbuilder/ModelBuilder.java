@@ -19,6 +19,7 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -45,8 +46,10 @@ import net.sf.jailer.datamodel.DataModel;
 import net.sf.jailer.datamodel.PrimaryKeyFactory;
 import net.sf.jailer.datamodel.Table;
 import net.sf.jailer.importfilter.ImportFilterManager;
+import net.sf.jailer.util.CancellationHandler;
 import net.sf.jailer.util.CsvFile;
 import net.sf.jailer.util.CsvFile.Line;
+import net.sf.jailer.util.JobManager;
 import net.sf.jailer.util.PrintUtil;
 import net.sf.jailer.util.Quoting;
 import net.sf.jailer.util.SqlUtil;
@@ -170,9 +173,10 @@ public class ModelBuilder {
 	 * 
 	 * @param warnings string-buffer to print warnings into, may be <code>null</code>
 	 */
-	public static void build(DataSource dataSource, DBMS dbms, String schema, StringBuffer warnings, ExecutionContext executionContext) throws Exception {
+	public static void build(DataSource dataSource, DBMS dbms, String schema, StringBuffer warnings, final ExecutionContext executionContext) throws Exception {
 		session = new Session(dataSource, dbms, executionContext.getIsolationLevel());
 		session.setIntrospectionSchema(schema);
+		MetaDataCacheStore.enable(session, new File(DataModel.getDatamodelFolder(executionContext)));
 
 		resetFiles(executionContext);
 
@@ -180,7 +184,7 @@ public class ModelBuilder {
 		
 		Collection<Table> tables = new ArrayList<Table>();
 		
-		ModelElementFinder finder = new JDBCMetaDataBasedModelElementFinder();
+		final ModelElementFinder finder = new JDBCMetaDataBasedModelElementFinder();
 		_log.info("find tables with " + finder);
 		tables.addAll(finder.findTables(session, executionContext));
 		
@@ -215,21 +219,49 @@ public class ModelBuilder {
 		for (Table table: allTables) {
 			allTablesSet.put(table.getName(), table);
 		}
+		final List<Table> columnTables = new ArrayList<Table>();
 		for (Table table: allTablesSet.values()) {
 			if (!isJailerTable(table, quoting) &&
 				!excludeTablesCSV.contains(new String[] { table.getName()}) && 
 				!excludeTablesCSV.contains(new String[] { table.getName().toUpperCase() })) {
-				_log.info("find colums with " + finder);
-				List<Column> columns = finder.findColumns(table, session, executionContext);
-				if (!columns.isEmpty()) {
-					columnPerTable.put(table, columns);
-					columnsDefinition.append(CsvFile.encodeCell(table.getName()) + "; ");
-					for (Column c: columns) {
-						columnsDefinition.append(CsvFile.encodeCell(c.toSQL(null) + (c.isIdentityColumn? " identity" : "") + (c.isVirtual? " virtual" : "") + (c.isNullable? " null" : "")) + "; ");
-						knownIdentifiers.putColumnName(table.getName(), c.name);
+				columnTables.add(table);
+			}
+		}
+		final List<List<Column>> columnsOfTables = new ArrayList<List<Column>>(Collections.<List<Column>>nCopies(columnTables.size(), null));
+		final IntrospectionProgress progress = new IntrospectionProgress("reading columns", columnTables.size());
+		List<JobManager.Job> jobs = new ArrayList<JobManager.Job>();
+		for (int i = 0; i < columnTables.size(); ++i) {
+			final int index = i;
+			jobs.add(new JobManager.Job() {
+				@Override
+				public void run() throws SQLException {
+					_log.info("find colums with " + finder);
+					try {
+						columnsOfTables.set(index, finder.findColumns(columnTables.get(index), session, executionContext));
+					} catch (SQLException e) {
+						throw e;
+					} catch (RuntimeException e) {
+						throw e;
+					} catch (Exception e) {
+						throw new RuntimeException(e);
 					}
-					columnsDefinition.append(PrintUtil.LINE_SEPARATOR);
+					progress.tableDone();
+					CancellationHandler.checkForCancellation(null);
+				}
+			});
+		}
+		progress.execute(jobs, executionContext.getNumberOfThreads());
+		for (int i = 0; i < columnTables.size(); ++i) {
+			Table table = columnTables.get(i);
+			List<Column> columns = columnsOfTables.get(i);
+			if (!columns.isEmpty()) {
+				columnPerTable.put(table, columns);
+				columnsDefinition.append(CsvFile.encodeCell(table.getName()) + "; ");
+				for (Column c: columns) {
+					columnsDefinition.append(CsvFile.encodeCell(c.toSQL(null) + (c.isIdentityColumn? " identity" : "") + (c.isVirtual? " virtual" : "") + (c.isNullable? " null" : "")) + "; ");
+					knownIdentifiers.putColumnName(table.getName(), c.name);
 				}
+				columnsDefinition.append(PrintUtil.LINE_SEPARATOR);
 			}
 		}
 		resetColumnsFile(columnsDefinition.toString(), executionContext);
@@ -284,6 +316,7 @@ public class ModelBuilder {
 		Map<Association, String[]> namingSuggestion = new HashMap<Association, String[]>();
 		_log.info("find associations with " + finder);
 		associations.addAll(finder.findAssociations(dataModel, namingSuggestion, session, executionContext));
+		MetaDataCacheStore.flush(session);
 
 		Collection<Association> associationsToWrite = new ArrayList<Association>();
 		CsvFile excludeAssociationsCSV = getExcludeAssociationsCSV(executionContext);
@@ -0,0 +1,35 @@
+${drop-table}${schema}JAILER_ENTITY${graph-suffix};
+${drop-table}${schema}JAILER_DEPENDENCY${graph-suffix};
+
+${create-table}${schema}JAILER_ENTITY${graph-suffix}
+(
+   r_entitygraph   INTEGER NOT NULL,
+
+   ${upk},
+   birthday        INTEGER NOT NULL,
+   type            INTEGER NOT NULL,
+
+   orig_birthday   INTEGER${constraint},
+   association     INTEGER${constraint}
+) ${create-table-suffix};
+
+${create-index}${index-schema}jlr_enty_brthdy${graph-suffix} ON ${index-table-prefix}${schema}JAILER_ENTITY${graph-suffix} (type, birthday) ${create-index-suffix};
+${for-each:column-list}${create-index}${index-schema}jlr_enty_upk${graph-suffix}_$i ON ${index-table-prefix}${schema}JAILER_ENTITY${graph-suffix} (type $, birthday) ${create-index-suffix};
+${end}
+
+${create-table}${schema}JAILER_DEPENDENCY${graph-suffix}
+(
+   r_entitygraph   INTEGER NOT NULL,
+   assoc           INTEGER NOT NULL,
+   depend_id       INTEGER NOT NULL,
+   traversed       INTEGER${constraint},
+   from_type       INTEGER NOT NULL,
+   to_type         INTEGER NOT NULL,
+   ${from},
+   ${to}
+) ${create-table-suffix};
+
+${for-each:column-list-from}${create-index}${index-schema}jlr_dep_from${graph-suffix}_$i ON ${index-table-prefix}${schema}JAILER_DEPENDENCY${graph-suffix} (assoc $) ${create-index-suffix};
+${end}
+${for-each:column-list-to}${create-index}${index-schema}jlr_dep_to${graph-suffix}_$i ON ${index-table-prefix}${schema}JAILER_DEPENDENCY${graph-suffix} (to_type $) ${create-index-suffix};
+${end}
@@ -76,3 +76,5 @@ ${create-table}${schema}JAILER_TMP${table-suffix}
 ) ${create-table-suffix};
 
 INSERT INTO ${schema}${config-dml-reference}${table-suffix}(jversion, jkey, jvalue) values('${version}', 'upk', '${upk-hash}');
+${for-each:graph-tables}INSERT INTO ${schema}${config-dml-reference}${table-suffix}(jversion, jkey, jvalue) values('${version}', 'graph-tables', '$');
+${end}
@@ -29,6 +29,7 @@ public class ExportStatistic {
 
 	private Map<Table, Long> exportedRows = new HashMap<Table, Long>();
 	private long total;
+	private long numberOfExportedLOBs;
 
 	/**
 	 * Gets number of exported rows per table.
@@ -65,5 +66,23 @@ public class ExportStatistic {
 	public void setTotal(long total) {
 		this.total = total;
 	}
+
+	/**
+	 * Gets number of exported CLOBs/BLOBs.
+	 * 
+	 * @return number of exported CLOBs/BLOBs
+	 */
+	public long getNumberOfExportedLOBs() {
+		return numberOfExportedLOBs;
+	}
+
+	/**
+	 * Sets number of exported CLOBs/BLOBs.
+	 * 
+	 * @param numberOfExportedLOBs number of exported CLOBs/BLOBs
+	 */
+	public void setNumberOfExportedLOBs(long numberOfExportedLOBs) {
+		this.numberOfExportedLOBs = numberOfExportedLOBs;
+	}
 	
 }
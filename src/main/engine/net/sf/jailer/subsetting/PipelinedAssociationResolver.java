@@ -0,0 +1,440 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.subsetting;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+import net.sf.jailer.ExecutionContext;
+import net.sf.jailer.datamodel.Association;
+import net.sf.jailer.datamodel.Cardinality;
+import net.sf.jailer.datamodel.DataModel;
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.entitygraph.EntityGraph;
+import net.sf.jailer.util.CancellationException;
+import net.sf.jailer.util.JobManager;
+
+/**
+ * Resolves associations without day-by-day barriers.<br>
+ * <br>
+ * The rows of a table that are collected on day <code>d</code> are resolved
+ * as soon as the table is complete for that day, that is, as soon as all associations
+ * leading to the table on day <code>d</code> are resolved. Other tables are not waited for.
+ * Associations with the same destination are still resolved one after another and
+ * in order of days. Therefore the birthdays of all collected rows are the same as
+ * with strict day-by-day resolution.
+ *
+ * @author Ralf Wisser
+ */
+class PipelinedAssociationResolver {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger _log = Logger.getLogger(PipelinedAssociationResolver.class);
+
+	private final DataModel datamodel;
+	private final EntityGraph entityGraph;
+	private final ExecutionContext executionContext;
+	private final JobManager jobManager;
+
+	/**
+	 * Executed before each resolution.
+	 */
+	private final Runnable beforeResolution;
+
+	/**
+	 * Resolution of an association on a given day.
+	 */
+	private static class Task {
+		final Association association;
+		final int day;
+
+		Task(Association association, int day) {
+			this.association = association;
+			this.day = day;
+		}
+	}
+
+	/**
+	 * Associations leading to a table.
+	 */
+	private final Map<Table, List<Association>> incoming = new HashMap<Table, List<Association>>();
+
+	/**
+	 * Last day for which a table is complete.
+	 */
+	private final Map<Table, Integer> finalDay = new HashMap<Table, Integer>();
+
+	/**
+	 * Associations from which rows of a table are collected, per day. Contains only days with progress.
+	 */
+	private final Map<Table, Map<Integer, Collection<Association>>> progress = new HashMap<Table, Map<Integer, Collection<Association>>>();
+
+	/**
+	 * Number of unfinished resolutions per destination and day.
+	 */
+	private final Map<Table, Map<Integer, Integer>> unfinished = new HashMap<Table, Map<Integer, Integer>>();
+
+	/**
+	 * Resolutions waiting for execution.
+	 */
+	private final List<Task> waiting = new LinkedList<Task>();
+
+	/**
+	 * Destinations of the resolutions currently being executed.
+	 */
+	private final Set<Table> lockedDestinations = new HashSet<Table>();
+
+	/**
+	 * Tables to be checked for completion.
+	 */
+	private final Set<Table> worklist = new LinkedHashSet<Table>();
+
+	private Set<Table> completedTables;
+	private int maxDay;
+	private int running = 0;
+	private boolean failed = false;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param datamodel the data model
+	 * @param entityGraph the entity graph
+	 * @param executionContext the execution context
+	 * @param jobManager job manager providing the threads
+	 * @param beforeResolution executed before each resolution
+	 */
+	PipelinedAssociationResolver(DataModel datamodel, EntityGraph entityGraph, ExecutionContext executionContext, JobManager jobManager, Runnable beforeResolution) {
+		this.datamodel = datamodel;
+		this.entityGraph = entityGraph;
+		this.executionContext = executionContext;
+		this.jobManager = jobManager;
+		this.beforeResolution = beforeResolution;
+	}
+
+	/**
+	 * Resolves all associations.
+	 *
+	 * @param today birthday of the rows collected so far
+	 * @param progressOfToday set of tables from which rows are collected today
+	 * @param completedTables tables whose rows are all collected
+	 * @param totalProgress collects the tables from which rows are collected
+	 *
+	 * @return the first day without progress
+	 */
+	int resolve(int today, Collection<Table> progressOfToday, Set<Table> completedTables, Set<Table> totalProgress) throws CancellationException, SQLException {
+		this.completedTables = completedTables;
+		for (Table table: datamodel.getTables()) {
+			finalDay.put(table, today);
+			for (Association association: table.associations) {
+				List<Association> as = incoming.get(association.destination);
+				if (as == null) {
+					as = new ArrayList<Association>();
+					incoming.put(association.destination, as);
+				}
+				as.add(association);
+			}
+		}
+		maxDay = today;
+		if (progressOfToday.isEmpty()) {
+			return today;
+		}
+		_log.info("day " + today + ", progress: " + asString(progressOfToday));
+		synchronized (this) {
+			for (Table table: progressOfToday) {
+				getProgress(table, today, true);
+				enqueue(table, today + 1);
+			}
+			worklist.addAll(finalDay.keySet());
+			advance();
+		}
+
+		int numWorkers = Math.max(1, executionContext.getNumberOfThreads());
+		final long[] busyTime = new long[numWorkers];
+		List<JobManager.Job> workers = new ArrayList<JobManager.Job>();
+		for (int i = 0; i < numWorkers; ++i) {
+			final int workerNumber = i;
+			workers.add(new JobManager.Job() {
+				@Override
+				public void run() throws SQLException, CancellationException {
+					for (;;) {
+						Task task = take();
+						if (task == null) {
+							break;
+						}
+						long startTime = System.nanoTime();
+						long rc;
+						try {
+							rc = execute(task);
+						} catch (SQLException e) {
+							fail();
+							throw e;
+						} catch (RuntimeException e) {
+							fail();
+							throw e;
+						} finally {
+							busyTime[workerNumber] += System.nanoTime() - startTime;
+						}
+						done(task, rc);
+					}
+				}
+			});
+		}
+
+		long startTime = System.nanoTime();
+		jobManager.executeJobs(workers);
+		long elapsed = Math.max(1, System.nanoTime() - startTime);
+
+		StringBuilder utilization = new StringBuilder();
+		long totalBusyTime = 0;
+		for (int i = 0; i < numWorkers; ++i) {
+			totalBusyTime += busyTime[i];
+			if (i > 0) {
+				utilization.append(", ");
+			}
+			utilization.append((100 * busyTime[i] / elapsed) + "%");
+		}
+		_log.info("resolved associations in " + (elapsed / 1000000) + " ms, thread utilization: " + (100 * totalBusyTime / elapsed / numWorkers) + "% (" + utilization + ")");
+
+		for (Map.Entry<Table, Map<Integer, Collection<Association>>> e: progress.entrySet()) {
+			if (!e.getValue().isEmpty()) {
+				totalProgress.add(e.getKey());
+			}
+		}
+		return maxDay + 1;
+	}
+
+	/**
+	 * Resolves an association.
+	 *
+	 * @return row-count or -1, if association is ignored
+	 */
+	private long execute(Task task) throws SQLException {
+		final Association association = task.association;
+		final Table table = association.source;
+		final int today = task.day;
+		beforeResolution.run();
+		if (association.getJoinCondition() != null) {
+			_log.info("resolving " + datamodel.getDisplayName(table) + " -> " + association.toString(0, true) + "...");
+		}
+		executionContext.getProgressListenerRegistry().fireCollectionJobStarted(today, association);
+		long rc = entityGraph.resolveAssociation(table, association, today);
+		executionContext.getProgressListenerRegistry().fireCollected(today, association, rc);
+		if (rc >= 0) {
+			_log.info(rc + " entities found resolving " + datamodel.getDisplayName(table) + " -> " + association.toString(0, true));
+		}
+		if (executionContext.getMaxNumberOfEntities() > 0 && executionContext.getMaxNumberOfEntities() < entityGraph.getTotalRowcount()) {
+			throw new RuntimeException("found more than " + executionContext.getMaxNumberOfEntities() + " entities.");
+		}
+		return rc;
+	}
+
+	/**
+	 * Gets the next resolution to be executed. Waits until one is ready.
+	 *
+	 * @return the next resolution or <code>null</code> if all associations are resolved
+	 */
+	private synchronized Task take() {
+		for (;;) {
+			if (failed) {
+				return null;
+			}
+			Task next = null;
+			for (Task task: waiting) {
+				Table destination = task.association.destination;
+				if (!lockedDestinations.contains(destination) && finalDay.get(destination) >= task.day - 1) {
+					if (next == null || task.day < next.day) {
+						next = task;
+					}
+				}
+			}
+			if (next != null) {
+				waiting.remove(next);
+				lockedDestinations.add(next.association.destination);
+				++running;
+				return next;
+			}
+			if (running == 0) {
+				if (!waiting.isEmpty()) {
+					throw new IllegalStateException("unable to resolve " + waiting.size() + " associations");
+				}
+				notifyAll();
+				return null;
+			}
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	/**
+	 * Registers the result of a resolution.
+	 *
+	 * @param task the resolution
+	 * @param rc row-count
+	 */
+	private synchronized void done(Task task, long rc) {
+		Table destination = task.association.destination;
+		lockedDestinations.remove(destination);
+		--running;
+		if (rc > 0) {
+			getProgress(destination, task.day, true).add(task.association);
+			if (task.day > maxDay) {
+				maxDay = task.day;
+				worklist.addAll(finalDay.keySet());
+			}
+		}
+		decrementUnfinished(destination, task.day);
+		advance();
+		notifyAll();
+	}
+
+	/**
+	 * Stops resolution after an error.
+	 */
+	private synchronized void fail() {
+		failed = true;
+		notifyAll();
+	}
+
+	/**
+	 * Marks tables as complete for the next day, as far as possible.
+	 */
+	private void advance() {
+		while (!worklist.isEmpty()) {
+			Iterator<Table> i = worklist.iterator();
+			Table table = i.next();
+			i.remove();
+			int day = finalDay.get(table) + 1;
+			if (day <= maxDay + 1 && isComplete(table, day)) {
+				finalDay.put(table, day);
+				Collection<Association> as = getProgress(table, day, false);
+				if (as != null) {
+					_log.info("day " + day + ", progress: " + datamodel.getDisplayName(table));
+					enqueue(table, day + 1);
+				}
+				worklist.add(table);
+				for (Association association: table.associations) {
+					worklist.add(association.destination);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks whether all rows of a table are collected for a given day.
+	 */
+	private boolean isComplete(Table table, int day) {
+		List<Association> as = incoming.get(table);
+		if (as != null) {
+			for (Association association: as) {
+				if (finalDay.get(association.source) < day - 1) {
+					return false;
+				}
+			}
+		}
+		Map<Integer, Integer> u = unfinished.get(table);
+		return u == null || !u.containsKey(day);
+	}
+
+	/**
+	 * Creates the resolutions of the rows of a table collected on the day before a given day.
+	 *
+	 * @param table the table
+	 * @param today the day
+	 */
+	private void enqueue(Table table, int today) {
+		Collection<Association> progressOfYesterday = getProgress(table, today - 1, false);
+		for (Association association: table.associations) {
+			if (progressOfYesterday.size() == 1 && progressOfYesterday.iterator().next() == association.reversalAssociation) {
+				if (association.getCardinality() == Cardinality.MANY_TO_ONE || association.getCardinality() == Cardinality.ONE_TO_ONE) {
+					_log.info("skip reversal association " + datamodel.getDisplayName(table) + " -> " + datamodel.getDisplayName(association.destination));
+					continue;
+				}
+			}
+			if (completedTables.contains(association.destination)) {
+				_log.info("skip association " + datamodel.getDisplayName(table) + " -> " + datamodel.getDisplayName(association.destination) + ". All rows exported.");
+				continue;
+			}
+			if (association.getJoinCondition() == null) {
+				continue;
+			}
+			executionContext.getProgressListenerRegistry().fireCollectionJobEnqueued(today, association);
+			waiting.add(new Task(association, today));
+			Map<Integer, Integer> u = unfinished.get(association.destination);
+			if (u == null) {
+				u = new HashMap<Integer, Integer>();
+				unfinished.put(association.destination, u);
+			}
+			Integer count = u.get(today);
+			u.put(today, count == null? 1 : count + 1);
+		}
+	}
+
+	private void decrementUnfinished(Table destination, int day) {
+		Map<Integer, Integer> u = unfinished.get(destination);
+		int count = u.get(day) - 1;
+		if (count == 0) {
+			u.remove(day);
+		} else {
+			u.put(day, count);
+		}
+		worklist.add(destination);
+	}
+
+	private Collection<Association> getProgress(Table table, int day, boolean create) {
+		Map<Integer, Collection<Association>> p = progress.get(table);
+		if (p == null) {
+			if (!create) {
+				return null;
+			}
+			p = new HashMap<Integer, Collection<Association>>();
+			progress.put(table, p);
+		}
+		Collection<Association> as = p.get(day);
+		if (as == null && create) {
+			as = new ArrayList<Association>();
+			p.put(day, as);
+		}
+		return as;
+	}
+
+	private String asString(Collection<Table> tables) {
+		StringBuilder sb = new StringBuilder();
+		for (Table table: tables) {
+			if (sb.length() > 0) {
+				sb.append(", ");
+			}
+			sb.append(datamodel.getDisplayName(table));
+		}
+		return sb.toString();
+	}
+
+}
@@ -40,9 +40,6 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.zip.GZIPOutputStream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import javax.sql.DataSource;
 import javax.xml.transform.TransformerConfigurationException;
@@ -57,8 +54,10 @@ import net.sf.jailer.ExecutionContext;
 import net.sf.jailer.JailerVersion;
 import net.sf.jailer.configuration.Configuration;
 import net.sf.jailer.configuration.DBMS;
+import net.sf.jailer.database.BasicDataSource;
 import net.sf.jailer.database.DMLTransformer;
 import net.sf.jailer.database.DeletionTransformer;
+import net.sf.jailer.database.DirectTransferTransformer;
 import net.sf.jailer.database.PrimaryKeyValidator;
 import net.sf.jailer.database.Session;
 import net.sf.jailer.database.StatisticRenovator;
@@ -76,6 +75,7 @@ import net.sf.jailer.dbunit.FlatXMLTransformer;
 import net.sf.jailer.ddl.DDLCreator;
 import net.sf.jailer.enhancer.ScriptEnhancer;
 import net.sf.jailer.entitygraph.EntityGraph;
+import net.sf.jailer.entitygraph.KeyAccessibleEntityGraph;
 import net.sf.jailer.entitygraph.intradatabase.IntraDatabaseEntityGraph;
 import net.sf.jailer.entitygraph.local.LocalEntityGraph;
 import net.sf.jailer.entitygraph.remote.RemoteEntityGraph;
@@ -87,10 +87,12 @@ import net.sf.jailer.progress.ProgressListener;
 import net.sf.jailer.util.CancellationException;
 import net.sf.jailer.util.CancellationHandler;
 import net.sf.jailer.util.CycleFinder;
+import net.sf.jailer.util.DependencyGraph;
 import net.sf.jailer.util.JobManager;
 import net.sf.jailer.util.JobManager.Job;
 import net.sf.jailer.util.PrintUtil;
 import net.sf.jailer.util.Quoting;
+import net.sf.jailer.util.ScriptCodecRegistry;
 import net.sf.jailer.xml.XmlExportTransformer;
 import net.sf.jailer.xml.XmlUtil;
 
@@ -110,7 +112,7 @@ public class SubsettingEngine {
 		this.executionContext = executionContext;
 		this.collectedRowsCounter = new CollectedRowsCounter();
 		this.executionContext.getProgressListenerRegistry().addProgressListener(collectedRowsCounter);
-		jobManager = new JobManager(executionContext.getNumberOfThreads());
+		jobManager = new JobManager(executionContext.getNumberOfThreads(), Session.RELEASE_THREAD_CONNECTIONS);
 	}
 
 	/**
@@ -209,12 +211,22 @@ public class SubsettingEngine {
 		}
 		Set<Table> totalProgress = new HashSet<Table>();
 
-		while (!progress.isEmpty()) {
-			totalProgress.addAll(progress.keySet());
-			_log.info("day " + today + ", progress: " + asString(progress.keySet()));
-			++today;
+		if (executionContext.getPipelined()) {
+			today = new PipelinedAssociationResolver(datamodel, entityGraph, executionContext, jobManager, new Runnable() {
+				@Override
+				public void run() {
+					runstats();
+				}
+			}).resolve(today, progress.keySet(), completedTables, totalProgress);
 			entityGraph.setAge(today + 1);
-			progress = resolveAssociations(today, progress, completedTables);
+		} else {
+			while (!progress.isEmpty()) {
+				totalProgress.addAll(progress.keySet());
+				_log.info("day " + today + ", progress: " + asString(progress.keySet()));
+				++today;
+				entityGraph.setAge(today + 1);
+				progress = resolveAssociations(today, progress, completedTables);
+			}
 		}
 
 		_log.info("exported " + datamodel.getDisplayName(table) + " Where " + condition.replace('\n', ' ').replace('\r', ' '));
@@ -390,8 +402,8 @@ public class SubsettingEngine {
 		}
 		jobManager.executeJobs(jobs);
 
-		if (EntityGraph.maxTotalRowcount > 0 && EntityGraph.maxTotalRowcount < entityGraph.getTotalRowcount()) {
-			throw new RuntimeException("found more than " + EntityGraph.maxTotalRowcount + " entities.");
+		if (executionContext.getMaxNumberOfEntities() > 0 && executionContext.getMaxNumberOfEntities() < entityGraph.getTotalRowcount()) {
+			throw new RuntimeException("found more than " + executionContext.getMaxNumberOfEntities() + " entities.");
 		}
 
 		return progress;
@@ -469,6 +481,33 @@ public class SubsettingEngine {
 		jobManager.executeJobs(jobs);
 	}
 
+	/**
+	 * Session of the database into which the rows are inserted directly.
+	 */
+	private Session transferTargetSession;
+
+	/**
+	 * Gets the session of the database into which the rows are inserted directly.
+	 * 
+	 * @return session of {@link ExecutionContext#getTransferTarget()}
+	 */
+	private synchronized Session getTransferTargetSession() throws SQLException {
+		if (transferTargetSession == null) {
+			DataSource dataSource = executionContext.getTransferTarget();
+			DBMS dbms;
+			if (dataSource instanceof BasicDataSource) {
+				dbms = ((BasicDataSource) dataSource).dbms;
+			} else {
+				dbms = targetDBMSConfiguration(entityGraph.getTargetSession());
+			}
+			transferTargetSession = new Session(dataSource, dbms, executionContext.getIsolationLevel());
+			if (executionContext.getMaxNumberOfConnections() > 0) {
+				transferTargetSession.getConnectionPool().setMaxSize(executionContext.getMaxNumberOfConnections());
+			}
+		}
+		return transferTargetSession;
+	}
+
 	/**
 	 * Writes entities into extract-SQL-script.
 	 * 
@@ -522,6 +561,8 @@ public class SubsettingEngine {
 						executionContext.getXmlTimeStampPattern(),
 						targetSession,
 						executionContext);
+			} else if (executionContext.getTransferTarget() != null) {
+				return new DirectTransferTransformer.Factory(getTransferTargetSession(), executionContext.getTransferBatchSize(), executionContext);
 			} else {
 				return new DMLTransformer.Factory(outputWriter, executionContext.getUpsertOnly(), executionContext.getNumberOfEntities(), targetSession, targetDBMSConfiguration(targetSession), executionContext);
 			}
@@ -549,16 +590,7 @@ public class SubsettingEngine {
 		if (parentFile != null) {
 			parentFile.mkdirs();
 		}
-		OutputStream outputStream = new FileOutputStream(file);
-		if (sqlScriptFile.toLowerCase().endsWith(".zip")) {
-			outputStream = new ZipOutputStream(outputStream);
-			String zipFileName = file.getName();
-			((ZipOutputStream)outputStream).putNextEntry(new ZipEntry(zipFileName.substring(0, zipFileName.length() - 4)));
-		} else {
-			if (sqlScriptFile.toLowerCase().endsWith(".gz")) {
-				outputStream = new GZIPOutputStream(outputStream);
-			}
-		}
+		OutputStream outputStream = ScriptCodecRegistry.createOutputStream(new FileOutputStream(file), sqlScriptFile);
 		TransformerHandler transformerHandler = null;
 		ImportFilterManager importFilterManager = null;
 		OutputStreamWriter result = null;
@@ -681,9 +713,8 @@ public class SubsettingEngine {
 						i.remove();
 					}
 				}
-				Set<Table> independentTables = datamodel.getIndependentTables(remaining, relevantAssociations);
 				rest = entityGraph.getSize(dependentTables);
-				while (!independentTables.isEmpty()) {
+				for (Set<Table> independentTables: DependencyGraph.create(remaining, relevantAssociations).getDependencyLevels()) {
 					_log.info("independent tables: " + asString(independentTables));
 					for (final Table independentTable : independentTables) {
 						rest = entityGraph.getSize(dependentTables);
@@ -701,7 +732,6 @@ public class SubsettingEngine {
 						}
 					}
 					remaining.removeAll(independentTables);
-					independentTables = datamodel.getIndependentTables(remaining, relevantAssociations);
 				}
 			} else {
 				rest = writeIndependentEntities(result, dependentTables, entityGraph);
@@ -814,7 +844,8 @@ public class SubsettingEngine {
 			} catch (Exception e) {
 				_log.warn(e.getMessage());
 			}
-			Set<Table> cycle = CycleFinder.getCycle(dependentTables);
+			DependencyGraph dependencyGraph = DependencyGraph.create(dependentTables);
+			Set<Table> cycle = dependencyGraph.getCyclicTables();
 			String msgTitel = rest + " entities not exported due to cyclic dependencies.\n";
 			String msg = msgTitel + (cycle.size() == 1? "Table" : "Tables") + " with cyclic dependencies: " + asString(cycle);
 			_log.error(msg);
@@ -824,9 +855,7 @@ public class SubsettingEngine {
 				executionContext.getProgressListenerRegistry().fireNewStage("cycle error, analysing...", true, false);
 				String sMsg = msgTitel + "Paths:\n";
 				int i = 0;
-				for (CycleFinder.Path path: CycleFinder.findCycle(datamodel, cycle, false, 10000L, null)) {
-					List<Table> pList = new ArrayList<Table>();
-					path.fillPath(pList);
+				for (List<Table> pList: dependencyGraph.getShortestCycles(32)) {
 					sMsg += "[ ";
 					boolean ft = true;
 					for (Table t: pList) {
@@ -860,7 +889,14 @@ public class SubsettingEngine {
 			jobs.add(new JobManager.Job() {
 				@Override
 				public void run() throws SQLException {
-					eg.updateEntities(entry.getKey(), entry.getValue(), result, targetDBMSConfiguration(entityGraph.getTargetSession()), "explicit due to circular dependency");
+					if (entityGraph.getTransformerFactory() instanceof DirectTransferTransformer.Factory) {
+						// update the target database instead of writing update statements
+						Table table = entry.getKey();
+						Session.ResultSetReader reader = ((DirectTransferTransformer.Factory) entityGraph.getTransformerFactory()).createUpdater(table, new ArrayList<Column>(entry.getValue()));
+						eg.readEntityColumns(table, DirectTransferTransformer.updateSelection(table, entry.getValue(), eg.getSession()), reader);
+					} else {
+						eg.updateEntities(entry.getKey(), entry.getValue(), result, targetDBMSConfiguration(entityGraph.getTargetSession()), "explicit due to circular dependency");
+					}
 				}
 			});
 		}
@@ -913,6 +949,13 @@ public class SubsettingEngine {
 	 */
 	private long writeIndependentEntities(OutputStreamWriter result, Set<Table> dependentTables, final EntityGraph theEntityGraph)
 			throws SQLException, IOException {
+		if (executionContext.getWritePlannerMemory() > 0 && !dependentTables.isEmpty()) {
+			TopologicalWritePlanner planner = new TopologicalWritePlanner(executionContext.getWritePlannerMemory() * 1024L * 1024L);
+			if (planner.plan(theEntityGraph, dependentTables)) {
+				return writePlannedEntities(result, dependentTables, theEntityGraph, planner);
+			}
+			_log.info("topological sorting in memory not possible (" + (planner.getMemoryUsage() / 1024 / 1024) + " MB needed)");
+		}
 		long rest;
 		rest = theEntityGraph.getSize(dependentTables);
 		for (;;) {
@@ -948,6 +991,68 @@ public class SubsettingEngine {
 		return rest;
 	}
 	
+	/**
+	 * Maximum number of entities read by a single keyed query.
+	 */
+	private static final int PLANNED_ENTITIES_BLOCK_SIZE = 500;
+
+	/**
+	 * Writes out the entities of a given {@link EntityGraph} in the order planned by a {@link TopologicalWritePlanner},
+	 * reading the entities of each level by their primary keys. Removes the written entities from the graph.
+	 * 
+	 * @param result writer to output file
+	 * @param dependentTables tables to consider
+	 * @param theEntityGraph the entity graph, a {@link KeyAccessibleEntityGraph}
+	 * @param planner the plan
+	 * @return number of remaining entities
+	 */
+	private long writePlannedEntities(OutputStreamWriter result, Set<Table> dependentTables, EntityGraph theEntityGraph, TopologicalWritePlanner planner)
+			throws SQLException, IOException {
+		final KeyAccessibleEntityGraph keyAccessibleEntityGraph = (KeyAccessibleEntityGraph) theEntityGraph;
+		_log.info("sorted topologically in memory: " + planner.getNumberOfLevels() + " levels");
+		for (int level = 0; level < planner.getNumberOfLevels(); ++level) {
+			List<JobManager.Job> jobs = new ArrayList<JobManager.Job>();
+			for (final Map.Entry<Table, List<String[]>> entry: planner.getEntities(level).entrySet()) {
+				jobs.add(new JobManager.Job() {
+					@Override
+					public void run() throws SQLException {
+						List<String[]> keys = entry.getValue();
+						for (int i = 0; i < keys.size(); i += PLANNED_ENTITIES_BLOCK_SIZE) {
+							keyAccessibleEntityGraph.readEntitiesByKeys(entry.getKey(), keys.subList(i, Math.min(keys.size(), i + PLANNED_ENTITIES_BLOCK_SIZE)));
+						}
+					}
+				});
+			}
+			if (result != null && !jobs.isEmpty()) {
+				appendSync(result);
+			}
+			jobManager.executeJobs(jobs);
+		}
+		if (result != null) {
+			// same number of syncs as with iterative writing, which ends with a round without progress
+			// unless all entities are written
+			int rounds = planner.getNumberOfUnplannedEntities() > 0? planner.getNumberOfLevels() + 1 : Math.max(1, planner.getNumberOfLevels());
+			for (int i = planner.getNumberOfLevels(); i < rounds; ++i) {
+				appendSync(result);
+			}
+		}
+
+		// remove the written entities
+		Map<Table, List<String[]>> partiallyWritten = planner.getPlannedEntitiesOfPartiallyPlannedTables();
+		for (Table table: dependentTables) {
+			List<String[]> keys = partiallyWritten.get(table);
+			if (keys == null) {
+				keyAccessibleEntityGraph.markEntities(table, null);
+			} else {
+				for (int i = 0; i < keys.size(); i += PLANNED_ENTITIES_BLOCK_SIZE) {
+					keyAccessibleEntityGraph.markEntities(table, keys.subList(i, Math.min(keys.size(), i + PLANNED_ENTITIES_BLOCK_SIZE)));
+				}
+			}
+			theEntityGraph.deleteIndependentEntities(table);
+		}
+		return planner.getNumberOfUnplannedEntities();
+	}
+
 	/**
 	 * Gets set of all tables, which are no parents (recursiv).
 	 * 
@@ -1018,16 +1123,7 @@ public class SubsettingEngine {
 	private void writeEntitiesAsXml(String xmlFile, final Set<Table> progress, final Set<Table> subjects, Session session) throws IOException, CancellationException, SQLException, SAXException {
 		_log.info("writing file '" + xmlFile + "'...");
 
-		OutputStream outputStream = new FileOutputStream(new File(xmlFile));
-		if (xmlFile.toLowerCase().endsWith(".zip")) {
-			outputStream = new ZipOutputStream(outputStream);
-			String zipFileName = new File(xmlFile).getName();
-			((ZipOutputStream)outputStream).putNextEntry(new ZipEntry(zipFileName.substring(0, zipFileName.length() - 4)));
-		} else {
-			if (xmlFile.toLowerCase().endsWith(".gz")) {
-				outputStream = new GZIPOutputStream(outputStream);
-			}
-		}
+		OutputStream outputStream = ScriptCodecRegistry.createOutputStream(new FileOutputStream(new File(xmlFile)), xmlFile);
 
 		// then write entities of tables having cyclic-dependencies
 		_log.info("create hierarchy for: " + asString(progress));
@@ -1184,8 +1280,7 @@ public class SubsettingEngine {
 			Set<Table> progress, final String filepath) throws SQLException, IOException {
 		Set<Table> tables = new TreeSet<Table>(progress);
 
-		Set<Table> independentTables = datamodel.getIndependentTables(tables);
-		while (!independentTables.isEmpty()) {
+		for (Set<Table> independentTables: DependencyGraph.create(tables).getDependencyLevels()) {
 			_log.info("independent tables: " + asString(independentTables));
 			List<JobManager.Job> jobs = new ArrayList<JobManager.Job>();
 			for (final Table independentTable : independentTables) {
@@ -1211,7 +1306,6 @@ public class SubsettingEngine {
 				jobManager.executeJobs(jobs);
 			}
 			tables.removeAll(independentTables);
-			independentTables = datamodel.getIndependentTables(tables);
 		}
 
 		return tables;
@@ -1235,6 +1329,10 @@ public class SubsettingEngine {
 		if (!isDown) {
 			jobManager.shutdown();
 			entityGraph.shutDown();
+			if (transferTargetSession != null) {
+				transferTargetSession.shutDown();
+				transferTargetSession = null;
+			}
 			isDown = true;
 		}
 	}
@@ -1285,7 +1383,6 @@ public class SubsettingEngine {
 	}
 
 	private String subjectCondition;
-	private static Map<String, List<ExtractionModel>> modelPool = new HashMap<String, List<ExtractionModel>>();
 	
 	/**
 	 * Exports entities.
@@ -1303,7 +1400,11 @@ public class SubsettingEngine {
 		}
 
 		Session session = new Session(dataSource, dbms, executionContext.getIsolationLevel(), executionContext.getScope(), executionContext.getTransactional());
+		if (executionContext.getMaxNumberOfConnections() > 0) {
+			session.getConnectionPool().setMaxSize(executionContext.getMaxNumberOfConnections());
+		}
 		ExtractionModel extractionModel = null;
+		Map<String, List<ExtractionModel>> modelPool = executionContext.getModelPool();
 		if (modelPoolSize > 0) {
 			synchronized (modelPool) {
 				List<ExtractionModel> models = modelPool.get(extractionModelURL.toString());
@@ -1458,6 +1559,9 @@ public class SubsettingEngine {
 					writeEntitiesAsXml(scriptFile, totalProgress, subjects, session);
 				} else {
 					writeEntities(scriptFile, ScriptType.INSERT, totalProgress, session, "exporting rows", startTimestamp, afterCollectionTimestamp);
+					if (entityGraph.getTransformerFactory() instanceof DMLTransformer.Factory) {
+						exportStatistic.setNumberOfExportedLOBs(((DMLTransformer.Factory) entityGraph.getTransformerFactory()).getNumberOfExportedLOBs());
+					}
 				}
 			}
 			exportedCount = entityGraph.getExportedCount();
@@ -0,0 +1,351 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.subsetting;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.entitygraph.EntityGraph;
+import net.sf.jailer.entitygraph.KeyAccessibleEntityGraph;
+
+/**
+ * Plans the order in which the entities of tables with cyclic dependencies are written.<br>
+ * <br>
+ * Loads the entities of the tables and the dependencies between them once and
+ * sorts the entities topologically in memory (Kahn's algorithm). Entities are assigned
+ * to levels: an entity is on level 0 if it doesn't depend on another entity, otherwise
+ * its level is one more than the highest level of the entities on which it depends.
+ * The levels are the rounds in which marking ({@link EntityGraph#markIndependentEntities(Table)})
+ * and deleting ({@link EntityGraph#deleteIndependentEntities(Table)}) would write the entities,
+ * but without passes over the working tables per round.<br>
+ * Entities that depend (transitively) on an entity which is not loaded or which is part of a cycle
+ * remain unplanned.
+ *
+ * @author Ralf Wisser
+ */
+class TopologicalWritePlanner {
+
+	/**
+	 * Estimated memory needed per entity and per dependency, without the keys.
+	 */
+	private static final int ENTITY_SIZE = 128;
+	private static final int DEPENDENCY_SIZE = 16;
+
+	/**
+	 * Estimated memory needed per SQL literal, without the chars.
+	 */
+	private static final int LITERAL_SIZE = 48;
+
+	private final long memoryBudget;
+	private long memoryUsage = 0;
+
+	/**
+	 * The tables, indexed by {@link #entityTable}.
+	 */
+	private final List<Table> tables = new ArrayList<Table>();
+	private final Map<Table, Integer> tableIndex = new HashMap<Table, Integer>();
+
+	/**
+	 * Entity index per table and key.
+	 */
+	private final Map<String, Integer> entityIndex = new HashMap<String, Integer>();
+
+	/**
+	 * Primary keys of the entities.
+	 */
+	private final List<String[]> keys = new ArrayList<String[]>();
+
+	private int numEntities = 0;
+	private int[] entityTable = new int[1024];
+
+	/**
+	 * Entities having birthday 0. They are written first, as if they were independent.
+	 */
+	private final BitSet marked = new BitSet();
+
+	/**
+	 * The dependencies. <code>dependencyTo[i]</code> is -1 if the entity on which
+	 * entity <code>dependencyFrom[i]</code> depends is not loaded.
+	 */
+	private int numDependencies = 0;
+	private int[] dependencyFrom = new int[1024];
+	private int[] dependencyTo = new int[1024];
+
+	/**
+	 * Planned entities ordered by level, and the start of each level in this array.
+	 */
+	private int[] order;
+	private int[] levelStart;
+	private int numPlanned;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param memoryBudget maximum number of bytes (estimated) to be used for the plan
+	 */
+	TopologicalWritePlanner(long memoryBudget) {
+		this.memoryBudget = memoryBudget;
+	}
+
+	/**
+	 * Plans the order in which the entities of the given tables are written.
+	 *
+	 * @param entityGraph the entity graph
+	 * @param tables the tables
+	 * @return <code>false</code> if the entity graph doesn't support planning or the plan exceeds the memory budget
+	 * @see KeyAccessibleEntityGraph
+	 */
+	boolean plan(EntityGraph entityGraph, Set<Table> tables) throws SQLException {
+		if (!(entityGraph instanceof KeyAccessibleEntityGraph)) {
+			return false;
+		}
+		return plan((KeyAccessibleEntityGraph) entityGraph, tables);
+	}
+
+	/**
+	 * Plans the order in which the entities of the given tables are written.
+	 *
+	 * @param entityGraph gives access to the keys of the entities
+	 * @param tables the tables
+	 * @return <code>false</code> if the entities can not be accessed by their keys or the plan exceeds the memory budget
+	 */
+	boolean plan(KeyAccessibleEntityGraph entityGraph, Set<Table> tables) throws SQLException {
+		for (Table table: tables) {
+			tableIndex.put(table, this.tables.size());
+			this.tables.add(table);
+		}
+		KeyAccessibleEntityGraph.EntityKeyReader reader = new KeyAccessibleEntityGraph.EntityKeyReader() {
+			@Override
+			public void readEntity(Table table, String[] key, int birthday) {
+				if (memoryUsage > memoryBudget) {
+					return;
+				}
+				if (numEntities == entityTable.length) {
+					entityTable = Arrays.copyOf(entityTable, 2 * numEntities);
+				}
+				int index = tableIndex.get(table);
+				String id = entityID(index, key);
+				if (!entityIndex.containsKey(id)) {
+					entityIndex.put(id, numEntities);
+					entityTable[numEntities] = index;
+					if (birthday == 0) {
+						marked.set(numEntities);
+					}
+					keys.add(key);
+					++numEntities;
+					memoryUsage += ENTITY_SIZE + 2 * keySize(key);
+				}
+			}
+
+			@Override
+			public void readDependency(Table from, String[] fromKey, Table to, String[] toKey) {
+				if (memoryUsage > memoryBudget) {
+					return;
+				}
+				Integer fromEntity = entityIndex.get(entityID(tableIndex.get(from), fromKey));
+				if (fromEntity == null) {
+					return;
+				}
+				Integer toTable = tableIndex.get(to);
+				Integer toEntity = toTable == null? null : entityIndex.get(entityID(toTable, toKey));
+				if (numDependencies == dependencyFrom.length) {
+					dependencyFrom = Arrays.copyOf(dependencyFrom, 2 * numDependencies);
+					dependencyTo = Arrays.copyOf(dependencyTo, 2 * numDependencies);
+				}
+				dependencyFrom[numDependencies] = fromEntity;
+				dependencyTo[numDependencies] = toEntity == null? -1 : toEntity;
+				++numDependencies;
+				memoryUsage += DEPENDENCY_SIZE;
+			}
+		};
+		for (Table table: tables) {
+			if (!entityGraph.readEntityKeys(table, reader)) {
+				return false;
+			}
+		}
+		for (Table table: tables) {
+			entityGraph.readDependencyKeys(table, reader);
+		}
+		entityIndex.clear();
+		if (memoryUsage > memoryBudget) {
+			return false;
+		}
+		sort();
+		return true;
+	}
+
+	/**
+	 * Gets the number of bytes (estimated) needed for the plan.
+	 */
+	long getMemoryUsage() {
+		return memoryUsage;
+	}
+
+	private String entityID(int table, String[] key) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(table);
+		for (String value: key) {
+			sb.append('\0').append(value);
+		}
+		return sb.toString();
+	}
+
+	private long keySize(String[] key) {
+		long size = 0;
+		for (String value: key) {
+			size += LITERAL_SIZE + 2 * value.length();
+		}
+		return size;
+	}
+
+	/**
+	 * Sorts the entities topologically.
+	 */
+	private void sort() {
+		// dependents of each entity
+		int[] dependentsStart = new int[numEntities + 1];
+		int[] inDegree = new int[numEntities];
+		for (int i = 0; i < numDependencies; ++i) {
+			++inDegree[dependencyFrom[i]];
+			if (dependencyTo[i] >= 0) {
+				++dependentsStart[dependencyTo[i] + 1];
+			}
+		}
+		for (int i = 0; i < numEntities; ++i) {
+			dependentsStart[i + 1] += dependentsStart[i];
+		}
+		int[] dependents = new int[dependentsStart[numEntities]];
+		int[] fill = Arrays.copyOf(dependentsStart, numEntities);
+		for (int i = 0; i < numDependencies; ++i) {
+			if (dependencyTo[i] >= 0) {
+				dependents[fill[dependencyTo[i]]++] = dependencyFrom[i];
+			}
+		}
+		dependencyFrom = null;
+		dependencyTo = null;
+
+		// Kahn's algorithm, level by level
+		order = new int[numEntities];
+		boolean[] planned = new boolean[numEntities];
+		int tail = 0;
+		for (int i = 0; i < numEntities; ++i) {
+			if (inDegree[i] == 0 || marked.get(i)) {
+				order[tail++] = i;
+				planned[i] = true;
+			}
+		}
+		List<Integer> starts = new ArrayList<Integer>();
+		int head = 0;
+		while (head < tail) {
+			starts.add(head);
+			int levelEnd = tail;
+			for (; head < levelEnd; ++head) {
+				int entity = order[head];
+				for (int d = dependentsStart[entity]; d < dependentsStart[entity + 1]; ++d) {
+					int dependent = dependents[d];
+					if (--inDegree[dependent] == 0 && !planned[dependent]) {
+						order[tail++] = dependent;
+						planned[dependent] = true;
+					}
+				}
+			}
+		}
+		numPlanned = tail;
+		levelStart = new int[starts.size() + 1];
+		for (int i = 0; i < starts.size(); ++i) {
+			levelStart[i] = starts.get(i);
+		}
+		levelStart[starts.size()] = numPlanned;
+	}
+
+	/**
+	 * Gets the number of levels.
+	 */
+	int getNumberOfLevels() {
+		return levelStart.length - 1;
+	}
+
+	/**
+	 * Gets the entities on a given level.
+	 *
+	 * @param level the level
+	 * @return primary keys of the entities per table
+	 */
+	Map<Table, List<String[]>> getEntities(int level) {
+		Map<Table, List<String[]>> result = new LinkedHashMap<Table, List<String[]>>();
+		for (int i = levelStart[level]; i < levelStart[level + 1]; ++i) {
+			addEntity(result, order[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the planned entities of the tables not all entities of which are planned.
+	 *
+	 * @return primary keys of the planned entities per table (with an empty list if no entity of a table is planned)
+	 */
+	Map<Table, List<String[]>> getPlannedEntitiesOfPartiallyPlannedTables() {
+		boolean[] partial = new boolean[tables.size()];
+		boolean[] planned = new boolean[numEntities];
+		for (int i = 0; i < numPlanned; ++i) {
+			planned[order[i]] = true;
+		}
+		for (int i = 0; i < numEntities; ++i) {
+			if (!planned[i]) {
+				partial[entityTable[i]] = true;
+			}
+		}
+		Map<Table, List<String[]>> result = new LinkedHashMap<Table, List<String[]>>();
+		for (int i = 0; i < partial.length; ++i) {
+			if (partial[i]) {
+				result.put(tables.get(i), new ArrayList<String[]>());
+			}
+		}
+		for (int i = 0; i < numPlanned; ++i) {
+			if (partial[entityTable[order[i]]]) {
+				addEntity(result, order[i]);
+			}
+		}
+		return result;
+	}
+
+	private void addEntity(Map<Table, List<String[]>> entities, int entity) {
+		Table table = tables.get(entityTable[entity]);
+		List<String[]> tableEntities = entities.get(table);
+		if (tableEntities == null) {
+			tableEntities = new ArrayList<String[]>();
+			entities.put(table, tableEntities);
+		}
+		tableEntities.add(keys.get(entity));
+	}
+
+	/**
+	 * Gets the number of entities that could not be planned due to cyclic dependencies
+	 * or dependencies on entities of other tables.
+	 */
+	long getNumberOfUnplannedEntities() {
+		return numEntities - numPlanned;
+	}
+
+}
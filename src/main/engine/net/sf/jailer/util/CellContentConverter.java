@@ -28,6 +28,7 @@ import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
+import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
@@ -48,14 +49,43 @@ import net.sf.jailer.database.Session;
 public class CellContentConverter {
 
 	private final ResultSetMetaData resultSetMetaData;
-	private final Map<Integer, Integer> typeCache = new HashMap<Integer, Integer>();
 	private final Map<String, Integer> columnIndex = new HashMap<String, Integer>();
 	private final Map<Class<?>, Boolean> isPGObjectClass = new HashMap<Class<?>, Boolean>();
 	private final Session session;
 	private final DBMS configuration;
 	private final DBMS targetConfiguration;
 	private Method pgObjectGetType;
-	
+
+	/**
+	 * Readers of the columns (indexed by column index), compiled on first access.
+	 */
+	private ColumnReader[] columnReaders = new ColumnReader[0];
+
+	/**
+	 * Properties of source and target DBMS, evaluated once.
+	 */
+	private final boolean sourceIsOracle;
+	private final boolean sourceIsPostgres;
+	private final boolean sourceIsMSSQL;
+	private final boolean sourceIsMySQL;
+	private final boolean targetIsPostgres;
+	private final boolean targetHasNoBooleans;
+	private final String datePattern;
+	private final String timestampPattern;
+	private final String ncharPrefix;
+	private final String binaryPattern;
+	private final int binaryPlaceholderIndex;
+
+	/**
+	 * Date formats of the current thread, per pattern. ({@link SimpleDateFormat} is not thread-safe.)
+	 */
+	private static final ThreadLocal<Map<String, SimpleDateFormat>> dateFormats = new ThreadLocal<Map<String, SimpleDateFormat>>() {
+		@Override
+		protected Map<String, SimpleDateFormat> initialValue() {
+			return new HashMap<String, SimpleDateFormat>();
+		}
+	};
+
 	/**
 	 * Constructor.
 	 * 
@@ -68,6 +98,18 @@ public class CellContentConverter {
 		this.session = session;
 		this.targetConfiguration = targetConfiguration;
 		this.configuration = this.session.dbms;
+		this.sourceIsOracle = DBMS.ORACLE.equals(configuration);
+		this.sourceIsPostgres = DBMS.POSTGRESQL.equals(configuration);
+		this.sourceIsMSSQL = DBMS.MSSQL.equals(configuration);
+		this.sourceIsMySQL = DBMS.MySQL.equals(configuration);
+		this.targetIsPostgres = DBMS.POSTGRESQL.equals(targetConfiguration);
+		this.targetHasNoBooleans = DBMS.MSSQL.equals(targetConfiguration) || DBMS.SYBASE.equals(targetConfiguration) || DBMS.SQLITE.equals(targetConfiguration);
+		this.datePattern = targetConfiguration.getDatePattern();
+		this.timestampPattern = targetConfiguration.getTimestampPattern();
+		String prefix = targetConfiguration.getNcharPrefix();
+		this.ncharPrefix = prefix == null? "" : prefix;
+		this.binaryPattern = targetConfiguration.getBinaryPattern();
+		this.binaryPlaceholderIndex = binaryPattern == null? -1 : binaryPattern.indexOf("%s");
 	}
 
 	/**
@@ -81,36 +123,33 @@ public class CellContentConverter {
 			return "null";
 		}
 
+		if (content instanceof String) {
+			return "'" + targetConfiguration.convertToStringLiteral((String) content) + "'";
+		}
+		if (content instanceof Number) {
+			return content.toString();
+		}
 		if (content instanceof java.sql.Date) {
-			if (targetConfiguration.getDatePattern() != null) {
-				synchronized (targetConfiguration.getDatePattern()) {
-					return targetConfiguration.createDateFormat()
-							.format((Date) content);
-				}
+			if (datePattern != null) {
+				return getDateFormat(datePattern).format((Date) content);
 			}
 			return "'" + content + "'";
 		}
 		if (content instanceof java.sql.Timestamp) {
-			String nano = getNanoString((Timestamp) content, true);
-			if (targetConfiguration.getTimestampPattern() != null) {
-				synchronized (targetConfiguration.getTimestampPattern()) {
-					return targetConfiguration.createTimestampFormat()
-							.format(content)
+			if (timestampPattern != null) {
+				String result = getDateFormat(timestampPattern).format(content);
+				if (result.indexOf("${NANO") >= 0) {
+					String nano = getNanoString((Timestamp) content, true);
+					result = result
 							.replace("${NANOFORMAT}", "FF" + (nano.length()))
 							.replace("${NANO}", nano);
 				}
+				return result;
 			}
 			return "'" + content + "'";
 		}
 		if (content instanceof NCharWrapper) {
-			String prefix = targetConfiguration.getNcharPrefix();
-			if (prefix == null) {
-				prefix = "";
-			}
-			return prefix + "'" + targetConfiguration.convertToStringLiteral(content.toString()) + "'";
-		}
-		if (content instanceof String) {
-			return "'" + targetConfiguration.convertToStringLiteral((String) content) + "'";
+			return ncharPrefix + "'" + targetConfiguration.convertToStringLiteral(content.toString()) + "'";
 		}
 		if (content instanceof PObjectWrapper) {
 			if (((PObjectWrapper) content).getValue() == null) {
@@ -120,25 +159,23 @@ public class CellContentConverter {
 		}
 		if (content instanceof byte[]) {
 			byte[] data = (byte[]) content;
-			String binaryPattern = targetConfiguration.getBinaryPattern();
-			int i = binaryPattern.indexOf("%s");
-			if (i < 0) {
+			if (binaryPlaceholderIndex < 0) {
 				return binaryPattern;
 			}
 			StringBuilder hex = new StringBuilder((data.length + 1) * 2 + binaryPattern.length());
-			hex.append(binaryPattern.substring(0, i));
+			hex.append(binaryPattern, 0, binaryPlaceholderIndex);
 			for (byte b: data) {
 				hex.append(hexChar[(b >> 4) & 15]);
 				hex.append(hexChar[b & 15]);
 			}
 			data = null; // gc
-			hex.append(binaryPattern.substring(i + 2));
+			hex.append(binaryPattern, binaryPlaceholderIndex + 2, binaryPattern.length());
 			return hex.toString();
 		}
 		if (content instanceof Time) {
 			return "'" + content + "'";
 		}
-		if (DBMS.POSTGRESQL.equals(configuration)) {
+		if (sourceIsPostgres) {
 			Boolean isPGObject = isPGObjectClass.get(content.getClass());
 			if (isPGObject == null) {
 				isPGObject = content.getClass().getSimpleName().equals("PGobject");
@@ -160,12 +197,12 @@ public class CellContentConverter {
 			}
 		}
 		if (content instanceof UUID) {
-			if (DBMS.POSTGRESQL.equals(targetConfiguration)) {
+			if (targetIsPostgres) {
 				return "'" + content + "'::uuid";
 			}
 			return "'" + content + "'";
 		}
-		if (DBMS.MSSQL.equals(targetConfiguration) || DBMS.SYBASE.equals(targetConfiguration) || DBMS.SQLITE.equals(targetConfiguration)) {
+		if (targetHasNoBooleans) {
 			// Boolean mapping for MSSQL/Sybase/SQLite
 			if (content instanceof Boolean) {
 				content = Boolean.TRUE.equals(content)? "1" : "0";
@@ -173,6 +210,22 @@ public class CellContentConverter {
 		}
 		return content.toString();
 	}
+
+	/**
+	 * Gets a date format for the current thread.
+	 * 
+	 * @param pattern the pattern
+	 * @return {@link SimpleDateFormat} for the pattern, confined to the current thread
+	 */
+	private static SimpleDateFormat getDateFormat(String pattern) {
+		Map<String, SimpleDateFormat> formats = dateFormats.get();
+		SimpleDateFormat format = formats.get(pattern);
+		if (format == null) {
+			format = new SimpleDateFormat(pattern);
+			formats.put(pattern, format);
+		}
+		return format;
+	}
 	
 	/**
 	 * Gets nano string suffix of a timestamp.
@@ -181,22 +234,22 @@ public class CellContentConverter {
 	 * @param nanoSep 
 	 */
 	private static String getNanoString(Timestamp timestamp, boolean full) {
-		String zeros = "000000000";
 		int nanos = timestamp.getNanos();
-		String nanosString = Integer.toString(nanos);
 		
-		// Add leading zeros
-		nanosString = zeros.substring(0, (9-nanosString.length())) + nanosString;
+		// 9 digits with leading zeros
+		char[] nanosChar = new char[9];
+		for (int i = 8; i >= 0; --i) {
+			nanosChar[i] = (char) ('0' + nanos % 10);
+			nanos /= 10;
+		}
 		
 		// Truncate trailing zeros
-		char[] nanosChar = new char[nanosString.length()];
-		nanosString.getChars(0, nanosString.length(), nanosChar, 0);
 		int truncIndex = 8;
 		while (truncIndex > 0 && nanosChar[truncIndex] == '0') {
 			truncIndex--;
 		}
 	
-		nanosString = new String(nanosChar, 0, truncIndex + 1);
+		String nanosString = new String(nanosChar, 0, truncIndex + 1);
 		
 		if (!full) {
 			if (nanosString.length() > 4) {
@@ -316,105 +369,238 @@ public class CellContentConverter {
 	 * @return object
 	 */
 	public Object getObject(ResultSet resultSet, int i) throws SQLException {
-		Integer type = typeCache.get(i);
-		if (type == null) {
+		ColumnReader reader = i < columnReaders.length? columnReaders[i] : null;
+		if (reader == null) {
+			reader = compileColumnReader(i);
+			if (i >= columnReaders.length) {
+				columnReaders = Arrays.copyOf(columnReaders, i + 1);
+			}
+			columnReaders[i] = reader;
+		}
+		return reader.read(resultSet, i);
+	}
+
+	/**
+	 * Reads the content of a column.
+	 */
+	private static abstract class ColumnReader {
+		abstract Object read(ResultSet resultSet, int i) throws SQLException;
+	}
+
+	/**
+	 * Reads a column using {@link ResultSet#getString(int)}.
+	 */
+	private static final ColumnReader STRING_READER = new ColumnReader() {
+		@Override
+		Object read(ResultSet resultSet, int i) throws SQLException {
+			return resultSet.getString(i);
+		}
+	};
+
+	/**
+	 * Reads a column using {@link ResultSet#getTimestamp(int)}.
+	 */
+	private static final ColumnReader TIMESTAMP_READER = new ColumnReader() {
+		@Override
+		Object read(ResultSet resultSet, int i) throws SQLException {
 			try {
-				type = resultSetMetaData.getColumnType(i);
-				if (DBMS.ORACLE.equals(configuration)) {
-					if (type == Types.DATE || type == -102 || type == -101 /* TIMESTAMPTZ */) {
-						type = Types.TIMESTAMP;
-					}
-				 }
-				 if (DBMS.POSTGRESQL.equals(configuration)) {
-					String typeName = resultSetMetaData.getColumnTypeName(i);
-					if (isPostgresObjectType(typeName) || type == Types.ARRAY) {
-						type = TYPE_POBJECT;
-					}
-				 }
-				 // workaround for JDTS bug
-				 if (type == Types.VARCHAR) {
-					 if ("nvarchar".equalsIgnoreCase(resultSetMetaData.getColumnTypeName(i))) {
-						 type = Types.NVARCHAR;
-					 }
-				 }
-				 // workaround for JDTS bug
-				 if (DBMS.MSSQL.equals(configuration)) {
-					 if ("datetimeoffset".equalsIgnoreCase(resultSetMetaData.getColumnTypeName(i))) {
-						 type = Types.TIMESTAMP;
-					 }
-				 }
-				 if (type == Types.CHAR) {
-					 if ("nchar".equalsIgnoreCase(resultSetMetaData.getColumnTypeName(i))) {
-						 type = Types.NCHAR;
-					 }
-				 }
-				 if (type == Types.OTHER) {
-					 if ("rowid".equalsIgnoreCase(resultSetMetaData.getColumnTypeName(i))) {
-						 type = Types.ROWID;
-					 }
-				 }
-			} catch (Exception e) {
-				type = Types.OTHER;
+				return resultSet.getTimestamp(i);
+			} catch (SQLException e) {
+				return resultSet.getString(i);
 			}
-			typeCache.put(i, type);
 		}
-		try {
-			if (type == Types.ROWID) {
+	};
+
+	/**
+	 * Reads a column using {@link ResultSet#getDate(int)}.
+	 */
+	private static final ColumnReader DATE_READER = new ColumnReader() {
+		@Override
+		Object read(ResultSet resultSet, int i) throws SQLException {
+			try {
+				return resultSet.getDate(i);
+			} catch (SQLException e) {
 				return resultSet.getString(i);
 			}
-			if (type == Types.ARRAY) {
+		}
+	};
+
+	/**
+	 * Reads a MySQL YEAR column.
+	 */
+	private static final ColumnReader YEAR_READER = new ColumnReader() {
+		@Override
+		Object read(ResultSet resultSet, int i) throws SQLException {
+			try {
+				int result = resultSet.getInt(i);
+				if (resultSet.wasNull()) {
+					return null;
+				}
+				return result;
+			} catch (SQLException e) {
 				return resultSet.getString(i);
 			}
-			if (type == Types.TIMESTAMP || type == 2014 /* Types.TIMESTAMP_WITH_TIMEZONE */) {
-				return resultSet.getTimestamp(i);
+		}
+	};
+
+	/**
+	 * Reads a column using {@link ResultSet#getObject(int)}.
+	 */
+	private static final ColumnReader OBJECT_READER = new ColumnReader() {
+		@Override
+		Object read(ResultSet resultSet, int i) throws SQLException {
+			return resultSet.getObject(i);
+		}
+	};
+
+	/**
+	 * Reads a national character column.
+	 */
+	private static final ColumnReader NCHAR_READER = new ColumnReader() {
+		@Override
+		Object read(ResultSet resultSet, int i) throws SQLException {
+			Object object = resultSet.getObject(i);
+			if (object instanceof String) {
+				return new NCharWrapper((String) object);
 			}
-			if (type == Types.DATE) {
-				if (DBMS.MySQL.equals(configuration)) {
-					// YEAR
-					String typeName = resultSetMetaData.getColumnTypeName(i);
-					if (typeName != null && typeName.toUpperCase().equals("YEAR")) {
-						int result = resultSet.getInt(i);
-						if (resultSet.wasNull()) {
-							return null;
-						}
-						return result;
-					}
+			return object;
+		}
+	};
+
+	/**
+	 * PostgreSQL bit values.
+	 */
+	private static final Object PG_BIT_1 = new Object() {
+		@Override
+		public String toString() {
+			return "B'1'";
+		}
+	};
+	private static final Object PG_BIT_0 = new Object() {
+		@Override
+		public String toString() {
+			return "B'0'";
+		}
+	};
+
+	/**
+	 * Reads a PostgreSQL column.
+	 */
+	private static class PostgresColumnReader extends ColumnReader {
+		private final boolean isNChar;
+		private final boolean isBit;
+
+		PostgresColumnReader(boolean isNChar, boolean isBit) {
+			this.isNChar = isNChar;
+			this.isBit = isBit;
+		}
+
+		@Override
+		Object read(ResultSet resultSet, int i) throws SQLException {
+			Object object = resultSet.getObject(i);
+			if (isNChar && object instanceof String) {
+				return new NCharWrapper((String) object);
+			}
+			if (object instanceof Double && Double.isNaN((double) object)) {
+				return "NaN";
+			} else if (isBit && object instanceof Boolean) {
+				return Boolean.TRUE.equals(object)? PG_BIT_1 : PG_BIT_0;
+			}
+			return object;
+		}
+	}
+
+	/**
+	 * Reads a PostgreSQL object (hstore, json, array etc.).
+	 */
+	private static class PostgresObjectReader extends ColumnReader {
+		private final String typeName;
+
+		PostgresObjectReader(String typeName) {
+			this.typeName = typeName;
+		}
+
+		@Override
+		Object read(ResultSet resultSet, int i) throws SQLException {
+			return new PObjectWrapper(resultSet.getString(i), typeName);
+		}
+	}
+
+	/**
+	 * Creates the reader for a column, according to the column type and the source DBMS.
+	 * 
+	 * @param i column index
+	 * @return reader for the column
+	 */
+	private ColumnReader compileColumnReader(int i) {
+		int type;
+		String typeName = null;
+		try {
+			type = resultSetMetaData.getColumnType(i);
+			try {
+				typeName = resultSetMetaData.getColumnTypeName(i);
+			} catch (Exception e) {
+				// ignore
+			}
+			if (sourceIsOracle) {
+				if (type == Types.DATE || type == -102 || type == -101 /* TIMESTAMPTZ */) {
+					type = Types.TIMESTAMP;
 				}
-				Date date = resultSet.getDate(i);
-				return date;
 			}
-		} catch (SQLException e) {
-			return resultSet.getString(i);
+			if (sourceIsPostgres) {
+				if (isPostgresObjectType(typeName) || type == Types.ARRAY) {
+					type = TYPE_POBJECT;
+				}
+			}
+			// workaround for JDTS bug
+			if (type == Types.VARCHAR) {
+				if ("nvarchar".equalsIgnoreCase(typeName)) {
+					type = Types.NVARCHAR;
+				}
+			}
+			// workaround for JDTS bug
+			if (sourceIsMSSQL) {
+				if ("datetimeoffset".equalsIgnoreCase(typeName)) {
+					type = Types.TIMESTAMP;
+				}
+			}
+			if (type == Types.CHAR) {
+				if ("nchar".equalsIgnoreCase(typeName)) {
+					type = Types.NCHAR;
+				}
+			}
+			if (type == Types.OTHER) {
+				if ("rowid".equalsIgnoreCase(typeName)) {
+					type = Types.ROWID;
+				}
+			}
+		} catch (Exception e) {
+			type = Types.OTHER;
 		}
-		Object object = resultSet.getObject(i);
 		
 		// TODO mssql: if type is (VAR|LONGVAR)BINARY or (VAR|LONGVAR)(N)CHAR then use #get...Stream(), put data into a B|C|NCLOB implementation
 		
-		if (type == Types.NCHAR || type == Types.NVARCHAR || type == Types.LONGNVARCHAR) {
-			if (object instanceof String) {
-				object = new NCharWrapper((String) object);
+		switch (type) {
+		case Types.ROWID:
+		case Types.ARRAY:
+			return STRING_READER;
+		case Types.TIMESTAMP:
+		case 2014 /* Types.TIMESTAMP_WITH_TIMEZONE */:
+			return TIMESTAMP_READER;
+		case Types.DATE:
+			if (sourceIsMySQL && typeName != null && typeName.toUpperCase().equals("YEAR")) {
+				return YEAR_READER;
 			}
+			return DATE_READER;
+		case TYPE_POBJECT:
+			return new PostgresObjectReader(typeName);
 		}
-		if (DBMS.POSTGRESQL.equals(configuration)) {
-			if (type == TYPE_POBJECT) {
-				return new PObjectWrapper(resultSet.getString(i), resultSetMetaData.getColumnTypeName(i));
-			} else if (object instanceof Double && Double.isNaN((double) object)) {
-				return "NaN";
-			} else if (object instanceof Boolean) {
-				String typeName = resultSetMetaData.getColumnTypeName(i);
-				if (typeName != null && typeName.toLowerCase().equals("bit")) {
-					final String value = Boolean.TRUE.equals(object)? "B'1'" : "B'0'";
-					return new Object() {
-						@Override
-						public String toString() {
-							return value;
-						}
-					};
-				}
-			}
+		boolean isNChar = type == Types.NCHAR || type == Types.NVARCHAR || type == Types.LONGNVARCHAR;
+		if (sourceIsPostgres) {
+			return new PostgresColumnReader(isNChar, typeName != null && typeName.toLowerCase().equals("bit"));
 		}
-		return object;
-	};
+		return isNChar? NCHAR_READER : OBJECT_READER;
+	}
 	
 	private boolean isPostgresObjectType(String columnTypeName) {
 		if (columnTypeName == null) {
@@ -0,0 +1,530 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import net.sf.jailer.datamodel.Association;
+import net.sf.jailer.datamodel.Table;
+
+/**
+ * Insertion dependencies between tables.<br>
+ * <br>
+ * There is an edge from table A to table B if rows of B must be inserted before the rows of A,
+ * that is, if A has a non-ignored association to B that requires to insert the destination before the source.
+ * Tables are numbered in the order of their names, the edges are kept in primitive adjacency arrays.
+ * All results are deterministic.
+ *
+ * @author Ralf Wisser
+ */
+public class DependencyGraph {
+
+	/**
+	 * Consumes cycles.
+	 */
+	public interface CycleConsumer {
+
+		/**
+		 * Consumes a cycle.
+		 *
+		 * @param cycle the tables of the cycle, the first table is repeated at the end
+		 * @return <code>false</code> to stop searching
+		 */
+		boolean consume(List<Table> cycle);
+	}
+
+	/**
+	 * Number of steps between two checks for cancellation.
+	 */
+	private static final int CANCELLATION_CHECK_INTERVAL = 4096;
+
+	/**
+	 * The tables, ordered by name.
+	 */
+	private final Table[] tables;
+
+	/**
+	 * Successors of table i are <code>edges[edgeOffsets[i]]</code> to <code>edges[edgeOffsets[i + 1] - 1]</code>, ordered.
+	 */
+	private final int[] edgeOffsets;
+	private final int[] edges;
+
+	/**
+	 * Strongly connected component of each table, created on demand.
+	 */
+	private int[] components;
+
+	/**
+	 * <code>true</code> for each table that is part of a cycle, created on demand.
+	 */
+	private boolean[] cyclic;
+
+	private int steps = 0;
+
+	private DependencyGraph(Table[] tables, int[] edgeOffsets, int[] edges) {
+		this.tables = tables;
+		this.edgeOffsets = edgeOffsets;
+		this.edges = edges;
+	}
+
+	/**
+	 * Creates the dependency graph of a set of tables.
+	 *
+	 * @param tables the tables
+	 * @return the graph
+	 */
+	public static DependencyGraph create(Collection<Table> tables) {
+		return create(tables, null);
+	}
+
+	/**
+	 * Creates the dependency graph of a set of tables.
+	 *
+	 * @param tables the tables
+	 * @param associations the associations to consider, <code>null</code> for all associations
+	 * @return the graph
+	 */
+	public static DependencyGraph create(Collection<Table> tables, Set<Association> associations) {
+		Table[] nodes = new TreeSet<Table>(tables).toArray(new Table[0]);
+		Map<Table, Integer> index = new HashMap<Table, Integer>(nodes.length * 2);
+		for (int i = 0; i < nodes.length; ++i) {
+			index.put(nodes[i], i);
+		}
+		int[] edgeOffsets = new int[nodes.length + 1];
+		int[] edges = new int[16];
+		int numEdges = 0;
+		for (int i = 0; i < nodes.length; ++i) {
+			edgeOffsets[i] = numEdges;
+			for (Association association: nodes[i].associations) {
+				if (associations != null && !associations.contains(association)) {
+					continue;
+				}
+				if (!association.isInsertDestinationBeforeSource() || association.isIgnored()) {
+					continue;
+				}
+				Integer destination = index.get(association.destination);
+				if (destination != null) {
+					if (numEdges == edges.length) {
+						edges = Arrays.copyOf(edges, edges.length * 2);
+					}
+					edges[numEdges++] = destination;
+				}
+			}
+			// sort and remove parallel edges
+			Arrays.sort(edges, edgeOffsets[i], numEdges);
+			int n = edgeOffsets[i];
+			for (int e = edgeOffsets[i]; e < numEdges; ++e) {
+				if (e == edgeOffsets[i] || edges[e] != edges[e - 1]) {
+					edges[n++] = edges[e];
+				}
+			}
+			numEdges = n;
+		}
+		edgeOffsets[nodes.length] = numEdges;
+		return new DependencyGraph(nodes, edgeOffsets, Arrays.copyOf(edges, numEdges));
+	}
+
+	/**
+	 * Gets the number of tables.
+	 */
+	public int size() {
+		return tables.length;
+	}
+
+	/**
+	 * Gets all tables that are part of a cycle.
+	 *
+	 * @return tables that are part of a cycle
+	 */
+	public Set<Table> getCyclicTables() {
+		boolean[] cyclic = getCyclic();
+		Set<Table> result = new TreeSet<Table>();
+		for (int i = 0; i < tables.length; ++i) {
+			if (cyclic[i]) {
+				result.add(tables[i]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the strongly connected components that contain a cycle.
+	 *
+	 * @return the components, ordered by their first table
+	 */
+	public List<Set<Table>> getCyclicComponents() {
+		int[] components = getComponents();
+		boolean[] cyclic = getCyclic();
+		Map<Integer, Set<Table>> result = new HashMap<Integer, Set<Table>>();
+		List<Set<Table>> ordered = new ArrayList<Set<Table>>();
+		for (int i = 0; i < tables.length; ++i) {
+			if (cyclic[i]) {
+				Set<Table> component = result.get(components[i]);
+				if (component == null) {
+					component = new TreeSet<Table>();
+					result.put(components[i], component);
+					ordered.add(component);
+				}
+				component.add(tables[i]);
+			}
+		}
+		return ordered;
+	}
+
+	/**
+	 * Sorts the tables topologically.
+	 * The first level contains the tables that don't depend on any other table,
+	 * each further level the tables that only depend on tables of previous levels.
+	 * Tables that are part of a cycle or depend on such a table are not contained in any level.
+	 *
+	 * @return the levels
+	 */
+	public List<Set<Table>> getDependencyLevels() {
+		int n = tables.length;
+		int[] predecessorOffsets = new int[n + 1];
+		for (int e = 0; e < edges.length; ++e) {
+			++predecessorOffsets[edges[e] + 1];
+		}
+		for (int i = 0; i < n; ++i) {
+			predecessorOffsets[i + 1] += predecessorOffsets[i];
+		}
+		int[] predecessors = new int[edges.length];
+		int[] fill = Arrays.copyOf(predecessorOffsets, n);
+		int[] outDegree = new int[n];
+		for (int i = 0; i < n; ++i) {
+			outDegree[i] = edgeOffsets[i + 1] - edgeOffsets[i];
+			for (int e = edgeOffsets[i]; e < edgeOffsets[i + 1]; ++e) {
+				predecessors[fill[edges[e]]++] = i;
+			}
+		}
+		List<Set<Table>> levels = new ArrayList<Set<Table>>();
+		int[] level = new int[n];
+		int levelSize = 0;
+		for (int i = 0; i < n; ++i) {
+			if (outDegree[i] == 0) {
+				level[levelSize++] = i;
+			}
+		}
+		int[] nextLevel = new int[n];
+		while (levelSize > 0) {
+			Set<Table> tableSet = new TreeSet<Table>();
+			int nextLevelSize = 0;
+			for (int l = 0; l < levelSize; ++l) {
+				int i = level[l];
+				tableSet.add(tables[i]);
+				for (int p = predecessorOffsets[i]; p < predecessorOffsets[i + 1]; ++p) {
+					if (--outDegree[predecessors[p]] == 0) {
+						nextLevel[nextLevelSize++] = predecessors[p];
+					}
+				}
+			}
+			levels.add(tableSet);
+			int[] swap = level;
+			level = nextLevel;
+			nextLevel = swap;
+			levelSize = nextLevelSize;
+		}
+		return levels;
+	}
+
+	/**
+	 * Enumerates the elementary cycles (Johnson's algorithm).
+	 * Each cycle is reported once, starting with its first table. Cycles of the same component are reported consecutively.
+	 *
+	 * @param maxLength maximum number of tables in a cycle
+	 * @param cycleConsumer consumes the cycles
+	 */
+	public void findCycles(int maxLength, CycleConsumer cycleConsumer) {
+		int n = tables.length;
+		int[] components = getComponents();
+		boolean[] cyclic = getCyclic();
+		boolean[] blocked = new boolean[n];
+		int[][] blockedBy = new int[n][];
+		int[] blockedBySize = new int[n];
+		int[] path = new int[n];
+		int[] edgePos = new int[n];
+		boolean[] found = new boolean[n];
+		int[] unblockStack = new int[n];
+
+		for (int start = 0; start < n; ++start) {
+			if (!cyclic[start]) {
+				continue;
+			}
+			int component = components[start];
+			int depth = 0;
+			path[depth] = start;
+			edgePos[depth] = edgeOffsets[start];
+			found[depth] = false;
+			blocked[start] = true;
+			++depth;
+			while (depth > 0) {
+				checkForCancellation();
+				int v = path[depth - 1];
+				if (edgePos[depth - 1] < edgeOffsets[v + 1]) {
+					int w = edges[edgePos[depth - 1]++];
+					if (w < start || components[w] != component) {
+						continue;
+					}
+					if (w == start) {
+						List<Table> cycle = new ArrayList<Table>(depth + 1);
+						for (int i = 0; i < depth; ++i) {
+							cycle.add(tables[path[i]]);
+						}
+						cycle.add(tables[start]);
+						found[depth - 1] = true;
+						if (!cycleConsumer.consume(cycle)) {
+							return;
+						}
+					} else if (!blocked[w]) {
+						if (depth < maxLength) {
+							path[depth] = w;
+							edgePos[depth] = edgeOffsets[w];
+							found[depth] = false;
+							blocked[w] = true;
+							++depth;
+						} else {
+							// cut off, must not remain blocked
+							found[depth - 1] = true;
+						}
+					}
+				} else {
+					--depth;
+					if (found[depth]) {
+						unblock(v, blocked, blockedBy, blockedBySize, unblockStack);
+						if (depth > 0) {
+							found[depth - 1] = true;
+						}
+					} else {
+						for (int e = edgeOffsets[v]; e < edgeOffsets[v + 1]; ++e) {
+							int w = edges[e];
+							if (w >= start && components[w] == component) {
+								addBlockedBy(w, v, blockedBy, blockedBySize);
+							}
+						}
+					}
+				}
+			}
+			// reset the state of the component
+			for (int i = start; i < n; ++i) {
+				if (components[i] == component) {
+					blocked[i] = false;
+					blockedBySize[i] = 0;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets a shortest cycle through each table that is part of a cycle.
+	 * Tables already contained in a reported cycle are skipped.
+	 *
+	 * @param limit maximum number of cycles
+	 * @return the cycles, the first table of each cycle is repeated at the end
+	 */
+	public List<List<Table>> getShortestCycles(int limit) {
+		int n = tables.length;
+		int[] components = getComponents();
+		boolean[] cyclic = getCyclic();
+		boolean[] covered = new boolean[n];
+		int[] visited = new int[n];
+		int[] parent = new int[n];
+		int[] queue = new int[n];
+		List<List<Table>> result = new ArrayList<List<Table>>();
+
+		for (int start = 0; start < n && result.size() < limit; ++start) {
+			if (!cyclic[start] || covered[start]) {
+				continue;
+			}
+			// breadth-first search for the shortest path back to start
+			int run = start + 1;
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = start;
+			visited[start] = run;
+			int last = -1;
+			while (head < tail && last < 0) {
+				checkForCancellation();
+				int v = queue[head++];
+				for (int e = edgeOffsets[v]; e < edgeOffsets[v + 1]; ++e) {
+					int w = edges[e];
+					if (w == start) {
+						last = v;
+						break;
+					}
+					if (visited[w] != run && components[w] == components[start]) {
+						visited[w] = run;
+						parent[w] = v;
+						queue[tail++] = w;
+					}
+				}
+			}
+			List<Table> cycle = new ArrayList<Table>();
+			cycle.add(tables[start]);
+			for (int v = last; v != start; v = parent[v]) {
+				cycle.add(1, tables[v]);
+				covered[v] = true;
+			}
+			cycle.add(tables[start]);
+			covered[start] = true;
+			result.add(cycle);
+		}
+		return result;
+	}
+
+	/**
+	 * Computes the strongly connected components (Tarjan's algorithm, iterative).
+	 */
+	private synchronized int[] getComponents() {
+		if (components != null) {
+			return components;
+		}
+		int n = tables.length;
+		int[] result = new int[n];
+		int[] index = new int[n];
+		int[] lowLink = new int[n];
+		boolean[] onStack = new boolean[n];
+		int[] stack = new int[n];
+		int stackSize = 0;
+		int[] callStack = new int[n];
+		int[] edgePos = new int[n];
+		int nextIndex = 1;
+		int numComponents = 0;
+
+		for (int root = 0; root < n; ++root) {
+			if (index[root] != 0) {
+				continue;
+			}
+			int depth = 0;
+			callStack[depth] = root;
+			edgePos[depth] = edgeOffsets[root];
+			index[root] = lowLink[root] = nextIndex++;
+			stack[stackSize++] = root;
+			onStack[root] = true;
+			++depth;
+			while (depth > 0) {
+				checkForCancellation();
+				int v = callStack[depth - 1];
+				if (edgePos[depth - 1] < edgeOffsets[v + 1]) {
+					int w = edges[edgePos[depth - 1]++];
+					if (index[w] == 0) {
+						callStack[depth] = w;
+						edgePos[depth] = edgeOffsets[w];
+						index[w] = lowLink[w] = nextIndex++;
+						stack[stackSize++] = w;
+						onStack[w] = true;
+						++depth;
+					} else if (onStack[w]) {
+						lowLink[v] = Math.min(lowLink[v], index[w]);
+					}
+				} else {
+					--depth;
+					if (lowLink[v] == index[v]) {
+						int w;
+						do {
+							w = stack[--stackSize];
+							onStack[w] = false;
+							result[w] = numComponents;
+						} while (w != v);
+						++numComponents;
+					}
+					if (depth > 0) {
+						int caller = callStack[depth - 1];
+						lowLink[caller] = Math.min(lowLink[caller], lowLink[v]);
+					}
+				}
+			}
+		}
+		components = result;
+		return components;
+	}
+
+	/**
+	 * Determines the tables that are part of a cycle.
+	 */
+	private synchronized boolean[] getCyclic() {
+		if (cyclic != null) {
+			return cyclic;
+		}
+		int n = tables.length;
+		int[] components = getComponents();
+		int[] componentSize = new int[n];
+		for (int i = 0; i < n; ++i) {
+			++componentSize[components[i]];
+		}
+		boolean[] result = new boolean[n];
+		for (int i = 0; i < n; ++i) {
+			if (componentSize[components[i]] > 1) {
+				result[i] = true;
+			} else {
+				for (int e = edgeOffsets[i]; e < edgeOffsets[i + 1]; ++e) {
+					if (edges[e] == i) {
+						result[i] = true;
+					}
+				}
+			}
+		}
+		cyclic = result;
+		return cyclic;
+	}
+
+	private void unblock(int u, boolean[] blocked, int[][] blockedBy, int[] blockedBySize, int[] stack) {
+		int stackSize = 0;
+		stack[stackSize++] = u;
+		blocked[u] = false;
+		while (stackSize > 0) {
+			int v = stack[--stackSize];
+			for (int i = 0; i < blockedBySize[v]; ++i) {
+				int w = blockedBy[v][i];
+				if (blocked[w]) {
+					blocked[w] = false;
+					stack[stackSize++] = w;
+				}
+			}
+			blockedBySize[v] = 0;
+		}
+	}
+
+	private void addBlockedBy(int w, int v, int[][] blockedBy, int[] blockedBySize) {
+		int[] list = blockedBy[w];
+		int size = blockedBySize[w];
+		for (int i = 0; i < size; ++i) {
+			if (list[i] == v) {
+				return;
+			}
+		}
+		if (list == null) {
+			list = blockedBy[w] = new int[4];
+		} else if (size == list.length) {
+			list = blockedBy[w] = Arrays.copyOf(list, size * 2);
+		}
+		list[size] = v;
+		blockedBySize[w] = size + 1;
+	}
+
+	private void checkForCancellation() {
+		if (++steps % CANCELLATION_CHECK_INTERVAL == 0) {
+			CancellationHandler.checkForCancellation(null);
+		}
+	}
+
+}
@@ -16,15 +16,21 @@
 package net.sf.jailer.util;
 
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
 
 import org.apache.log4j.Logger;
 
 /**
- * Executes a job-list in a concurrent way.
+ * Executes a job-list in a concurrent way.<br>
+ * <br>
+ * Each runner thread owns a deque of jobs. Idle runners steal jobs from the tail of
+ * the other runners' deques. The runner threads are kept alive for the lifetime of the manager.
+ * After each job, a runner executes the optional job cleanup, e.g. to return the connections it has leased.
  *  
  * @author Ralf Wisser
  */
@@ -55,58 +61,163 @@ public class JobManager {
 	 * Maximum number of threads.
 	 */
 	private final int threads;
+
+	/**
+	 * Executed by a runner after each job, or <code>null</code>.
+	 */
+	private final Runnable jobCleanup;
+	
+	/**
+	 * One permit for each enqueued job (and for each runner to be shut down).
+	 */
+	private final Semaphore queuedJobs = new Semaphore(0);
+	
+	/**
+	 * State of a single {@link JobManager#executeJobs(Collection)} call.
+	 */
+	private static class Execution {
+		
+		/**
+		 * Counts down for each executed or skipped job.
+		 */
+		final CountDownLatch done;
+
+		/**
+		 * Exception during job-execution.
+		 */
+		private Exception exception;
+		
+		/**
+		 * <code>true</code> after a job has failed. Remaining jobs will be skipped.
+		 */
+		private volatile boolean failed;
+		
+		Execution(int jobCount) {
+			done = new CountDownLatch(jobCount);
+		}
+		
+		/**
+		 * Sets an exception. Only the first one is kept.
+		 */
+		synchronized void setException(Throwable e) {
+			if (exception == null) {
+				exception = (e instanceof CancellationException || e instanceof SQLException)? (Exception) e 
+						: new RuntimeException(Thread.currentThread().getName() + " failed", e);
+			}
+			failed = true;
+		}
+
+		/**
+		 * Gets the exception.
+		 */
+		synchronized Exception getException() {
+			return exception;
+		}
+	}
+	
+	/**
+	 * A job and the execution it belongs to.
+	 */
+	private static class Task {
+		final Job job;
+		final Execution execution;
+
+		Task(Job job, Execution execution) {
+			this.job = job;
+			this.execution = execution;
+		}
+	}
 	
 	/**
 	 * Thread for executing jobs.
 	 */
 	private class JobRunner implements Runnable {
 
+		/**
+		 * Jobs assigned to this runner.
+		 */
+		private final ConcurrentLinkedDeque<Task> tasks = new ConcurrentLinkedDeque<Task>();
+		
+		/**
+		 * Index in {@link JobManager#runnersList}.
+		 */
+		private final int index;
+		
 		/**
 		 * For shutting down the runner.
 		 */
-		private boolean isRunning = true;
+		private volatile boolean isRunning = true;
+		
+		JobRunner(int index) {
+			this.index = index;
+		}
 		
 		/**
 		 * Shuts the runner down.
 		 */
-		public synchronized void shutdown() {
+		public void shutdown() {
 			isRunning = false;
 		}
 
-		/**
-		 * Still running?
-		 */
-		public synchronized boolean isRunning() {
-			return isRunning;
-		}
-		
 		/**
 		 * Executes jobs.
 		 */
 		@Override
 		public void run() {
 			_log.debug("start up");
-			while (isRunning()) {
-				Job job = nextJob();
-				if (job == null) {
-					try {
-						Thread.sleep(100);
-					} catch (InterruptedException e) {
-					}
-				} else {
-					try {
-						incrementJobsInExecutionCounter();
-						job.run();
-						incrementJobsDoneCounter();
-					} catch (Exception e) {
-						setException(e);
-					} finally {
-						decrementJobsInExecutionCounter();
-					}
+			while (isRunning) {
+				try {
+					queuedJobs.acquire();
+				} catch (InterruptedException e) {
+					continue;
 				}
+				if (!isRunning) {
+					break;
+				}
+				// the permit guarantees a queued task, but the scan may miss it while other runners are stealing
+				Task task;
+				while ((task = nextTask()) == null) {
+					Thread.yield();
+				}
+				execute(task);
 			}
 			_log.debug("shutting down");
 		}
+
+		/**
+		 * Gets next task, either from own deque or stolen from another runner.
+		 */
+		private Task nextTask() {
+			Task task = tasks.pollFirst();
+			if (task == null) {
+				int size = runnersList.size();
+				for (int i = 1; i < size && task == null; ++i) {
+					task = runnersList.get((index + i) % size).tasks.pollLast();
+				}
+			}
+			return task;
+		}
+
+		/**
+		 * Executes a task.
+		 */
+		private void execute(Task task) {
+			try {
+				if (!task.execution.failed) {
+					task.job.run();
+				}
+			} catch (Throwable e) {
+				task.execution.setException(e);
+			} finally {
+				try {
+					if (jobCleanup != null) {
+						jobCleanup.run();
+					}
+				} finally {
+					task.execution.done.countDown();
+				}
+			}
+		}
 	}
 	
 	/**
@@ -115,14 +226,28 @@ public class JobManager {
 	 * @param threads number of threads
 	 */
 	public JobManager(int threads) {
+		this(threads, null);
+	}
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param threads number of threads
+	 * @param jobCleanup executed by a runner thread after each job, or <code>null</code>
+	 */
+	public JobManager(int threads, Runnable jobCleanup) {
 		this.threads = threads;
-		runnersList = new ArrayList<JobRunner>(threads);
+		this.jobCleanup = jobCleanup;
+		runnersList = new CopyOnWriteArrayList<JobRunner>();
 	}
 	
-	private void ensureThreadCapacity(int capacity) {
+	/**
+	 * Starts runners as needed. Synchronized, since each runner needs a unique index.
+	 */
+	private synchronized void ensureThreadCapacity(int capacity) {
 		if (threads > 1) {
 			while (runnersList.size() < Math.min(capacity, threads)) {
-				JobRunner jobRunner = new JobRunner();
+				JobRunner jobRunner = new JobRunner(runnersList.size());
 				runnersList.add(jobRunner);
 				String threadName = "job-runner " + runnersList.size();
 				_log.debug("starting " + threadName);
@@ -147,34 +272,31 @@ public class JobManager {
 				job.run();
 			}
 		} else {
-			setJobs(new LinkedList<Job>(jobs));
-			while (getJobsDoneCounter() < jobCount || getJobsInExecutionCounter() > 0) {
-				try {
-					Thread.sleep(100);
-				} catch (InterruptedException e1) {
-					throw new RuntimeException(e1);
+			Execution execution = new Execution(jobCount);
+			int size = runnersList.size();
+			int i = 0;
+			for (Job job: jobs) {
+				runnersList.get(i++ % size).tasks.addLast(new Task(job, execution));
+			}
+			queuedJobs.release(jobCount);
+			try {
+				// returns as soon as all jobs are done or, after an error, the running jobs are done
+				execution.done.await();
+			} catch (InterruptedException e1) {
+				throw new RuntimeException(e1);
+			}
+			Exception e = execution.getException();
+			if (e != null) {
+				if (!(e instanceof CancellationException)) {
+					_log.error("Job-error", e);
 				}
-				Exception e = getException();
-				if (e != null) {
-					if (!(e instanceof CancellationException)) {
-						_log.error("Job-error", e);
-					}
-					// wait for other jobs
-					while (getJobsInExecutionCounter() > 0) {
-						try {
-							Thread.sleep(50);
-						} catch (InterruptedException e1) {
-							throw new RuntimeException(e1);
-						}
-					}
-					if (e instanceof CancellationException) {
-						throw (CancellationException) e;
-					}
-					if (e instanceof SQLException) {
-						throw (SQLException) e;
-					}
-					throw new RuntimeException(e);
+				if (e instanceof CancellationException) {
+					throw (CancellationException) e;
 				}
+				if (e instanceof SQLException) {
+					throw (SQLException) e;
+				}
+				throw new RuntimeException(e);
 			}
 		}
 		_log.info("executed " + jobCount + " jobs");
@@ -189,98 +311,7 @@ public class JobManager {
 			_log.debug("shutting down " + threadName);
 			runnersList.get(i).shutdown();
 		}
-	}
-	
-	/**
-	 * Number of executed jobs.
-	 */
-	private int jobsDoneCounter;
-	
-	/**
-	 * Number of jobs currently executed.
-	 */
-	private int jobsInExecutionCounter;
-	
-	/**
-	 * The job-list.
-	 */
-	private List<Job> jobs;
-
-	/**
-	 * Exception during job-execution.
-	 */
-	private Exception exception;
-
-	/**
-	 * Sets the job-list.
-	 * Resets the job-counter to 0.
-	 */
-	private synchronized void setJobs(List<Job> jobs) {
-		jobsDoneCounter = 0;
-		jobsInExecutionCounter = 0;
-		this.jobs = jobs;
-		exception = null;
-	}
-
-	/**
-	 * Gets the Number of executed jobs.
-	 */
-	private synchronized int getJobsDoneCounter() {
-		return jobsDoneCounter;
-	}
-
-	/**
-	 * Increments the Number of executed jobs.
-	 */
-	private synchronized void incrementJobsDoneCounter() {
-		++jobsDoneCounter;
-	}
-
-	/**
-	 * Gets the Number of jobs currently executed.
-	 */
-	private synchronized int getJobsInExecutionCounter() {
-		return jobsInExecutionCounter;
-	}
-
-	/**
-	 * Increments the Number of jobs currently executed.
-	 */
-	private synchronized void incrementJobsInExecutionCounter() {
-		++jobsInExecutionCounter;
-	}
-
-	/**
-	 * Decrements the Number of jobs currently executed.
-	 */
-	private synchronized void decrementJobsInExecutionCounter() {
-		--jobsInExecutionCounter;
-	}
-
-	/**
-	 * Gets the exception.
-	 */
-	private synchronized Exception getException() {
-		return exception;
-	}
-	
-	/**
-	 * Gets next job.
-	 */
-	private synchronized Job nextJob() {
-		if (jobs != null && !jobs.isEmpty()) {
-			return jobs.remove(0);
-		}
-		return null;
-	}
-	
-	/**
-	 * Sets an exception.
-	 */
-	private synchronized void setException(Exception e) {
-		exception = e == null? null : (e instanceof CancellationException || e instanceof SQLException)? e 
-				: new RuntimeException(Thread.currentThread().getName() + " failed", e);
-		jobs = null;
+		queuedJobs.release(runnersList.size());
 	}
 	
 }
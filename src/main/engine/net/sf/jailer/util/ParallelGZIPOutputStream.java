@@ -0,0 +1,295 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes data in GZIP format, compressing blocks of data in parallel.<br>
+ * Like "pigz", the result is a single GZIP member: each block is compressed into a raw deflate stream
+ * ending on a byte boundary (sync flush), using the last 32K of the preceding block as dictionary.
+ * The concatenated blocks are readable by any GZIP decoder.
+ *
+ * @author Ralf Wisser
+ */
+public class ParallelGZIPOutputStream extends FilterOutputStream {
+
+	/**
+	 * Size of the uncompressed blocks.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+	/**
+	 * Size of the dictionary (deflate window).
+	 */
+	private static final int DICTIONARY_SIZE = 32 * 1024;
+
+	/**
+	 * GZIP header (no file name, no modification time).
+	 */
+	private static final byte[] HEADER = { (byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+	private final int blockSize;
+	private final int level;
+	private final int maxPendingBlocks;
+	private final ExecutorService executor;
+
+	/**
+	 * Blocks being compressed, in order.
+	 */
+	private final LinkedList<Future<byte[]>> pendingBlocks = new LinkedList<Future<byte[]>>();
+
+	/**
+	 * The current block.
+	 */
+	private byte[] block;
+	private int blockLength = 0;
+
+	/**
+	 * The preceding block.
+	 */
+	private byte[] previousBlock = null;
+	private int previousBlockLength = 0;
+
+	/**
+	 * Deflater of each compressing thread.
+	 */
+	private final ThreadLocal<Deflater> deflater = new ThreadLocal<Deflater>() {
+		@Override
+		protected Deflater initialValue() {
+			Deflater deflater = new Deflater(level, true);
+			synchronized (deflaters) {
+				deflaters.add(deflater);
+			}
+			return deflater;
+		}
+	};
+
+	/**
+	 * All deflaters, their native memory is released on {@link #close()}.
+	 */
+	private final List<Deflater> deflaters = new ArrayList<Deflater>();
+
+	/**
+	 * Output buffer of each compressing thread.
+	 */
+	private final ThreadLocal<byte[]> outputBuffer = new ThreadLocal<byte[]>() {
+		@Override
+		protected byte[] initialValue() {
+			return new byte[64 * 1024];
+		}
+	};
+
+	private final CRC32 crc = new CRC32();
+	private long uncompressedSize = 0;
+	private boolean closed = false;
+
+	/**
+	 * Constructor. Uses one thread per processor.
+	 *
+	 * @param out the underlying output stream
+	 */
+	public ParallelGZIPOutputStream(OutputStream out) throws IOException {
+		this(out, Runtime.getRuntime().availableProcessors(), DEFAULT_BLOCK_SIZE, Deflater.DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param out the underlying output stream
+	 * @param threads number of compressing threads
+	 * @param blockSize size of the uncompressed blocks
+	 * @param level the compression level
+	 */
+	public ParallelGZIPOutputStream(OutputStream out, int threads, int blockSize, int level) throws IOException {
+		super(out);
+		this.blockSize = Math.max(blockSize, DICTIONARY_SIZE);
+		this.level = level;
+		this.maxPendingBlocks = 2 * Math.max(1, threads);
+		this.block = new byte[this.blockSize];
+		this.executor = Executors.newFixedThreadPool(Math.max(1, threads), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "gzip");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		out.write(HEADER);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (blockLength == blockSize) {
+			submitBlock(false);
+		}
+		block[blockLength++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			if (blockLength == blockSize) {
+				submitBlock(false);
+			}
+			int n = Math.min(len, blockSize - blockLength);
+			System.arraycopy(b, off, block, blockLength, n);
+			blockLength += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * Flushes the compressed blocks written so far. Does not compress the current block
+	 * (like {@link java.util.zip.GZIPOutputStream} without sync flush).
+	 */
+	@Override
+	public void flush() throws IOException {
+		while (!pendingBlocks.isEmpty() && pendingBlocks.getFirst().isDone()) {
+			out.write(get(pendingBlocks.removeFirst()));
+		}
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			submitBlock(true);
+			while (!pendingBlocks.isEmpty()) {
+				out.write(get(pendingBlocks.removeFirst()));
+			}
+			writeInt((int) crc.getValue());
+			writeInt((int) uncompressedSize);
+		} finally {
+			executor.shutdownNow();
+			try {
+				executor.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				// ignore
+			}
+			synchronized (deflaters) {
+				for (Deflater deflater: deflaters) {
+					deflater.end();
+				}
+				deflaters.clear();
+			}
+			out.close();
+		}
+	}
+
+	/**
+	 * Hands the current block over to a compressing thread.
+	 *
+	 * @param last <code>true</code> if it's the last block
+	 */
+	private void submitBlock(final boolean last) throws IOException {
+		final byte[] data = block;
+		final int length = blockLength;
+		final byte[] dictionary = previousBlock;
+		final int dictionaryEnd = previousBlockLength;
+		crc.update(data, 0, length);
+		uncompressedSize += length;
+		pendingBlocks.add(executor.submit(new Callable<byte[]>() {
+			@Override
+			public byte[] call() {
+				return compress(data, length, dictionary, dictionaryEnd, last);
+			}
+		}));
+		while (pendingBlocks.size() > maxPendingBlocks) {
+			out.write(get(pendingBlocks.removeFirst()));
+		}
+		if (length >= DICTIONARY_SIZE || previousBlock == null) {
+			previousBlock = data;
+			previousBlockLength = length;
+		}
+		block = new byte[blockSize];
+		blockLength = 0;
+	}
+
+	/**
+	 * Compresses a block.
+	 *
+	 * @param data the block
+	 * @param length length of the block
+	 * @param dictionary the preceding block or <code>null</code>
+	 * @param dictionaryEnd length of the preceding block
+	 * @param last <code>true</code> if it's the last block
+	 * @return raw deflate data
+	 */
+	private byte[] compress(byte[] data, int length, byte[] dictionary, int dictionaryEnd, boolean last) {
+		Deflater deflater = this.deflater.get();
+		deflater.reset();
+		if (dictionary != null && dictionaryEnd > 0) {
+			int dictionaryLength = Math.min(DICTIONARY_SIZE, dictionaryEnd);
+			deflater.setDictionary(dictionary, dictionaryEnd - dictionaryLength, dictionaryLength);
+		}
+		deflater.setInput(data, 0, length);
+		ByteArrayOutputStream result = new ByteArrayOutputStream(length / 4 + 64);
+		byte[] buffer = outputBuffer.get();
+		if (last) {
+			deflater.finish();
+			while (!deflater.finished()) {
+				int n = deflater.deflate(buffer);
+				result.write(buffer, 0, n);
+			}
+		} else {
+			int n;
+			do {
+				n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+				result.write(buffer, 0, n);
+			} while (n == buffer.length);
+		}
+		return result.toByteArray();
+	}
+
+	private byte[] get(Future<byte[]> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+	}
+
+	private void writeInt(int i) throws IOException {
+		out.write(i & 0xff);
+		out.write((i >> 8) & 0xff);
+		out.write((i >> 16) & 0xff);
+		out.write((i >> 24) & 0xff);
+	}
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads an input stream in a background thread.<br>
+ * Used to decompress scripts while the statements read so far are parsed and executed.
+ *
+ * @author Ralf Wisser
+ */
+public class ReadAheadInputStream extends InputStream {
+
+	/**
+	 * Size of the chunks read ahead.
+	 */
+	private static final int CHUNK_SIZE = 64 * 1024;
+
+	/**
+	 * Marks the end of the stream.
+	 */
+	private static final byte[] EOF = new byte[0];
+
+	private final InputStream in;
+	private final BlockingQueue<byte[]> queue;
+	private final Thread reader;
+	private volatile IOException exception;
+	private volatile boolean closed = false;
+
+	private byte[] current = null;
+	private int position = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param in the stream to read from
+	 * @param capacity maximum number of chunks read ahead
+	 */
+	public ReadAheadInputStream(InputStream in, int capacity) {
+		this.in = in;
+		this.queue = new ArrayBlockingQueue<byte[]>(Math.max(1, capacity));
+		this.reader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				readAhead();
+			}
+		}, "read-ahead");
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/**
+	 * Reads the underlying stream into the queue.
+	 */
+	private void readAhead() {
+		try {
+			for (;;) {
+				byte[] chunk = new byte[CHUNK_SIZE];
+				int length = 0;
+				while (length < chunk.length) {
+					int n = in.read(chunk, length, chunk.length - length);
+					if (n < 0) {
+						break;
+					}
+					length += n;
+				}
+				if (length > 0) {
+					if (length < chunk.length) {
+						byte[] c = new byte[length];
+						System.arraycopy(chunk, 0, c, 0, length);
+						chunk = c;
+					}
+					queue.put(chunk);
+				}
+				if (length < CHUNK_SIZE || closed) {
+					break;
+				}
+			}
+		} catch (InterruptedException e) {
+			// closed
+			return;
+		} catch (IOException e) {
+			exception = e;
+		} catch (Throwable t) {
+			// passed on to the consumer, which would wait for EOF forever otherwise
+			exception = new IOException(t);
+		}
+		try {
+			queue.put(EOF);
+		} catch (InterruptedException e) {
+			// closed
+		}
+	}
+
+	/**
+	 * Gets the next chunk.
+	 *
+	 * @return <code>false</code> at the end of the stream
+	 */
+	private boolean nextChunk() throws IOException {
+		if (current == EOF) {
+			return false;
+		}
+		try {
+			current = queue.take();
+		} catch (InterruptedException e) {
+			throw new IOException(e);
+		}
+		position = 0;
+		if (current == EOF) {
+			if (exception != null) {
+				throw exception;
+			}
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (current == null || position == current.length) {
+			if (!nextChunk()) {
+				return -1;
+			}
+		}
+		return current[position++] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (current == null || position == current.length) {
+			if (!nextChunk()) {
+				return -1;
+			}
+		}
+		int n = Math.min(len, current.length - position);
+		System.arraycopy(current, position, b, off, n);
+		position += n;
+		return n;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return current == null || current == EOF? 0 : current.length - position;
+	}
+
+	/**
+	 * Stops the reader thread and closes the underlying stream.
+	 * Must be called even if reading fails, the reader thread would wait for the consumer forever otherwise.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		reader.interrupt();
+		queue.clear();
+		try {
+			reader.join();
+		} catch (InterruptedException e) {
+			// ignore
+		}
+		in.close();
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Encodes (compresses) and decodes scripts and exported files with a given file name suffix.<br>
+ * Additional codecs can be plugged in as service providers
+ * (listed in "META-INF/services/net.sf.jailer.util.ScriptCodec"), see {@link ScriptCodecRegistry}.
+ *
+ * @author Ralf Wisser
+ */
+public interface ScriptCodec {
+
+	/**
+	 * Gets the file name suffix (for instance ".gz").
+	 *
+	 * @return the suffix (lower case)
+	 */
+	String getSuffix();
+
+	/**
+	 * Creates a stream that encodes the data written into it.
+	 *
+	 * @param out the stream to write the encoded data to
+	 * @param fileName name of the file
+	 * @return the encoding stream
+	 */
+	OutputStream createOutputStream(OutputStream out, String fileName) throws IOException;
+
+	/**
+	 * Creates a stream that decodes the data read from another stream.
+	 *
+	 * @param in the stream to read the encoded data from
+	 * @param fileName name of the file
+	 * @return the decoding stream
+	 */
+	InputStream createInputStream(InputStream in, String fileName) throws IOException;
+
+}
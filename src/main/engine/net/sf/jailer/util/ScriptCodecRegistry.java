@@ -0,0 +1,157 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Knows the {@link ScriptCodec}s. These are the codecs for ".gz" (parallel compression)
+ * and ".zip" and the codecs registered as service providers. Service providers take
+ * precedence over the built-in codecs.
+ *
+ * @author Ralf Wisser
+ */
+public class ScriptCodecRegistry {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger _log = Logger.getLogger(ScriptCodecRegistry.class);
+
+	/**
+	 * GZIP. Compresses blocks in parallel (if there is more than one processor),
+	 * decompresses in a background thread.
+	 */
+	public static final ScriptCodec GZIP = new ScriptCodec() {
+		@Override
+		public String getSuffix() {
+			return ".gz";
+		}
+		@Override
+		public OutputStream createOutputStream(OutputStream out, String fileName) throws IOException {
+			if (Runtime.getRuntime().availableProcessors() > 1) {
+				return new ParallelGZIPOutputStream(out);
+			}
+			return new GZIPOutputStream(out, 64 * 1024);
+		}
+		@Override
+		public InputStream createInputStream(InputStream in, String fileName) throws IOException {
+			return new ReadAheadInputStream(new GZIPInputStream(in, 64 * 1024), 16);
+		}
+	};
+
+	/**
+	 * ZIP. The archive contains one entry named like the file without suffix.
+	 */
+	public static final ScriptCodec ZIP = new ScriptCodec() {
+		@Override
+		public String getSuffix() {
+			return ".zip";
+		}
+		@Override
+		public OutputStream createOutputStream(OutputStream out, String fileName) throws IOException {
+			ZipOutputStream zipOutputStream = new ZipOutputStream(out);
+			String zipFileName = new File(fileName).getName();
+			zipOutputStream.putNextEntry(new ZipEntry(zipFileName.substring(0, zipFileName.length() - 4)));
+			return zipOutputStream;
+		}
+		@Override
+		public InputStream createInputStream(InputStream in, String fileName) throws IOException {
+			ZipInputStream zipInputStream = new ZipInputStream(in);
+			zipInputStream.getNextEntry();
+			return zipInputStream;
+		}
+	};
+
+	private static List<ScriptCodec> codecs = null;
+
+	/**
+	 * Gets all codecs.
+	 *
+	 * @return the codecs, service providers first
+	 */
+	public static synchronized List<ScriptCodec> getCodecs() {
+		if (codecs == null) {
+			List<ScriptCodec> result = new ArrayList<ScriptCodec>();
+			try {
+				for (ScriptCodec codec: ServiceLoader.load(ScriptCodec.class)) {
+					_log.info("script codec for '" + codec.getSuffix() + "': " + codec.getClass().getName());
+					result.add(codec);
+				}
+			} catch (Throwable t) {
+				_log.warn("can't load script codecs: " + t.getMessage());
+			}
+			result.add(GZIP);
+			result.add(ZIP);
+			codecs = result;
+		}
+		return codecs;
+	}
+
+	/**
+	 * Gets the codec for a file.
+	 *
+	 * @param fileName name of the file
+	 * @return the codec for the suffix of the file name or <code>null</code>, if the file is not encoded
+	 */
+	public static ScriptCodec forFile(String fileName) {
+		String lowerCaseName = fileName.toLowerCase();
+		for (ScriptCodec codec: getCodecs()) {
+			if (lowerCaseName.endsWith(codec.getSuffix())) {
+				return codec;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Creates a stream for writing into a file. The data is encoded according to the suffix of the file name.
+	 *
+	 * @param out the file stream
+	 * @param fileName name of the file
+	 * @return stream to write into
+	 */
+	public static OutputStream createOutputStream(OutputStream out, String fileName) throws IOException {
+		ScriptCodec codec = forFile(fileName);
+		return codec == null? out : codec.createOutputStream(out, fileName);
+	}
+
+	/**
+	 * Creates a stream for reading a file. The data is decoded according to the suffix of the file name.
+	 *
+	 * @param in the file stream
+	 * @param fileName name of the file
+	 * @return stream to read from
+	 */
+	public static InputStream createInputStream(InputStream in, String fileName) throws IOException {
+		ScriptCodec codec = forFile(fileName);
+		return codec == null? in : codec.createInputStream(in, fileName);
+	}
+
+}
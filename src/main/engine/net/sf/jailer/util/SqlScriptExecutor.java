@@ -16,6 +16,8 @@
 package net.sf.jailer.util;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.CharArrayReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -25,9 +27,14 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
@@ -36,9 +43,8 @@ import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.ZipInputStream;
 
 import org.apache.log4j.Logger;
 
@@ -90,6 +96,17 @@ public class SqlScriptExecutor {
 
 	private RuntimeException exception;
 	
+	/**
+	 * Maximum number of consecutive inserts into the same table executed as one JDBC batch.
+	 * 0 if no batching is used.
+	 */
+	private int batchSize = 0;
+
+	/**
+	 * Matches an insert statement, group 1 is the table name.
+	 */
+	private static final Pattern INSERT = Pattern.compile("^\\s*insert\\s+into\\s+((?:\"[^\"]*\"|`[^`]*`|\\[[^\\]]*\\]|[^\\s(\"`\\[])+)", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
 	/**
 	 * Constructor.
 	 * 
@@ -113,6 +130,26 @@ public class SqlScriptExecutor {
 		this(session, threads, true);
 	}
 
+	/**
+	 * Sets the maximum number of consecutive inserts into the same table
+	 * that are executed as one JDBC batch.
+	 * 
+	 * @param batchSize the batch size, 0 for no batching
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Gets the maximum number of consecutive inserts into the same table
+	 * that are executed as one JDBC batch.
+	 * 
+	 * @return the batch size, 0 for no batching
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
 	/**
 	 * Reads in and executes a SQL-script.
 	 * 
@@ -212,15 +249,7 @@ public class SqlScriptExecutor {
 		
 		if (uTF8 != null) {
 			// retrieve encoding
-			if (scriptFileName.toLowerCase().endsWith(".gz")) {
-				bufferedReader = new BufferedReader(new InputStreamReader(new GZIPInputStream(inputStream), uTF8), 1);
-			} else if (scriptFileName.toLowerCase().endsWith(".zip")) {
-				ZipInputStream zis = new ZipInputStream(new FileInputStream(scriptFileName));
-				zis.getNextEntry();
-				bufferedReader = new BufferedReader(new InputStreamReader(zis, uTF8), 1);
-			} else {
-				bufferedReader = new BufferedReader(new InputStreamReader(inputStream, uTF8), 1);
-			}
+			bufferedReader = new BufferedReader(new InputStreamReader(ScriptCodecRegistry.createInputStream(inputStream, scriptFileName), uTF8), 1);
 			String line = bufferedReader.readLine();
 			if (line != null && line.contains("encoding UTF-8")) {
 				encoding = uTF8;
@@ -249,15 +278,7 @@ public class SqlScriptExecutor {
 		};
 		bytesRead[0] = 0;
 		fileSize = file.length();
-		if (scriptFileName.toLowerCase().endsWith(".gz")) {
-			bufferedReader = new BufferedReader(new InputStreamReader(new GZIPInputStream(inputStream), encoding));
-		} else if (scriptFileName.toLowerCase().endsWith(".zip")){
-			ZipInputStream zis = new ZipInputStream(inputStream);
-			zis.getNextEntry();
-			bufferedReader = new BufferedReader(new InputStreamReader(zis, encoding));
-		} else {
-			bufferedReader = new BufferedReader(new InputStreamReader(inputStream, encoding));
-		}
+		bufferedReader = new BufferedReader(new InputStreamReader(ScriptCodecRegistry.createInputStream(inputStream, scriptFileName), encoding));
 		
 		String line = null;
 		StringBuffer currentStatement = new StringBuffer();
@@ -265,7 +286,12 @@ public class SqlScriptExecutor {
 		final AtomicLong totalRowCount = new AtomicLong(0);
 		final AtomicLong t = new AtomicLong(System.currentTimeMillis());
 		final AtomicInteger count = new AtomicInteger(0);
+		final Counter counter = new Counter(linesRead, totalRowCount, count);
+		final List<String> batch = new ArrayList<String>();
+		String batchTable = null;
 		submittedTasks = 0;
+		pendingLobs.clear();
+		pendingLobsSize = 0;
 		executedTasks = new AtomicLong(0);
 		final long finalFileSize = fileSize;
 		LineReader lineReader = new LineReader(bufferedReader);
@@ -303,6 +329,9 @@ public class SqlScriptExecutor {
 				if (line.length() == 0) {
 					continue;
 				}
+				if (!pendingLobs.isEmpty() && !line.startsWith(UNFINISHED_MULTILINE_COMMENT)) {
+					flushLobs(inSync);
+				}
 				if (line.startsWith("--")) {
 					final String TRY = "try:";
 					String uncommentedLine = line.substring(2).trim();
@@ -311,20 +340,21 @@ public class SqlScriptExecutor {
 						tryMode = true;
 					} else {
 						if (line.startsWith(UNFINISHED_MULTILINE_COMMENT)) {
+							// LOBs are imported into rows inserted before
+							flushBatch(batch, inSync, counter);
 							String cmd = line.substring(UNFINISHED_MULTILINE_COMMENT.length());
-							if (cmd.startsWith("XML")) {
-								importSQLXML(cmd.substring(3).trim(), lineReader);
-							}
-							if (cmd.startsWith("CLOB")) {
-								importCLob(cmd.substring(4).trim(), lineReader);
-							}
-							if (cmd.startsWith("BLOB")) {
-								importBLob(cmd.substring(4).trim(), lineReader);
+							for (String type: new String[] { XML, CLOB, BLOB }) {
+								if (cmd.startsWith(type)) {
+									importLob(type, cmd.substring(type.length()).trim(), lineReader, inSync);
+									break;
+								}
 							}
 						} else if (uncommentedLine.equals("sync")) {
+							flushBatch(batch, inSync, counter);
 							inSync = true;
 							sync();
 						} else if (uncommentedLine.equals("epilog")) {
+							flushBatch(batch, inSync, counter);
 							inSync = false;
 							sync();
 						}
@@ -333,72 +363,27 @@ public class SqlScriptExecutor {
 				}
 				if (line.endsWith(";")) {
 					currentStatement.append(line.substring(0, line.length() - 1));
-					if (IDENTITY_INSERT.matcher(currentStatement).matches()) {
-						sync();
-						if (executor != null) {
-							executor.shutdown();
-							executor = null;
-						}
-					}
 					final String stmt = currentStatement.toString();
-					final boolean finalTryMode = tryMode;
-					execute(new Runnable() {
-						@Override
-						public void run() {
-							boolean startsWithDrop = stmt.trim().toLowerCase().startsWith("drop");
-							boolean silent = session.getSilent();
-							session.setSilent(silent || finalTryMode || startsWithDrop);
-							boolean oldLogStatements = session.getLogStatements();
-							session.setLogStatements(logStatements);
-							try {
-								if (stmt.trim().length() > 0) {
-									boolean done = false;
-									long rc = 0;
-									if (startsWithDrop) {
-										// [bugs:#37] PostreSQL: transactional execution
-										String withExists = stmt.replaceFirst("(?is)(DROP\\s+TABLE\\s+)", "$1IF EXISTS ");
-										if (!withExists.equals(stmt)) {
-											try {
-												rc = session.execute(withExists);
-											} catch (SQLException e) {
-												rc = session.execute(stmt);
-											}
-											done = true;
-										}
-									}
-									if (!done) {
-										rc = session.execute(stmt);
-									}
-									totalRowCount.addAndGet(rc);
-									linesRead.getAndIncrement();
-									if (!startsWithDrop) {
-										count.getAndIncrement();
-									}
-								}
-							} catch (SQLException e) {
-								try {
-									// [bugs:#37] PostreSQL: transactional execution
-									session.getConnection().rollback();
-								} catch (SQLException e1) {
-									// ignore
-								}
-								// drop may fail
-								if (!finalTryMode && !startsWithDrop) {
-									// fix for bug [2946477]
-									if (!stmt.trim().toUpperCase().contains("DROP TABLE JAILER_DUAL")) {
-										Session._log.warn(stmt, e);
-										if (e instanceof SqlException) {
-											((SqlException) e).setInsufficientPrivileges(count.get() == 0);
-										}
-										throw new RuntimeException(e);
-									}
-								}
-							} finally {
-								session.setSilent(silent);
-								session.setLogStatements(oldLogStatements);
+					String insertTable = batchSize > 0 && !tryMode? insertTable(stmt) : null;
+					if (insertTable == null || !insertTable.equals(batchTable)) {
+						flushBatch(batch, inSync, counter);
+						batchTable = insertTable;
+					}
+					if (insertTable != null) {
+						batch.add(stmt);
+						if (batch.size() >= batchSize) {
+							flushBatch(batch, inSync, counter);
+						}
+					} else {
+						if (IDENTITY_INSERT.matcher(currentStatement).matches()) {
+							sync();
+							if (executor != null) {
+								executor.shutdown();
+								executor = null;
 							}
 						}
-					}, inSync);
+						execute(createStatementTask(stmt, tryMode, counter), inSync);
+					}
 					currentStatement.setLength(0);
 					logProgress.run();
 					tryMode = false;
@@ -416,14 +401,12 @@ public class SqlScriptExecutor {
 				}
 			}
 			bufferedReader.close();
+			flushLobs(inSync);
+			flushBatch(batch, inSync, counter);
 			sync();
 			_log.info(linesRead + " statements (100%)");
 			_log.info("successfully read file '" + scriptFileName + "'");
-			Pair<Integer, Long> r = new Pair<Integer, Long>(count.get(), totalRowCount.get());
-			synchronized (SqlScriptExecutor.class) {
-				lastRowCount = r;
-			}
-			return r;
+			return new Pair<Integer, Long>(count.get(), totalRowCount.get());
 		} catch (Exception e) {
 			if (e.getCause() instanceof SQLException) {
 				throw (SQLException) e.getCause();
@@ -433,6 +416,12 @@ public class SqlScriptExecutor {
 			}
 			throw new RuntimeException(e);
 		} finally {
+			try {
+				// stops the read-ahead thread of the decoding stream
+				bufferedReader.close();
+			} catch (IOException e) {
+				// ignore
+			}
 			if (executor != null) {
 				executor.shutdown();
 			}
@@ -447,6 +436,151 @@ public class SqlScriptExecutor {
 		}
 	}
 
+	/**
+	 * Counts executed statements and affected rows.
+	 */
+	private static class Counter {
+		final AtomicLong linesRead;
+		final AtomicLong totalRowCount;
+		final AtomicInteger count;
+
+		Counter(AtomicLong linesRead, AtomicLong totalRowCount, AtomicInteger count) {
+			this.linesRead = linesRead;
+			this.totalRowCount = totalRowCount;
+			this.count = count;
+		}
+	}
+
+	/**
+	 * Creates a task that executes a single statement.
+	 * 
+	 * @param stmt the statement
+	 * @param tryMode if <code>true</code>, errors are ignored
+	 * @param counter counts statements and rows
+	 */
+	private Runnable createStatementTask(final String stmt, final boolean tryMode, final Counter counter) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				boolean startsWithDrop = stmt.trim().toLowerCase().startsWith("drop");
+				boolean silent = session.getSilent();
+				session.setSilent(silent || tryMode || startsWithDrop);
+				boolean oldLogStatements = session.getLogStatements();
+				session.setLogStatements(logStatements);
+				try {
+					if (stmt.trim().length() > 0) {
+						boolean done = false;
+						long rc = 0;
+						if (startsWithDrop) {
+							// [bugs:#37] PostreSQL: transactional execution
+							String withExists = stmt.replaceFirst("(?is)(DROP\\s+TABLE\\s+)", "$1IF EXISTS ");
+							if (!withExists.equals(stmt)) {
+								try {
+									rc = session.execute(withExists);
+								} catch (SQLException e) {
+									rc = session.execute(stmt);
+								}
+								done = true;
+							}
+						}
+						if (!done) {
+							rc = session.execute(stmt);
+						}
+						counter.totalRowCount.addAndGet(rc);
+						counter.linesRead.getAndIncrement();
+						if (!startsWithDrop) {
+							counter.count.getAndIncrement();
+						}
+					}
+				} catch (SQLException e) {
+					try {
+						// [bugs:#37] PostreSQL: transactional execution
+						session.getConnection().rollback();
+					} catch (SQLException e1) {
+						// ignore
+					}
+					// drop may fail
+					if (!tryMode && !startsWithDrop) {
+						// fix for bug [2946477]
+						if (!stmt.trim().toUpperCase().contains("DROP TABLE JAILER_DUAL")) {
+							Session._log.warn(stmt, e);
+							if (e instanceof SqlException) {
+								((SqlException) e).setInsufficientPrivileges(counter.count.get() == 0);
+							}
+							throw new RuntimeException(e);
+						}
+					}
+				} finally {
+					session.setSilent(silent);
+					session.setLogStatements(oldLogStatements);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Creates a task that executes a batch of inserts.
+	 * If the batch fails and has been undone, the statements are executed one by one
+	 * in order to report the erroneous statement.
+	 * 
+	 * @param statements the statements
+	 * @param counter counts statements and rows
+	 */
+	private Runnable createBatchTask(final List<String> statements, final Counter counter) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				boolean oldLogStatements = session.getLogStatements();
+				session.setLogStatements(logStatements);
+				try {
+					long rc = session.executeBatch(statements, null);
+					counter.totalRowCount.addAndGet(rc);
+					counter.linesRead.addAndGet(statements.size());
+					counter.count.addAndGet(statements.size());
+				} catch (Session.BatchNotUndoneException e) {
+					// some statements of the batch may have been applied, executing them again would fail
+					Session._log.warn(e.sqlStatement, e);
+					throw new RuntimeException(e);
+				} catch (SQLException e) {
+					_log.info("batch failed, executing statements one by one (" + e.getMessage() + ")");
+					for (String stmt: statements) {
+						createStatementTask(stmt, false, counter).run();
+					}
+				} finally {
+					session.setLogStatements(oldLogStatements);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Executes the collected inserts, if any.
+	 * 
+	 * @param batch the collected inserts, will be cleared
+	 * @param inSync whether statements may be executed in parallel
+	 * @param counter counts statements and rows
+	 */
+	private void flushBatch(List<String> batch, boolean inSync, Counter counter) {
+		if (!batch.isEmpty()) {
+			execute(createBatchTask(new ArrayList<String>(batch), counter), inSync);
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Gets the table of an insert statement.
+	 * 
+	 * @param stmt the statement
+	 * @return the table name or <code>null</code> if stmt is not an insert statement
+	 */
+	private static String insertTable(String stmt) {
+		Matcher matcher = INSERT.matcher(stmt);
+		if (matcher.find()) {
+			return matcher.group(1);
+		}
+		return null;
+	}
+
 	private void execute(final Runnable task, boolean inSync) {
 		if (!inSync || executor == null) {
 			task.run();
@@ -510,151 +644,420 @@ public class SqlScriptExecutor {
 	}
 	
 	/**
-	 * Imports clob from sql-script.
+	 * Maximum size of a LOB (in chars or bytes) that is decoded in memory.
+	 * Larger LOBs are streamed from the script into the statement.
+	 */
+	private static final int MAX_BUFFERED_LOB_SIZE = 1024 * 1024;
+
+	/**
+	 * Maximum number and total size of small LOBs that are imported together.
+	 */
+	private static final int MAX_PENDING_LOBS = 1000;
+	private static final long MAX_PENDING_LOBS_SIZE = 8L * 1024 * 1024;
+
+	/**
+	 * Small LOBs decoded in memory, not yet imported.
+	 */
+	private final List<LobUpdate> pendingLobs = new ArrayList<LobUpdate>();
+	private long pendingLobsSize = 0;
+
+	/**
+	 * Whether the driver supports streams of unknown length.
+	 */
+	private boolean streamsOfUnknownLengthSupported = true;
+
+	/**
+	 * Update of a LOB column.
+	 */
+	private static class LobUpdate {
+		final String type;
+		final String table;
+		final String column;
+		final String where;
+		char[] chars;
+		byte[] bytes;
+		int length;
+
+		LobUpdate(String type, String lobLocator) {
+			int c1 = lobLocator.indexOf(',');
+			int c2 = lobLocator.indexOf(',', c1 + 1);
+			this.type = type;
+			this.table = lobLocator.substring(0, c1).trim();
+			this.column = lobLocator.substring(c1 + 1, c2).trim();
+			this.where = lobLocator.substring(c2 + 1).trim();
+		}
+
+		boolean isBinary() {
+			return BLOB.equals(type);
+		}
+
+		/**
+		 * Executes the update.
+		 * 
+		 * @param reader content of a CLob or SQL-XML
+		 * @param in content of a BLob
+		 * @param length length of the content, or <code>-1</code> if unknown
+		 */
+		void execute(Session session, Reader reader, InputStream in, long length) throws SQLException {
+			if (BLOB.equals(type)) {
+				session.insertBlob(table, column, where, in, length);
+			} else if (CLOB.equals(type)) {
+				session.insertClob(table, column, where, reader, length);
+			} else {
+				session.insertSQLXML(table, column, where, reader, length);
+			}
+		}
+
+		/**
+		 * Executes the update with the content decoded in memory.
+		 */
+		void execute(Session session) throws SQLException {
+			if (isBinary()) {
+				execute(session, null, new ByteArrayInputStream(bytes, 0, length), length);
+			} else {
+				execute(session, new CharArrayReader(chars, 0, length), null, length);
+			}
+		}
+	}
+
+	private static final String CLOB = "CLOB";
+	private static final String BLOB = "BLOB";
+	private static final String XML = "XML";
+
+	/**
+	 * Imports a LOB from sql-script.<br>
+	 * The content is decoded in memory and imported together with the following LOBs.
+	 * Large LOBs are decoded while they are streamed into the database.
 	 * 
-	 * @param clobLocator locates the clob
+	 * @param type "CLOB", "BLOB" or "XML"
+	 * @param lobLocator locates the LOB
 	 * @param lineReader for reading content
+	 * @param inSync whether statements may be executed in parallel
 	 */
-	private void importCLob(final String clobLocator, final LineReader lineReader) throws IOException, SQLException {
-		int c1 = clobLocator.indexOf(',');
-		int c2 = clobLocator.indexOf(',', c1 + 1);
-		final String table = clobLocator.substring(0, c1).trim();
-		final String column = clobLocator.substring(c1 + 1, c2).trim();
-		final String where = clobLocator.substring(c2 + 1).trim();
-		String line;
-		final File lobFile = Configuration.getInstance().createTempFile(); // new File("lob." + System.currentTimeMillis());
-		Writer out = new OutputStreamWriter(new FileOutputStream(lobFile), "UTF-8");
-		long length = 0;
-		while ((line = lineReader.readLine()) != null) {
-			if (line.startsWith(UNFINISHED_MULTILINE_COMMENT)) {
-				String content = line.substring(UNFINISHED_MULTILINE_COMMENT.length());
-				int l = content.length();
-				boolean inEscape = false;
-				for (int i = 0; i < l; ++i) {
-					char c = content.charAt(i);
-					if (c == '\\') {
-						if (inEscape) {
-							inEscape = false;
-						} else {
-							inEscape = true;
-							continue;
-						}
-					} else {
-						if (inEscape) {
-							if (c == 'n') {
-								c = '\n';
-							} else if (c == 'r') {
-								c = '\r';
-							}
-							inEscape = false;
-						}
-					}
-					out.write(c);
-					++length;
+	private void importLob(String type, String lobLocator, LineReader lineReader, boolean inSync) throws IOException, SQLException {
+		LobUpdate lobUpdate = new LobUpdate(type, lobLocator);
+		LobContent content = new LobContent(lineReader, lobUpdate.isBinary());
+		if (lobUpdate.isBinary()) {
+			lobUpdate.bytes = new byte[1024];
+			int n;
+			while (lobUpdate.length <= MAX_BUFFERED_LOB_SIZE && (n = content.read(lobUpdate.bytes, lobUpdate.length, lobUpdate.bytes.length - lobUpdate.length)) >= 0) {
+				lobUpdate.length += n;
+				if (lobUpdate.length == lobUpdate.bytes.length) {
+					lobUpdate.bytes = Arrays.copyOf(lobUpdate.bytes, 2 * lobUpdate.length);
 				}
-			} else {
-				break;
 			}
+		} else {
+			lobUpdate.chars = new char[1024];
+			int n;
+			while (lobUpdate.length <= MAX_BUFFERED_LOB_SIZE && (n = content.read(lobUpdate.chars, lobUpdate.length, lobUpdate.chars.length - lobUpdate.length)) >= 0) {
+				lobUpdate.length += n;
+				if (lobUpdate.length == lobUpdate.chars.length) {
+					lobUpdate.chars = Arrays.copyOf(lobUpdate.chars, 2 * lobUpdate.length);
+				}
+			}
+		}
+		if (content.isFinished()) {
+			if (pendingLobs.isEmpty()) {
+				// the rows must have been inserted
+				sync();
+			}
+			pendingLobs.add(lobUpdate);
+			pendingLobsSize += lobUpdate.length;
+			if (pendingLobs.size() >= MAX_PENDING_LOBS || pendingLobsSize >= MAX_PENDING_LOBS_SIZE) {
+				flushLobs(inSync);
+			}
+			return;
 		}
-		out.close();
+
+		// large LOB
+		flushLobs(inSync);
 		sync();
-		final long finalLength = length;
-		session.insertClob(table, column, where, lobFile, finalLength);
-		lobFile.delete();
+		if (lobUpdate.isBinary()) {
+			content.setPrefix(lobUpdate.bytes, lobUpdate.length);
+		} else {
+			content.setPrefix(lobUpdate.chars, lobUpdate.length);
+		}
+		if (streamsOfUnknownLengthSupported) {
+			try {
+				lobUpdate.execute(session, content.asReader(), content.asInputStream(), -1);
+				content.skipRemaining();
+				return;
+			} catch (SQLFeatureNotSupportedException e) {
+				if (content.getPosition() > 0) {
+					throw e;
+				}
+				_log.info("driver does not support streams of unknown length (" + e.getMessage() + ")");
+				streamsOfUnknownLengthSupported = false;
+			}
+		}
+
+		// the length must be known in advance
+		final File lobFile = Configuration.getInstance().createTempFile();
+		try {
+			long length = 0;
+			if (lobUpdate.isBinary()) {
+				OutputStream out = new FileOutputStream(lobFile);
+				byte[] buffer = new byte[8192];
+				int n;
+				while ((n = content.read(buffer, 0, buffer.length)) >= 0) {
+					out.write(buffer, 0, n);
+					length += n;
+				}
+				out.close();
+				InputStream in = new FileInputStream(lobFile);
+				try {
+					lobUpdate.execute(session, null, in, length);
+				} finally {
+					in.close();
+				}
+			} else {
+				Writer out = new OutputStreamWriter(new FileOutputStream(lobFile), "UTF-8");
+				char[] buffer = new char[8192];
+				int n;
+				while ((n = content.read(buffer, 0, buffer.length)) >= 0) {
+					out.write(buffer, 0, n);
+					length += n;
+				}
+				out.close();
+				Reader in = new InputStreamReader(new FileInputStream(lobFile), "UTF-8");
+				try {
+					lobUpdate.execute(session, in, null, length);
+				} finally {
+					in.close();
+				}
+			}
+		} finally {
+			lobFile.delete();
+		}
 	}
-	
+
 	/**
-	 * Imports SQL-XML from sql-script.
+	 * Imports the pending small LOBs.
 	 * 
-	 * @param xmlLocator locates the XML column
-	 * @param lineReader for reading content
+	 * @param inSync whether statements may be executed in parallel
 	 */
-	private void importSQLXML(final String xmlLocator, final LineReader lineReader) throws IOException, SQLException {
-		int c1 = xmlLocator.indexOf(',');
-		int c2 = xmlLocator.indexOf(',', c1 + 1);
-		final String table = xmlLocator.substring(0, c1).trim();
-		final String column = xmlLocator.substring(c1 + 1, c2).trim();
-		final String where = xmlLocator.substring(c2 + 1).trim();
-		String line;
-		final File lobFile = Configuration.getInstance().createTempFile(); // new File("lob." + System.currentTimeMillis());
-		Writer out = new OutputStreamWriter(new FileOutputStream(lobFile), "UTF-8");
-		long length = 0;
-		while ((line = lineReader.readLine()) != null) {
-			// line = line.trim();
-			if (line.startsWith(UNFINISHED_MULTILINE_COMMENT)) {
-				String content = line.substring(UNFINISHED_MULTILINE_COMMENT.length());
-				int l = content.length();
-				boolean inEscape = false;
-				for (int i = 0; i < l; ++i) {
-					char c = content.charAt(i);
-					if (c == '\\') {
-						if (inEscape) {
-							inEscape = false;
-						} else {
-							inEscape = true;
-							continue;
-						}
-					} else {
-						if (inEscape) {
-							if (c == 'n') {
-								c = '\n';
-							} else if (c == 'r') {
-								c = '\r';
-							}
-							inEscape = false;
+	private void flushLobs(boolean inSync) {
+		if (!pendingLobs.isEmpty()) {
+			final List<LobUpdate> lobs = new ArrayList<LobUpdate>(pendingLobs);
+			pendingLobs.clear();
+			pendingLobsSize = 0;
+			execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						for (LobUpdate lob: lobs) {
+							lob.execute(session);
 						}
+					} catch (SQLException e) {
+						throw new RuntimeException(e);
 					}
-					out.write(c);
-					++length;
 				}
-			} else {
-				break;
-			}
+			}, inSync);
 		}
-		out.close();
-		final long finalLength = length;
-		sync();
-		session.insertSQLXML(table, column, where, lobFile, finalLength);
-		lobFile.delete();
 	}
-	
+
 	/**
-	 * Imports blob from sql-script.
-	 * 
-	 * @param clobLocator locates the clob
-	 * @param lineReader for reading content
+	 * Decodes the content of a LOB from the multi-line comment block that follows the LOB locator.
+	 * The line that ends the block is consumed.
 	 */
-	private void importBLob(final String clobLocator, final LineReader lineReader) throws IOException, SQLException {
-		int c1 = clobLocator.indexOf(',');
-		int c2 = clobLocator.indexOf(',', c1 + 1);
-		final String table = clobLocator.substring(0, c1).trim();
-		final String column = clobLocator.substring(c1 + 1, c2).trim();
-		final String where = clobLocator.substring(c2 + 1).trim();
-		String line;
-		final File lobFile = Configuration.getInstance().createTempFile(); // new File("lob." + System.currentTimeMillis());
-		OutputStream out = new FileOutputStream(lobFile);
-		while ((line = lineReader.readLine()) != null) {
-			line = line.trim();
-			if (line.startsWith(UNFINISHED_MULTILINE_COMMENT)) {
-				String content = line.substring(UNFINISHED_MULTILINE_COMMENT.length());
-				out.write(Base64.decode(content));
-			} else {
-				break;
+	private static class LobContent {
+		private final LineReader lineReader;
+		private final boolean binary;
+		private boolean finished = false;
+		private long position = 0;
+
+		/**
+		 * The decoded line (chars or bytes).
+		 */
+		private char[] chars = new char[256];
+		private byte[] bytes;
+		private int length = 0;
+		private int index = 0;
+
+		LobContent(LineReader lineReader, boolean binary) {
+			this.lineReader = lineReader;
+			this.binary = binary;
+		}
+
+		/**
+		 * Decodes the next line.
+		 * 
+		 * @return <code>false</code> at the end of the block
+		 */
+		private boolean nextLine() throws IOException {
+			while (!finished) {
+				String line = lineReader.readLine();
+				if (line != null && binary) {
+					line = line.trim();
+				}
+				if (line == null || !line.startsWith(UNFINISHED_MULTILINE_COMMENT)) {
+					finished = true;
+					break;
+				}
+				index = 0;
+				if (binary) {
+					bytes = Base64.decode(line.substring(UNFINISHED_MULTILINE_COMMENT.length()));
+					length = bytes.length;
+				} else {
+					unescape(line);
+				}
+				if (length > 0) {
+					return true;
+				}
 			}
+			return false;
 		}
-		out.close();
-		sync();
-		session.insertBlob(table, column, where, lobFile);
-		lobFile.delete();
-	}
 
-	private static Pair<Integer, Long> lastRowCount = null;
-	
-	public static synchronized Pair<Integer, Long> getLastStatementCount() {
-		if (lastRowCount != null) {
-			return lastRowCount;
+		private void unescape(String line) {
+			int l = line.length();
+			if (chars.length < l) {
+				chars = new char[l];
+			}
+			length = 0;
+			boolean inEscape = false;
+			for (int i = UNFINISHED_MULTILINE_COMMENT.length(); i < l; ++i) {
+				char c = line.charAt(i);
+				if (c == '\\') {
+					if (inEscape) {
+						inEscape = false;
+					} else {
+						inEscape = true;
+						continue;
+					}
+				} else {
+					if (inEscape) {
+						if (c == 'n') {
+							c = '\n';
+						} else if (c == 'r') {
+							c = '\r';
+						}
+						inEscape = false;
+					}
+				}
+				chars[length++] = c;
+			}
+		}
+
+		/**
+		 * Sets content already read, to be read again before the rest.
+		 */
+		void setPrefix(char[] prefix, int prefixLength) {
+			if (index < length) {
+				char[] c = new char[prefixLength + length - index];
+				System.arraycopy(prefix, 0, c, 0, prefixLength);
+				System.arraycopy(chars, index, c, prefixLength, length - index);
+				prefix = c;
+				prefixLength = c.length;
+			}
+			chars = prefix;
+			length = prefixLength;
+			index = 0;
+			position = 0;
+		}
+
+		/**
+		 * Sets content already read, to be read again before the rest.
+		 */
+		void setPrefix(byte[] prefix, int prefixLength) {
+			if (index < length) {
+				byte[] b = new byte[prefixLength + length - index];
+				System.arraycopy(prefix, 0, b, 0, prefixLength);
+				System.arraycopy(bytes, index, b, prefixLength, length - index);
+				prefix = b;
+				prefixLength = b.length;
+			}
+			bytes = prefix;
+			length = prefixLength;
+			index = 0;
+			position = 0;
+		}
+
+		int read(char[] cbuf, int off, int len) throws IOException {
+			if (index == length && !nextLine()) {
+				return -1;
+			}
+			int n = Math.min(len, length - index);
+			System.arraycopy(chars, index, cbuf, off, n);
+			index += n;
+			position += n;
+			return n;
+		}
+
+		int read(byte[] b, int off, int len) throws IOException {
+			if (index == length && !nextLine()) {
+				return -1;
+			}
+			int n = Math.min(len, length - index);
+			System.arraycopy(bytes, index, b, off, n);
+			index += n;
+			position += n;
+			return n;
+		}
+
+		/**
+		 * Gets whether the block has been read completely.
+		 */
+		boolean isFinished() {
+			return finished && index == length;
+		}
+
+		/**
+		 * Gets the number of chars or bytes read since the prefix has been set.
+		 */
+		long getPosition() {
+			return position;
+		}
+
+		/**
+		 * Skips the rest of the block.
+		 */
+		void skipRemaining() throws IOException {
+			index = length;
+			while (nextLine()) {
+				index = length;
+			}
+		}
+
+		Reader asReader() {
+			if (binary) {
+				return null;
+			}
+			return new Reader() {
+				@Override
+				public int read(char[] cbuf, int off, int len) throws IOException {
+					if (len == 0) {
+						return 0;
+					}
+					return LobContent.this.read(cbuf, off, len);
+				}
+				@Override
+				public void close() {
+				}
+			};
+		}
+
+		InputStream asInputStream() {
+			if (!binary) {
+				return null;
+			}
+			return new InputStream() {
+				@Override
+				public int read() throws IOException {
+					byte[] b = new byte[1];
+					int n;
+					while ((n = read(b, 0, 1)) == 0) {
+					}
+					return n < 0? -1 : b[0] & 0xff;
+				}
+				@Override
+				public int read(byte[] b, int off, int len) throws IOException {
+					if (len == 0) {
+						return 0;
+					}
+					return LobContent.this.read(b, off, len);
+				}
+			};
 		}
-		return new Pair<Integer, Long>(0, 0L);
 	}
-	
+
 }
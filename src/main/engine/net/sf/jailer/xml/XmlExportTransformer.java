@@ -18,14 +18,22 @@ package net.sf.jailer.xml;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.sql.Blob;
+import java.sql.Clob;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import javax.sql.rowset.serial.SerialBlob;
+import javax.sql.rowset.serial.SerialClob;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerConfigurationException;
 
@@ -34,6 +42,7 @@ import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 import net.sf.jailer.ExecutionContext;
+import net.sf.jailer.configuration.DBMS;
 import net.sf.jailer.database.Session;
 import net.sf.jailer.database.Session.AbstractResultSetReader;
 import net.sf.jailer.database.Session.ResultSetReader;
@@ -43,6 +52,8 @@ import net.sf.jailer.datamodel.Column;
 import net.sf.jailer.datamodel.RowIdSupport;
 import net.sf.jailer.datamodel.Table;
 import net.sf.jailer.entitygraph.EntityGraph;
+import net.sf.jailer.modelbuilder.MemorizedResultSet;
+import net.sf.jailer.modelbuilder.MemorizedResultSet.MemorizedResultSetMetaData;
 import net.sf.jailer.util.CellContentConverter;
 import net.sf.jailer.util.Quoting;
 
@@ -63,16 +74,6 @@ public class XmlExportTransformer extends AbstractResultSetReader {
 	 */
 	private final XmlRowWriter xmlRowWriter;
 
-	/**
-	 * Counts the exported entities. (GUI support)
-	 */
-	public static long numberOfExportedEntities;
-
-	/**
-	 * Counts the exported LOBs. (GUI support)
-	 */
-	public static long numberOfExportedLOBs;
-
 	/**
 	 * The entity graph.
 	 */
@@ -115,6 +116,27 @@ public class XmlExportTransformer extends AbstractResultSetReader {
 
 	private final Quoting quoting;
 	
+	/**
+	 * Maximum number of entities whose aggregated entities are read with one query.
+	 */
+	private static final int BLOCK_SIZE = 500;
+
+	/**
+	 * Top-level entities which are not yet written.
+	 */
+	private final List<BufferedRow> block = new ArrayList<BufferedRow>();
+
+	/**
+	 * Top-level entities are read into {@link #block} from this result set.
+	 */
+	private BufferedRows blockRows;
+	
+	/**
+	 * Whether the aggregated entities of a block of entities are read at once.
+	 * <code>false</code> if the entity graph does not support it.
+	 */
+	private boolean readBlockwise = true;
+
 	/**
 	 * Constructor.
 	 * 
@@ -145,7 +167,17 @@ public class XmlExportTransformer extends AbstractResultSetReader {
 	@Override
 	public void readCurrentRow(ResultSet resultSet) throws SQLException {
 		try {
-			writeEntity(table, null, resultSet, new ArrayList<String>(), getCellContentConverter(resultSet, session, session.dbms));
+			if (!readBlockwise) {
+				writeEntity(table, null, resultSet, new ArrayList<String>(), getCellContentConverter(resultSet, session, session.dbms), null);
+				return;
+			}
+			if (blockRows == null || blockRows.resultSet != resultSet) {
+				blockRows = new BufferedRows(table, resultSet);
+			}
+			block.add(blockRows.add(resultSet));
+			if (block.size() >= BLOCK_SIZE) {
+				writeBlock();
+			}
 		} catch (SAXException e) {
 			throw new RuntimeException(e);
 		} catch (ParserConfigurationException e) {
@@ -162,8 +194,9 @@ public class XmlExportTransformer extends AbstractResultSetReader {
 	 * @param association association to parent, <code>null</code> for top-level entities
 	 * @param resultSet current row contains entity to write out
 	 * @param ancestors ancestors of entity to write out
+	 * @param bufferedRow the entity if it has been read blockwise, else <code>null</code>
 	 */
-	private void writeEntity(final Table table, Association association, final ResultSet resultSet, final List<String> ancestors, final CellContentConverter cellContentConverter)
+	private void writeEntity(final Table table, Association association, final ResultSet resultSet, final List<String> ancestors, final CellContentConverter cellContentConverter, final BufferedRow bufferedRow)
 			throws SQLException, SAXException, ParserConfigurationException, IOException {
 		StringBuilder sb = new StringBuilder(table.getName() + "(");
 		boolean f = true;
@@ -204,11 +237,24 @@ public class XmlExportTransformer extends AbstractResultSetReader {
 				if (sa != null) {
 					if (totalProgress.contains(sa.destination)) {
 						if (sa.getAggregationSchema() != AggregationSchema.NONE) {
+							List<BufferedRow> children = bufferedRow == null || bufferedRow.children == null? null : bufferedRow.children.get(sa);
+							if (children != null) {
+								try {
+									xmlRowWriter.startList(sa);
+									for (BufferedRow child: children) {
+										writeEntity(sa.destination, sa, child.createResultSet(), ancestors, child.owner.cellContentConverter, child);
+									}
+									xmlRowWriter.endList(sa);
+								} catch (Exception e) {
+									throw new RuntimeException(e);
+								}
+								return;
+							}
 							ResultSetReader reader = new ResultSetReader() {
 								@Override
 								public void readCurrentRow(ResultSet resultSet) throws SQLException {
 									try {
-										writeEntity(sa.destination, sa, resultSet, ancestors, getCellContentConverter(resultSet, session, session.dbms));
+										writeEntity(sa.destination, sa, resultSet, ancestors, getCellContentConverter(resultSet, session, session.dbms), null);
 									} catch (SAXException e) {
 										throw new RuntimeException(e);
 									} catch (ParserConfigurationException e) {
@@ -266,6 +312,15 @@ public class XmlExportTransformer extends AbstractResultSetReader {
 	 * Closes the XML document.
 	 */
 	public void endDocument() throws SAXException {
+		try {
+			writeBlock();
+		} catch (SQLException e) {
+			throw new RuntimeException(e);
+		} catch (ParserConfigurationException e) {
+			throw new RuntimeException(e);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
 		xmlRowWriter.close();
 	}
 
@@ -274,6 +329,263 @@ public class XmlExportTransformer extends AbstractResultSetReader {
 	 */
 	@Override
 	public void close() {
+		try {
+			writeBlock();
+		} catch (SQLException e) {
+			throw new RuntimeException(e);
+		} catch (SAXException e) {
+			throw new RuntimeException(e);
+		} catch (ParserConfigurationException e) {
+			throw new RuntimeException(e);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		blockRows = null;
+	}
+
+	/**
+	 * Reads the entities aggregated by the entities of the current block and writes the block.
+	 */
+	private void writeBlock() throws SQLException, SAXException, ParserConfigurationException, IOException {
+		if (block.isEmpty()) {
+			return;
+		}
+		readAggregatedEntities(table, block);
+		for (BufferedRow row: block) {
+			writeEntity(table, null, row.createResultSet(), new ArrayList<String>(), row.owner.cellContentConverter, row);
+		}
+		block.clear();
+	}
+
+	/**
+	 * Reads the entities aggregated by the given entities, with one query per association and block of entities.
+	 * Entities of cyclic aggregated tables are not read here, they are read per entity when written.
+	 * 
+	 * @param table the table of the entities
+	 * @param rows the entities
+	 */
+	private void readAggregatedEntities(Table table, List<BufferedRow> rows) throws SQLException, SAXException, IOException {
+		if (!readBlockwise || rows.isEmpty()) {
+			return;
+		}
+		for (final Association sa: getTableMapping(table).aggregations) {
+			if (cyclicAggregatedTables.contains(sa.destination)) {
+				continue;
+			}
+			final TableMapping destinationMapping = getTableMapping(sa.destination);
+			final int parentPKSize = rowIdSupport.getPrimaryKey(table).getColumns().size();
+			List<BufferedRow> children = new ArrayList<BufferedRow>();
+			for (int start = 0; start < rows.size(); start += BLOCK_SIZE) {
+				List<BufferedRow> parents = rows.subList(start, Math.min(rows.size(), start + BLOCK_SIZE));
+				Map<String, String[]> parentKeys = new LinkedHashMap<String, String[]>();
+				for (BufferedRow parent: parents) {
+					parentKeys.put(parent.getPrimaryKey(), parent.primaryKey);
+				}
+				final Map<String, List<BufferedRow>> childrenPerParent = new HashMap<String, List<BufferedRow>>();
+				AbstractResultSetReader reader = new AbstractResultSetReader() {
+					BufferedRows bufferedRows;
+					@Override
+					public void readCurrentRow(ResultSet resultSet) throws SQLException {
+						if (bufferedRows == null || bufferedRows.resultSet != resultSet) {
+							bufferedRows = new BufferedRows(sa.destination, resultSet);
+						}
+						BufferedRow child = bufferedRows.add(resultSet);
+						ResultSet childResultSet = child.createResultSet();
+						StringBuilder parentKey = new StringBuilder();
+						for (int i = 0; i < parentPKSize; ++i) {
+							if (i > 0) {
+								parentKey.append(", ");
+							}
+							parentKey.append(bufferedRows.cellContentConverter.toSql(bufferedRows.cellContentConverter.getObject(childResultSet, destinationMapping.parentPKAliasPrefix + i)));
+						}
+						List<BufferedRow> siblings = childrenPerParent.get(parentKey.toString());
+						if (siblings == null) {
+							siblings = new ArrayList<BufferedRow>();
+							childrenPerParent.put(parentKey.toString(), siblings);
+						}
+						siblings.add(child);
+					}
+					@Override
+					public void close() {
+					}
+				};
+				if (!entityGraph.readDependentEntities(sa.destination, sa, new ArrayList<String[]>(parentKeys.values()), reader, destinationMapping.selectionSchema, destinationMapping.originalPKAliasPrefix, destinationMapping.parentPKAliasPrefix)) {
+					readBlockwise = false;
+					return;
+				}
+				for (BufferedRow parent: parents) {
+					List<BufferedRow> siblings = childrenPerParent.get(parent.getPrimaryKey());
+					if (siblings == null) {
+						siblings = Collections.emptyList();
+					}
+					if (parent.children == null) {
+						parent.children = new HashMap<Association, List<BufferedRow>>();
+					}
+					parent.children.put(sa, siblings);
+				}
+				for (List<BufferedRow> siblings: childrenPerParent.values()) {
+					children.addAll(siblings);
+				}
+			}
+			readAggregatedEntities(sa.destination, children);
+		}
+	}
+
+	/**
+	 * Rows read from a result set, kept until they are written.
+	 */
+	private class BufferedRows {
+		
+		/**
+		 * The result set.
+		 */
+		final ResultSet resultSet;
+		
+		/**
+		 * Primary key of the table the rows are read from.
+		 */
+		final int pkSize;
+
+		/**
+		 * Meta data of the buffered rows.
+		 * Reports the type of LOB columns and {@link Types#OTHER} for all other columns, 
+		 * whose content is buffered as read by the {@link CellContentConverter} of the result set.
+		 */
+		final MemorizedResultSetMetaData metaData;
+		
+		/**
+		 * Reads the content of the result set.
+		 */
+		private final CellContentConverter resultSetCellContentConverter;
+		
+		/**
+		 * Reads the content of the buffered rows.
+		 */
+		final CellContentConverter cellContentConverter;
+
+		BufferedRows(Table table, ResultSet resultSet) throws SQLException {
+			this.resultSet = resultSet;
+			this.pkSize = rowIdSupport.getPrimaryKey(table).getColumns().size();
+			ResultSetMetaData resultSetMetaData = resultSet.getMetaData();
+			int numCol = resultSetMetaData.getColumnCount();
+			String[] names = new String[numCol];
+			final int[] types = new int[numCol];
+			for (int i = 1; i <= numCol; ++i) {
+				names[i - 1] = resultSetMetaData.getColumnLabel(i);
+				int type;
+				try {
+					type = resultSetMetaData.getColumnType(i);
+				} catch (Exception e) {
+					type = Types.OTHER;
+				}
+				types[i - 1] = type == Types.BLOB || type == Types.CLOB || type == Types.NCLOB? type : Types.OTHER;
+			}
+			this.metaData = new MemorizedResultSetMetaData(numCol, names, types) {
+				@Override
+				public int getColumnType(int column) {
+					return types[column - 1];
+				}
+			};
+			this.resultSetCellContentConverter = new CellContentConverter(resultSetMetaData, session, session.dbms);
+			this.cellContentConverter = new CellContentConverter(metaData, session, session.dbms);
+		}
+
+		/**
+		 * Reads the current row.
+		 * 
+		 * @param resultSet the result set
+		 * @return the row
+		 */
+		BufferedRow add(ResultSet resultSet) throws SQLException {
+			Object[] values = new Object[metaData.types.length];
+			for (int i = 1; i <= values.length; ++i) {
+				int type = metaData.types[i - 1];
+				if (type != Types.OTHER && !DBMS.SQLITE.equals(session.dbms)) {
+					values[i - 1] = readLob(resultSet.getObject(i));
+				} else {
+					values[i - 1] = resultSetCellContentConverter.getObject(resultSet, i);
+				}
+			}
+			BufferedRow row = new BufferedRow(this, values);
+			row.primaryKey = new String[pkSize];
+			ResultSet rowResultSet = row.createResultSet();
+			for (int i = 0; i < pkSize; ++i) {
+				row.primaryKey[i] = cellContentConverter.toSql(cellContentConverter.getObject(rowResultSet, "PK" + i));
+			}
+			return row;
+		}
+
+		/**
+		 * Reads the content of a LOB, which may become invalid when the result set is closed.
+		 */
+		private Object readLob(Object object) throws SQLException {
+			if (object instanceof Blob) {
+				Blob blob = (Blob) object;
+				return new SerialBlob(blob.getBytes(1, (int) blob.length()));
+			}
+			if (object instanceof Clob) {
+				Clob clob = (Clob) object;
+				int length = (int) clob.length();
+				return new SerialClob((length > 0? clob.getSubString(1, length) : "").toCharArray());
+			}
+			return object;
+		}
+	}
+
+	/**
+	 * A row read from a result set, kept until it is written.
+	 */
+	private static class BufferedRow {
+		
+		/**
+		 * The rows read from the same result set.
+		 */
+		final BufferedRows owner;
+		
+		/**
+		 * The content.
+		 */
+		final Object[] values;
+		
+		/**
+		 * The primary key (as SQL literals).
+		 */
+		String[] primaryKey;
+		
+		/**
+		 * The aggregated rows per association. Contains no entries for associations 
+		 * whose aggregated rows are to be read per row.
+		 */
+		Map<Association, List<BufferedRow>> children;
+
+		BufferedRow(BufferedRows owner, Object[] values) {
+			this.owner = owner;
+			this.values = values;
+		}
+
+		/**
+		 * Gets the primary key as string.
+		 */
+		String getPrimaryKey() {
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < primaryKey.length; ++i) {
+				if (i > 0) {
+					sb.append(", ");
+				}
+				sb.append(primaryKey[i]);
+			}
+			return sb.toString();
+		}
+
+		/**
+		 * Creates a result set whose current row is this row.
+		 */
+		ResultSet createResultSet() throws SQLException {
+			List<Object[]> rowList = Collections.singletonList(values);
+			MemorizedResultSet resultSet = new MemorizedResultSet(rowList, owner.metaData);
+			resultSet.next();
+			return resultSet;
+		}
 	}
 	
 	/**
@@ -295,6 +607,16 @@ public class XmlExportTransformer extends AbstractResultSetReader {
 		 * Prefix of column aliases for selection of unfiltered PK values.
 		 */
 		public String originalPKAliasPrefix;
+
+		/**
+		 * Prefix of column aliases for selection of the PK values of the aggregating entity.
+		 */
+		public String parentPKAliasPrefix;
+
+		/**
+		 * The aggregations written by the template.
+		 */
+		public List<Association> aggregations = new ArrayList<Association>();
 	}
 	
 	/**
@@ -308,11 +630,11 @@ public class XmlExportTransformer extends AbstractResultSetReader {
 	 * @param table the table
 	 * @return xml mapping for table
 	 */
-	public TableMapping getTableMapping(Table table) throws SAXException, IOException {
+	public TableMapping getTableMapping(final Table table) throws SAXException, IOException {
 		if (tableMappings.containsKey(table)) {
 			return tableMappings.get(table);
 		}
-		TableMapping tableMapping = new TableMapping();
+		final TableMapping tableMapping = new TableMapping();
 		tableMappings.put(table, tableMapping);
 		
 		boolean isFiltered = false;
@@ -343,6 +665,20 @@ public class XmlExportTransformer extends AbstractResultSetReader {
 			}
 		}
 		
+		for (int i = 0; ; ++i) {
+			tableMapping.parentPKAliasPrefix = "A" + i;
+			boolean found = false;
+			for (Column c: table.getColumns()) {
+				if (c.name.startsWith(tableMapping.parentPKAliasPrefix)) {
+					found = true;
+					break;
+				}
+			}
+			if (!found) {
+				break;
+			}
+		}
+		
 		try {
 			tableMapping.template = table.getXmlTemplateAsDocument(quoting);
 		} catch (Exception e) {
@@ -383,6 +719,14 @@ public class XmlExportTransformer extends AbstractResultSetReader {
 			}
 			@Override
 			public void visitAssociationElement(String associationName) {
+				for (Association a: table.associations) {
+					if (a.getName().equals(associationName)) {
+						if (totalProgress.contains(a.destination) && a.getAggregationSchema() != AggregationSchema.NONE && !tableMapping.aggregations.contains(a)) {
+							tableMapping.aggregations.add(a);
+						}
+						break;
+					}
+				}
 			}
 			@Override
 			public void visitComment(String comment) {
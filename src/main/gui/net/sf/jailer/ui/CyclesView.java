@@ -58,8 +58,7 @@ import net.sf.jailer.datamodel.Table;
 import net.sf.jailer.util.CancellationException;
 import net.sf.jailer.util.CancellationHandler;
 import net.sf.jailer.util.CycleFinder;
-import net.sf.jailer.util.CycleFinder.CycleConsumer;
-import net.sf.jailer.util.CycleFinder.Path;
+import net.sf.jailer.util.DependencyGraph.CycleConsumer;
 
 /**
  * Shows dependency cycles.
@@ -358,12 +357,11 @@ public class CyclesView extends javax.swing.JDialog {
 				try {
 					final List<List<Table>> cycles = new ArrayList<List<Table>>();
 					try {
-						CycleFinder.findCycle(extractionModelFrame.extractionModelEditor.dataModel, extractionModelFrame.extractionModelEditor.dataModel.getTables(), true, null,
+						CycleFinder.findCycles(extractionModelFrame.extractionModelEditor.dataModel.getTables(),
 							new CycleConsumer() {
 								@Override
-								public boolean consume(final Path cycle) {
-									List<Table> path = new ArrayList<>(cycle.length);
-									cycle.fillPath(path);
+								public boolean consume(final List<Table> cycle) {
+									List<Table> path = new ArrayList<>(cycle);
 									cycles.add(new ArrayList<Table>(path));
 									path.remove(0);
 									for (int i = 1; i < path.size(); ++i) {
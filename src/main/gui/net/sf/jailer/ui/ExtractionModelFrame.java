@@ -61,7 +61,6 @@ import net.sf.jailer.ExecutionContext;
 import net.sf.jailer.JailerVersion;
 import net.sf.jailer.configuration.Configuration;
 import net.sf.jailer.database.BasicDataSource;
-import net.sf.jailer.database.DMLTransformer;
 import net.sf.jailer.database.Session;
 import net.sf.jailer.database.WorkingTableScope;
 import net.sf.jailer.datamodel.Association;
@@ -1327,8 +1326,6 @@ public class ExtractionModelFrame extends javax.swing.JFrame {
 									ddlArgs.add("-working-table-schema");
 									ddlArgs.add(exportDialog.getWorkingTableSchema());
 								}
-								DMLTransformer.numberOfExportedLOBs = 0;
-								
 								ExecutionContext cDDLExecutionContext = new ExecutionContext(executionContext);
 								cDDLExecutionContext.setIndependentWorkingTables(exportDialog.isIndependentWorkingTablesSelected());
 								cDDLExecutionContext.setNoRowid(!exportDialog.isUseRowId());
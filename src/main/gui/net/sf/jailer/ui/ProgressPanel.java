@@ -36,7 +36,7 @@ import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 
-import net.sf.jailer.database.DMLTransformer;
+import net.sf.jailer.subsetting.ExportStatistic;
 
 /**
  * Progress panel.
@@ -477,11 +477,11 @@ public class ProgressPanel extends javax.swing.JPanel {
         add(jSplitPane1);
     }// </editor-fold>//GEN-END:initComponents
 
-	public void confirm() {
+	public void confirm(ExportStatistic exportStatistic) {
 		String message;
 		message = "Successfully completed.";
-		if (DMLTransformer.numberOfExportedLOBs > 0) {
-			message += "\n" + DMLTransformer.numberOfExportedLOBs + " CLOBs/BLOBs exported.\n\n" +
+		if (exportStatistic != null && exportStatistic.getNumberOfExportedLOBs() > 0) {
+			message += "\n" + exportStatistic.getNumberOfExportedLOBs() + " CLOBs/BLOBs exported.\n\n" +
 					   "Note that the CLOBs/BLOBs can only\n" +
 					   "be imported with the 'Import SQL Data' Tool";
 		}
@@ -379,6 +379,25 @@ public class UIUtil {
             String continueOnErrorQuestion, String user, String password, final ProgressListener progressListener,
             final ProgressPanel progressPanel, final boolean showExeptions, boolean fullSize,
             final boolean closeOutputWindowOnError, boolean returnFalseOnError, boolean throwException, ExecutionContext executionContext) {
+        return runJailer(ownerOfConsole, cliArgs, showLogfileButton, printCommandLine, showExplainLogButton,
+                closeOutputWindow, continueOnErrorQuestion, user, password, progressListener, progressPanel, showExeptions,
+                fullSize, closeOutputWindowOnError, returnFalseOnError, throwException, executionContext, new Jailer.Statistic());
+    }
+
+    /**
+     * Calls the Jailer export engine via CLI.
+     * 
+     * @param statistic
+     *            receives the statistic of the call
+     * @return <code>true</code> iff call succeeded
+     * @see #runJailer(Window, List, boolean, boolean, boolean, boolean, String, String, String, ProgressListener, ProgressPanel, boolean, boolean, boolean, boolean, boolean, ExecutionContext)
+     */
+    public static boolean runJailer(Window ownerOfConsole, List<String> cliArgs, boolean showLogfileButton,
+            final boolean printCommandLine, boolean showExplainLogButton, final boolean closeOutputWindow,
+            String continueOnErrorQuestion, String user, String password, final ProgressListener progressListener,
+            final ProgressPanel progressPanel, final boolean showExeptions, boolean fullSize,
+            final boolean closeOutputWindowOnError, boolean returnFalseOnError, boolean throwException, ExecutionContext executionContext,
+            final Jailer.Statistic statistic) {
         JDialog dialog = new JDialog(ownerOfConsole);
         List<String> args = new ArrayList<String>(cliArgs);
         final StringBuffer arglist = createCLIArgumentString(user, password, args, executionContext);
@@ -538,7 +557,7 @@ public class UIUtil {
                             _log.info("arguments: " + arglist.toString().trim());
                         }
                         result[0] = Jailer.jailerMain(argsarray, disableWarnings ? new StringBuffer() : warnings,
-                                progressListener, false);
+                                progressListener, false, statistic);
                     } catch (Throwable t) {
                         synchronized (UIUtil.class) {
                             exp[0] = t;
@@ -579,7 +598,7 @@ public class UIUtil {
                                         exceptionShown[0] = true;
                                     }
                                     if (result[0] && progressPanel != null) {
-                                        progressPanel.confirm();
+                                        progressPanel.confirm(statistic.exportStatistic);
                                     }
                                 }
                             }
@@ -1211,7 +1230,7 @@ public class UIUtil {
 				@Override
 				public void run() throws Throwable {
 					Session session = new Session(basicDataSource, basicDataSource.dbms, null);
-					JobManager jobManager = new JobManager(tables.size() > 1? 4 : 1);
+					JobManager jobManager = new JobManager(tables.size() > 1? 4 : 1, Session.RELEASE_THREAD_CONNECTIONS);
 					try {
 						new PrimaryKeyValidator().validatePrimaryKey(session, tables, false, jobManager);
 					} finally {
@@ -34,6 +34,7 @@ import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
 import org.fife.ui.rtextarea.RTextScrollPane;
 
 import net.sf.jailer.ExecutionContext;
+import net.sf.jailer.Jailer;
 import net.sf.jailer.database.Session;
 import net.sf.jailer.ui.Environment;
 import net.sf.jailer.ui.UIUtil;
@@ -42,7 +43,7 @@ import net.sf.jailer.ui.databrowser.sqlconsole.MetaDataBasedSQLCompletionProvide
 import net.sf.jailer.ui.databrowser.sqlconsole.SQLConsole;
 import net.sf.jailer.ui.syntaxtextarea.RSyntaxTextAreaWithSQLSyntaxStyle;
 import net.sf.jailer.ui.syntaxtextarea.SQLAutoCompletion;
-import net.sf.jailer.util.SqlScriptExecutor;
+import net.sf.jailer.util.Pair;
 
 /**
  * Editor for SQL/DML statements.
@@ -411,14 +412,16 @@ public class SQLDMLPanel extends javax.swing.JPanel {
 			args.add(sqlFile);
 			args.addAll(session.getCliArguments());
 			args.add("-transactional");
+			Jailer.Statistic statistic = new Jailer.Statistic();
 			if (UIUtil.runJailer(SwingUtilities.getWindowAncestor(this), args, false, true, false,
 			true, null, session.getSchema(), session.getPassword(), null, null, true,
-			false, false, true, true, executionContext)) {
-				statusLabel.setText("Executed " + SqlScriptExecutor.getLastStatementCount().a + " statements. " +
-						SqlScriptExecutor.getLastStatementCount().b + " rows affected");
+			false, false, true, true, executionContext, statistic)) {
+				Pair<Integer, Long> importStatistic = statistic.importStatistic != null? statistic.importStatistic : new Pair<Integer, Long>(0, 0L);
+				statusLabel.setText("Executed " + importStatistic.a + " statements. " +
+						importStatistic.b + " rows affected");
 				statusLabel.setForeground(new Color(0, 100, 0));
 				afterExecution.run();
-				// JOptionPane.showMessageDialog(this, "Successfully executed " + SqlScriptExecutor.getLastStatementCount().a + " statements.\n" + SqlScriptExecutor.getLastStatementCount().b + " rows affected.", "SQL/DML", JOptionPane.INFORMATION_MESSAGE);
+				// JOptionPane.showMessageDialog(this, "Successfully executed " + importStatistic.a + " statements.\n" + importStatistic.b + " rows affected.", "SQL/DML", JOptionPane.INFORMATION_MESSAGE);
 		 
 			} else {
 				statusLabel.setText("Error, rolled back");
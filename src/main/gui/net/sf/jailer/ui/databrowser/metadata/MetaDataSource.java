@@ -15,6 +15,7 @@
  */
 package net.sf.jailer.ui.databrowser.metadata;
 
+import java.io.File;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -31,6 +32,7 @@ import net.sf.jailer.database.Session;
 import net.sf.jailer.datamodel.DataModel;
 import net.sf.jailer.datamodel.Table;
 import net.sf.jailer.modelbuilder.JDBCMetaDataBasedModelElementFinder;
+import net.sf.jailer.modelbuilder.MetaDataCacheStore;
 import net.sf.jailer.util.Quoting;
 
 /**
@@ -77,6 +79,7 @@ public class MetaDataSource {
 		this.session = session;
 		this.dataSourceName = dataSourceName;
 		this.quoting = new Quoting(session);
+		MetaDataCacheStore.enable(session, new File(executionContext.getQualifiedDatamodelFolder()));
 		
 		initTableMapping(dataModel);
 	}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintWriter;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import junit.framework.TestCase;
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.database.SqlException;
+import net.sf.jailer.util.SqlScriptExecutor;
+
+/**
+ * Tests the JDBC batch mode of {@link SqlScriptExecutor} in transactional imports.
+ *
+ * @author Ralf Wisser
+ */
+public class BatchImportTest extends TestCase {
+
+	private Session session;
+	private File script;
+
+	@Override
+	protected void setUp() throws Exception {
+		BasicDataSource dataSource = new BasicDataSource("org.h2.Driver", "jdbc:h2:mem:batchtest;DB_CLOSE_DELAY=-1", "sa", "", 0, (File) null);
+		session = new Session(dataSource, dataSource.dbms, null, null, true);
+		session.execute("CREATE TABLE T(ID INTEGER PRIMARY KEY)");
+		session.executeUpdate("INSERT INTO T VALUES(5)");
+		session.commitAll();
+		script = File.createTempFile("import", ".sql");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		session.execute("DROP ALL OBJECTS");
+		session.shutDown();
+		script.delete();
+	}
+
+	public void testBatch() throws Exception {
+		writeScript(6, 10);
+		SqlScriptExecutor sqlScriptExecutor = new SqlScriptExecutor(session, 1, false);
+		sqlScriptExecutor.setBatchSize(100);
+		assertEquals(5, (int) sqlScriptExecutor.executeScript(script.getPath(), true).a);
+		assertEquals(6, count());
+	}
+
+	/**
+	 * A batch failing partway is undone, the erroneous statement is reported and the transaction is rolled back.
+	 */
+	public void testFailingBatch() throws Exception {
+		writeScript(1, 10);
+		SqlScriptExecutor sqlScriptExecutor = new SqlScriptExecutor(session, 1, false);
+		sqlScriptExecutor.setBatchSize(100);
+		try {
+			sqlScriptExecutor.executeScript(script.getPath(), true);
+			fail("exception expected");
+		} catch (Exception e) {
+			SqlException sqlException = null;
+			for (Throwable t = e; t != null; t = t.getCause()) {
+				if (t instanceof SqlException) {
+					sqlException = (SqlException) t;
+				}
+			}
+			assertNotNull(sqlException);
+			assertFalse(sqlException instanceof Session.BatchNotUndoneException);
+			assertEquals("INSERT INTO T VALUES(5)", sqlException.sqlStatement);
+		}
+		assertEquals(1, count());
+	}
+
+	private void writeScript(int from, int to) throws Exception {
+		PrintWriter out = new PrintWriter(new FileOutputStream(script));
+		for (int i = from; i <= to; ++i) {
+			out.println("INSERT INTO T VALUES(" + i + ");");
+		}
+		out.close();
+	}
+
+	private long count() throws SQLException {
+		final long[] count = new long[1];
+		session.executeQuery("Select count(*) From T", new Session.AbstractResultSetReader() {
+			@Override
+			public void readCurrentRow(ResultSet resultSet) throws SQLException {
+				count[0] = resultSet.getLong(1);
+			}
+		});
+		return count[0];
+	}
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.UUID;
+
+import net.sf.jailer.configuration.DBMS;
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.util.CellContentConverter;
+
+/**
+ * Measures the time per cell of {@link CellContentConverter#getObject(ResultSet, int)}
+ * and {@link CellContentConverter#toSql(Object)} for each supported column type.
+ *
+ * Usage: CellContentConverterBenchmark [rows [target DBMS]]
+ * (uses an in-memory H2 database for the session)
+ *
+ * @author Ralf Wisser
+ */
+public class CellContentConverterBenchmark {
+
+	private static final int[] TYPES = {
+		Types.INTEGER, Types.BIGINT, Types.DECIMAL, Types.DOUBLE, Types.BOOLEAN,
+		Types.CHAR, Types.VARCHAR, Types.NCHAR, Types.NVARCHAR,
+		Types.DATE, Types.TIME, Types.TIMESTAMP,
+		Types.VARBINARY, Types.ROWID, Types.OTHER
+	};
+	private static final String[] TYPE_NAMES = {
+		"INTEGER", "BIGINT", "DECIMAL", "DOUBLE", "BOOLEAN",
+		"CHAR", "VARCHAR", "NCHAR", "NVARCHAR",
+		"DATE", "TIME", "TIMESTAMP",
+		"VARBINARY", "ROWID", "UUID"
+	};
+
+	public static void main(String[] args) throws Exception {
+		final int rows = args.length > 0? Integer.parseInt(args[0]) : 200000;
+		String target = args.length > 1? args[1] : null;
+
+		BasicDataSource dataSource = new BasicDataSource("org.h2.Driver", "jdbc:h2:mem:cellcontentconverterbenchmark", "sa", "", 0, (File) null);
+		Session session = new Session(dataSource, dataSource.dbms, null);
+		DBMS targetDBMS = target == null? session.dbms : DBMS.forDBMS(target);
+
+		try {
+			long total = 0;
+			for (int run = 0; run < 3; ++run) {
+				for (int column = 1; column <= TYPES.length; ++column) {
+					ResultSet resultSet = createResultSet(rows);
+					CellContentConverter cellContentConverter = new CellContentConverter(resultSet.getMetaData(), session, targetDBMS);
+					long start = System.nanoTime();
+					while (resultSet.next()) {
+						total += cellContentConverter.toSql(cellContentConverter.getObject(resultSet, column)).length();
+					}
+					long time = System.nanoTime() - start;
+					if (run > 0) {
+						System.out.println(TYPE_NAMES[column - 1] + ": " + (time / rows) + " ns/cell");
+					}
+				}
+				if (run > 0) {
+					System.out.println();
+				}
+			}
+			System.out.println("(" + total + " chars)");
+		} finally {
+			session.shutDown();
+		}
+	}
+
+	/**
+	 * Creates a result set with one column per type and the given number of generated rows.
+	 */
+	private static ResultSet createResultSet(final int rows) {
+		final ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(ResultSetMetaData.class.getClassLoader(), new Class<?>[] { ResultSetMetaData.class }, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				String name = method.getName();
+				if (name.equals("getColumnCount")) {
+					return TYPES.length;
+				}
+				if (name.equals("getColumnLabel") || name.equals("getColumnName")) {
+					return "C" + args[0];
+				}
+				if (name.equals("getColumnType")) {
+					return TYPES[(Integer) args[0] - 1];
+				}
+				if (name.equals("getColumnTypeName")) {
+					return TYPE_NAMES[(Integer) args[0] - 1];
+				}
+				return defaultValue(method);
+			}
+		});
+		// the row values are created in advance so that only the converter is measured
+		final Object[][] values = new Object[Math.min(rows, 1000)][];
+		for (int r = 0; r < values.length; ++r) {
+			values[r] = new Object[] {
+				r, (long) r * 1000003L, new BigDecimal(r).movePointLeft(2), r / 7.0, r % 2 == 0,
+				"C" + (r % 10), "value of row " + r + " with 'quotes'", "N" + (r % 10), "national value " + r,
+				new Date(1500000000000L + r * 86400000L), new Time(r * 1000L), new Timestamp(1500000000000L + r * 1234567L),
+				new byte[] { (byte) r, (byte) (r >> 8), 0, 127, -1 }, "AAAR3sAAEAAAACXAA" + r, UUID.nameUUIDFromBytes(new byte[] { (byte) r })
+			};
+		}
+		return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class }, new InvocationHandler() {
+			int row = -1;
+			boolean wasNull;
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				String name = method.getName();
+				if (name.equals("next")) {
+					return ++row < rows;
+				}
+				if (name.equals("getMetaData")) {
+					return metaData;
+				}
+				if (name.equals("wasNull")) {
+					return wasNull;
+				}
+				if (name.startsWith("get") && args != null && args.length == 1 && args[0] instanceof Integer) {
+					Object value = values[row % values.length][(Integer) args[0] - 1];
+					wasNull = value == null;
+					if (name.equals("getString")) {
+						return value == null? null : value.toString();
+					}
+					if (name.equals("getInt")) {
+						return value instanceof Number? ((Number) value).intValue() : 0;
+					}
+					return value;
+				}
+				return defaultValue(method);
+			}
+		});
+	}
+
+	private static Object defaultValue(Method method) {
+		Class<?> type = method.getReturnType();
+		if (type == Boolean.TYPE) {
+			return false;
+		}
+		if (type == Integer.TYPE) {
+			return 0;
+		}
+		if (type == Long.TYPE) {
+			return 0L;
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import net.sf.jailer.util.ParallelGZIPOutputStream;
+import net.sf.jailer.util.ScriptCodecRegistry;
+
+/**
+ * Compares {@link GZIPOutputStream} / {@link GZIPInputStream} with the ".gz" codec
+ * ({@link ParallelGZIPOutputStream} and read-ahead decompression).<br>
+ * Export side: writes a generated script. Import side: reads and splits the script into statements.
+ *
+ * Usage: CompressionBenchmark [MB [threads]]
+ *
+ * @author Ralf Wisser
+ */
+public class CompressionBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int mb = args.length > 0? Integer.parseInt(args[0]) : 200;
+		int threads = args.length > 1? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+		File file = File.createTempFile("compressionbenchmark", ".sql.gz");
+		file.deleteOnExit();
+		for (int run = 0; run < 2; ++run) {
+			for (boolean parallel: new boolean[] { false, true }) {
+				String name = parallel? "parallel (" + threads + " threads)" : "java.util.zip     ";
+				OutputStream out = new FileOutputStream(file);
+				out = parallel? new ParallelGZIPOutputStream(out, threads, ParallelGZIPOutputStream.DEFAULT_BLOCK_SIZE, Deflater.DEFAULT_COMPRESSION) : new GZIPOutputStream(out, 8192);
+				Writer writer = new OutputStreamWriter(out, "UTF-8");
+				long start = System.nanoTime();
+				long size = 0;
+				for (int i = 0; size < mb * 1024L * 1024L; ++i) {
+					String line = "Insert into PAYMENT(PAYMENT_ID, CUSTOMER_ID, STAFF_ID, RENTAL_ID, AMOUNT, PAYMENT_DATE) values (" + i + ", " + (i % 599) + ", " + (i % 2) + ", " + (i * 7 % 16049) + ", " + (i % 1000) / 100.0 + ", '2005-05-" + (10 + i % 20) + " 22:" + (10 + i % 50) + ":53');\n";
+					writer.write(line);
+					size += line.length();
+				}
+				writer.close();
+				long writeTime = System.nanoTime() - start;
+
+				InputStream in = new FileInputStream(file);
+				in = parallel? ScriptCodecRegistry.createInputStream(in, file.getName()) : new GZIPInputStream(in);
+				BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+				start = System.nanoTime();
+				long statements = 0;
+				long hash = 0;
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.endsWith(";")) {
+						++statements;
+					}
+					hash += line.hashCode();
+				}
+				reader.close();
+				long readTime = System.nanoTime() - start;
+				if (run > 0) {
+					System.out.println(name + ": export " + (size * 1000L / writeTime) + " MB/s, import " + (size * 1000L / readTime) + " MB/s, "
+							+ (file.length() * 100 / size) + "% (" + statements + " statements, " + hash + ")");
+				}
+			}
+		}
+	}
+
+}
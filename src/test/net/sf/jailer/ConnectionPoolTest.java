@@ -0,0 +1,197 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import junit.framework.TestCase;
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.database.ConnectionPool;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.util.JobManager;
+
+/**
+ * Tests the connection pool of {@link Session}.
+ *
+ * @author Ralf Wisser
+ */
+public class ConnectionPoolTest extends TestCase {
+
+	private static final int ROWS = 10;
+
+	private Session session;
+
+	@Override
+	protected void setUp() throws Exception {
+		BasicDataSource dataSource = new BasicDataSource("org.h2.Driver", "jdbc:h2:mem:pooltest;DB_CLOSE_DELAY=-1", "sa", "", 0, (File) null);
+		session = new Session(dataSource, dataSource.dbms, null);
+		session.execute("CREATE TABLE T(ID INTEGER PRIMARY KEY)");
+		for (int i = 0; i < ROWS; ++i) {
+			session.executeUpdate("INSERT INTO T VALUES(" + i + ")");
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		session.execute("DROP ALL OBJECTS");
+		session.shutDown();
+	}
+
+	/**
+	 * Job runners share a bounded number of connections.
+	 */
+	public void testBoundedPool() throws Exception {
+		ConnectionPool pool = session.getConnectionPool();
+		// one connection is bound to this thread
+		pool.setMaxSize(2);
+		final AtomicLong sum = new AtomicLong();
+		List<JobManager.Job> jobs = new ArrayList<JobManager.Job>();
+		for (int i = 0; i < 40; ++i) {
+			jobs.add(new JobManager.Job() {
+				@Override
+				public void run() throws SQLException {
+					session.executeQuery("Select count(*) From T", new Session.AbstractResultSetReader() {
+						@Override
+						public void readCurrentRow(ResultSet resultSet) throws SQLException {
+							sum.addAndGet(resultSet.getLong(1));
+							try {
+								Thread.sleep(5);
+							} catch (InterruptedException e) {
+								throw new RuntimeException(e);
+							}
+						}
+					});
+				}
+			});
+		}
+		JobManager jobManager = new JobManager(4, Session.RELEASE_THREAD_CONNECTIONS);
+		try {
+			jobManager.executeJobs(jobs);
+		} finally {
+			jobManager.shutdown();
+		}
+		assertEquals(40 * ROWS, sum.get());
+		assertEquals(2, pool.getCreations());
+		assertEquals(2, pool.getSize());
+		assertEquals(1, pool.getIdleCount());
+		assertEquals(41, pool.getLeases());
+		assertTrue(pool.getWaits() > 0);
+	}
+
+	/**
+	 * Invalid idle connections are replaced, idle connections are closed after the idle timeout.
+	 */
+	public void testValidationAndEviction() throws Exception {
+		ConnectionPool pool = session.getConnectionPool();
+		Connection con = session.getConnection();
+		session.releaseConnection();
+		con.close();
+		Thread.sleep(600);
+		assertEquals(ROWS, count());
+		assertEquals(1, pool.getValidationFailures());
+		assertEquals(2, pool.getCreations());
+		assertEquals(1, pool.getSize());
+
+		pool.setIdleTimeout(0);
+		session.releaseConnection();
+		assertEquals(1, pool.getEvictions());
+		assertEquals(0, pool.getSize());
+		assertEquals(ROWS, count());
+		assertEquals(3, pool.getCreations());
+	}
+
+	/**
+	 * Connections of drivers that don't support {@link Connection#isValid(int)} are kept unless they are closed.
+	 */
+	public void testValidationNotSupported() throws Exception {
+		final BasicDataSource h2DataSource = new BasicDataSource("org.h2.Driver", "jdbc:h2:mem:pooltest;DB_CLOSE_DELAY=-1", "sa", "", 0, (File) null);
+		DataSource dataSource = (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[] { DataSource.class }, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				final Object result = delegate(h2DataSource, method, args);
+				if (!method.getName().equals("getConnection")) {
+					return result;
+				}
+				return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						if (method.getName().equals("isValid")) {
+							throw new SQLFeatureNotSupportedException();
+						}
+						return delegate(result, method, args);
+					}
+				});
+			}
+		});
+		Session session = new Session(dataSource, h2DataSource.dbms, null);
+		try {
+			ConnectionPool pool = session.getConnectionPool();
+			assertEquals(ROWS, count(session));
+			session.releaseConnection();
+			Thread.sleep(600);
+			assertEquals(ROWS, count(session));
+			assertEquals(0, pool.getValidationFailures());
+			assertEquals(1, pool.getCreations());
+
+			Connection con = session.getConnection();
+			session.releaseConnection();
+			con.close();
+			Thread.sleep(600);
+			assertEquals(ROWS, count(session));
+			assertEquals(1, pool.getValidationFailures());
+			assertEquals(2, pool.getCreations());
+		} finally {
+			session.shutDown();
+		}
+	}
+
+	private static Object delegate(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	private long count() throws SQLException {
+		return count(session);
+	}
+
+	private static long count(Session session) throws SQLException {
+		final long[] count = new long[1];
+		session.executeQuery("Select count(*) From T", new Session.AbstractResultSetReader() {
+			@Override
+			public void readCurrentRow(ResultSet resultSet) throws SQLException {
+				count[0] = resultSet.getLong(1);
+			}
+		});
+		return count[0];
+	}
+
+}
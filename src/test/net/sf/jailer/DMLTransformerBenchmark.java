@@ -0,0 +1,198 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.Arrays;
+
+import net.sf.jailer.configuration.DBMS;
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.database.DMLTransformer;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.database.Session.ResultSetReader;
+import net.sf.jailer.datamodel.Column;
+import net.sf.jailer.datamodel.PrimaryKeyFactory;
+import net.sf.jailer.datamodel.Table;
+
+/**
+ * Measures time and allocated memory per row of the {@link DMLTransformer}.
+ * Renders rows of a synthetic result set as inserts and as upserts.
+ *
+ * Usage: DMLTransformerBenchmark [rows [target DBMS]]
+ * (uses an in-memory H2 database for the session)
+ *
+ * @author Ralf Wisser
+ */
+public class DMLTransformerBenchmark {
+
+	private static final String[] LABELS = { "ID", "NAME", "AMOUNT", "DESCRIPTION", "CATEGORY_ID" };
+	private static final int[] TYPES = { Types.INTEGER, Types.VARCHAR, Types.DECIMAL, Types.VARCHAR, Types.INTEGER };
+
+	public static void main(String[] args) throws Exception {
+		final int rows = args.length > 0? Integer.parseInt(args[0]) : 200000;
+		String target = args.length > 1? args[1] : null;
+
+		BasicDataSource dataSource = new BasicDataSource("org.h2.Driver", "jdbc:h2:mem:dmltransformerbenchmark", "sa", "", 0, (File) null);
+		Session session = new Session(dataSource, dataSource.dbms, null);
+		DBMS targetDBMS = target == null? session.dbms : DBMS.forDBMS(target);
+
+		Table table = createTable("BENCH");
+
+		OutputStreamWriter out = new OutputStreamWriter(new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+			@Override
+			public void write(byte[] b, int off, int len) {
+			}
+		});
+		ExecutionContext executionContext = new ExecutionContext();
+
+		try {
+			for (int run = 0; run < 3; ++run) {
+				for (boolean upsert: new boolean[] { false, true }) {
+					DMLTransformer.Factory factory = new DMLTransformer.Factory(out, upsert, 10000, session, targetDBMS, executionContext);
+					ResultSetReader transformer = factory.create(table);
+					ResultSet resultSet = createResultSet(rows);
+					long allocated = allocatedBytes();
+					long start = System.nanoTime();
+					while (resultSet.next()) {
+						transformer.readCurrentRow(resultSet);
+					}
+					transformer.close();
+					long time = System.nanoTime() - start;
+					allocated = allocatedBytes() - allocated;
+					if (run > 0) {
+						System.out.println((upsert? "upserts: " : "inserts: ") + (time / rows) + " ns/row"
+								+ (allocated >= 0? ", " + (allocated / rows) + " bytes/row" : ""));
+					}
+				}
+			}
+		} finally {
+			session.shutDown();
+		}
+	}
+
+	/**
+	 * Creates a table matching the result sets of {@link #createResultSet(int)}.
+	 */
+	static Table createTable(String name) {
+		Column[] columns = new Column[LABELS.length];
+		for (int i = 0; i < LABELS.length; ++i) {
+			columns[i] = new Column(LABELS[i], TYPES[i] == Types.VARCHAR? "VARCHAR" : "INTEGER", 0, -1);
+		}
+		Table table = new Table(name, new PrimaryKeyFactory(null).createPrimaryKey(Arrays.asList(columns[0]), null), false, false);
+		table.setColumns(Arrays.asList(columns));
+		return table;
+	}
+
+	/**
+	 * Creates a result set with the given number of generated rows.
+	 */
+	static ResultSet createResultSet(final int rows) {
+		final ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(ResultSetMetaData.class.getClassLoader(), new Class<?>[] { ResultSetMetaData.class }, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				String name = method.getName();
+				if (name.equals("getColumnCount")) {
+					return LABELS.length;
+				}
+				if (name.equals("getColumnLabel") || name.equals("getColumnName")) {
+					return LABELS[(Integer) args[0] - 1];
+				}
+				if (name.equals("getColumnType")) {
+					return TYPES[(Integer) args[0] - 1];
+				}
+				if (name.equals("getColumnTypeName")) {
+					return TYPES[(Integer) args[0] - 1] == Types.VARCHAR? "VARCHAR" : TYPES[(Integer) args[0] - 1] == Types.DECIMAL? "DECIMAL" : "INTEGER";
+				}
+				return defaultValue(method);
+			}
+		});
+		// the row values are created in advance so that only the transformer allocates memory
+		final Object[][] values = new Object[Math.min(rows, 1000)][];
+		for (int r = 0; r < values.length; ++r) {
+			values[r] = new Object[] { r, "name of row " + r, new BigDecimal(r).movePointLeft(2), r % 3 == 0? null : "description of row " + r + " with 'quotes'", r % 17 };
+		}
+		return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class }, new InvocationHandler() {
+			int row = -1;
+			boolean wasNull;
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				String name = method.getName();
+				if (name.equals("next")) {
+					return ++row < rows;
+				}
+				if (name.equals("getMetaData")) {
+					return metaData;
+				}
+				if (name.equals("wasNull")) {
+					return wasNull;
+				}
+				if (name.startsWith("get") && args != null && args.length == 1 && args[0] instanceof Integer) {
+					Object value = values[row % values.length][(Integer) args[0] - 1];
+					wasNull = value == null;
+					if (name.equals("getString")) {
+						return value == null? null : value.toString();
+					}
+					if (name.equals("getObject")) {
+						return value;
+					}
+				}
+				return defaultValue(method);
+			}
+		});
+	}
+
+	private static Object defaultValue(Method method) {
+		Class<?> type = method.getReturnType();
+		if (type == Boolean.TYPE) {
+			return false;
+		}
+		if (type == Integer.TYPE) {
+			return 0;
+		}
+		if (type == Long.TYPE) {
+			return 0L;
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the number of bytes allocated by the current thread, or -1 if the JVM does not provide it.
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		try {
+			Method method = Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes", Long.TYPE);
+			return (Long) method.invoke(threadMXBean, Thread.currentThread().getId());
+		} catch (Exception e) {
+			return -1;
+		}
+	}
+
+}
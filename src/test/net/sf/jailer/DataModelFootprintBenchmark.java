@@ -0,0 +1,113 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Random;
+
+import net.sf.jailer.datamodel.DataModel;
+
+/**
+ * Measures load time and heap footprint of a generated data model,
+ * parsed from the CSV files and loaded from the snapshot.<br>
+ * <br>
+ * Run it with the classes of another revision to compare with an older layout.
+ *
+ * Usage: DataModelFootprintBenchmark [tables [associations per table]]
+ *
+ * @author Ralf Wisser
+ */
+public class DataModelFootprintBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int numTables = args.length > 0? Integer.parseInt(args[0]) : 50000;
+		int numAssociations = args.length > 1? Integer.parseInt(args[1]) : 4;
+
+		File folder = File.createTempFile("datamodel", "");
+		folder.delete();
+		folder.mkdirs();
+		generate(folder, numTables, numAssociations);
+		ExecutionContext executionContext = new ExecutionContext();
+		executionContext.setDatamodelFolder(folder.getPath());
+
+		for (int run = 0; run < 3; ++run) {
+			for (boolean fromSnapshot: new boolean[] { false, true }) {
+				if (!fromSnapshot) {
+					for (File file: folder.listFiles()) {
+						if (!file.getName().endsWith(".csv")) {
+							file.delete();
+						}
+					}
+				}
+				long before = usedHeap();
+				long start = System.nanoTime();
+				DataModel dataModel = new DataModel(executionContext);
+				long time = System.nanoTime() - start;
+				long heap = usedHeap() - before;
+				if (run > 0) {
+					System.out.println((fromSnapshot? "snapshot: " : "CSV:      ") + (time / 1000000) + " ms, " + (heap / 1024 / 1024) + " MB, "
+							+ (heap / dataModel.getTables().size()) + " bytes per table (" + dataModel.getTables().size() + " tables, "
+							+ dataModel.namedAssociations.size() + " associations)");
+				}
+				dataModel = null;
+			}
+		}
+
+		for (File file: folder.listFiles()) {
+			file.delete();
+		}
+		folder.delete();
+	}
+
+	private static void generate(File folder, int numTables, int numAssociations) throws Exception {
+		Random random = new Random(42);
+		PrintWriter tables = writer(folder, DataModel.TABLE_CSV_FILE);
+		PrintWriter columns = writer(folder, "column.csv");
+		PrintWriter associations = writer(folder, "association.csv");
+		for (int i = 0; i < numTables; ++i) {
+			String table = "SCHEMA_" + (i / 1000) + ".TABLE_" + i;
+			tables.println(table + "; N; ID INTEGER; ; JDBC Driver;");
+			StringBuilder sb = new StringBuilder(table + "; ID INTEGER; NAME VARCHAR(100) null; DESCRIPTION VARCHAR(4000) null; CREATED TIMESTAMP; AMOUNT DECIMAL(10, 2) null; ");
+			for (int a = 0; a < numAssociations; ++a) {
+				int d = random.nextInt(numTables);
+				String destination = "SCHEMA_" + (d / 1000) + ".TABLE_" + d;
+				sb.append("REF_").append(a).append(" INTEGER null; ");
+				associations.println(table + "; " + destination + "; B; n:1; A.REF_" + a + "=B.ID; FK_" + i + "_" + a + "; JDBC Driver; ");
+			}
+			columns.println(sb);
+		}
+		tables.close();
+		columns.close();
+		associations.close();
+	}
+
+	private static PrintWriter writer(File folder, String fileName) throws Exception {
+		return new PrintWriter(new OutputStreamWriter(new FileOutputStream(new File(folder, fileName)), "UTF-8"));
+	}
+
+	private static long usedHeap() throws InterruptedException {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 4; ++i) {
+			System.gc();
+			Thread.sleep(100);
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintWriter;
+
+import junit.framework.TestCase;
+import net.sf.jailer.datamodel.Association;
+import net.sf.jailer.datamodel.Column;
+import net.sf.jailer.datamodel.DataModel;
+import net.sf.jailer.datamodel.Table;
+
+/**
+ * Tests the compiled snapshot of the data model files.
+ *
+ * @author Ralf Wisser
+ */
+public class DataModelSnapshotTest extends TestCase {
+
+	private File dataModelFolder;
+	private ExecutionContext executionContext;
+
+	@Override
+	protected void setUp() throws Exception {
+		dataModelFolder = File.createTempFile("datamodel", "");
+		dataModelFolder.delete();
+		dataModelFolder.mkdirs();
+		executionContext = new ExecutionContext();
+		executionContext.setDatamodelFolder(dataModelFolder.getPath());
+		write(DataModel.TABLE_CSV_FILE, "S.A; N; ID INTEGER; ; me;\nS.B; Y; ID INTEGER; NR VARCHAR(10); ; me;");
+		write("column.csv", "S.A; ID INTEGER; B_ID INTEGER null;\nS.B; ID INTEGER; NR VARCHAR(10); TS TIMESTAMP virtual;");
+		write("association.csv", "S.A; S.B; B; n:1; A.B_ID=B.ID; A_B; me;");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		for (File file: dataModelFolder.listFiles()) {
+			file.delete();
+		}
+		dataModelFolder.delete();
+	}
+
+	/**
+	 * The snapshot yields the same model as the CSV files and is ignored once they change.
+	 */
+	public void testSnapshot() throws Exception {
+		String model = describe(new DataModel(executionContext));
+		assertTrue(new File(dataModelFolder, "datamodel.snapshot").exists());
+		assertEquals(model, describe(new DataModel(executionContext)));
+
+		write("column.csv", "S.A; ID INTEGER; B_ID INTEGER null; X DATE;\nS.B; ID INTEGER; NR VARCHAR(10); TS TIMESTAMP virtual;");
+		String changedModel = describe(new DataModel(executionContext));
+		assertFalse(model.equals(changedModel));
+		assertTrue(changedModel.contains("X DATE"));
+		assertEquals(changedModel, describe(new DataModel(executionContext)));
+	}
+
+	private String describe(DataModel dataModel) {
+		StringBuilder sb = new StringBuilder();
+		for (Table table: dataModel.getSortedTables()) {
+			sb.append(table.getName()).append(" ").append(table.getOrdinal()).append(" ").append(table.getUpsert())
+				.append(" ").append(table.getAuthor()).append(" ").append(table.primaryKey.getColumns()).append("\n");
+			for (Column column: table.getColumns()) {
+				sb.append(" ").append(column).append(column.isNullable? " null" : "").append(column.isVirtual? " virtual" : "").append("\n");
+			}
+			for (Association association: table.associations) {
+				sb.append(" ").append(association.getName()).append(" ").append(association.getCardinality())
+					.append(" ").append(association.isInsertDestinationBeforeSource()).append(" ").append(association.getUnrestrictedJoinCondition()).append("\n");
+			}
+		}
+		return sb.toString();
+	}
+
+	private void write(String fileName, String content) throws Exception {
+		PrintWriter out = new PrintWriter(new FileOutputStream(new File(dataModelFolder, fileName)));
+		out.println(content);
+		out.close();
+	}
+
+}
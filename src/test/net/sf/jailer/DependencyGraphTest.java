@@ -0,0 +1,117 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.sf.jailer.datamodel.DataModel;
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.util.DependencyGraph;
+
+/**
+ * Tests the cycle analysis and topological sorting of {@link DependencyGraph}.
+ *
+ * @author Ralf Wisser
+ */
+public class DependencyGraphTest extends TestCase {
+
+	private File dataModelFolder;
+	private DependencyGraph dependencyGraph;
+
+	@Override
+	protected void setUp() throws Exception {
+		dataModelFolder = File.createTempFile("datamodel", "");
+		dataModelFolder.delete();
+		dataModelFolder.mkdirs();
+		ExecutionContext executionContext = new ExecutionContext();
+		executionContext.setDatamodelFolder(dataModelFolder.getPath());
+		StringBuilder tables = new StringBuilder();
+		StringBuilder columns = new StringBuilder();
+		for (String table: new String[] { "A", "B", "C", "D", "E", "F", "G" }) {
+			tables.append("S." + table + "; N; ID INTEGER; ; me;\n");
+			columns.append("S." + table + "; ID INTEGER; REF INTEGER null;\n");
+		}
+		write(DataModel.TABLE_CSV_FILE, tables.toString());
+		write("column.csv", columns.toString());
+		write("association.csv",
+				"S.A; S.B; B; n:1; A.REF=B.ID; A_B; me;\n" +
+				"S.B; S.A; B; n:1; A.REF=B.ID; B_A; me;\n" +
+				"S.B; S.C; B; n:1; A.REF=B.ID; B_C; me;\n" +
+				"S.C; S.A; B; n:1; A.REF=B.ID; C_A; me;\n" +
+				"S.D; S.A; B; n:1; A.REF=B.ID; D_A; me;\n" +
+				"S.F; S.E; B; n:1; A.REF=B.ID; F_E; me;\n" +
+				"S.G; S.G; B; n:1; A.REF=B.ID; G_G; me;");
+		dependencyGraph = DependencyGraph.create(new DataModel(executionContext).getTables());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		for (File file: dataModelFolder.listFiles()) {
+			file.delete();
+		}
+		dataModelFolder.delete();
+	}
+
+	public void testCyclicTables() {
+		assertEquals("[S.A, S.B, S.C, S.G]", names(dependencyGraph.getCyclicTables()));
+		assertEquals("[[S.A, S.B, S.C], [S.G]]", names(dependencyGraph.getCyclicComponents()));
+	}
+
+	public void testDependencyLevels() {
+		assertEquals("[[S.E], [S.F]]", names(dependencyGraph.getDependencyLevels()));
+	}
+
+	public void testCycles() {
+		assertEquals("[[S.A, S.B, S.A], [S.A, S.B, S.C, S.A], [S.G, S.G]]", names(findCycles(Integer.MAX_VALUE, Integer.MAX_VALUE)));
+		assertEquals("[[S.A, S.B, S.A], [S.G, S.G]]", names(findCycles(2, Integer.MAX_VALUE)));
+		assertEquals("[[S.A, S.B, S.A]]", names(findCycles(Integer.MAX_VALUE, 1)));
+		assertEquals("[[S.A, S.B, S.A], [S.C, S.A, S.B, S.C], [S.G, S.G]]", names(dependencyGraph.getShortestCycles(10)));
+		assertEquals("[[S.A, S.B, S.A]]", names(dependencyGraph.getShortestCycles(1)));
+	}
+
+	private List<List<Table>> findCycles(int maxLength, final int limit) {
+		final List<List<Table>> cycles = new ArrayList<List<Table>>();
+		dependencyGraph.findCycles(maxLength, new DependencyGraph.CycleConsumer() {
+			@Override
+			public boolean consume(List<Table> cycle) {
+				cycles.add(cycle);
+				return cycles.size() < limit;
+			}
+		});
+		return cycles;
+	}
+
+	private String names(Collection<?> tables) {
+		List<Object> names = new ArrayList<Object>();
+		for (Object table: tables) {
+			names.add(table instanceof Table? ((Table) table).getName() : names((Collection<?>) table));
+		}
+		return names.toString();
+	}
+
+	private void write(String fileName, String content) throws Exception {
+		PrintWriter out = new PrintWriter(new FileOutputStream(new File(dataModelFolder, fileName)));
+		out.println(content);
+		out.close();
+	}
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer;
+
+import java.io.File;
+import java.sql.SQLException;
+
+import net.sf.jailer.api.Subsetter;
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.database.DirectTransferTransformer;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.database.WorkingTableScope;
+import net.sf.jailer.datamodel.DataModel;
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.ddl.DDLCreator;
+import net.sf.jailer.subsetting.ScriptFormat;
+
+/**
+ * Tests the direct transfer of rows into a target database (H2 to H2).
+ *
+ * @author Ralf Wisser
+ */
+public class DirectTransferTest extends H2TestCase {
+
+	private static final int ROWS = 10;
+
+	private BasicDataSource source;
+	private BasicDataSource target;
+	private ExecutionContext executionContext;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		File dataModelDir = writeDataModel(baseDir,
+				new String[] { "T; N; ID INTEGER; ; Test; ;" },
+				new String[] { "T; ID INTEGER; NAME VARCHAR(10); ;" });
+		write(new File(baseDir, "extractionmodel.csv"), "T; 1=0; ;");
+
+		// lazy query execution lets reading the result set fail after some rows
+		source = createDataSource("transfersource", ";LAZY_QUERY_EXECUTION=1");
+		target = createDataSource("transfertarget", "");
+		execute(source, "CREATE TABLE T(ID INTEGER PRIMARY KEY, NAME VARCHAR(10))");
+		for (int i = 1; i <= ROWS; ++i) {
+			execute(source, "INSERT INTO T VALUES(" + i + ", 'N" + i + "')");
+		}
+		execute(target, "CREATE TABLE T(ID INTEGER PRIMARY KEY, NAME VARCHAR(10))");
+		executionContext = new ExecutionContext();
+		executionContext.setDataModelURL(dataModelDir.toURI().toURL());
+	}
+
+	public void testTransfer() throws Exception {
+		assertTrue(new DDLCreator(executionContext).createDDL(source, source.dbms, WorkingTableScope.GLOBAL, null));
+		Subsetter subsetter = new Subsetter(source, null,
+				new File(baseDir, "datamodel"),
+				new File(baseDir, "extractionmodel.csv"),
+				ScriptFormat.SQL);
+		subsetter.setScope(WorkingTableScope.GLOBAL);
+		subsetter.setTransferTarget(target);
+		subsetter.setTransferBatchSize(3);
+		subsetter.execute("T.ID > 2", new File(baseDir, "export.sql"));
+		assertEquals(ROWS - 2, count(target, "Select count(*) From T"));
+		assertEquals(ROWS - 2, count(target, "Select count(*) From T Where NAME = 'N' || ID"));
+	}
+
+	/**
+	 * The foreign keys deferred due to a circular dependency are updated with the filtered primary keys.
+	 */
+	public void testTransferWithFilteredPrimaryKey() throws Exception {
+		File dataModelDir = new File(baseDir, "datamodel");
+		write(new File(dataModelDir, "column.csv"), "T; ID INTEGER; NAME VARCHAR(10); PARENT INTEGER null; ;");
+		write(new File(dataModelDir, "association.csv"), "T; T; B; n:1; A.PARENT=B.ID; PARENT; Test; ;");
+		write(new File(baseDir, "extractionmodel.csv"), "T; 1=0; ;", "", "#! block filters", "T; ID; ${old-value} + 100; Export; ");
+
+		// the rows form a single cycle
+		execute(source, "ALTER TABLE T ADD PARENT INTEGER", "UPDATE T SET PARENT = MOD(ID, " + ROWS + ") + 1");
+		execute(target, "ALTER TABLE T ADD PARENT INTEGER REFERENCES T(ID)");
+
+		assertTrue(new DDLCreator(executionContext).createDDL(source, source.dbms, WorkingTableScope.GLOBAL, null));
+		Subsetter subsetter = new Subsetter(source, null,
+				dataModelDir,
+				new File(baseDir, "extractionmodel.csv"),
+				ScriptFormat.SQL);
+		subsetter.setScope(WorkingTableScope.GLOBAL);
+		subsetter.setTransferTarget(target);
+		subsetter.execute("T.ID = 1", new File(baseDir, "export.sql"));
+		assertEquals(ROWS, count(target, "Select count(*) From T Where ID > 100"));
+		assertEquals(ROWS, count(target, "Select count(*) From T Where PARENT = MOD(ID - 100, " + ROWS + ") + 101"));
+	}
+
+	/**
+	 * A failing batch is rolled back, the statement is released and auto-commit is restored.
+	 */
+	public void testFailingInsert() throws Exception {
+		Session sourceSession = new Session(source, source.dbms, null);
+		Session targetSession = new Session(target, target.dbms, null);
+		try {
+			targetSession.executeUpdate("INSERT INTO T VALUES(5, 'X')");
+			try {
+				sourceSession.executeQuery("Select ID, NAME From T Order by ID", createTransformer(targetSession, 2));
+				fail("exception expected");
+			} catch (SQLException e) {
+				// expected
+			}
+			assertTrue(targetSession.getConnection().getAutoCommit());
+			// 1-4 are committed, the batch 5-6 is rolled back
+			assertEquals(5, count(targetSession, "Select count(*) From T"));
+		} finally {
+			sourceSession.shutDown();
+			targetSession.shutDown();
+		}
+	}
+
+	/**
+	 * If reading the source rows fails, the pending batch is rolled back and auto-commit is restored.
+	 */
+	public void testFailingRead() throws Exception {
+		Session sourceSession = new Session(source, source.dbms, null);
+		Session targetSession = new Session(target, target.dbms, null);
+		try {
+			try {
+				sourceSession.executeQuery("Select ID, NAME From T Where 1 / (ID - 7) IS NOT NULL", createTransformer(targetSession, 4));
+				fail("exception expected");
+			} catch (SQLException e) {
+				// expected
+			}
+			assertTrue(targetSession.getConnection().getAutoCommit());
+			// 1-4 are committed, the pending rows 5-6 are rolled back
+			assertEquals(4, count(targetSession, "Select count(*) From T"));
+		} finally {
+			sourceSession.shutDown();
+			targetSession.shutDown();
+		}
+	}
+
+	private Session.ResultSetReader createTransformer(Session targetSession, int batchSize) throws Exception {
+		ExecutionContext context = new ExecutionContext();
+		context.setDatamodelFolder(new File(baseDir, "datamodel").getPath());
+		Table table = new DataModel(context).getTable("T");
+		return new DirectTransferTransformer.Factory(targetSession, batchSize, context).create(table);
+	}
+
+}
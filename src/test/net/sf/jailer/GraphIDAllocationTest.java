@@ -0,0 +1,98 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer;
+
+import java.io.File;
+
+import net.sf.jailer.api.Subsetter;
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.database.WorkingTableScope;
+import net.sf.jailer.ddl.DDLCreator;
+import net.sf.jailer.subsetting.ExportStatistic;
+import net.sf.jailer.subsetting.ScriptFormat;
+
+/**
+ * Runs subsetters in parallel which share the working tables (global scope).
+ * Each subsetter must collect exactly the entities of its own subject,
+ * so the subsetters must not use the same entity graph ID.
+ *
+ * @author Ralf Wisser
+ */
+public class GraphIDAllocationTest extends H2TestCase {
+
+	private static final int DEPARTMENTS = 8;
+	private static final int EMPLOYEES = 5;
+	private static final int SUBSETTERS = 16;
+
+	private BasicDataSource dataSource;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		File dataModelDir = writeDataModel(baseDir,
+				new String[] {
+					"DEPARTMENT; N; DEPTNO INTEGER; ; Test; ;",
+					"EMPLOYEE; N; EMPNO INTEGER; ; Test; ;" },
+				new String[] {
+					"DEPARTMENT; DEPTNO INTEGER; NAME VARCHAR(14); ;",
+					"EMPLOYEE; EMPNO INTEGER; NAME VARCHAR(10); DEPTNO INTEGER; ;" },
+				"EMPLOYEE; DEPARTMENT; B; n:1; A.DEPTNO=B.DEPTNO; DEPARTMENT; Test; ;");
+		write(new File(baseDir, "extractionmodel.csv"),
+				"EMPLOYEE; 1=0; ;");
+
+		dataSource = createDataSource("graphidtest", ";LOCK_TIMEOUT=60000");
+		execute(dataSource,
+				"CREATE TABLE DEPARTMENT(DEPTNO INTEGER PRIMARY KEY, NAME VARCHAR(14))",
+				"CREATE TABLE EMPLOYEE(EMPNO INTEGER PRIMARY KEY, NAME VARCHAR(10), DEPTNO INTEGER)");
+		for (int d = 0; d < DEPARTMENTS; ++d) {
+			execute(dataSource, "INSERT INTO DEPARTMENT VALUES(" + d + ", 'D" + d + "')");
+			for (int e = 0; e < EMPLOYEES; ++e) {
+				int empno = d * EMPLOYEES + e;
+				execute(dataSource, "INSERT INTO EMPLOYEE VALUES(" + empno + ", 'E" + empno + "', " + d + ")");
+			}
+		}
+		ExecutionContext executionContext = new ExecutionContext();
+		executionContext.setDataModelURL(dataModelDir.toURI().toURL());
+		assertTrue(new DDLCreator(executionContext).createDDL(dataSource, dataSource.dbms, WorkingTableScope.GLOBAL, null));
+	}
+
+	public void testParallelSubsetting() throws Exception {
+		final Subsetter[] subsetters = new Subsetter[SUBSETTERS];
+		final long[] exported = new long[SUBSETTERS];
+		runConcurrently(SUBSETTERS, new ConcurrentTask() {
+			@Override
+			public void prepare(int i) throws Exception {
+				subsetters[i] = new Subsetter(dataSource, null,
+						new File(baseDir, "datamodel"),
+						new File(baseDir, "extractionmodel.csv"),
+						ScriptFormat.SQL);
+				subsetters[i].setScope(WorkingTableScope.GLOBAL);
+			}
+
+			@Override
+			public void run(int i) throws Exception {
+				ExportStatistic statistic = subsetters[i].execute("T.DEPTNO=" + (i % DEPARTMENTS), new File(baseDir, "export-" + i + ".sql"));
+				exported[i] = statistic.getTotal();
+			}
+		});
+		for (int i = 0; i < SUBSETTERS; ++i) {
+			assertEquals("subsetter " + i, EMPLOYEES + 1, exported[i]);
+		}
+		assertEquals(0, count(dataSource, "Select count(*) From JAILER_GRAPH"));
+		assertEquals(0, count(dataSource, "Select count(*) From JAILER_ENTITY"));
+	}
+
+}
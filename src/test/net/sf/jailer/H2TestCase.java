@@ -0,0 +1,244 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.TestCase;
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.database.Session;
+
+/**
+ * Test case running against H2 in-memory databases.
+ * Provides a temporary directory for data models and scripts
+ * and clears the databases after each test.
+ *
+ * @author Ralf Wisser
+ */
+public abstract class H2TestCase extends TestCase {
+
+	/**
+	 * Temporary directory, deleted after each test.
+	 */
+	protected File baseDir;
+
+	/**
+	 * The databases to be cleared after each test.
+	 */
+	private final List<BasicDataSource> dataSources = new ArrayList<BasicDataSource>();
+
+	/**
+	 * A task to be executed by several threads concurrently.
+	 *
+	 * @see H2TestCase#runConcurrently(int, ConcurrentTask)
+	 */
+	protected static abstract class ConcurrentTask {
+
+		/**
+		 * Prepares the task. All threads are prepared before the first one runs.
+		 *
+		 * @param i the number of the thread
+		 */
+		public void prepare(int i) throws Exception {
+		}
+
+		/**
+		 * Runs the task.
+		 *
+		 * @param i the number of the thread
+		 */
+		public abstract void run(int i) throws Exception;
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		baseDir = File.createTempFile("jailertest", "");
+		baseDir.delete();
+		baseDir.mkdirs();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		for (BasicDataSource dataSource: dataSources) {
+			execute(dataSource, "DROP ALL OBJECTS");
+		}
+		dataSources.clear();
+		delete(baseDir);
+	}
+
+	/**
+	 * Creates a data source for an in-memory database which is cleared after the test.
+	 *
+	 * @param name name of the database
+	 * @param options additional URL settings, like ";LOCK_TIMEOUT=60000"
+	 * @return the data source
+	 */
+	protected BasicDataSource createDataSource(String name, String options) {
+		BasicDataSource dataSource = new BasicDataSource("org.h2.Driver", "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1" + options, "sa", "", 0, (File) null);
+		dataSources.add(dataSource);
+		return dataSource;
+	}
+
+	/**
+	 * Writes a data model.
+	 *
+	 * @param dir the directory to write into
+	 * @param tables lines of <code>table.csv</code>
+	 * @param columns lines of <code>column.csv</code>
+	 * @param associations lines of <code>association.csv</code>
+	 * @return the data model folder
+	 */
+	protected static File writeDataModel(File dir, String[] tables, String[] columns, String... associations) throws Exception {
+		File dataModelDir = new File(dir, "datamodel");
+		dataModelDir.mkdirs();
+		write(new File(dataModelDir, "table.csv"), tables);
+		write(new File(dataModelDir, "column.csv"), columns);
+		write(new File(dataModelDir, "association.csv"), associations);
+		return dataModelDir;
+	}
+
+	/**
+	 * Executes statements in a new session.
+	 *
+	 * @param dataSource the database
+	 * @param statements the statements
+	 */
+	protected static void execute(BasicDataSource dataSource, String... statements) throws SQLException {
+		Session session = new Session(dataSource, dataSource.dbms, null);
+		try {
+			for (String statement: statements) {
+				session.execute(statement);
+			}
+		} finally {
+			session.shutDown();
+		}
+	}
+
+	/**
+	 * Executes a query returning a number in a new session.
+	 *
+	 * @param dataSource the database
+	 * @param query the query
+	 * @return the number
+	 */
+	protected static long count(BasicDataSource dataSource, String query) throws SQLException {
+		Session session = new Session(dataSource, dataSource.dbms, null);
+		try {
+			return count(session, query);
+		} finally {
+			session.shutDown();
+		}
+	}
+
+	/**
+	 * Executes a query returning a number.
+	 *
+	 * @param session the session
+	 * @param query the query
+	 * @return the number
+	 */
+	protected static long count(Session session, String query) throws SQLException {
+		final long[] count = new long[1];
+		session.executeQuery(query, new Session.AbstractResultSetReader() {
+			@Override
+			public void readCurrentRow(ResultSet resultSet) throws SQLException {
+				count[0] = resultSet.getLong(1);
+			}
+		});
+		return count[0];
+	}
+
+	/**
+	 * Runs a task in several threads. The threads start running at the same time,
+	 * after all of them are prepared.
+	 *
+	 * @param threads number of threads
+	 * @param task the task
+	 * @throws RuntimeException if a thread failed
+	 */
+	protected static void runConcurrently(int threads, final ConcurrentTask task) throws InterruptedException {
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Throwable> errors = new ArrayList<Throwable>();
+		List<Thread> threadList = new ArrayList<Thread>();
+		for (int i = 0; i < threads; ++i) {
+			final int id = i;
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						task.prepare(id);
+						start.await();
+						task.run(id);
+					} catch (Throwable t) {
+						synchronized (errors) {
+							errors.add(t);
+						}
+					}
+				}
+			});
+			thread.start();
+			threadList.add(thread);
+		}
+		start.countDown();
+		for (Thread thread: threadList) {
+			thread.join();
+		}
+		if (!errors.isEmpty()) {
+			throw new RuntimeException(errors.size() + " of " + threads + " thread(s) failed", errors.get(0));
+		}
+	}
+
+	/**
+	 * Writes a text file.
+	 *
+	 * @param file the file
+	 * @param lines the lines
+	 */
+	protected static void write(File file, String... lines) throws Exception {
+		PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+		try {
+			for (String line: lines) {
+				out.println(line);
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Deletes a file or directory recursively.
+	 *
+	 * @param file the file
+	 */
+	protected static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child: children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+}
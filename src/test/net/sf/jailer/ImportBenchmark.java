@@ -0,0 +1,93 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.util.SqlScriptExecutor;
+
+/**
+ * Compares the throughput of script import with and without JDBC batches.
+ * Imports a generated script of single-row inserts into two tables.
+ *
+ * Usage: ImportBenchmark [statements [batch size [driver url user password]]]
+ * (default is an in-memory H2 database)
+ *
+ * @author Ralf Wisser
+ */
+public class ImportBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int statements = args.length > 0? Integer.parseInt(args[0]) : 100000;
+		int batchSize = args.length > 1? Integer.parseInt(args[1]) : 1000;
+		String driver = args.length > 5? args[2] : "org.h2.Driver";
+		String url = args.length > 5? args[3] : "jdbc:h2:mem:importbenchmark;DB_CLOSE_DELAY=-1";
+		String user = args.length > 5? args[4] : "sa";
+		String password = args.length > 5? args[5] : "";
+
+		File script = File.createTempFile("importbenchmark", ".sql");
+		script.deleteOnExit();
+		PrintWriter out = new PrintWriter(new FileWriter(script));
+		out.println("-- sync");
+		for (int i = 0; i < statements; ++i) {
+			String table = (i / 100) % 2 == 0? "BENCH_A" : "BENCH_B";
+			out.println("Insert into " + table + "(ID, NAME) values (" + i + ", 'row " + i + "');");
+		}
+		out.println("-- epilog");
+		out.close();
+
+		BasicDataSource dataSource = new BasicDataSource(driver, url, user, password, 0, (File) null);
+		Session session = new Session(dataSource, dataSource.dbms, null);
+		try {
+			for (int run = 0; run < 2; ++run) {
+				for (int size: new int[] { 0, batchSize }) {
+					createTables(session);
+					SqlScriptExecutor executor = new SqlScriptExecutor(session, 1, false);
+					executor.setBatchSize(size);
+					long start = System.nanoTime();
+					executor.executeScript(script.getPath());
+					long time = System.nanoTime() - start;
+					if (run > 0) {
+						System.out.println((size == 0? "single statements: " : "batch size " + size + ":    ") + (time / 1000000) + " ms, " + (statements * 1000000000L / time) + " statements/sec");
+					}
+				}
+			}
+		} finally {
+			session.execute("Drop table BENCH_A");
+			session.execute("Drop table BENCH_B");
+			session.shutDown();
+		}
+	}
+
+	private static void createTables(Session session) throws Exception {
+		for (String table: new String[] { "BENCH_A", "BENCH_B" }) {
+			session.setSilent(true);
+			try {
+				session.execute("Drop table " + table);
+			} catch (Exception e) {
+				// ignore
+			} finally {
+				session.setSilent(false);
+			}
+			session.execute("Create table " + table + "(ID integer primary key, NAME varchar(100))");
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer;
+
+import java.io.File;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import net.sf.jailer.configuration.DBMS;
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.database.InlineViewBuilder;
+import net.sf.jailer.database.InlineViewStyle;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.util.CellContentConverter;
+
+/**
+ * Compares fixed-size and adaptive inline-views.
+ * Ships the keys of a table through inline-views and joins them with the table,
+ * with a simulated round trip time per statement.
+ *
+ * Usage: InlineViewBenchmark [rows [round trip time in ms]]
+ * (uses an in-memory H2 database)
+ *
+ * @author Ralf Wisser
+ */
+public class InlineViewBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int rows = args.length > 0? Integer.parseInt(args[0]) : 100000;
+		final int roundTripTime = args.length > 1? Integer.parseInt(args[1]) : 1;
+
+		BasicDataSource dataSource = new BasicDataSource("org.h2.Driver", "jdbc:h2:mem:inlineviewbenchmark;DB_CLOSE_DELAY=-1", "sa", "", 0, (File) null);
+		Session setup = new Session(dataSource, dataSource.dbms, null);
+		setup.execute("Create table BENCH(ID integer primary key, NAME varchar(100))");
+		setup.execute("Insert into BENCH Select X, 'row ' || X from system_range(1, " + rows + ")");
+
+		for (int run = 0; run < 2; ++run) {
+			for (boolean adaptive: new boolean[] { false, true }) {
+				DBMS dbms = new DBMS(dataSource.dbms);
+				if (!adaptive) {
+					dbms.setMaxInlineViewRows(35);
+				}
+				final Session session = new Session(dataSource, dbms, null);
+				InlineViewStyle style = InlineViewStyle.forSession(session);
+				final long[] count = new long[2];
+				long start = System.nanoTime();
+				session.executeQuery("Select ID, NAME from BENCH", new InlineViewBuilder(style, "IV", session, new String[] { "ID", "NAME" }) {
+					@Override
+					protected void process(String inlineView) throws SQLException {
+						try {
+							Thread.sleep(roundTripTime);
+						} catch (InterruptedException e) {
+							throw new RuntimeException(e);
+						}
+						session.executeQuery("Select count(*) from " + inlineView + " join BENCH B on B.ID = IV.ID", new Session.AbstractResultSetReader() {
+							@Override
+							public void readCurrentRow(ResultSet resultSet) throws SQLException {
+								count[0] += resultSet.getLong(1);
+							}
+						});
+						++count[1];
+					}
+					@Override
+					protected CellContentConverter createCellContentConverter() {
+						return new CellContentConverter(resultSetMetaData, session, session.dbms);
+					}
+				});
+				long time = System.nanoTime() - start;
+				session.shutDown();
+				if (run > 0) {
+					System.out.println((adaptive? "adaptive:   " : "fixed (35): ") + (time / 1000000) + " ms, " + count[1] + " statements, " + count[0] + " rows");
+				}
+			}
+		}
+		setup.execute("Drop table BENCH");
+		setup.shutDown();
+	}
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import net.sf.jailer.util.JobManager;
+
+/**
+ * Measures the scheduling overhead of {@link JobManager} per "day" of
+ * association resolution. Each day consists of a few hundred short jobs,
+ * like the resolution jobs of a model with a few hundred associations.
+ * 
+ * Usage: JobManagerBenchmark [threads [days [jobs per day [job duration in micro sec]]]]
+ *  
+ * @author Ralf Wisser
+ */
+public class JobManagerBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int threads = args.length > 0? Integer.parseInt(args[0]) : 8;
+		int days = args.length > 1? Integer.parseInt(args[1]) : 40;
+		int jobsPerDay = args.length > 2? Integer.parseInt(args[2]) : 300;
+		final long jobDuration = (args.length > 3? Integer.parseInt(args[3]) : 200) * 1000L;
+		
+		JobManager jobManager = new JobManager(threads);
+		try {
+			List<JobManager.Job> jobs = new ArrayList<JobManager.Job>();
+			for (int i = 0; i < jobsPerDay; ++i) {
+				jobs.add(new JobManager.Job() {
+					@Override
+					public void run() {
+						// simulate a short resolution job waiting for the database
+						LockSupport.parkNanos(jobDuration);
+					}
+				});
+			}
+			// warm up
+			jobManager.executeJobs(jobs);
+			
+			long ideal = jobDuration * ((jobsPerDay + threads - 1) / threads);
+			long total = 0;
+			for (int day = 0; day < days; ++day) {
+				long start = System.nanoTime();
+				jobManager.executeJobs(jobs);
+				total += System.nanoTime() - start;
+			}
+			System.out.println(threads + " threads, " + days + " days, " + jobsPerDay + " jobs per day, " + (jobDuration / 1000) + " micro sec per job");
+			System.out.println("avg. time per day:     " + (total / days / 1000) + " micro sec");
+			System.out.println("avg. overhead per day: " + ((total / days - ideal) / 1000) + " micro sec");
+		} finally {
+			jobManager.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+import net.sf.jailer.util.CancellationException;
+import net.sf.jailer.util.JobManager;
+
+/**
+ * Tests {@link JobManager}
+ *  
+ * @author Ralf Wisser
+ */
+public class JobManagerTest extends TestCase {
+
+	public void testExecution() throws Exception {
+		for (int threads: new int[] { 1, 4 }) {
+			JobManager jobManager = new JobManager(threads);
+			try {
+				for (int day = 0; day < 20; ++day) {
+					final AtomicInteger counter = new AtomicInteger();
+					List<JobManager.Job> jobs = new ArrayList<JobManager.Job>();
+					for (int i = 0; i < day * 7; ++i) {
+						jobs.add(new JobManager.Job() {
+							@Override
+							public void run() {
+								counter.incrementAndGet();
+							}
+						});
+					}
+					jobManager.executeJobs(jobs);
+					assertEquals(day * 7, counter.get());
+				}
+			} finally {
+				jobManager.shutdown();
+			}
+		}
+	}
+
+	public void testExceptionPropagation() throws Exception {
+		JobManager jobManager = new JobManager(2);
+		try {
+			final AtomicInteger counter = new AtomicInteger();
+			final CyclicBarrier barrier = new CyclicBarrier(2);
+			final CountDownLatch failing = new CountDownLatch(1);
+			final Thread[] failingThread = new Thread[1];
+			List<JobManager.Job> jobs = new ArrayList<JobManager.Job>();
+			jobs.add(new JobManager.Job() {
+				@Override
+				public void run() throws SQLException {
+					failingThread[0] = Thread.currentThread();
+					await(barrier);
+					failing.countDown();
+					throw new SQLException("failed");
+				}
+			});
+			jobs.add(new JobManager.Job() {
+				@Override
+				public void run() {
+					// keeps the second runner busy until the runner of the failed job has no more jobs to take
+					await(barrier);
+					try {
+						failing.await();
+						while (failingThread[0].getState() != Thread.State.WAITING) {
+							Thread.sleep(1);
+						}
+					} catch (InterruptedException e) {
+						throw new RuntimeException(e);
+					}
+				}
+			});
+			for (int i = 0; i < 100; ++i) {
+				jobs.add(new JobManager.Job() {
+					@Override
+					public void run() {
+						counter.incrementAndGet();
+					}
+				});
+			}
+			try {
+				jobManager.executeJobs(jobs);
+				fail("exception expected");
+			} catch (SQLException e) {
+				assertEquals("failed", e.getMessage());
+			}
+			// jobs queued after the failed one are not started
+			assertEquals(0, counter.get());
+			
+			jobs.clear();
+			jobs.add(new JobManager.Job() {
+				@Override
+				public void run() {
+					throw new CancellationException();
+				}
+			});
+			try {
+				jobManager.executeJobs(jobs);
+				fail("exception expected");
+			} catch (CancellationException e) {
+				// expected
+			}
+		} finally {
+			jobManager.shutdown();
+		}
+	}
+
+	public void testConcurrentExecutions() throws Exception {
+		final JobManager jobManager = new JobManager(4);
+		try {
+			final List<Throwable> errors = new ArrayList<Throwable>();
+			List<Thread> callers = new ArrayList<Thread>();
+			for (int c = 0; c < 2; ++c) {
+				Thread caller = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							for (int round = 0; round < 2000; ++round) {
+								final AtomicInteger counter = new AtomicInteger();
+								List<JobManager.Job> jobs = new ArrayList<JobManager.Job>();
+								for (int i = 0; i < 1 + round % 9; ++i) {
+									jobs.add(new JobManager.Job() {
+										@Override
+										public void run() {
+											counter.incrementAndGet();
+										}
+									});
+								}
+								jobManager.executeJobs(jobs);
+								if (counter.get() != jobs.size()) {
+									throw new IllegalStateException(counter.get() + " of " + jobs.size() + " jobs executed");
+								}
+							}
+						} catch (Throwable t) {
+							synchronized (errors) {
+								errors.add(t);
+							}
+						}
+					}
+				});
+				caller.setDaemon(true);
+				caller.start();
+				callers.add(caller);
+			}
+			for (Thread caller: callers) {
+				caller.join(60000);
+				assertFalse("executeJobs hangs", caller.isAlive());
+			}
+			assertTrue(errors.toString(), errors.isEmpty());
+		} finally {
+			jobManager.shutdown();
+		}
+	}
+
+	private static void await(CyclicBarrier barrier) {
+		try {
+			barrier.await();
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.sql.rowset.serial.SerialBlob;
+import javax.sql.rowset.serial.SerialClob;
+
+import net.sf.jailer.configuration.DBMS;
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.database.DMLTransformer;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.database.Session.ResultSetReader;
+import net.sf.jailer.datamodel.Column;
+import net.sf.jailer.datamodel.PrimaryKeyFactory;
+import net.sf.jailer.datamodel.Table;
+
+/**
+ * Measures the throughput of the export of CLOBs and BLOBs by the {@link DMLTransformer}.
+ * Renders rows of a synthetic result set with one CLOB and one BLOB column.
+ *
+ * Usage: LobExportBenchmark [rows [LOB size [script file]]]
+ * (uses an in-memory H2 database for the session)
+ *
+ * @author Ralf Wisser
+ */
+public class LobExportBenchmark {
+
+	private static final String[] LABELS = { "ID", "TEXT", "DATA" };
+	private static final int[] TYPES = { Types.INTEGER, Types.CLOB, Types.BLOB };
+
+	public static void main(String[] args) throws Exception {
+		final int rows = args.length > 0? Integer.parseInt(args[0]) : 200;
+		final int lobSize = args.length > 1? Integer.parseInt(args[1]) : 256 * 1024;
+		String scriptFile = args.length > 2? args[2] : null;
+
+		BasicDataSource dataSource = new BasicDataSource("org.h2.Driver", "jdbc:h2:mem:lobexportbenchmark", "sa", "", 0, (File) null);
+		Session session = new Session(dataSource, dataSource.dbms, null);
+		DBMS targetDBMS = session.dbms;
+
+		Column[] columns = new Column[LABELS.length];
+		for (int i = 0; i < LABELS.length; ++i) {
+			columns[i] = new Column(LABELS[i], i == 0? "INTEGER" : i == 1? "CLOB" : "BLOB", 0, -1);
+		}
+		Table table = new Table("LOBS", new PrimaryKeyFactory(null).createPrimaryKey(Arrays.asList(columns[0]), null), false, false);
+		table.setColumns(Arrays.asList(columns));
+
+		// LOB content with line breaks and escaped characters
+		Random random = new Random(42);
+		char[] text = new char[lobSize];
+		for (int i = 0; i < text.length; ++i) {
+			int r = random.nextInt(100);
+			text[i] = r == 0? '\n' : r == 1? '\r' : r == 2? '\\' : (char) ('a' + random.nextInt(26));
+		}
+		byte[] data = new byte[lobSize];
+		random.nextBytes(data);
+
+		ExecutionContext executionContext = new ExecutionContext();
+		try {
+			for (int run = 0; run < (scriptFile == null? 3 : 1); ++run) {
+				OutputStream out = scriptFile == null? new OutputStream() {
+					@Override
+					public void write(int b) {
+					}
+					@Override
+					public void write(byte[] b, int off, int len) {
+					}
+				} : new FileOutputStream(scriptFile);
+				OutputStreamWriter writer = new OutputStreamWriter(out, "UTF-8");
+				DMLTransformer.Factory factory = new DMLTransformer.Factory(writer, false, 10000, session, targetDBMS, executionContext);
+				ResultSetReader transformer = factory.create(table);
+				ResultSet resultSet = createResultSet(rows, text, data);
+				long start = System.nanoTime();
+				while (resultSet.next()) {
+					transformer.readCurrentRow(resultSet);
+				}
+				transformer.close();
+				writer.close();
+				long time = System.nanoTime() - start;
+				System.out.println((2L * rows * lobSize * 1000L / time) + " MB/s (" + (time / 1000000) + " ms)");
+			}
+		} finally {
+			session.shutDown();
+		}
+	}
+
+	/**
+	 * Creates a result set with the given number of generated rows.
+	 */
+	static ResultSet createResultSet(final int rows, final char[] text, final byte[] data) {
+		final ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(ResultSetMetaData.class.getClassLoader(), new Class<?>[] { ResultSetMetaData.class }, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				String name = method.getName();
+				if (name.equals("getColumnCount")) {
+					return LABELS.length;
+				}
+				if (name.equals("getColumnLabel") || name.equals("getColumnName")) {
+					return LABELS[(Integer) args[0] - 1];
+				}
+				if (name.equals("getColumnType")) {
+					return TYPES[(Integer) args[0] - 1];
+				}
+				if (name.equals("getColumnTypeName")) {
+					return TYPES[(Integer) args[0] - 1] == Types.INTEGER? "INTEGER" : TYPES[(Integer) args[0] - 1] == Types.CLOB? "CLOB" : "BLOB";
+				}
+				return defaultValue(method);
+			}
+		});
+		return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class }, new InvocationHandler() {
+			int row = -1;
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Exception {
+				String name = method.getName();
+				if (name.equals("next")) {
+					return ++row < rows;
+				}
+				if (name.equals("getMetaData")) {
+					return metaData;
+				}
+				if (name.startsWith("get") && args != null && args.length == 1 && args[0] instanceof Integer) {
+					int column = (Integer) args[0];
+					if (column == 1) {
+						return name.equals("getString")? String.valueOf(row) : (Object) row;
+					}
+					if (column == 2) {
+						return new SerialClob(text);
+					}
+					return new SerialBlob(data);
+				}
+				return defaultValue(method);
+			}
+		});
+	}
+
+	private static Object defaultValue(Method method) {
+		Class<?> type = method.getReturnType();
+		if (type == Boolean.TYPE) {
+			return false;
+		}
+		if (type == Integer.TYPE) {
+			return 0;
+		}
+		if (type == Long.TYPE) {
+			return 0L;
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.database.DMLTransformer;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.database.Session.ResultSetReader;
+import net.sf.jailer.datamodel.Column;
+import net.sf.jailer.datamodel.PrimaryKeyFactory;
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.util.Base64;
+import net.sf.jailer.util.PrintUtil;
+import net.sf.jailer.util.SqlScriptExecutor;
+
+/**
+ * Tests the export of CLOBs and BLOBs by the {@link DMLTransformer}.
+ * The LOBs are large enough to be spooled into a side file.
+ *
+ * @author Ralf Wisser
+ */
+public class LobExportTest extends TestCase {
+
+	private static final int ROWS = 2;
+	private static final int LOB_SIZE = 1500 * 1024;
+
+	private Session session;
+	private Table table;
+	private char[] text;
+	private byte[] data;
+
+	@Override
+	protected void setUp() throws Exception {
+		BasicDataSource dataSource = new BasicDataSource("org.h2.Driver", "jdbc:h2:mem:lobexport", "sa", "", 0, (File) null);
+		session = new Session(dataSource, dataSource.dbms, null);
+		Column[] columns = new Column[] {
+				new Column("ID", "INTEGER", 0, -1),
+				new Column("TEXT", "CLOB", 0, -1),
+				new Column("DATA", "BLOB", 0, -1)
+		};
+		table = new Table("LOBS", new PrimaryKeyFactory(null).createPrimaryKey(Arrays.asList(columns[0]), null), false, false);
+		table.setColumns(Arrays.asList(columns));
+
+		Random random = new Random(4711);
+		text = new char[LOB_SIZE];
+		for (int i = 0; i < text.length; ++i) {
+			int r = random.nextInt(100);
+			text[i] = r == 0? '\n' : r == 1? '\r' : r == 2? '\\' : r == 3? '\u00e4' : (char) ('a' + random.nextInt(26));
+		}
+		data = new byte[LOB_SIZE];
+		random.nextBytes(data);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		session.shutDown();
+	}
+
+	/**
+	 * The script must be byte-identical to the one written by the former char-by-char export.
+	 */
+	public void testLobFormat() throws Exception {
+		String script = export(LobExportBenchmark.createResultSet(ROWS, text, data));
+		int pos = 0;
+		for (int row = 0; row < ROWS; ++row) {
+			for (String lobType: new String[] { "CLOB ", "BLOB " }) {
+				pos = script.indexOf(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT + lobType, pos);
+				assertTrue(pos >= 0);
+				StringBuilder expected = new StringBuilder();
+				expected.append(script, pos, script.indexOf(PrintUtil.LINE_SEPARATOR, pos) + PrintUtil.LINE_SEPARATOR.length());
+				if (lobType.equals("CLOB ")) {
+					appendCharacterLob(expected, text);
+				} else {
+					appendBinaryLob(expected, data);
+				}
+				String actual = script.substring(pos, Math.min(script.length(), pos + expected.length()));
+				assertTrue(Arrays.equals(expected.toString().getBytes("UTF-8"), actual.getBytes("UTF-8")));
+				pos += expected.length();
+			}
+		}
+	}
+
+	/**
+	 * A LOB that can not be read completely must not be written.
+	 */
+	public void testFailingLob() throws Exception {
+		final ResultSet resultSet = LobExportBenchmark.createResultSet(ROWS, text, data);
+		final Clob failingClob = (Clob) Proxy.newProxyInstance(Clob.class.getClassLoader(), new Class<?>[] { Clob.class }, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Exception {
+				if (method.getName().equals("length")) {
+					return (long) LOB_SIZE;
+				}
+				if (method.getName().equals("getCharacterStream")) {
+					return new Reader() {
+						int count = 0;
+						@Override
+						public int read(char[] cbuf, int off, int len) throws IOException {
+							if (count >= LOB_SIZE) {
+								throw new IOException("read failure");
+							}
+							Arrays.fill(cbuf, off, off + len, 'x');
+							count += len;
+							return len;
+						}
+						@Override
+						public void close() {
+						}
+					};
+				}
+				return null;
+			}
+		});
+		ResultSet failing = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class }, new InvocationHandler() {
+			int row = -1;
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				if (method.getName().equals("next")) {
+					++row;
+				}
+				if (row == 1 && method.getName().equals("getObject") && Integer.valueOf(2).equals(args[0])) {
+					return failingClob;
+				}
+				try {
+					return method.invoke(resultSet, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+			}
+		});
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		OutputStreamWriter writer = new OutputStreamWriter(out, "UTF-8");
+		DMLTransformer.Factory factory = new DMLTransformer.Factory(writer, false, 10000, session, session.dbms, new ExecutionContext());
+		ResultSetReader transformer = factory.create(table);
+		assertTrue(failing.next());
+		transformer.readCurrentRow(failing);
+		assertTrue(failing.next());
+		try {
+			transformer.readCurrentRow(failing);
+			fail("exception expected");
+		} catch (Exception e) {
+			// expected
+		}
+		transformer.close();
+		writer.close();
+		String script = out.toString("UTF-8");
+		assertEquals(1, count(script, SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT + "CLOB "));
+		assertEquals(1, count(script, SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT + "BLOB "));
+		assertEquals(2, count(script, SqlScriptExecutor.FINISHED_MULTILINE_COMMENT + PrintUtil.LINE_SEPARATOR));
+		assertFalse(script.contains("xxxxxxxxxx"));
+	}
+
+	private String export(ResultSet resultSet) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		OutputStreamWriter writer = new OutputStreamWriter(out, "UTF-8");
+		DMLTransformer.Factory factory = new DMLTransformer.Factory(writer, false, 10000, session, session.dbms, new ExecutionContext());
+		ResultSetReader transformer = factory.create(table);
+		while (resultSet.next()) {
+			transformer.readCurrentRow(resultSet);
+		}
+		transformer.close();
+		writer.close();
+		return out.toString("UTF-8");
+	}
+
+	private static int count(String s, String pattern) {
+		int count = 0;
+		for (int i = s.indexOf(pattern); i >= 0; i = s.indexOf(pattern, i + 1)) {
+			++count;
+		}
+		return count;
+	}
+
+	/**
+	 * Former format of a CLOB.
+	 */
+	private static void appendCharacterLob(StringBuilder script, char[] content) {
+		StringBuffer line = new StringBuffer(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT);
+		for (char c: content) {
+			if (c == '\n') {
+				script.append(line.toString() + "\\n" + PrintUtil.LINE_SEPARATOR);
+				line = new StringBuffer(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT);
+			} else {
+				if (c == '\r') {
+					line.append("\\r");
+				} else {
+					line.append(c);
+					if (c == '\\') {
+						line.append(c);
+					}
+				}
+			}
+			if (line.length() >= 200) {
+				script.append(line.toString() + PrintUtil.LINE_SEPARATOR);
+				line = new StringBuffer(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT);
+			}
+		}
+		script.append(line.toString() + PrintUtil.LINE_SEPARATOR + SqlScriptExecutor.FINISHED_MULTILINE_COMMENT + PrintUtil.LINE_SEPARATOR);
+	}
+
+	/**
+	 * Former format of a BLOB.
+	 */
+	private static void appendBinaryLob(StringBuilder script, byte[] content) throws IOException {
+		InputStream in = new ByteArrayInputStream(content);
+		StringBuffer line = new StringBuffer(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT);
+		byte[] buffer = new byte[64];
+		int size = 0;
+		int b;
+		while ((b = in.read()) != -1) {
+			buffer[size++] = (byte) b;
+			if (size == buffer.length) {
+				script.append(line.toString() + Base64.encodeBytes(buffer, Base64.DONT_BREAK_LINES) + PrintUtil.LINE_SEPARATOR);
+				size = 0;
+			}
+		}
+		script.append(line.toString() + Base64.encodeBytes(buffer, 0, size, Base64.DONT_BREAK_LINES) + PrintUtil.LINE_SEPARATOR + SqlScriptExecutor.FINISHED_MULTILINE_COMMENT + PrintUtil.LINE_SEPARATOR);
+	}
+
+}
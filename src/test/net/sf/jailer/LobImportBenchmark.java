@@ -0,0 +1,153 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Random;
+
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.database.DMLTransformer;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.database.Session.AbstractResultSetReader;
+import net.sf.jailer.database.Session.ResultSetReader;
+import net.sf.jailer.datamodel.Column;
+import net.sf.jailer.datamodel.PrimaryKeyFactory;
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.util.SqlScriptExecutor;
+
+/**
+ * Measures the throughput of the import of CLOBs and BLOBs by the {@link SqlScriptExecutor}.
+ * Imports a generated script with many small LOBs and one with a few large LOBs
+ * and checks the imported content.
+ *
+ * Usage: LobImportBenchmark [small LOBs [small LOB size [large LOBs [large LOB size]]]]
+ * (uses an in-memory H2 database)
+ *
+ * @author Ralf Wisser
+ */
+public class LobImportBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int smallLobs = args.length > 0? Integer.parseInt(args[0]) : 2000;
+		int smallLobSize = args.length > 1? Integer.parseInt(args[1]) : 8 * 1024;
+		int largeLobs = args.length > 2? Integer.parseInt(args[2]) : 8;
+		int largeLobSize = args.length > 3? Integer.parseInt(args[3]) : 4 * 1024 * 1024;
+
+		BasicDataSource dataSource = new BasicDataSource("org.h2.Driver", "jdbc:h2:mem:lobimportbenchmark;DB_CLOSE_DELAY=-1", "sa", "", 0, (File) null);
+		Session session = new Session(dataSource, dataSource.dbms, null);
+		try {
+			for (int[] lobs: new int[][] { { smallLobs, smallLobSize }, { largeLobs, largeLobSize } }) {
+				File script = createScript(session, lobs[0], lobs[1]);
+				try {
+					for (int run = 0; run < 3; ++run) {
+						createTable(session);
+						SqlScriptExecutor executor = new SqlScriptExecutor(session, 1, false);
+						long start = System.nanoTime();
+						executor.executeScript(script.getPath());
+						long time = System.nanoTime() - start;
+						System.out.println(lobs[0] + " x " + lobs[1] + ": " + (2L * lobs[0] * lobs[1] * 1000L / time) + " MB/s (" + (time / 1000000) + " ms)");
+					}
+					check(session, lobs[0], lobs[1]);
+				} finally {
+					script.delete();
+				}
+			}
+		} finally {
+			session.execute("Drop table LOBS");
+			session.shutDown();
+		}
+	}
+
+	/**
+	 * Exports generated rows into a script.
+	 */
+	private static File createScript(Session session, int rows, int lobSize) throws Exception {
+		Column[] columns = new Column[] { new Column("ID", "INTEGER", 0, -1), new Column("TEXT", "CLOB", 0, -1), new Column("DATA", "BLOB", 0, -1) };
+		Table table = new Table("LOBS", new PrimaryKeyFactory(null).createPrimaryKey(Arrays.asList(columns[0]), null), false, false);
+		table.setColumns(Arrays.asList(columns));
+
+		File script = File.createTempFile("lobimportbenchmark", ".sql");
+		script.deleteOnExit();
+		OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(script), "UTF-8");
+		DMLTransformer.Factory factory = new DMLTransformer.Factory(writer, false, 10000, session, session.dbms, new ExecutionContext());
+		ResultSetReader transformer = factory.create(table);
+		ResultSet resultSet = LobExportBenchmark.createResultSet(rows, text(lobSize), data(lobSize));
+		while (resultSet.next()) {
+			transformer.readCurrentRow(resultSet);
+		}
+		transformer.close();
+		writer.close();
+		return script;
+	}
+
+	private static void createTable(Session session) throws Exception {
+		session.setSilent(true);
+		try {
+			session.execute("Drop table LOBS");
+		} catch (Exception e) {
+			// ignore
+		} finally {
+			session.setSilent(false);
+		}
+		session.execute("Create table LOBS(ID integer primary key, TEXT clob, DATA blob)");
+	}
+
+	/**
+	 * Checks the imported LOBs.
+	 */
+	private static void check(Session session, int rows, int lobSize) throws Exception {
+		final char[] text = text(lobSize);
+		final byte[] data = data(lobSize);
+		final int[] count = new int[1];
+		session.executeQuery("Select TEXT, DATA from LOBS", new AbstractResultSetReader() {
+			@Override
+			public void readCurrentRow(ResultSet resultSet) throws SQLException {
+				if (!resultSet.getString(1).equals(new String(text)) || !Arrays.equals(resultSet.getBytes(2), data)) {
+					throw new IllegalStateException("wrong content");
+				}
+				++count[0];
+			}
+		});
+		if (count[0] != rows) {
+			throw new IllegalStateException(count[0] + " rows imported");
+		}
+	}
+
+	/**
+	 * Creates text with line breaks and escaped characters.
+	 */
+	private static char[] text(int size) {
+		Random random = new Random(42);
+		char[] text = new char[size];
+		for (int i = 0; i < text.length; ++i) {
+			int r = random.nextInt(100);
+			text[i] = r == 0? '\n' : r == 1? '\r' : r == 2? '\\' : (char) ('a' + random.nextInt(26));
+		}
+		return text;
+	}
+
+	private static byte[] data(int size) {
+		byte[] data = new byte[size];
+		new Random(42).nextBytes(data);
+		return data;
+	}
+
+}
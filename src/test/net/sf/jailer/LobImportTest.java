@@ -0,0 +1,208 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.database.DMLTransformer;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.database.Session.ResultSetReader;
+import net.sf.jailer.datamodel.Column;
+import net.sf.jailer.datamodel.PrimaryKeyFactory;
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.util.PrintUtil;
+import net.sf.jailer.util.SqlScriptExecutor;
+
+/**
+ * Tests the import of CLOBs and BLOBs by the {@link SqlScriptExecutor}.
+ * The rows are exported into a script, imported again and compared with the original rows.
+ *
+ * @author Ralf Wisser
+ */
+public class LobImportTest extends H2TestCase {
+
+	/**
+	 * Size of LOBs that are streamed from the script into the database instead of being decoded in memory.
+	 */
+	private static final int LARGE_LOB_SIZE = 1500 * 1024;
+
+	private BasicDataSource dataSource;
+	private Session session;
+	private Table table;
+	private final Random random = new Random(4711);
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		dataSource = createDataSource("lobimport", "");
+		session = new Session(dataSource, dataSource.dbms, null);
+		session.execute("CREATE TABLE LOBS(ID INTEGER PRIMARY KEY, TEXT CLOB, DATA BLOB)");
+		Column[] columns = new Column[] {
+				new Column("ID", "INTEGER", 0, -1),
+				new Column("TEXT", "CLOB", 0, -1),
+				new Column("DATA", "BLOB", 0, -1)
+		};
+		table = new Table("LOBS", new PrimaryKeyFactory(null).createPrimaryKey(Arrays.asList(columns[0]), null), false, false);
+		table.setColumns(Arrays.asList(columns));
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		session.shutDown();
+		super.tearDown();
+	}
+
+	/**
+	 * More small LOBs than are imported together.
+	 */
+	public void testSmallLobs() throws Exception {
+		for (int id = 0; id < 1200; ++id) {
+			insert(id, random.nextInt(4000));
+		}
+		importAndCompare(session, 1);
+		importAndCompare(session, 4);
+	}
+
+	/**
+	 * Large LOBs between small ones.
+	 */
+	public void testLargeLobs() throws Exception {
+		insert(0, 100);
+		insert(1, LARGE_LOB_SIZE);
+		insert(2, 100);
+		insert(3, 100);
+		insert(4, LARGE_LOB_SIZE + 1);
+		importAndCompare(session, 1);
+		importAndCompare(session, 4);
+	}
+
+	/**
+	 * Large LOBs are imported via temporary files if the driver doesn't support streams of unknown length.
+	 */
+	public void testLargeLobsWithoutStreamsOfUnknownLength() throws Exception {
+		insert(0, 100);
+		insert(1, LARGE_LOB_SIZE);
+		insert(2, LARGE_LOB_SIZE);
+		final int[] unknownLength = new int[1];
+		Session importSession = new Session(dataSource, dataSource.dbms, null) {
+			@Override
+			public void insertClob(String table, String column, String where, Reader content, long length) throws SQLException {
+				if (length < 0) {
+					++unknownLength[0];
+					throw new SQLFeatureNotSupportedException();
+				}
+				super.insertClob(table, column, where, content, length);
+			}
+			@Override
+			public void insertBlob(String table, String column, String where, InputStream content, long length) throws SQLException {
+				if (length < 0) {
+					++unknownLength[0];
+					throw new SQLFeatureNotSupportedException();
+				}
+				super.insertBlob(table, column, where, content, length);
+			}
+		};
+		try {
+			importAndCompare(importSession, 1);
+		} finally {
+			importSession.shutDown();
+		}
+		// the first large LOB detects the missing support
+		assertEquals(1, unknownLength[0]);
+	}
+
+	/**
+	 * Inserts a row with generated LOBs.
+	 *
+	 * @param id the ID
+	 * @param size size of the LOBs
+	 */
+	private void insert(int id, int size) throws SQLException {
+		char[] text = new char[size];
+		for (int i = 0; i < text.length; ++i) {
+			int r = random.nextInt(100);
+			text[i] = r == 0? '\n' : r == 1? '\r' : r == 2? '\\' : r == 3? '\u00e4' : (char) ('a' + random.nextInt(26));
+		}
+		byte[] data = new byte[size];
+		random.nextBytes(data);
+		PreparedStatement statement = session.getConnection().prepareStatement("INSERT INTO LOBS VALUES(?, ?, ?)");
+		try {
+			statement.setInt(1, id);
+			statement.setString(2, new String(text));
+			statement.setBytes(3, data);
+			statement.executeUpdate();
+		} finally {
+			statement.close();
+		}
+	}
+
+	/**
+	 * Exports the rows, deletes them, imports the script and compares the imported rows with the exported ones.
+	 *
+	 * @param importSession session for the import
+	 * @param threads number of threads for the import
+	 */
+	private void importAndCompare(Session importSession, int threads) throws Exception {
+		File script = new File(baseDir, "lobs.sql");
+		OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(script), "UTF-8");
+		try {
+			writer.write("-- encoding UTF-8" + PrintUtil.LINE_SEPARATOR);
+			DMLTransformer.Factory factory = new DMLTransformer.Factory(writer, false, 10000, session, session.dbms, new ExecutionContext());
+			ResultSetReader transformer = factory.create(table);
+			session.executeQuery("Select ID, TEXT, DATA From LOBS Order by ID", transformer);
+			transformer.close();
+		} finally {
+			writer.close();
+		}
+		List<Object[]> expected = readRows();
+		session.execute("DELETE FROM LOBS");
+
+		new SqlScriptExecutor(importSession, threads, false).executeScript(script.getPath());
+
+		List<Object[]> actual = readRows();
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); ++i) {
+			assertEquals(expected.get(i)[0], actual.get(i)[0]);
+			assertEquals("TEXT of " + expected.get(i)[0], expected.get(i)[1], actual.get(i)[1]);
+			assertTrue("DATA of " + expected.get(i)[0], Arrays.equals((byte[]) expected.get(i)[2], (byte[]) actual.get(i)[2]));
+		}
+	}
+
+	private List<Object[]> readRows() throws SQLException {
+		final List<Object[]> rows = new ArrayList<Object[]>();
+		session.executeQuery("Select ID, TEXT, DATA From LOBS Order by ID", new Session.AbstractResultSetReader() {
+			@Override
+			public void readCurrentRow(ResultSet resultSet) throws SQLException {
+				rows.add(new Object[] { resultSet.getInt(1), resultSet.getString(2), resultSet.getBytes(3) });
+			}
+		});
+		return rows;
+	}
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer;
+
+import java.io.File;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.sf.jailer.configuration.DBMS;
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.modelbuilder.JDBCMetaDataBasedModelElementFinder;
+import net.sf.jailer.modelbuilder.MetaDataCacheStore;
+
+/**
+ * Tests the persistent meta data cache.
+ *
+ * @author Ralf Wisser
+ */
+public class MetaDataCacheStoreTest extends TestCase {
+
+	private BasicDataSource dataSource;
+	private File dataModelFolder;
+
+	@Override
+	protected void setUp() throws Exception {
+		dataSource = new BasicDataSource("org.h2.Driver", "jdbc:h2:mem:mdcachetest;DB_CLOSE_DELAY=-1", "sa", "", 0, (File) null);
+		dataModelFolder = File.createTempFile("datamodel", "");
+		dataModelFolder.delete();
+		dataModelFolder.mkdirs();
+		Session session = new Session(dataSource, dataSource.dbms, null);
+		session.execute("CREATE TABLE T(ID INTEGER PRIMARY KEY, NAME VARCHAR(10))");
+		session.execute("CREATE TABLE U(ID INTEGER PRIMARY KEY)");
+		session.execute("CREATE TABLE LAST_DDL(TABLE_NAME VARCHAR(10), LAST_DDL VARCHAR(10))");
+		session.shutDown();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		Session session = new Session(dataSource, dataSource.dbms, null);
+		session.execute("DROP ALL OBJECTS");
+		session.shutDown();
+		File folder = new File(dataModelFolder, MetaDataCacheStore.FOLDER_NAME);
+		File[] files = folder.listFiles();
+		if (files != null) {
+			for (File file: files) {
+				file.delete();
+			}
+		}
+		folder.delete();
+		dataModelFolder.delete();
+	}
+
+	/**
+	 * Cached columns are used until the last-DDL value of the table changes.
+	 */
+	public void testInvalidation() throws Exception {
+		assertEquals("[ID, NAME]", columns("T", "v1"));
+		assertEquals("[ID]", columns("U", "v1"));
+		assertTrue(new File(dataModelFolder, MetaDataCacheStore.FOLDER_NAME).list().length > 0);
+
+		Session session = new Session(dataSource, dataSource.dbms, null);
+		session.execute("ALTER TABLE T ADD COLUMN X INTEGER");
+		session.shutDown();
+
+		// unchanged last-DDL value, outdated columns are read from the cache
+		assertEquals("[ID, NAME]", columns("T", "v1"));
+		// changed last-DDL value, only this table is introspected again
+		assertEquals("[ID, NAME, X]", columns("T", "v2"));
+		assertEquals("[ID, NAME, X]", columns("T", "v2"));
+		assertEquals("[ID]", columns("U", "v2"));
+	}
+
+	/**
+	 * Reads the columns of a table with a new session.
+	 *
+	 * @param lastDDLOfT last-DDL value of table T
+	 */
+	private String columns(String table, String lastDDLOfT) throws Exception {
+		DBMS dbms = new DBMS(dataSource.dbms);
+		dbms.setLastDDLQuery("SELECT T.TABLE_NAME, COALESCE((SELECT L.LAST_DDL FROM LAST_DDL L WHERE L.TABLE_NAME = T.TABLE_NAME), 'v') FROM INFORMATION_SCHEMA.TABLES T WHERE T.TABLE_SCHEMA = '${SCHEMA}'");
+		Session session = new Session(dataSource, dbms, null);
+		session.executeUpdate("DELETE FROM LAST_DDL");
+		session.executeUpdate("INSERT INTO LAST_DDL VALUES('T', '" + lastDDLOfT + "')");
+		try {
+			MetaDataCacheStore.enable(session, dataModelFolder);
+			List<String> columns = new ArrayList<String>();
+			ResultSet resultSet = JDBCMetaDataBasedModelElementFinder.getColumns(session, session.getMetaData(), "PUBLIC", table, "%", true, false, null);
+			while (resultSet.next()) {
+				columns.add(resultSet.getString(4));
+			}
+			resultSet.close();
+			JDBCMetaDataBasedModelElementFinder.resetCaches(session);
+			return columns.toString();
+		} finally {
+			session.shutDown();
+		}
+	}
+
+}
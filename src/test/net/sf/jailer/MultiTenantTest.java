@@ -0,0 +1,161 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.sf.jailer.api.Importer;
+import net.sf.jailer.api.Subsetter;
+import net.sf.jailer.configuration.DBMS;
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.subsetting.ExportStatistic;
+import net.sf.jailer.subsetting.ScriptFormat;
+
+/**
+ * Runs exports and imports of several tenants concurrently in one JVM.
+ * Each tenant has its own database, data model and extraction model.
+ * The results of a tenant must not be affected by the other tenants.
+ *
+ * @author Ralf Wisser
+ */
+public class MultiTenantTest extends H2TestCase {
+
+	private static final int TENANTS = 8;
+	private static final int LOB_SIZE = 10000;
+
+	private final BasicDataSource[] sources = new BasicDataSource[TENANTS];
+	private final BasicDataSource[] targets = new BasicDataSource[TENANTS];
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		for (int tenant = 0; tenant < TENANTS; ++tenant) {
+			sources[tenant] = createDataSource("multitenant_source" + tenant, "");
+			targets[tenant] = createDataSource("multitenant_target" + tenant, "");
+		}
+	}
+
+	public void testConcurrentTenants() throws Exception {
+		runConcurrently(TENANTS, new ConcurrentTask() {
+			@Override
+			public void prepare(int tenant) throws Exception {
+				MultiTenantTest.this.prepare(tenant);
+			}
+
+			@Override
+			public void run(int tenant) throws Exception {
+				runTenant(tenant);
+			}
+		});
+	}
+
+	/**
+	 * Creates database, data model and extraction model of a tenant.
+	 */
+	private void prepare(int tenant) throws Exception {
+		String table = table(tenant);
+		File dir = new File(baseDir, "tenant" + tenant);
+		writeDataModel(dir,
+				new String[] { table + "; N; ID INTEGER; ; Test; ;" },
+				new String[] { table + "; ID INTEGER identity; TEXT CLOB; ;" });
+		write(new File(dir, "extractionmodel.csv"), table + "; 1=1; ;");
+
+		execute(sources[tenant], "CREATE TABLE " + table + "(ID INTEGER PRIMARY KEY, TEXT CLOB)");
+		for (int id = 0; id < rows(tenant); ++id) {
+			execute(sources[tenant], "INSERT INTO " + table + " VALUES(" + id + ", '" + text(tenant) + "')");
+		}
+		execute(targets[tenant], "CREATE TABLE " + table + "(ID INTEGER PRIMARY KEY, TEXT CLOB)");
+	}
+
+	/**
+	 * Exports the rows of a tenant and imports them into the tenant's target database.
+	 */
+	private void runTenant(int tenant) throws Exception {
+		String table = table(tenant);
+		File dir = new File(baseDir, "tenant" + tenant);
+
+		Subsetter subsetter = new Subsetter(sources[tenant], null, new File(dir, "datamodel"), new File(dir, "extractionmodel.csv"), ScriptFormat.SQL);
+		File script = new File(dir, "export.sql");
+		ExportStatistic statistic = subsetter.execute(null, script);
+		assertEquals(table, rows(tenant), statistic.getTotal());
+		assertEquals(table, rows(tenant), statistic.getNumberOfExportedLOBs());
+
+		new Importer(targets[tenant]).execute(script);
+		Session session = new Session(targets[tenant], targets[tenant].dbms, null);
+		try {
+			final List<String> texts = new ArrayList<String>();
+			session.executeQuery("Select TEXT From " + table, new Session.AbstractResultSetReader() {
+				@Override
+				public void readCurrentRow(ResultSet resultSet) throws SQLException {
+					texts.add(resultSet.getString(1));
+				}
+			});
+			assertEquals(table, rows(tenant), texts.size());
+			for (String text: texts) {
+				assertEquals(table, text(tenant), text);
+			}
+		} finally {
+			session.shutDown();
+		}
+
+		// identity inserts must be switched on and off for the tenant's table only
+		subsetter.setTargetDBMS(DBMS.MSSQL);
+		File mssqlScript = new File(dir, "export-mssql.sql");
+		subsetter.execute(null, mssqlScript);
+		int on = 0, off = 0;
+		BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(mssqlScript), "UTF-8"));
+		try {
+			for (String line = in.readLine(); line != null; line = in.readLine()) {
+				if (line.startsWith("SET IDENTITY_INSERT")) {
+					assertTrue(line, line.contains(table + " "));
+					if (line.endsWith(" ON;")) {
+						++on;
+					} else {
+						++off;
+					}
+				}
+			}
+		} finally {
+			in.close();
+		}
+		assertTrue(table, on > 0);
+		assertEquals(table, on, off);
+	}
+
+	private static String table(int tenant) {
+		return "DOC" + tenant;
+	}
+
+	private static int rows(int tenant) {
+		return 2 + tenant;
+	}
+
+	private static String text(int tenant) {
+		char[] text = new char[LOB_SIZE];
+		Arrays.fill(text, (char) ('a' + tenant));
+		return new String(text);
+	}
+
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import net.sf.jailer.api.Subsetter;
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.database.WorkingTableScope;
+import net.sf.jailer.datamodel.ModelElement;
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.ddl.DDLCreator;
+import net.sf.jailer.progress.ProgressListener;
+import net.sf.jailer.subsetting.ScriptFormat;
+import net.sf.jailer.util.CancellationException;
+
+/**
+ * Tests the per-graph working tables (see {@link ExecutionContext#isPerGraphWorkingTables()}).
+ * Each entity graph must use its own tables, which are dropped afterwards,
+ * and the export must be the same as with the shared working tables.
+ *
+ * @author Ralf Wisser
+ */
+public class PerGraphWorkingTablesTest extends H2TestCase {
+
+	private static final int DEPARTMENTS = 4;
+	private static final int EMPLOYEES = 20;
+
+	/**
+	 * ID of a graph that no longer exists but whose working tables were left behind.
+	 */
+	private static final int STALE_GRAPH_ID = 4711;
+
+	/**
+	 * ID of a graph of another subsetter whose working tables must not be touched.
+	 */
+	private static final int LIVE_GRAPH_ID = 4712;
+
+	private BasicDataSource dataSource;
+	private File dataModelDir;
+
+	/**
+	 * Names of the per-graph working tables seen during the export.
+	 */
+	private final Set<String> graphTables = new TreeSet<String>();
+
+	/**
+	 * Maximum number of rows seen in the per-graph entity tables and in the shared entity table.
+	 */
+	private long graphTableRows;
+	private long sharedTableRows;
+
+	private Throwable listenerError;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		dataModelDir = writeDataModel(baseDir,
+				new String[] {
+					"DEPARTMENT; N; DEPTNO INTEGER; ; Test; ;",
+					"EMPLOYEE; N; EMPNO INTEGER; ; Test; ;" },
+				new String[] {
+					"DEPARTMENT; DEPTNO INTEGER; NAME VARCHAR(14); ;",
+					"EMPLOYEE; EMPNO INTEGER; NAME VARCHAR(10); DEPTNO INTEGER; BOSS INTEGER null; ;" },
+				"EMPLOYEE; DEPARTMENT; B; n:1; A.DEPTNO=B.DEPTNO; DEPARTMENT; Test; ;",
+				"EMPLOYEE; EMPLOYEE; B; n:1; A.BOSS=B.EMPNO; BOSS; Test; ;");
+		write(new File(baseDir, "extractionmodel.csv"),
+				"EMPLOYEE; 1=0; ;");
+
+		dataSource = createDataSource("pergraphtest", "");
+		execute(dataSource,
+				"CREATE TABLE DEPARTMENT(DEPTNO INTEGER PRIMARY KEY, NAME VARCHAR(14))",
+				"CREATE TABLE EMPLOYEE(EMPNO INTEGER PRIMARY KEY, NAME VARCHAR(10), DEPTNO INTEGER, BOSS INTEGER)");
+		for (int d = 0; d < DEPARTMENTS; ++d) {
+			execute(dataSource, "INSERT INTO DEPARTMENT VALUES(" + d + ", 'D" + d + "')");
+		}
+		// the bosses form a single cycle, so the export copies the entity graph
+		for (int e = 0; e < EMPLOYEES; ++e) {
+			execute(dataSource, "INSERT INTO EMPLOYEE VALUES(" + e + ", 'E" + e + "', " + (e % DEPARTMENTS) + ", " + ((e + 1) % EMPLOYEES) + ")");
+		}
+	}
+
+	public void testPerGraphWorkingTables() throws Exception {
+		createDDL(false);
+		List<String> sharedTablesExport = export("shared");
+		assertTrue(graphTables.isEmpty());
+		assertTrue(sharedTableRows > 0);
+
+		createDDL(true);
+		// tables left behind by an aborted run and tables of a concurrently running subsetter
+		for (int graphID: new int[] { STALE_GRAPH_ID, LIVE_GRAPH_ID }) {
+			execute(dataSource,
+					"CREATE TABLE JAILER_ENTITY" + DDLCreator.graphTableSuffix(graphID) + "(r_entitygraph INTEGER)",
+					"CREATE TABLE JAILER_DEPENDENCY" + DDLCreator.graphTableSuffix(graphID) + "(r_entitygraph INTEGER)",
+					"INSERT INTO JAILER_CONFIG(jversion, jkey, jvalue) VALUES('" + JailerVersion.WORKING_TABLE_VERSION + "', '" + DDLCreator.GRAPH_TABLE_KEY + "', '" + graphID + "')");
+		}
+		execute(dataSource, "INSERT INTO JAILER_GRAPH(id, age) VALUES(" + LIVE_GRAPH_ID + ", 1)");
+
+		List<String> perGraphTablesExport = export("per-graph");
+		assertEquals(sharedTablesExport, perGraphTablesExport);
+
+		// the tables of the graph and of its copy were used instead of the shared tables
+		Set<String> liveGraphTables = new TreeSet<String>();
+		liveGraphTables.add("JAILER_DEPENDENCY" + DDLCreator.graphTableSuffix(LIVE_GRAPH_ID));
+		liveGraphTables.add("JAILER_ENTITY" + DDLCreator.graphTableSuffix(LIVE_GRAPH_ID));
+		assertTrue(graphTables.containsAll(liveGraphTables));
+		graphTables.removeAll(liveGraphTables);
+		assertFalse(graphTables.contains("JAILER_ENTITY" + DDLCreator.graphTableSuffix(STALE_GRAPH_ID)));
+		assertFalse(graphTables.contains("JAILER_DEPENDENCY" + DDLCreator.graphTableSuffix(STALE_GRAPH_ID)));
+		assertEquals(graphTables.toString(), 0, graphTables.size() % 2);
+		assertFalse(graphTables.isEmpty());
+		assertTrue(graphTableRows > 0);
+		assertEquals(0, sharedTableRows);
+
+		// only the tables of the live graph remain
+		assertEquals(liveGraphTables, readGraphTables());
+		assertEquals(1, count(dataSource, "Select count(*) From JAILER_CONFIG Where jkey='" + DDLCreator.GRAPH_TABLE_KEY + "'"));
+		assertEquals(1, count(dataSource, "Select count(*) From JAILER_GRAPH"));
+	}
+
+	/**
+	 * Exports an employee, which leads to all employees via the bosses.
+	 *
+	 * @param name name of the export script
+	 * @return the sorted lines of the export script without comments, blank lines and separators, as the order of the rows is unspecified
+	 */
+	private List<String> export(String name) throws Exception {
+		graphTables.clear();
+		graphTableRows = 0;
+		sharedTableRows = 0;
+		Subsetter subsetter = new Subsetter(dataSource, null,
+				dataModelDir,
+				new File(baseDir, "extractionmodel.csv"),
+				ScriptFormat.SQL);
+		subsetter.setScope(WorkingTableScope.GLOBAL);
+		subsetter.getExecutionContext().getProgressListenerRegistry().addProgressListener(new ProgressListener() {
+			@Override
+			public void exported(Table table, long rc) {
+				try {
+					for (String graphTable: readGraphTables()) {
+						graphTables.add(graphTable);
+						if (graphTable.startsWith("JAILER_ENTITY")) {
+							graphTableRows = Math.max(graphTableRows, count(dataSource, "Select count(*) From " + graphTable));
+						}
+					}
+					sharedTableRows = Math.max(sharedTableRows, count(dataSource, "Select count(*) From JAILER_ENTITY"));
+				} catch (Throwable t) {
+					listenerError = t;
+				}
+			}
+			@Override
+			public void collectionJobEnqueued(int day, ModelElement modelElement) {
+			}
+			@Override
+			public void collectionJobStarted(int day, ModelElement modelElement) {
+			}
+			@Override
+			public void collected(int day, ModelElement modelElement, long rc) {
+			}
+			@Override
+			public void explained(long rc) {
+			}
+			@Override
+			public void newStage(String stage, boolean isErrorStage, boolean isFinalStage) {
+			}
+			@Override
+			public void prepareExport() throws CancellationException {
+			}
+		});
+		File script = new File(baseDir, name + ".sql");
+		assertEquals(EMPLOYEES + DEPARTMENTS, subsetter.execute("T.EMPNO=0", script).getTotal());
+		if (listenerError != null) {
+			throw new RuntimeException(listenerError);
+		}
+
+		List<String> lines = new ArrayList<String>();
+		BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(script), "UTF-8"));
+		try {
+			for (String line = in.readLine(); line != null; line = in.readLine()) {
+				if (!line.startsWith("--") && line.trim().length() > 0) {
+					lines.add(line.replaceAll("^[\\s,]+|[\\s,;]+$", ""));
+				}
+			}
+		} finally {
+			in.close();
+		}
+		Collections.sort(lines);
+		return lines;
+	}
+
+	private void createDDL(boolean perGraphWorkingTables) throws Exception {
+		ExecutionContext executionContext = new ExecutionContext();
+		executionContext.setDataModelURL(dataModelDir.toURI().toURL());
+		executionContext.setPerGraphWorkingTables(perGraphWorkingTables);
+		assertTrue(new DDLCreator(executionContext).createDDL(dataSource, dataSource.dbms, WorkingTableScope.GLOBAL, null));
+	}
+
+	/**
+	 * Reads the names of the existing per-graph working tables.
+	 */
+	private Set<String> readGraphTables() throws SQLException {
+		final Set<String> tables = new TreeSet<String>();
+		Session session = new Session(dataSource, dataSource.dbms, null);
+		try {
+			session.executeQuery("Select TABLE_NAME From INFORMATION_SCHEMA.TABLES", new Session.AbstractResultSetReader() {
+				@Override
+				public void readCurrentRow(ResultSet resultSet) throws SQLException {
+					String table = resultSet.getString(1);
+					if (table.matches("JAILER_(ENTITY|DEPENDENCY)_G\\d+")) {
+						tables.add(table);
+					}
+				}
+			});
+		} finally {
+			session.shutDown();
+		}
+		return tables;
+	}
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import junit.framework.TestCase;
+import net.sf.jailer.util.ParallelGZIPOutputStream;
+import net.sf.jailer.util.ReadAheadInputStream;
+import net.sf.jailer.util.ScriptCodec;
+import net.sf.jailer.util.ScriptCodecRegistry;
+
+/**
+ * Tests {@link ParallelGZIPOutputStream}, {@link ReadAheadInputStream} and the built-in {@link ScriptCodec}s.
+ *  
+ * @author Ralf Wisser
+ */
+public class ScriptCodecTest extends TestCase {
+
+	public void testParallelGZIP() throws Exception {
+		for (int size: new int[] { 0, 1, 32 * 1024 - 1, 32 * 1024, 100000, 1000000 }) {
+			byte[] data = createData(size);
+			for (int threads: new int[] { 1, 3 }) {
+				ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+				OutputStream out = new ParallelGZIPOutputStream(compressed, threads, 32 * 1024, Deflater.DEFAULT_COMPRESSION);
+				for (int i = 0; i < size; i += 1000) {
+					if (i % 3000 == 0) {
+						out.write(data[i]);
+						out.write(data, i + 1, Math.min(size, i + 1000) - i - 1);
+					} else {
+						out.write(data, i, Math.min(size, i + 1000) - i);
+					}
+				}
+				out.close();
+				assertTrue(Arrays.equals(data, readAll(new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray())))));
+			}
+		}
+	}
+
+	public void testCodecs() throws Exception {
+		byte[] data = createData(500000);
+		for (String fileName: new String[] { "script.sql.gz", "script.sql.zip", "script.sql" }) {
+			ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+			OutputStream out = ScriptCodecRegistry.createOutputStream(encoded, fileName);
+			out.write(data);
+			out.close();
+			InputStream in = ScriptCodecRegistry.createInputStream(new ByteArrayInputStream(encoded.toByteArray()), fileName);
+			assertTrue(fileName, Arrays.equals(data, readAll(in)));
+			in.close();
+		}
+		assertNull(ScriptCodecRegistry.forFile("script.sql"));
+		assertSame(ScriptCodecRegistry.GZIP, ScriptCodecRegistry.forFile("SCRIPT.SQL.GZ"));
+	}
+
+	public void testReadAheadFailure() throws Exception {
+		InputStream failing = new InputStream() {
+			int count = 0;
+			@Override
+			public int read() throws IOException {
+				if (++count > 100000) {
+					throw new IllegalStateException("read failure");
+				}
+				return 'a';
+			}
+		};
+		InputStream in = new ReadAheadInputStream(failing, 4);
+		try {
+			readAll(in);
+			fail("exception expected");
+		} catch (IOException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		} finally {
+			in.close();
+		}
+	}
+
+	public void testReadAheadClose() throws Exception {
+		final AtomicBoolean closed = new AtomicBoolean(false);
+		InputStream endless = new InputStream() {
+			@Override
+			public int read() throws IOException {
+				return 'a';
+			}
+			@Override
+			public void close() throws IOException {
+				closed.set(true);
+			}
+		};
+		InputStream in = new ReadAheadInputStream(endless, 4);
+		assertEquals('a', in.read());
+		in.close();
+		assertTrue(closed.get());
+		in.close();
+	}
+
+	private byte[] createData(int size) {
+		Random random = new Random(size);
+		byte[] data = new byte[size];
+		for (int i = 0; i < size; ++i) {
+			data[i] = (byte) (random.nextInt(8) == 0? random.nextInt(256) : 'a' + (i % 13));
+		}
+		return data;
+	}
+
+	private byte[] readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int n;
+		while ((n = in.read(buffer)) >= 0) {
+			result.write(buffer, 0, n);
+		}
+		return result.toByteArray();
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.database.DMLTransformer;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.database.Session.ResultSetReader;
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.util.JobManager;
+
+/**
+ * Measures the throughput of concurrent {@link DMLTransformer}s writing into one script.
+ * Each job renders the rows of a synthetic result set of its own table.
+ *
+ * Usage: ScriptOutputBenchmark [rows per job [jobs [rows per statement]]]
+ * (uses an in-memory H2 database for the session)
+ *
+ * @author Ralf Wisser
+ */
+public class ScriptOutputBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		final int rows = args.length > 0? Integer.parseInt(args[0]) : 50000;
+		int numJobs = args.length > 1? Integer.parseInt(args[1]) : 32;
+		int rowsPerStatement = args.length > 2? Integer.parseInt(args[2]) : 10;
+
+		BasicDataSource dataSource = new BasicDataSource("org.h2.Driver", "jdbc:h2:mem:scriptoutputbenchmark", "sa", "", 0, (File) null);
+		Session session = new Session(dataSource, dataSource.dbms, null);
+		ExecutionContext executionContext = new ExecutionContext();
+		File script = File.createTempFile("scriptoutputbenchmark", ".sql");
+		script.deleteOnExit();
+
+		try {
+			for (int run = 0; run < 2; ++run) {
+				for (int threads: new int[] { 1, 4, 8, 16 }) {
+					OutputStreamWriter out = new OutputStreamWriter(new FileOutputStream(script));
+					final DMLTransformer.Factory factory = new DMLTransformer.Factory(out, false, rowsPerStatement, session, session.dbms, executionContext);
+					List<JobManager.Job> jobs = new ArrayList<JobManager.Job>();
+					for (int i = 0; i < numJobs; ++i) {
+						final Table table = DMLTransformerBenchmark.createTable("BENCH_" + i);
+						jobs.add(new JobManager.Job() {
+							@Override
+							public void run() throws SQLException {
+								ResultSetReader transformer = factory.create(table);
+								ResultSet resultSet = DMLTransformerBenchmark.createResultSet(rows);
+								while (resultSet.next()) {
+									transformer.readCurrentRow(resultSet);
+								}
+								transformer.close();
+							}
+						});
+					}
+					JobManager jobManager = new JobManager(threads);
+					long start = System.nanoTime();
+					jobManager.executeJobs(jobs);
+					out.close();
+					long time = System.nanoTime() - start;
+					jobManager.shutdown();
+					if (run > 0) {
+						System.out.println(threads + " threads: " + (time / 1000000) + " ms, " + ((long) rows * numJobs * 1000000000L / time) + " rows/sec");
+					}
+				}
+			}
+		} finally {
+			session.shutDown();
+		}
+	}
+
+}
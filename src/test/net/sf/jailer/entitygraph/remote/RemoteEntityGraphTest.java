@@ -0,0 +1,202 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.entitygraph.remote;
+
+import java.io.File;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+
+import net.sf.jailer.ExecutionContext;
+import net.sf.jailer.H2TestCase;
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.database.Session.ResultSetReader;
+import net.sf.jailer.database.WorkingTableScope;
+import net.sf.jailer.datamodel.Association;
+import net.sf.jailer.datamodel.DataModel;
+import net.sf.jailer.datamodel.RowIdSupport;
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.ddl.DDLCreator;
+import net.sf.jailer.subsetting.TransformerFactory;
+
+/**
+ * Tests the number of entities per table maintained by the {@link RemoteEntityGraph}.
+ * After each operation, the maintained number must be equal to the number of entities counted by SQL.
+ *
+ * @author Ralf Wisser
+ */
+public class RemoteEntityGraphTest extends H2TestCase {
+
+	private static final int DEPARTMENTS = 4;
+	private static final int EMPLOYEES = 20;
+
+	private BasicDataSource dataSource;
+	private Session session;
+	private DataModel dataModel;
+	private ExecutionContext executionContext;
+	private Table department;
+	private Table employee;
+	private Association employeeToDepartment;
+
+	/**
+	 * Number of entities read by the transformers.
+	 */
+	private long readRows;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		File dataModelDir = writeDataModel(baseDir,
+				new String[] {
+					"DEPARTMENT; N; DEPTNO INTEGER; ; Test; ;",
+					"EMPLOYEE; N; EMPNO INTEGER; ; Test; ;" },
+				new String[] {
+					"DEPARTMENT; DEPTNO INTEGER; NAME VARCHAR(14); ;",
+					"EMPLOYEE; EMPNO INTEGER; NAME VARCHAR(10); DEPTNO INTEGER; ;" },
+				"EMPLOYEE; DEPARTMENT; B; n:1; A.DEPTNO=B.DEPTNO; DEPARTMENT; Test; ;");
+
+		dataSource = createDataSource("entitygraphtest", "");
+		execute(dataSource,
+				"CREATE TABLE DEPARTMENT(DEPTNO INTEGER PRIMARY KEY, NAME VARCHAR(14))",
+				"CREATE TABLE EMPLOYEE(EMPNO INTEGER PRIMARY KEY, NAME VARCHAR(10), DEPTNO INTEGER)");
+		for (int d = 0; d < DEPARTMENTS; ++d) {
+			execute(dataSource, "INSERT INTO DEPARTMENT VALUES(" + d + ", 'D" + d + "')");
+		}
+		for (int e = 0; e < EMPLOYEES; ++e) {
+			execute(dataSource, "INSERT INTO EMPLOYEE VALUES(" + e + ", 'E" + e + "', " + (e % DEPARTMENTS) + ")");
+		}
+
+		executionContext = new ExecutionContext();
+		executionContext.setDataModelURL(dataModelDir.toURI().toURL());
+		assertTrue(new DDLCreator(executionContext).createDDL(dataSource, dataSource.dbms, WorkingTableScope.GLOBAL, null));
+		dataModel = new DataModel(executionContext);
+		department = dataModel.getTable("DEPARTMENT");
+		employee = dataModel.getTable("EMPLOYEE");
+		for (Association association: employee.associations) {
+			if (association.destination == department) {
+				employeeToDepartment = association;
+			}
+		}
+		assertNotNull(employeeToDepartment);
+		session = new Session(dataSource, dataSource.dbms, null);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		session.shutDown();
+		super.tearDown();
+	}
+
+	public void testEntityCounts() throws Exception {
+		RemoteEntityGraph graph = createGraph(1);
+		assertCounts(graph, 0, 0);
+
+		// add
+		assertEquals(EMPLOYEES / DEPARTMENTS, graph.addEntities(employee, "T.DEPTNO=0", 1));
+		assertCounts(graph, 5, 0);
+		assertEquals(3, graph.addEntities(employee, "T.EMPNO < 4 and T.DEPTNO <> 0", 1));
+		assertCounts(graph, 8, 0);
+		graph.resolveAssociation(employee, employeeToDepartment, 2);
+		assertCounts(graph, 8, 4);
+
+		// remove, all departments except 0 have employees outside the graph
+		graph.removeAssociatedDestinations(employeeToDepartment, false);
+		assertCounts(graph, 8, 1);
+
+		// copy
+		RemoteEntityGraph copy = (RemoteEntityGraph) graph.copy(2, session);
+		assertCounts(copy, 8, 1);
+		assertEquals(4, copy.deleteEntities(department));
+		assertCounts(copy, 8, 0);
+		assertCounts(graph, 8, 1);
+
+		// read markers and delete
+		graph.markIndependentEntities(department);
+		graph.readMarkedEntities(department, false);
+		assertEquals(1, readRows);
+		graph.deleteIndependentEntities(department);
+		assertCounts(graph, 8, 0);
+		graph.markEntities(employee, Collections.singletonList(new String[] { "1" }));
+		graph.readMarkedEntities(employee, true);
+		assertEquals(2, readRows);
+		graph.deleteIndependentEntities(employee);
+		assertCounts(graph, 7, 0);
+		graph.markRoots(employee);
+		graph.readMarkedEntities(employee, false);
+		assertEquals(9, readRows);
+		graph.deleteIndependentEntities(employee);
+		assertCounts(graph, 0, 0);
+
+		// the removed departments are still in the graph
+		assertEquals(3, graph.deleteEntities(department));
+		assertCounts(graph, 0, 0);
+
+		// unite, the entities are counted again
+		graph.addEntities(employee, "T.EMPNO < 3", 4);
+		assertCounts(graph, 3, 0);
+		copy.addEntities(department, "T.DEPTNO = 3", 1);
+		assertCounts(copy, 8, 1);
+		graph.uniteWith(copy);
+		assertNull(graph.getMaintainedEntityCounts());
+		assertEquals(8 + 1, graph.getSize());
+		assertCounts(graph, 8, 1);
+		assertEquals(0, count(session, "Select count(*) From JAILER_ENTITY Where r_entitygraph=" + copy.graphID));
+
+		// delete
+		graph.delete();
+		assertCounts(graph, 0, 0);
+		assertEquals(0, count(session, "Select count(*) From JAILER_ENTITY"));
+	}
+
+	private RemoteEntityGraph createGraph(int graphID) throws SQLException {
+		RemoteEntityGraph graph = RemoteEntityGraph.create(dataModel, graphID, session,
+				new RowIdSupport(dataModel, session.dbms, executionContext).getUniversalPrimaryKey(session), null, executionContext);
+		graph.setTransformerFactory(new TransformerFactory() {
+			@Override
+			public ResultSetReader create(Table table) throws SQLException {
+				return new Session.AbstractResultSetReader() {
+					@Override
+					public void readCurrentRow(ResultSet resultSet) throws SQLException {
+						++readRows;
+					}
+				};
+			}
+		});
+		return graph;
+	}
+
+	/**
+	 * Asserts that the maintained numbers of entities are valid and equal to the numbers counted by SQL.
+	 *
+	 * @param graph the graph
+	 * @param employees expected number of employees
+	 * @param departments expected number of departments
+	 */
+	private void assertCounts(RemoteEntityGraph graph, long employees, long departments) throws SQLException {
+		Map<Table, Long> counts = graph.getMaintainedEntityCounts();
+		assertNotNull(counts);
+		for (Table table: new Table[] { employee, department }) {
+			Long count = counts.get(table);
+			assertEquals(table.getName(), graph.countEntities(table), count == null? 0 : count.longValue());
+		}
+		assertEquals(employees, graph.countEntities(employee));
+		assertEquals(departments, graph.countEntities(department));
+		assertEquals(employees + departments, graph.getSize());
+	}
+
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2007 - 2019 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.subsetting;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+import net.sf.jailer.datamodel.Column;
+import net.sf.jailer.datamodel.PrimaryKeyFactory;
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.entitygraph.KeyAccessibleEntityGraph;
+
+/**
+ * Tests the {@link TopologicalWritePlanner}.
+ *
+ * @author Ralf Wisser
+ */
+public class TopologicalWritePlannerTest extends TestCase {
+
+	private final Table a = createTable("A");
+	private final Table b = createTable("B");
+
+	/**
+	 * Entity graph holding the keys in memory.
+	 */
+	private static class KeyGraph implements KeyAccessibleEntityGraph {
+		private final List<Object[]> entities = new ArrayList<Object[]>();
+		private final List<Object[]> dependencies = new ArrayList<Object[]>();
+
+		KeyGraph entity(Table table, String key, int birthday) {
+			entities.add(new Object[] { table, key, birthday });
+			return this;
+		}
+
+		KeyGraph dependency(Table from, String fromKey, Table to, String toKey) {
+			dependencies.add(new Object[] { from, fromKey, to, toKey });
+			return this;
+		}
+
+		@Override
+		public boolean readEntityKeys(Table table, EntityKeyReader reader) throws SQLException {
+			for (Object[] entity: entities) {
+				if (entity[0].equals(table)) {
+					reader.readEntity(table, new String[] { (String) entity[1] }, (Integer) entity[2]);
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public void readDependencyKeys(Table table, EntityKeyReader reader) throws SQLException {
+			for (Object[] dependency: dependencies) {
+				if (dependency[0].equals(table)) {
+					reader.readDependency(table, new String[] { (String) dependency[1] }, (Table) dependency[2], new String[] { (String) dependency[3] });
+				}
+			}
+		}
+
+		@Override
+		public void readEntitiesByKeys(Table table, List<String[]> keys) {
+		}
+
+		@Override
+		public void markEntities(Table table, List<String[]> keys) {
+		}
+	}
+
+	public void testChain() throws Exception {
+		KeyGraph graph = new KeyGraph()
+			.entity(a, "1", 1).entity(a, "2", 1).entity(b, "1", 1).entity(b, "2", 1)
+			.dependency(b, "1", a, "1")
+			.dependency(b, "2", b, "1")
+			.dependency(a, "2", b, "2");
+		TopologicalWritePlanner planner = plan(graph, a, b);
+		assertEquals(4, planner.getNumberOfLevels());
+		assertEquals("A1", level(planner, 0));
+		assertEquals("B1", level(planner, 1));
+		assertEquals("B2", level(planner, 2));
+		assertEquals("A2", level(planner, 3));
+		assertEquals(0, planner.getNumberOfUnplannedEntities());
+		assertTrue(planner.getPlannedEntitiesOfPartiallyPlannedTables().isEmpty());
+	}
+
+	public void testSelfReference() throws Exception {
+		KeyGraph graph = new KeyGraph()
+			.entity(a, "1", 1).entity(a, "2", 1).entity(a, "3", 1).entity(a, "4", 1).entity(a, "5", 1)
+			.dependency(a, "2", a, "1")
+			.dependency(a, "3", a, "2")
+			.dependency(a, "4", a, "4")
+			.dependency(a, "5", a, "4");
+		TopologicalWritePlanner planner = plan(graph, a);
+		assertEquals(3, planner.getNumberOfLevels());
+		assertEquals("A1", level(planner, 0));
+		assertEquals("A2", level(planner, 1));
+		assertEquals("A3", level(planner, 2));
+		assertEquals(2, planner.getNumberOfUnplannedEntities());
+		Map<Table, List<String[]>> partial = planner.getPlannedEntitiesOfPartiallyPlannedTables();
+		assertEquals(1, partial.size());
+		assertEquals(3, partial.get(a).size());
+	}
+
+	public void testCycleBrokenAtRowLevel() throws Exception {
+		// A and B depend on each other, but the rows don't
+		KeyGraph graph = new KeyGraph()
+			.entity(a, "1", 1).entity(a, "2", 1).entity(b, "1", 1).entity(b, "2", 1)
+			.dependency(a, "1", b, "1")
+			.dependency(b, "1", a, "2")
+			.dependency(b, "2", a, "1");
+		TopologicalWritePlanner planner = plan(graph, a, b);
+		assertEquals(4, planner.getNumberOfLevels());
+		assertEquals("A2", level(planner, 0));
+		assertEquals("B1", level(planner, 1));
+		assertEquals("A1", level(planner, 2));
+		assertEquals("B2", level(planner, 3));
+		assertEquals(0, planner.getNumberOfUnplannedEntities());
+	}
+
+	public void testMarkedAndUnloadedEntities() throws Exception {
+		Table c = createTable("C");
+		KeyGraph graph = new KeyGraph()
+			.entity(a, "1", 0).entity(a, "2", 1).entity(b, "1", 1)
+			.dependency(a, "1", a, "2")
+			.dependency(a, "2", a, "1")
+			.dependency(b, "1", c, "1");
+		TopologicalWritePlanner planner = plan(graph, a, b);
+		assertEquals(2, planner.getNumberOfLevels());
+		assertEquals("A1", level(planner, 0));
+		assertEquals("A2", level(planner, 1));
+		assertEquals(1, planner.getNumberOfUnplannedEntities());
+		Map<Table, List<String[]>> partial = planner.getPlannedEntitiesOfPartiallyPlannedTables();
+		assertEquals(1, partial.size());
+		assertTrue(partial.get(b).isEmpty());
+	}
+
+	public void testMemoryLimit() throws Exception {
+		KeyGraph graph = new KeyGraph();
+		for (int i = 0; i < 100; ++i) {
+			graph.entity(a, String.valueOf(i), 1);
+			if (i > 0) {
+				graph.dependency(a, String.valueOf(i), a, String.valueOf(i - 1));
+			}
+		}
+		TopologicalWritePlanner planner = new TopologicalWritePlanner(1000);
+		assertFalse(planner.plan(graph, tables(a)));
+		assertTrue(planner.getMemoryUsage() > 1000);
+
+		planner = plan(graph, a);
+		assertEquals(100, planner.getNumberOfLevels());
+		assertTrue(planner.getMemoryUsage() > 1000);
+	}
+
+	private TopologicalWritePlanner plan(KeyGraph graph, Table... tables) throws SQLException {
+		TopologicalWritePlanner planner = new TopologicalWritePlanner(1024L * 1024L);
+		assertTrue(planner.plan(graph, tables(tables)));
+		return planner;
+	}
+
+	private static Set<Table> tables(Table... tables) {
+		return new LinkedHashSet<Table>(Arrays.asList(tables));
+	}
+
+	/**
+	 * Gets the entities on a given level, as sorted list of table names and keys.
+	 */
+	private static String level(TopologicalWritePlanner planner, int level) {
+		Set<String> entities = new TreeSet<String>();
+		for (Map.Entry<Table, List<String[]>> e: planner.getEntities(level).entrySet()) {
+			for (String[] key: e.getValue()) {
+				entities.add(e.getKey().getName() + key[0]);
+			}
+		}
+		StringBuilder sb = new StringBuilder();
+		for (String entity: entities) {
+			if (sb.length() > 0) {
+				sb.append(" ");
+			}
+			sb.append(entity);
+		}
+		return sb.toString();
+	}
+
+	private static Table createTable(String name) {
+		Column id = new Column("ID", "INTEGER", 0, -1);
+		Table table = new Table(name, new PrimaryKeyFactory(null).createPrimaryKey(Arrays.asList(id), null), false, false);
+		table.setColumns(Arrays.asList(id));
+		return table;
+	}
+
+}